@@ -18,8 +18,10 @@
 #include <boost/function.hpp>
 
 #include <core/BoostThread.hpp>
+#include <core/DateTime.hpp>
 #include <core/Log.hpp>
 #include <shared_core/Error.hpp>
+#include <shared_core/SafeConvert.hpp>
 #include <core/BoostErrors.hpp>
 #include <core/Thread.hpp>
 #include <core/system/System.hpp>
@@ -29,11 +31,19 @@
 #include <core/http/Request.hpp>
 
 #include <session/SessionOptions.hpp>
+#include <session/SessionPersistentState.hpp>
 #include <session/SessionHttpConnectionListener.hpp>
 #include <session/SessionClientEventService.hpp>
+#include <session/SessionConsoleProcessSocket.hpp>
 
 #include "SessionClientEventQueue.hpp"
 
+#include "session-config.h"
+
+#ifdef RSTUDIO_SERVER
+#include <server_core/UrlPorts.hpp>
+#endif
+
 using namespace rstudio::core;
 using namespace boost::placeholders;
 
@@ -44,11 +54,20 @@ namespace {
 
 const int kLastChanceWaitSeconds = 4;
 
-bool hasEventIdLessThanOrEqualTo(const json::Value& event, int targetId)
+// websocket used to push events to clients which have opted into the
+// streaming event channel (see startEventStream); this gets its own port
+// rather than the one reserved for terminals
+console_process::ConsoleProcessSocket s_eventSocket(false);
+
+int eventId(const json::Value& event)
 {
    const json::Object& eventJSON = event.getObject();
-   int eventId = (*eventJSON.find("id")).getValue().getInt();
-   return eventId <= targetId;
+   return (*eventJSON.find("id")).getValue().getInt();
+}
+
+bool hasEventIdLessThanOrEqualTo(const json::Value& event, int targetId)
+{
+   return eventId(event) <= targetId;
 }
          
 } // anonymous namespace
@@ -114,14 +133,27 @@ void ClientEventService::stop()
    
 void ClientEventService::setClientId(const std::string& clientId, bool clearEvents)
 {
+   std::string staleEventStreamHandle;
    LOCK_MUTEX(mutex_)
    {
       clientId_ = clientId.c_str(); // avoid ref count
       if (clearEvents)
          clientEvents_.clear();
+
+      // an event stream opened by a previous client is no longer wanted
+      if (!eventStreamHandle_.empty() && eventStreamClientId_ != clientId_)
+      {
+         staleEventStreamHandle = eventStreamHandle_;
+         eventStreamHandle_.clear();
+         eventStreamClientId_.clear();
+         eventStreamConnected_ = false;
+      }
    }
    END_LOCK_MUTEX
 
+   if (!staleEventStreamHandle.empty())
+      s_eventSocket.stopListening(staleEventStreamHandle);
+
    if (clearEvents)
       clientEventQueue().clear();
 }
@@ -138,6 +170,208 @@ std::string ClientEventService::clientId()
    return std::string();
 }
 
+Error ClientEventService::startEventStream(std::string* pPort, std::string* pHandle)
+{
+   Error error = s_eventSocket.ensureServerRunning();
+   if (error)
+      return error;
+
+   // the handle appears in the socket's URL, so it's a fresh id rather
+   // than anything identifying the client
+   std::string handle = core::system::generateUuid(false);
+   std::string previousHandle;
+   LOCK_MUTEX(mutex_)
+   {
+      previousHandle = eventStreamHandle_;
+      eventStreamHandle_ = handle;
+      eventStreamClientId_ = std::string(clientId_.c_str()); // avoid ref-count
+      eventStreamConnected_ = false;
+   }
+   END_LOCK_MUTEX
+
+   // a stream the client opened earlier is replaced by this one
+   if (!previousHandle.empty())
+      s_eventSocket.stopListening(previousHandle);
+
+   using boost::bind;
+   console_process::ConsoleProcessSocketConnectionCallbacks callbacks;
+   callbacks.onConnectionOpened = bind(&ClientEventService::onEventStreamOpened, this);
+   callbacks.onReceivedInput = bind(&ClientEventService::onEventStreamInput, this, _1);
+   callbacks.onConnectionClosed = bind(&ClientEventService::onEventStreamClosed, this);
+   error = s_eventSocket.listen(handle, callbacks);
+   if (error)
+      return error;
+
+   // as with terminals, the client reaches the socket through the /p proxy
+   // in server mode, which expects an obfuscated port token
+   int port = s_eventSocket.port();
+   *pPort = safe_convert::numberToString(port);
+#ifdef RSTUDIO_SERVER
+   if (options().programMode() == kSessionProgramModeServer)
+      *pPort = server_core::transformPort(persistentState().portToken(), port);
+#endif
+   *pHandle = handle;
+   return Success();
+}
+
+bool ClientEventService::eventStreamConnected()
+{
+   LOCK_MUTEX(mutex_)
+   {
+      return eventStreamConnected_;
+   }
+   END_LOCK_MUTEX
+
+   // keep compiler happy
+   return false;
+}
+
+void ClientEventService::onEventStreamOpened()
+{
+   LOCK_MUTEX(mutex_)
+   {
+      // (re)send everything the client hasn't yet acknowledged; the client
+      // ignores any events it has already seen
+      eventStreamConnected_ = true;
+      eventStreamLastEventIdSent_ = -1;
+   }
+   END_LOCK_MUTEX
+}
+
+void ClientEventService::onEventStreamInput(const std::string& input)
+{
+   // the only input we expect is the id of the last event the client saw
+   int lastClientEventIdSeen = safe_convert::stringTo<int>(input, -1);
+   if (lastClientEventIdSeen < 0)
+      return;
+
+   erasePreviouslyDeliveredEvents(lastClientEventIdSeen);
+
+   LOCK_MUTEX(mutex_)
+   {
+      eventStreamLastEventIdSeen_ =
+            std::max(eventStreamLastEventIdSeen_, lastClientEventIdSeen);
+   }
+   END_LOCK_MUTEX
+}
+
+void ClientEventService::onEventStreamClosed()
+{
+   // the client falls back to get_events, which will pick up any events
+   // that were sent but never acknowledged
+   LOCK_MUTEX(mutex_)
+   {
+      eventStreamConnected_ = false;
+   }
+   END_LOCK_MUTEX
+}
+
+int ClientEventService::eventStreamLastEventIdSeen()
+{
+   LOCK_MUTEX(mutex_)
+   {
+      return eventStreamLastEventIdSeen_;
+   }
+   END_LOCK_MUTEX
+
+   // keep compiler happy
+   return -1;
+}
+
+void ClientEventService::sendEventStreamEvents(int* pNextEventId)
+{
+   // convert queued events to json and add event ids; as with get_events
+   // we hold on to them until the client acknowledges receipt, so that they
+   // can still be delivered over http if the socket goes away
+   std::vector<ClientEvent> events;
+   clientEventQueue().remove(&events);
+   for (auto it = events.begin(); it != events.end(); ++it)
+   {
+      json::Object event;
+      it->asJsonObject((*pNextEventId)++, &event);
+      addClientEvent(event);
+   }
+
+   // collect the events which haven't yet been sent over the socket
+   json::Array unsentEvents;
+   int lastEventIdSent = -1;
+   std::string handle;
+   LOCK_MUTEX(mutex_)
+   {
+      for (const json::Value& event : clientEvents_)
+      {
+         int id = eventId(event);
+         if (id > eventStreamLastEventIdSent_)
+         {
+            unsentEvents.push_back(event);
+            lastEventIdSent = id;
+         }
+      }
+      handle = eventStreamHandle_;
+   }
+   END_LOCK_MUTEX
+
+   if (unsentEvents.isEmpty())
+      return;
+
+   // include the send time so the client can measure delivery latency
+   json::Object message;
+   message["time"] = date_time::millisecondsSinceEpoch();
+   message["events"] = unsentEvents;
+   Error error = s_eventSocket.sendText(handle, message.write());
+   if (error)
+   {
+      LOG_ERROR(error);
+      return;
+   }
+
+   LOCK_MUTEX(mutex_)
+   {
+      eventStreamLastEventIdSent_ = lastEventIdSent;
+   }
+   END_LOCK_MUTEX
+}
+
+bool ClientEventService::waitForEventUnlessStreaming(
+      const boost::posix_time::time_duration& waitDuration)
+{
+   // wait in short slices so that a get_events request doesn't keep the
+   // client waiting once it has switched over to the event stream
+   using namespace boost::posix_time;
+   const time_duration slice = seconds(1);
+
+   boost::system_time waitUntilTime = boost::get_system_time() + waitDuration;
+   while (!eventStreamConnected())
+   {
+      time_duration remaining = waitUntilTime - boost::get_system_time();
+      if (remaining <= time_duration())
+         return false;
+
+      if (clientEventQueue().waitForEvent(std::min(remaining, slice)))
+         return true;
+   }
+
+   return false;
+}
+
+void ClientEventService::completePendingEventsRequests()
+{
+   // the client stops polling once it's streaming, but a get_events request
+   // sent just before the switch may still be queued; answer it (with no
+   // events, as those are delivered over the stream) rather than leave it
+   // hanging
+   HttpConnectionQueue& connectionQueue =
+         httpConnectionListener().eventsConnectionQueue();
+   while (boost::shared_ptr<HttpConnection> ptrConnection =
+             connectionQueue.dequeConnection())
+   {
+      json::JsonRpcResponse response;
+      response.setResult(json::Array());
+      response.setField(kEventsPending, "false");
+      ptrConnection->sendJsonRpcResponse(response);
+   }
+}
+
 void ClientEventService::erasePreviouslyDeliveredEvents(int lastClientEventIdSeen)
 {
    LOCK_MUTEX(mutex_)
@@ -212,6 +446,41 @@ void ClientEventService::run()
       bool stopServer = false;
       while (!stopServer || clientEventQueue.hasEvents())
       {
+         // when the client is connected to the event stream, push events
+         // to it as soon as they are produced (with only a brief delay to
+         // pick up others produced in rapid succession)
+         if (eventStreamConnected())
+         {
+            try
+            {
+               if (!stopServer &&
+                   (clientEventQueue.hasEvents() ||
+                    clientEventQueue.waitForEvent(seconds(1))))
+               {
+                  boost::system_time maxBatchDelayTime =
+                                 boost::get_system_time() + batchDelay;
+
+                  while ( clientEventQueue.waitForEvent(milliseconds(1)) &&
+                          (boost::get_system_time() < maxBatchDelayTime) )
+                  {
+                  }
+               }
+
+               if (boost::this_thread::interruption_requested())
+                  throw boost::thread_interrupted();
+            }
+            catch(const boost::thread_interrupted&)
+            {
+               // send whatever is left and then stop
+               stopServer = true;
+            }
+
+            nextEventId = std::max(nextEventId, eventStreamLastEventIdSeen() + 1);
+            sendEventStreamEvents(&nextEventId);
+            completePendingEventsRequests();
+            continue;
+         }
+
          boost::shared_ptr<HttpConnection> ptrConnection;
          try
          {
@@ -290,7 +559,7 @@ void ClientEventService::run()
          {
             // wait for the specified maximum time
             if (havePendingClientEvents() || clientEventQueue.hasEvents() ||
-                clientEventQueue.waitForEvent(maxRequestSec))
+                waitForEventUnlessStreaming(maxRequestSec))
             {
                // ...got at least one event
                
@@ -43,6 +43,10 @@ ConsoleProcessSocket s_terminalSocket;
 // Posix-only, use is gated via getTrackEnv() always being false on Win32.
 const std::string kEnvCommand = "/usr/bin/env";
 
+// Most websocket output held while the client has paused output, before it
+// is trimmed to the number of lines the client can show.
+const std::size_t kMaxPausedOutputSize = 4 * 1024 * 1024;
+
 // Environment variables that shouldn't be saved / restored when serializing a Terminal session.
 std::set<std::string> s_ignoredEnvironmentVariables;
 
@@ -638,6 +642,16 @@ void ConsoleProcess::enqueOutputEvent(const std::string &output)
 
    if (procInfo_->getChannelMode() == Websocket)
    {
+      if (outputPaused_)
+      {
+         // the client has fallen behind; hold output until it catches up,
+         // keeping no more than the client can show
+         pausedOutput_.append(output);
+         if (pausedOutput_.length() > kMaxPausedOutputSize)
+            string_utils::trimLeadingLines(procInfo_->getMaxOutputLines(), &pausedOutput_);
+         return;
+      }
+
       s_terminalSocket.sendText(procInfo_->getHandle(), output);
       return;
    }
@@ -1118,6 +1132,7 @@ ConsoleProcessSocketConnectionCallbacks ConsoleProcess::createConsoleProcessSock
    cb.onReceivedInput = boost::bind(&ConsoleProcess::onReceivedInput, ConsoleProcess::shared_from_this(), _1);
    cb.onConnectionOpened = boost::bind(&ConsoleProcess::onConnectionOpened, ConsoleProcess::shared_from_this());
    cb.onConnectionClosed = boost::bind(&ConsoleProcess::onConnectionClosed, ConsoleProcess::shared_from_this());
+   cb.onOutputPaused = boost::bind(&ConsoleProcess::onOutputPaused, ConsoleProcess::shared_from_this(), _1);
    return cb;
 }
 
@@ -1142,6 +1157,14 @@ void ConsoleProcess::onReceivedInput(const std::string& input)
 void ConsoleProcess::onConnectionClosed()
 {
    s_terminalSocket.stopListening(handle());
+
+   // a new connection reloads the buffer, so held output isn't needed
+   LOCK_MUTEX(inputOutputQueueMutex_)
+   {
+      outputPaused_ = false;
+      pausedOutput_.clear();
+   }
+   END_LOCK_MUTEX
 }
 
 // websocket connection opened; called on different thread
@@ -1149,6 +1172,21 @@ void ConsoleProcess::onConnectionOpened()
 {
 }
 
+// client asked for output to be paused or resumed; called on different thread
+void ConsoleProcess::onOutputPaused(bool paused)
+{
+   LOCK_MUTEX(inputOutputQueueMutex_)
+   {
+      outputPaused_ = paused;
+      if (!paused && !pausedOutput_.empty())
+      {
+         s_terminalSocket.sendText(procInfo_->getHandle(), pausedOutput_);
+         pausedOutput_.clear();
+      }
+   }
+   END_LOCK_MUTEX
+}
+
 void ConsoleProcess::saveEnvironment(const std::string& env)
 {
    if (env.empty())
@@ -40,9 +40,10 @@ bool s_didSeedRand = false;
 
 } // anonymous namespace
 
-ConsoleProcessSocket::ConsoleProcessSocket()
+ConsoleProcessSocket::ConsoleProcessSocket(bool useTerminalPort)
    :
      port_(0),
+     useTerminalPort_(useTerminalPort),
      serverRunning_(false),
      activeConnections_(0)
 {
@@ -72,7 +73,9 @@ Error ConsoleProcessSocket::ensureServerRunning()
       s_didSeedRand = true;
    }
 
-   std::string portStr = session::options().terminalPort();
+   std::string portStr;
+   if (useTerminalPort_)
+      portStr = session::options().terminalPort();
    if (portStr.empty())
    {
       // no user-specified port; pick a random port
@@ -330,6 +333,15 @@ void ConsoleProcessSocket::onMessage(terminalServer* s,
    {
       sendPong(handle);
    }
+   else if (ConsoleProcessSocketPacket::isPauseOutput(payload) ||
+            ConsoleProcessSocketPacket::isResumeOutput(payload))
+   {
+      if (details.connectionCallbacks_.onOutputPaused)
+      {
+         details.connectionCallbacks_.onOutputPaused(
+                  ConsoleProcessSocketPacket::isPauseOutput(payload));
+      }
+   }
    else if (details.connectionCallbacks_.onReceivedInput)
    {
       details.connectionCallbacks_.onReceivedInput(ConsoleProcessSocketPacket::getMessage(payload));
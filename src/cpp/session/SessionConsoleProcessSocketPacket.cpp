@@ -21,6 +21,8 @@ namespace console_process {
 
 const std::string ConsoleProcessSocketPacket::kKeepAlivePrefix = "b";
 const std::string ConsoleProcessSocketPacket::kTextPrefix = "a";
+const std::string ConsoleProcessSocketPacket::kPauseOutputPrefix = "c";
+const std::string ConsoleProcessSocketPacket::kResumeOutputPrefix = "d";
 
 /* static */
 std::string ConsoleProcessSocketPacket::textPacket(const std::string& text)
@@ -34,12 +36,36 @@ std::string ConsoleProcessSocketPacket::keepAlivePacket()
    return kKeepAlivePrefix;
 }
 
+/* static */
+std::string ConsoleProcessSocketPacket::pauseOutputPacket()
+{
+   return kPauseOutputPrefix;
+}
+
+/* static */
+std::string ConsoleProcessSocketPacket::resumeOutputPacket()
+{
+   return kResumeOutputPrefix;
+}
+
 /* static */
 bool ConsoleProcessSocketPacket::isKeepAlive(const std::string& text)
 {
    return text == kKeepAlivePrefix;
 }
 
+/* static */
+bool ConsoleProcessSocketPacket::isPauseOutput(const std::string& text)
+{
+   return text == kPauseOutputPrefix;
+}
+
+/* static */
+bool ConsoleProcessSocketPacket::isResumeOutput(const std::string& text)
+{
+   return text == kResumeOutputPrefix;
+}
+
 /* static */
 std::string ConsoleProcessSocketPacket::getMessage(const std::string& text)
 {
@@ -120,6 +120,11 @@ public:
       didClose_ = true;
    }
 
+   void onOutputPaused(bool paused)
+   {
+      outputPaused_ = paused;
+   }
+
    ConsoleProcessSocketConnectionCallbacks createConsoleProcessSocketConnectionCallbacks()
    {
       using boost::bind;
@@ -130,6 +135,8 @@ public:
             bind(&SocketConnection::onConnectionOpened, SocketConnection::shared_from_this());
       cb.onConnectionClosed =
             bind(&SocketConnection::onConnectionClosed, SocketConnection::shared_from_this());
+      cb.onOutputPaused =
+            bind(&SocketConnection::onOutputPaused, SocketConnection::shared_from_this(), _1);
       return cb;
    }
 
@@ -162,12 +169,19 @@ public:
    bool didClose() const { return didClose_; }
    bool didOpen() const { return didOpen_; }
 
+   bool outputPaused() const
+   {
+      blockingwait(50);
+      return outputPaused_;
+   }
+
 private:
    std::string handle_;
    std::string received_;
    boost::shared_ptr<SocketHarness> pServerSocket_;
    bool didClose_;
    bool didOpen_;
+   bool outputPaused_ = false;
 };
 
 using client = websocketpp::client<websocketpp::config::asio_client>;
@@ -287,9 +301,14 @@ public:
    }
 
    bool sendText(const std::string& str)
+   {
+      return sendRawText(ConsoleProcessSocketPacket::textPacket(str));
+   }
+
+   bool sendRawText(const std::string& packet)
    {
       websocketpp::lib::error_code ec;
-      client_.send(hdl_, ConsoleProcessSocketPacket::textPacket(str), websocketpp::frame::opcode::text, ec);
+      client_.send(hdl_, packet, websocketpp::frame::opcode::text, ec);
       if (ec)
       {
          std::string error = ec.message();
@@ -435,6 +454,29 @@ test_context("websocket for interactive terminals")
       expect_true(pSocket->stopServer());
    }
 
+   test_that("client can pause and resume output")
+   {
+      shared_ptr<SocketHarness> pSocket = make_shared<SocketHarness>();
+      expect_true(pSocket->ensureServerRunning());
+
+      shared_ptr<SocketConnection> pConnection = boost::make_shared<SocketConnection>(handle1, pSocket);
+      shared_ptr<SocketClient> pClient = boost::make_shared<SocketClient>(handle1, pSocket->port());
+      expect_true(pConnection->listen());
+      expect_true(pClient->connectToServer());
+
+      pClient->waitForConnectionOrError();
+
+      expect_true(pClient->sendRawText(ConsoleProcessSocketPacket::pauseOutputPacket()));
+      expect_true(pConnection->outputPaused());
+      expect_true(pConnection->getReceived().empty());
+
+      expect_true(pClient->sendRawText(ConsoleProcessSocketPacket::resumeOutputPacket()));
+      expect_false(pConnection->outputPaused());
+
+      expect_true(pClient->disconnectFromServer());
+      expect_true(pSocket->stopServer());
+   }
+
    test_that("client can make multiple connections to server")
    {
       // ---- one socket on server ----
@@ -639,6 +639,19 @@ void handleConnection(boost::shared_ptr<HttpConnection> ptrConnection,
    else if (isJsonRpcRequest(ptrConnection)) // check for json-rpc
    {
       using namespace module_context;
+
+      // skip query requests which the client has since superseded (it has
+      // already cancelled them, so the response is only a formality)
+      if (connection::isSupersededRequest(ptrConnection))
+      {
+         if (s_protocolDebugEnabled)
+            LOG_DEBUG_MESSAGE("Skip superseded: " + uri);
+         ptrConnection->sendJsonRpcError(
+                  systemError(boost::system::errc::operation_canceled, ERROR_LOCATION));
+         return;
+      }
+      connection::releaseCoalescedRequest(ptrConnection);
+
       // r code may execute - ensure session is initialized
       init::ensureSessionInitialized();
 
@@ -358,6 +358,26 @@ Error bufferConsoleInput(const core::json::JsonRpcRequest& request,
    return console_input::extractConsoleInput(request);
 }
 
+Error startEventStream(const core::json::JsonRpcRequest& request,
+                       json::JsonRpcResponse* pResponse)
+{
+   // the event stream shares the terminal's websocket policy
+   if (!options().allowTerminalWebsockets())
+      return Error(json::errc::MethodUnexpected, ERROR_LOCATION);
+
+   std::string port;
+   std::string handle;
+   Error error = clientEventService().startEventStream(&port, &handle);
+   if (error)
+      return error;
+
+   json::Object result;
+   result["port"] = port;
+   result["handle"] = handle;
+   pResponse->setResult(result);
+   return Success();
+}
+
 void doSuspendForRestart(const rstudio::r::session::RSuspendOptions& options)
 {
    module_context::consoleWriteOutput("\nRestarting R session...\n\n");
@@ -554,6 +574,7 @@ Error rInit(const rstudio::r::session::RInitInfo& rInitInfo)
       // json-rpc listeners
       (bind(registerRpcMethod, kConsoleInput, bufferConsoleInput))
       (bind(registerRpcMethod, kSuspendForRestart, suspendForRestart))
+      (bind(registerRpcMethod, kStartEventStream, startEventStream))
 
       // signal handlers
       (registerSignalHandlers)
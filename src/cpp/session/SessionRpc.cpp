@@ -154,6 +154,204 @@ SEXP rs_invokeRpc(SEXP name, SEXP args)
    return result;
 }
 
+// batched rpc support: the client may send a number of independent rpc
+// requests in a single envelope; each is executed in order and the responses
+// are returned as an array in the same order
+const char * const kBatchRpc = "batch_rpc";
+
+struct BatchState
+{
+   json::JsonRpcRequest batchRequest;
+   json::Array requests;
+   json::Array responses;
+   std::vector<json::JsonRpcResponse> afterResponses;
+   json::JsonRpcFunctionContinuation continuation;
+};
+
+void executeBatchEntry(boost::shared_ptr<BatchState> pState, std::size_t index);
+
+Error parseBatchEntry(const json::Value& value,
+                      const json::JsonRpcRequest& batchRequest,
+                      json::JsonRpcRequest* pRequest)
+{
+   if (!value.isObject())
+      return Error(json::errc::InvalidRequest, ERROR_LOCATION);
+   
+   const json::Object& entry = value.getObject();
+   json::Object::Iterator it = entry.find("method");
+   if (it == entry.end() || !(*it).getValue().isString())
+      return Error(json::errc::InvalidRequest, ERROR_LOCATION);
+   pRequest->method = (*it).getValue().getString();
+
+   it = entry.find("params");
+   if (it != entry.end())
+   {
+      if (!(*it).getValue().isArray())
+         return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+      pRequest->params = (*it).getValue().getArray();
+   }
+
+   it = entry.find("kwparams");
+   if (it != entry.end())
+   {
+      if (!(*it).getValue().isObject())
+         return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+      pRequest->kwparams = (*it).getValue().getObject();
+   }
+
+   it = entry.find("sourceWnd");
+   if (it != entry.end() && (*it).getValue().isString())
+      pRequest->sourceWindow = (*it).getValue().getString();
+
+   // client identity is validated for the envelope as a whole
+   pRequest->clientId = batchRequest.clientId;
+   pRequest->clientVersion = batchRequest.clientVersion;
+   pRequest->version = batchRequest.version;
+   pRequest->isBackgroundConnection = batchRequest.isBackgroundConnection;
+
+   return Success();
+}
+
+void endBatchEntry(boost::shared_ptr<BatchState> pState,
+                   std::size_t index,
+                   boost::posix_time::ptime executeStartTime,
+                   const core::Error& executeError,
+                   json::JsonRpcResponse* pJsonRpcResponse)
+{
+   json::JsonRpcResponse response;
+   if (pJsonRpcResponse != nullptr)
+      response = *pJsonRpcResponse;
+   
+   if (executeError)
+   {
+      response.setError(executeError);
+   }
+   else if (!response.suppressDetectChanges())
+   {
+      module_context::events().onDetectChanges(
+               module_context::ChangeSourceRPC);
+   }
+
+   // let the client know whether this call produced events
+   if (!response.hasField(kEventsPending) &&
+       !clientEventQueue().eventAddedSince(executeStartTime) &&
+       !response.hasAfterResponse())
+   {
+      response.setField(kEventsPending, "false");
+   }
+
+   pState->responses.push_back(response.getRawResponse());
+   if (response.hasAfterResponse())
+      pState->afterResponses.push_back(response);
+
+   executeBatchEntry(pState, index + 1);
+}
+
+void runBatchAfterResponses(boost::shared_ptr<BatchState> pState)
+{
+   for (json::JsonRpcResponse& response : pState->afterResponses)
+   {
+      response.runAfterResponse();
+      if (!response.suppressDetectChanges())
+      {
+         module_context::events().onDetectChanges(
+                  module_context::ChangeSourceRPC);
+      }
+   }
+}
+
+void executeBatchEntry(boost::shared_ptr<BatchState> pState, std::size_t index)
+{
+   using namespace boost::posix_time;
+   
+   // all entries executed; return the collected responses
+   if (index >= pState->requests.getSize())
+   {
+      json::JsonRpcResponse response;
+      response.setResult(pState->responses);
+      
+      // detect changes was already run for each entry
+      response.setSuppressDetectChanges(true);
+      
+      if (!pState->afterResponses.empty())
+         response.setAfterResponse(boost::bind(runBatchAfterResponses, pState));
+      
+      pState->continuation(Success(), &response);
+      return;
+   }
+
+   ptime executeStartTime = microsec_clock::universal_time();
+   
+   json::JsonRpcRequest request;
+   Error error = parseBatchEntry(pState->requests[index], pState->batchRequest, &request);
+   if (error)
+   {
+      endBatchEntry(pState, index, executeStartTime, error, nullptr);
+      return;
+   }
+
+   auto it = s_pJsonRpcMethods->find(request.method);
+   if (it == s_pJsonRpcMethods->end() || request.method == kBatchRpc)
+   {
+      Error executeError = Error(json::errc::MethodNotFound, ERROR_LOCATION);
+      executeError.addProperty("method", request.method);
+      LOG_ERROR(executeError);
+      endBatchEntry(pState, index, executeStartTime, executeError, nullptr);
+      return;
+   }
+
+   std::pair<bool, json::JsonRpcAsyncFunction> reg = it->second;
+   json::JsonRpcAsyncFunction handlerFunction = reg.second;
+   if (reg.first)
+   {
+      // direct return: the response is collected into the batch
+      handlerFunction(request,
+                      boost::bind(endBatchEntry,
+                                  pState,
+                                  index,
+                                  executeStartTime,
+                                  _1,
+                                  _2));
+   }
+   else
+   {
+      // indirect return: hand the client an async handle for this entry
+      // and deliver the result via the event stream, just as we would
+      // for a request sent on its own
+      std::string asyncHandle = core::system::generateUuid(true);
+      json::JsonRpcResponse response;
+      response.setAsyncHandle(asyncHandle);
+      response.setField(kEventsPending, "false");
+      pState->responses.push_back(response.getRawResponse());
+
+      handlerFunction(request,
+                      boost::bind(rpc::endHandleRpcRequestIndirect,
+                                  asyncHandle,
+                                  _1,
+                                  _2));
+
+      executeBatchEntry(pState, index + 1);
+   }
+}
+
+void handleBatchRpc(const json::JsonRpcRequest& request,
+                    const json::JsonRpcFunctionContinuation& continuation)
+{
+   boost::shared_ptr<BatchState> pState(new BatchState());
+   pState->batchRequest = request;
+   pState->continuation = continuation;
+   
+   Error error = json::readParams(request.params, &pState->requests);
+   if (error)
+   {
+      json::JsonRpcResponse response;
+      continuation(error, &response);
+      return;
+   }
+   
+   executeBatchEntry(pState, 0);
+}
+
 } // anonymous namespace
 
 
@@ -385,11 +583,16 @@ Error initialize()
 
    RS_REGISTER_CALL_METHOD(rs_invokeRpc);
 
+   s_pJsonRpcMethods->insert(
+         std::make_pair(kBatchRpc,
+                        std::make_pair(true, json::JsonRpcAsyncFunction(handleBatchRpc))));
+
    s_offlineableUris.insert("/rpc/save_document");
    s_offlineableUris.insert("/rpc/save_document_diff");
    s_offlineableUris.insert("/rpc/open_document");
    s_offlineableUris.insert("/rpc/set_client_state");
    s_offlineableUris.insert("/rpc/list_files");
+   s_offlineableUris.insert("/rpc/list_files_page");
    s_offlineableUris.insert("/rpc/modify_document_properties");
    s_offlineableUris.insert("/rpc/check_for_external_edit");
    s_offlineableUris.insert("/rpc/start_terminal");
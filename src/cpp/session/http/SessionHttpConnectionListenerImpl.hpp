@@ -339,6 +339,9 @@ private:
       if (connection::checkForInterrupt(ptrHttpConnection))
          return;
 
+      // note the latest request on each coalesced channel
+      connection::recordCoalescedRequest(ptrHttpConnection);
+
       // place the connection on the correct queue
       if (connection::isGetEvents(ptrHttpConnection))
       {
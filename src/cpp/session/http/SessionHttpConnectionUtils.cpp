@@ -16,12 +16,16 @@
 
 #include "SessionHttpConnectionUtils.hpp"
 
+#include <map>
+
 #include <boost/algorithm/string/predicate.hpp>
 
 #include <shared_core/FilePath.hpp>
 #include <core/Log.hpp>
 #include <shared_core/Error.hpp>
 #include <core/FileSerializer.hpp>
+#include <core/SafeConvert.hpp>
+#include <core/Thread.hpp>
 
 
 #include <core/http/Response.hpp>
@@ -282,6 +286,79 @@ bool checkForInterrupt(boost::shared_ptr<HttpConnection> ptrConnection)
    return true;
 }
 
+namespace {
+
+// latest sequence number seen on each coalesced request channel
+boost::mutex s_coalesceMutex;
+std::map<std::string, int> s_coalesceLatest;
+
+bool readCoalesceToken(boost::shared_ptr<HttpConnection> ptrConnection,
+                       std::string* pChannel,
+                       int* pSequence)
+{
+   // tokens are of the form <channel>:<sequence>
+   std::string token = ptrConnection->request().headerValue("X-RS-Coalesce");
+   std::string::size_type pos = token.rfind(':');
+   if (pos == std::string::npos || pos == 0)
+      return false;
+
+   *pChannel = token.substr(0, pos);
+   *pSequence = safe_convert::stringTo<int>(token.substr(pos + 1), -1);
+   return *pSequence >= 0;
+}
+
+} // anonymous namespace
+
+void recordCoalescedRequest(boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   std::string channel;
+   int sequence;
+   if (!readCoalesceToken(ptrConnection, &channel, &sequence))
+      return;
+
+   LOCK_MUTEX(s_coalesceMutex)
+   {
+      int& latest = s_coalesceLatest[channel];
+      latest = std::max(latest, sequence);
+   }
+   END_LOCK_MUTEX
+}
+
+bool isSupersededRequest(boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   std::string channel;
+   int sequence;
+   if (!readCoalesceToken(ptrConnection, &channel, &sequence))
+      return false;
+
+   LOCK_MUTEX(s_coalesceMutex)
+   {
+      auto it = s_coalesceLatest.find(channel);
+      return it != s_coalesceLatest.end() && it->second > sequence;
+   }
+   END_LOCK_MUTEX
+
+   return false;
+}
+
+void releaseCoalescedRequest(boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   std::string channel;
+   int sequence;
+   if (!readCoalesceToken(ptrConnection, &channel, &sequence))
+      return;
+
+   // channels include a per-page client key, so forget channels once the
+   // latest request on them has been run rather than letting them accumulate
+   LOCK_MUTEX(s_coalesceMutex)
+   {
+      auto it = s_coalesceLatest.find(channel);
+      if (it != s_coalesceLatest.end() && it->second <= sequence)
+         s_coalesceLatest.erase(it);
+   }
+   END_LOCK_MUTEX
+}
+
 bool authenticate(boost::shared_ptr<HttpConnection> ptrConnection,
                   const std::string& secret)
 {
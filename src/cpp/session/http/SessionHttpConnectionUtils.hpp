@@ -52,6 +52,19 @@ bool checkForSuspend(boost::shared_ptr<HttpConnection> ptrConnection);
 
 bool checkForInterrupt(boost::shared_ptr<HttpConnection> ptrConnection);
 
+// requests to idempotent query methods (completions, lint, ...) may carry a
+// coalescing token; a request is superseded once a later request on the
+// same channel has been received, and needn't be run. requests are recorded
+// as they arrive on the listener thread, so that those still queued behind
+// a busy main thread can be skipped
+void recordCoalescedRequest(boost::shared_ptr<HttpConnection> ptrConnection);
+
+bool isSupersededRequest(boost::shared_ptr<HttpConnection> ptrConnection);
+
+// called as a request that wasn't superseded is run; the channel is
+// forgotten if no later request on it has been received
+void releaseCoalescedRequest(boost::shared_ptr<HttpConnection> ptrConnection);
+
 bool authenticate(boost::shared_ptr<HttpConnection> ptrConnection,
                   const std::string& secret);
 
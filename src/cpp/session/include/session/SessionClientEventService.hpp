@@ -41,7 +41,12 @@ ClientEventService& clientEventService();
 class ClientEventService : boost::noncopyable
 {
 private:
-   ClientEventService() {}
+   ClientEventService()
+      : eventStreamConnected_(false),
+        eventStreamLastEventIdSeen_(-1),
+        eventStreamLastEventIdSent_(-1)
+   {
+   }
    friend ClientEventService& clientEventService();
 
 public:
@@ -54,9 +59,26 @@ public:
 
    std::string clientId();
 
+   // start the streaming event channel for the active client; the client
+   // connects a websocket to the returned port (or port token, when the
+   // socket is reached through the server's proxy) and handle, after which
+   // events are pushed to it as they are produced rather than returned
+   // in response to get_events
+   core::Error startEventStream(std::string* pPort, std::string* pHandle);
+
 private:
    void run();
 
+   bool eventStreamConnected();
+   void onEventStreamOpened();
+   void onEventStreamInput(const std::string& input);
+   void onEventStreamClosed();
+   int eventStreamLastEventIdSeen();
+   void sendEventStreamEvents(int* pNextEventId);
+   bool waitForEventUnlessStreaming(
+         const boost::posix_time::time_duration& waitDuration);
+   void completePendingEventsRequests();
+
    void erasePreviouslyDeliveredEvents(int lastClientEventIdSeen);
    bool havePendingClientEvents();
    void addClientEvent(const core::json::Object& eventObject);
@@ -69,6 +91,12 @@ private:
 
    std::string clientId_;
    core::json::Array clientEvents_;
+
+   std::string eventStreamHandle_;
+   std::string eventStreamClientId_;
+   bool eventStreamConnected_;
+   int eventStreamLastEventIdSeen_;
+   int eventStreamLastEventIdSent_;
 };
    
   
@@ -229,6 +229,7 @@ private:
    ConsoleProcessSocketConnectionCallbacks createConsoleProcessSocketConnectionCallbacks();
    void onConnectionOpened();
    void onConnectionClosed();
+   void onOutputPaused(bool paused);
 
    void saveEnvironment(const std::string& env);
    static void loadEnvironment(const std::string& handle, core::system::Options* pEnv);
@@ -267,6 +268,11 @@ private:
    int lastInputSequence_ = kIgnoreSequence;
    boost::mutex inputOutputQueueMutex_;
 
+   // Websocket output held while the client has asked for output to be
+   // paused; guarded by inputOutputQueueMutex_
+   bool outputPaused_ = false;
+   std::string pausedOutput_;
+
    boost::function<bool(const std::string&, Input*)> onPrompt_;
    RSTUDIO_BOOST_SIGNAL<void(int)> onExit_;
 
@@ -38,6 +38,10 @@ struct ConsoleProcessSocketConnectionCallbacks
 
    // invoked when connection closes
    boost::function<void ()> onConnectionClosed;
+
+   // invoked when the client asks for output to be paused (because it has
+   // fallen behind) or resumed
+   boost::function<void (bool paused)> onOutputPaused;
 };
 
 } // namespace console_process
@@ -73,7 +73,9 @@ struct ConsoleProcessSocketConnectionDetails
 class ConsoleProcessSocket : boost::noncopyable
 {
 public:
-   ConsoleProcessSocket();
+   // useTerminalPort: listen on the port given by the terminal-port option,
+   // if any; otherwise a random port is chosen
+   explicit ConsoleProcessSocket(bool useTerminalPort = true);
    ~ConsoleProcessSocket();
 
    // start the websocket servicing thread
@@ -122,6 +124,7 @@ private:
    core::thread::ThreadsafeMap<std::string, ConsoleProcessSocketConnectionDetails> connections_;
 
    int port_;
+   bool useTerminalPort_;
    boost::thread websocketThread_;
    bool serverRunning_;
    boost::shared_ptr<terminalServer> pwsServer_;
@@ -29,6 +29,8 @@ namespace console_process {
  * First character is a method indicator, as follows:
  *    "a" = send text, e.g. "aHello"
  *    "b" = ping/pong, e.g. "b"
+ *    "c" = pause output, sent by the client when it has fallen behind
+ *    "d" = resume output
  *
  * Only the "send text" method has a payload (everything after the "a").
  *
@@ -43,15 +45,27 @@ public:
    // create keepalive packet
    static std::string keepAlivePacket();
 
+   // create packets asking for output to be paused or resumed
+   static std::string pauseOutputPacket();
+   static std::string resumeOutputPacket();
+
    // is this packet a keep-alive packet?
    static bool isKeepAlive(const std::string& text);
 
+   // is this packet asking for output to be paused?
+   static bool isPauseOutput(const std::string& text);
+
+   // is this packet asking for output to be resumed?
+   static bool isResumeOutput(const std::string& text);
+
    // extract text from packet (empty string if unable to comply)
    static std::string getMessage(const std::string& text);
 
 private:
    static const std::string kKeepAlivePrefix;
    static const std::string kTextPrefix;
+   static const std::string kPauseOutputPrefix;
+   static const std::string kResumeOutputPrefix;
 };
 
 } // namespace console_process
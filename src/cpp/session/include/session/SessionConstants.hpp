@@ -181,6 +181,7 @@ const char * const kConsoleInput = "console_input";
 const char * const kSuspendForRestart = "suspend_for_restart";
 const char * const kRStudioAPIShowDialogMethod = "rstudio_api_show_dialog";
 const char * const kPing = "ping";
+const char * const kStartEventStream = "start_event_stream";
 
 // session exit codes - note max value supported by Linux is 255
 #define SESSION_EXIT_CODE_OFFSET              200
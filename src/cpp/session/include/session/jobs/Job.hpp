@@ -125,9 +125,15 @@ public:
    // execute a custom (user-defined) action
    core::Error executeAction(const std::string& name);
 
-   // add and retrieve output
+   // add and retrieve output; output is addressed by entry, so that output(start, end)
+   // returns entries [start, end), or all entries from start if end is negative
    void addOutput(const std::string& output, bool error);
    core::json::Array output(int position);
+   core::json::Array output(int start, int end);
+
+   // retrieve the last maxEntries entries of output, and the position of the first; if maxLines
+   // is positive, fewer entries are returned if needed to keep to that many lines of text
+   core::json::Array outputTail(int maxEntries, int maxLines, int* pPosition);
 
    // whether the job pane should should be shown at start
    bool show() const;
@@ -447,6 +447,8 @@ namespace prefs {
 #define kCodeFormatterExternalCommand "code_formatter_external_command"
 #define kReformatOnSave "reformat_on_save"
 #define kProjectUserDataDirectory "project_user_data_directory"
+#define kBatchRpcRequests "batch_rpc_requests"
+#define kStreamSessionEvents "stream_session_events"
 
 class UserPrefValues: public Preferences
 {
@@ -2024,6 +2026,18 @@ public:
    std::string projectUserDataDirectory();
    core::Error setProjectUserDataDirectory(std::string val);
 
+   /**
+    * Whether to send independent RPC requests made at the same time to the R session in a single batched request.
+    */
+   bool batchRpcRequests();
+   core::Error setBatchRpcRequests(bool val);
+
+   /**
+    * Whether to receive session events over a persistent WebSocket connection instead of by polling.
+    */
+   bool streamSessionEvents();
+   core::Error setStreamSessionEvents(bool val);
+
 };
 
         
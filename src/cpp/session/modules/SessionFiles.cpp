@@ -23,6 +23,7 @@
 #include <iostream>
 #include <sstream>
 #include <algorithm>
+#include <cctype>
 #include <gsl/gsl>
 
 #include <boost/lexical_cast.hpp>
@@ -245,6 +246,20 @@ core::Error getFileContents(const json::JsonRpcRequest& request,
    return Success();
 }
    
+bool isParentBrowseable(const FilePath& targetPath)
+{
+   bool browseable = true;
+
+#ifndef _WIN32
+   // on *nix systems, see if browsing above this path is possible
+   Error error = targetPath.getParent().isReadable(browseable);
+   if (error && !core::isPathNotFoundError(error))
+      LOG_ERROR(error);
+#endif
+
+   return browseable;
+}
+
 Error listFiles(const json::JsonRpcRequest& request, json::JsonRpcResponse* pResponse)
 {
    // get args
@@ -287,17 +302,238 @@ Error listFiles(const json::JsonRpcRequest& request, json::JsonRpcResponse* pRes
    }
 
    result["files"] = jsonFiles;
+   result["is_parent_browseable"] = isParentBrowseable(targetPath);
 
-   bool browseable = true;
+   pResponse->setResult(result);
+   return Success();
+}
 
-#ifndef _WIN32
-   // on *nix systems, see if browsing above this path is possible
-   error = targetPath.getParent().isReadable(browseable);
-   if (error && !core::isPathNotFoundError(error))
-      LOG_ERROR(error);
-#endif
+// the most recent paged listing. the client requests a directory's pages as
+// they're scrolled into view, so we hold on to the sorted (and filtered)
+// listing rather than reading the directory again for each page
+struct PagedListing
+{
+   FilePath path;
+   bool includeHidden = false;
+   std::string sortColumn;
+   bool ascending = true;
+   bool naturalOrder = true;
+   std::string filter;
+   std::vector<FilePath> files;
+};
+
+PagedListing s_pagedListing;
+
+struct ListedFile
+{
+   FilePath path;
+   FileInfo info;
+   std::string name;
+};
+
+// compares file names as the Files pane does: ignoring case and, for natural
+// ordering, comparing runs of digits by their numeric value
+int compareFileNames(const std::string& lhs, const std::string& rhs, bool naturalOrder)
+{
+   std::size_t i = 0, j = 0;
+   while (i < lhs.size() && j < rhs.size())
+   {
+      if (naturalOrder && std::isdigit(static_cast<unsigned char>(lhs[i])) &&
+                          std::isdigit(static_cast<unsigned char>(rhs[j])))
+      {
+         std::size_t lhsEnd = i, rhsEnd = j;
+         while (lhsEnd < lhs.size() && std::isdigit(static_cast<unsigned char>(lhs[lhsEnd])))
+            ++lhsEnd;
+         while (rhsEnd < rhs.size() && std::isdigit(static_cast<unsigned char>(rhs[rhsEnd])))
+            ++rhsEnd;
+
+         // ignoring leading zeros, longer numbers are larger; numbers of the
+         // same length compare as their digits do
+         while (i + 1 < lhsEnd && lhs[i] == '0')
+            ++i;
+         while (j + 1 < rhsEnd && rhs[j] == '0')
+            ++j;
+         if (lhsEnd - i != rhsEnd - j)
+            return (lhsEnd - i) < (rhsEnd - j) ? -1 : 1;
+
+         int result = lhs.compare(i, lhsEnd - i, rhs, j, rhsEnd - j);
+         if (result != 0)
+            return result < 0 ? -1 : 1;
+
+         i = lhsEnd;
+         j = rhsEnd;
+      }
+      else
+      {
+         int lhsChar = std::tolower(static_cast<unsigned char>(lhs[i]));
+         int rhsChar = std::tolower(static_cast<unsigned char>(rhs[j]));
+         if (lhsChar != rhsChar)
+            return lhsChar < rhsChar ? -1 : 1;
+
+         ++i;
+         ++j;
+      }
+   }
+
+   if (i < lhs.size())
+      return 1;
+   else if (j < rhs.size())
+      return -1;
+   else
+      return 0;
+}
+
+// sorts files (already sorted by name) the way the Files pane sorts them on
+// the given column; see FilesList.java
+void sortListedFiles(const std::string& sortColumn,
+                     bool ascending,
+                     bool naturalOrder,
+                     std::vector<ListedFile>* pFiles)
+{
+   // when sorting by size or modification time folders always go last
+   bool foldersLast = sortColumn == "size" || sortColumn == "modified";
+
+   auto compare = [&](const ListedFile& lhs, const ListedFile& rhs) -> int
+   {
+      if (sortColumn == "type")
+      {
+         if (lhs.info.isDirectory() != rhs.info.isDirectory())
+            return lhs.info.isDirectory() ? 1 : -1;
+
+         int result = lhs.path.getExtension().compare(rhs.path.getExtension());
+         return result < 0 ? -1 : (result > 0 ? 1 : 0);
+      }
+      else if (sortColumn == "size")
+      {
+         if (lhs.info.size() == rhs.info.size())
+            return 0;
+         return lhs.info.size() < rhs.info.size() ? -1 : 1;
+      }
+      else if (sortColumn == "modified")
+      {
+         if (lhs.info.lastWriteTime() == rhs.info.lastWriteTime())
+            return 0;
+         return lhs.info.lastWriteTime() < rhs.info.lastWriteTime() ? -1 : 1;
+      }
+      else
+      {
+         return compareFileNames(lhs.name, rhs.name, naturalOrder);
+      }
+   };
+
+   std::stable_sort(
+            pFiles->begin(),
+            pFiles->end(),
+            [&](const ListedFile& lhs, const ListedFile& rhs)
+   {
+      if (foldersLast && lhs.info.isDirectory() != rhs.info.isDirectory())
+         return rhs.info.isDirectory();
+
+      int result = compare(lhs, rhs);
+      return ascending ? result < 0 : result > 0;
+   });
+}
+
+Error listFilesPage(const json::JsonRpcRequest& request, json::JsonRpcResponse* pResponse)
+{
+   // get args
+   std::string path, sortColumn, filter;
+   bool monitor, includeHidden, refresh, ascending, naturalOrder;
+   int offset, count;
+   Error error = json::readParams(request.params,
+                                  &path,
+                                  &monitor,
+                                  &includeHidden,
+                                  &refresh,
+                                  &offset,
+                                  &count,
+                                  &sortColumn,
+                                  &ascending,
+                                  &naturalOrder,
+                                  &filter);
+   if (error)
+      return error;
+   FilePath targetPath = module_context::resolveAliasedPath(path);
+
+   // list the directory again unless the request is for another page of
+   // the listing we already have
+   PagedListing& listing = s_pagedListing;
+   bool reuseListing =
+         !refresh &&
+         listing.path == targetPath &&
+         listing.includeHidden == includeHidden &&
+         listing.sortColumn == sortColumn &&
+         listing.ascending == ascending &&
+         listing.naturalOrder == naturalOrder &&
+         listing.filter == filter;
+
+   if (!reuseListing)
+   {
+      std::vector<FilePath> files;
+      if (monitor)
+      {
+         // always stop existing if we have one
+         s_filesListingMonitor.stop();
 
-   result["is_parent_browseable"] = browseable;
+         // install a monitor only if we aren't already covered by the project monitor
+         if (!session::projects::projectContext().isMonitoringDirectory(targetPath))
+            error = s_filesListingMonitor.start(targetPath, includeHidden, &files);
+         else
+            error = FilesListingMonitor::listFiles(targetPath, includeHidden, &files);
+      }
+      else
+      {
+         error = FilesListingMonitor::listFiles(targetPath, includeHidden, &files);
+      }
+      if (error)
+         return error;
+
+      // filter by name
+      std::string lowerFilter = string_utils::toLower(filter);
+      std::vector<ListedFile> listedFiles;
+      listedFiles.reserve(files.size());
+      for (const FilePath& file : files)
+      {
+         std::string name = file.getFilename();
+         if (!lowerFilter.empty() &&
+             string_utils::toLower(name).find(lowerFilter) == std::string::npos)
+         {
+            continue;
+         }
+
+         listedFiles.push_back(ListedFile { file, FileInfo(file), name });
+      }
+
+      sortListedFiles(sortColumn, ascending, naturalOrder, &listedFiles);
+
+      listing = PagedListing();
+      listing.path = targetPath;
+      listing.includeHidden = includeHidden;
+      listing.sortColumn = sortColumn;
+      listing.ascending = ascending;
+      listing.naturalOrder = naturalOrder;
+      listing.filter = filter;
+      listing.files.reserve(listedFiles.size());
+      for (const ListedFile& file : listedFiles)
+         listing.files.push_back(file.path);
+   }
+
+   // produce json for just the requested page
+   int total = gsl::narrow_cast<int>(listing.files.size());
+   offset = std::max(0, std::min(offset, total));
+   count = std::max(0, std::min(count, total - offset));
+
+   json::Array jsonFiles;
+   FilesListingMonitor::toJson(targetPath,
+                               listing.files.begin() + offset,
+                               listing.files.begin() + offset + count,
+                               &jsonFiles);
+
+   json::Object result;
+   result["files"] = jsonFiles;
+   result["offset"] = offset;
+   result["total"] = total;
+   result["is_parent_browseable"] = isParentBrowseable(targetPath);
 
    pResponse->setResult(result);
    return Success();
@@ -1969,6 +2205,7 @@ Error initialize()
       (bind(registerRpcMethod, "is_package_directory", isPackageDirectory))
       (bind(registerRpcMethod, "get_file_contents", getFileContents))
       (bind(registerRpcMethod, "list_files", listFiles))
+      (bind(registerRpcMethod, "list_files_page", listFilesPage))
       (bind(registerRpcMethod, "create_file", createFile))
       (bind(registerRpcMethod, "create_folder", createFolder))
       (bind(registerRpcMethod, "delete_files", deleteFiles))
@@ -51,6 +51,18 @@ bool acceptAllFiles(const FileInfo&)
 
 Error FilesListingMonitor::start(const FilePath& filePath, bool includeHidden, 
       json::Array* pJsonFiles)
+{
+   std::vector<FilePath> listedFiles;
+   Error error = start(filePath, includeHidden, &listedFiles);
+   if (error)
+      return error;
+
+   toJson(filePath, listedFiles.begin(), listedFiles.end(), pJsonFiles);
+   return Success();
+}
+
+Error FilesListingMonitor::start(const FilePath& filePath, bool includeHidden,
+      std::vector<FilePath>* pListedFiles)
 {
    // always stop existing
    stop();
@@ -58,9 +70,9 @@ Error FilesListingMonitor::start(const FilePath& filePath, bool includeHidden,
    // save include hidden setting
    includeHidden_ = includeHidden;
 
-   // scan the directory (populates pJsonFiles out parameter)
+   // scan the directory (populates pListedFiles out parameter)
    std::vector<FilePath> files;
-   Error error = listFiles(filePath, &files, includeHidden, pJsonFiles);
+   Error error = listFiles(filePath, &files, includeHidden, pListedFiles);
    if (error)
       return error;
 
@@ -197,7 +209,7 @@ void FilesListingMonitor::onUnregistered(core::system::file_monitor::Handle hand
 Error FilesListingMonitor::listFiles(const FilePath& rootPath,
                                      std::vector<FilePath>* pFiles,
                                      bool includeHidden,
-                                     json::Array* pJsonFiles)
+                                     std::vector<FilePath>* pListedFiles)
 {
    // enumerate the files
    pFiles->clear();
@@ -205,14 +217,12 @@ Error FilesListingMonitor::listFiles(const FilePath& rootPath,
    if (error)
       return error;
 
-   using namespace source_control;
-   auto pCtx = source_control::fileDecorationContext(rootPath, false);
-
    // sort the files by name
    std::sort(pFiles->begin(), pFiles->end(), FilePath::isEqualCaseInsensitive);
 
-   // produce json listing
-   for (core::FilePath& filePath : *pFiles)
+   // select the files to list
+   pListedFiles->clear();
+   for (const core::FilePath& filePath : *pFiles)
    {
       // files which may have been deleted after the listing or which
       // are not end-user visible
@@ -220,15 +230,43 @@ Error FilesListingMonitor::listFiles(const FilePath& rootPath,
             (includeHidden || module_context::fileListingFilter(core::FileInfo(filePath),
                 prefs::userPrefs().hideObjectFiles())))
       {
-         core::json::Object fileObject = module_context::createFileSystemItem(filePath);
-         pCtx->decorateFile(filePath, &fileObject);
-         pJsonFiles->push_back(fileObject);
+         pListedFiles->push_back(filePath);
       }
    }
 
    return Success();
 }
 
+Error FilesListingMonitor::listFiles(const FilePath& rootPath,
+                                     bool includeHidden,
+                                     std::vector<FilePath>* pListedFiles,
+                                     json::Array* pJsonFiles)
+{
+   std::vector<FilePath> files;
+   Error error = listFiles(rootPath, &files, includeHidden, pListedFiles);
+   if (error)
+      return error;
+
+   toJson(rootPath, pListedFiles->begin(), pListedFiles->end(), pJsonFiles);
+   return Success();
+}
+
+void FilesListingMonitor::toJson(const FilePath& rootPath,
+                                 std::vector<FilePath>::const_iterator begin,
+                                 std::vector<FilePath>::const_iterator end,
+                                 json::Array* pJsonFiles)
+{
+   using namespace source_control;
+   auto pCtx = source_control::fileDecorationContext(rootPath, false);
+
+   // produce json listing
+   for (auto it = begin; it != end; ++it)
+   {
+      core::json::Object fileObject = module_context::createFileSystemItem(*it);
+      pCtx->decorateFile(*it, &fileObject);
+      pJsonFiles->push_back(fileObject);
+   }
+}
 
 } // namespace files
 } // namespace modules
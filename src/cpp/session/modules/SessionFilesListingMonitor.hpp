@@ -54,6 +54,11 @@ public:
    core::Error start(const core::FilePath& filePath, 
          bool includeHidden, core::json::Array* pJsonFiles);
 
+   // kickoff monitoring, returning the files listed rather than their json
+   // (for paged listings, which only send some of the files to the client)
+   core::Error start(const core::FilePath& filePath,
+         bool includeHidden, std::vector<core::FilePath>* pListedFiles);
+
    void stop();
 
    // what path are we currently monitoring?
@@ -64,11 +69,26 @@ public:
    static core::Error listFiles(const core::FilePath& rootPath,
                                 bool includeHidden,
                                 core::json::Array* pJsonFiles)
+   {
+      std::vector<core::FilePath> listedFiles;
+      return listFiles(rootPath, includeHidden, &listedFiles, pJsonFiles);
+   }
+
+   // the files which would be included in a listing of rootPath, sorted by name
+   static core::Error listFiles(const core::FilePath& rootPath,
+                                bool includeHidden,
+                                std::vector<core::FilePath>* pListedFiles)
    {
       std::vector<core::FilePath> files;
-      return listFiles(rootPath, &files, includeHidden, pJsonFiles);
+      return listFiles(rootPath, &files, includeHidden, pListedFiles);
    }
 
+   // produce the json for (a range of) the files listed in rootPath
+   static void toJson(const core::FilePath& rootPath,
+                      std::vector<core::FilePath>::const_iterator begin,
+                      std::vector<core::FilePath>::const_iterator end,
+                      core::json::Array* pJsonFiles);
+
 private:
    // stateful handlers for registration and unregistration
    void onRegistered(core::system::file_monitor::Handle handle,
@@ -81,7 +101,12 @@ private:
    // helpers
    static core::Error listFiles(const core::FilePath& rootPath,
                                 std::vector<core::FilePath>* pFiles,
-                                bool includeHidden, 
+                                bool includeHidden,
+                                std::vector<core::FilePath>* pListedFiles);
+
+   static core::Error listFiles(const core::FilePath& rootPath,
+                                bool includeHidden,
+                                std::vector<core::FilePath>* pListedFiles,
                                 core::json::Array* pJsonFiles);
 
 private:
@@ -29,6 +29,9 @@
 # include <core/system/PosixNfs.hpp>
 #endif
 
+#include <map>
+#include <set>
+
 #include <boost/algorithm/string.hpp>
 #include <boost/algorithm/string/trim.hpp>
 #include <boost/algorithm/string/split.hpp>
@@ -53,6 +56,8 @@
 #include <core/Scope.hpp>
 #include <core/StringUtils.hpp>
 
+#include <shared_core/SafeConvert.hpp>
+
 
 #include <r/RExec.hpp>
 #include <r/RUtil.hpp>
@@ -1844,16 +1849,156 @@ Error vcsFullStatus(const json::JsonRpcRequest&,
    return Success();
 }
 
+// The status entries last sent to clients, keyed by path, along with the
+// sequence number of the refresh in which each last changed. Entries for
+// paths which no longer have a status are kept (with a null value) so that
+// clients can be told about their removal.
+struct StatusEntry
+{
+   json::Value value;
+   int sequence;
+};
+
+std::map<std::string, StatusEntry> s_statusEntries;
+int s_statusSequence = 0;
+
+// the oldest sequence number from which changes can still be computed
+int s_statusBaseSequence = 0;
+
+// the number of removed entries we remember before forgetting them (after
+// which clients that haven't seen the latest status receive it in full)
+const std::size_t kMaxRemovedStatusEntries = 10000;
+
+const std::string& statusStreamId()
+{
+   // distinguishes sequence numbers from those of previous sessions
+   static const std::string id = core::system::generateUuid();
+   return id;
+}
+
+std::string statusVersion(int sequence)
+{
+   return statusStreamId() + ":" + safe_convert::numberToString(sequence);
+}
+
+// returns the sequence number for a status version, or -1 if changes since
+// that version can't be computed
+int statusSequence(const std::string& version)
+{
+   std::size_t pos = version.rfind(':');
+   if (pos == std::string::npos || version.substr(0, pos) != statusStreamId())
+      return -1;
+
+   int sequence = safe_convert::stringTo<int>(version.substr(pos + 1), -1);
+   if (sequence < s_statusBaseSequence || sequence > s_statusSequence)
+      return -1;
+
+   return sequence;
+}
+
+void updateStatusEntries(const json::Array& statusJson)
+{
+   int sequence = s_statusSequence + 1;
+   bool changed = false;
+
+   std::set<std::string> paths;
+   for (const json::Value& value : statusJson)
+   {
+      if (!value.isObject())
+         continue;
+
+      std::string path;
+      Error error = json::readObject(value.getObject(), "raw_path", path);
+      if (error)
+         continue;
+
+      paths.insert(path);
+      auto it = s_statusEntries.find(path);
+      if (it == s_statusEntries.end() || it->second.value != value)
+      {
+         s_statusEntries[path] = StatusEntry { value, sequence };
+         changed = true;
+      }
+   }
+
+   std::size_t removedCount = 0;
+   for (auto& entry : s_statusEntries)
+   {
+      if (paths.count(entry.first))
+         continue;
+
+      if (!entry.second.value.isNull())
+      {
+         entry.second = StatusEntry { json::Value(), sequence };
+         changed = true;
+      }
+      removedCount++;
+   }
+
+   if (changed)
+      s_statusSequence = sequence;
+
+   if (removedCount > kMaxRemovedStatusEntries)
+   {
+      for (auto it = s_statusEntries.begin(); it != s_statusEntries.end(); )
+      {
+         if (it->second.value.isNull())
+            it = s_statusEntries.erase(it);
+         else
+            ++it;
+      }
+      s_statusBaseSequence = s_statusSequence;
+   }
+}
+
+// the entries which changed after the given sequence number, and the paths
+// of those removed
+json::Object statusDeltaAsJson(int sequence)
+{
+   json::Array changedJson;
+   json::Array removedJson;
+   for (const auto& entry : s_statusEntries)
+   {
+      if (entry.second.sequence <= sequence)
+         continue;
+
+      if (entry.second.value.isNull())
+         removedJson.push_back(entry.first);
+      else
+         changedJson.push_back(entry.second.value);
+   }
+
+   json::Object deltaJson;
+   deltaJson["changed"] = changedJson;
+   deltaJson["removed"] = removedJson;
+   return deltaJson;
+}
+
 Error vcsAllStatus(const json::JsonRpcRequest& request,
                    json::JsonRpcResponse* pResponse)
 {
+   // the status version the client already has, if any
+   std::string knownVersion;
+   if (request.params.getSize() > 0 && request.params[0].isString())
+      knownVersion = request.params[0].getString();
+
    json::Object result;
    json::JsonRpcResponse tmp;
 
    Error error = vcsFullStatus(request, &tmp);
    if (error)
       return error;
-   result["status"] = tmp.result();
+
+   // send only the entries which changed since the client's version, if
+   // we can; otherwise send them all
+   json::Array statusJson = tmp.result().getArray();
+   updateStatusEntries(statusJson);
+   int knownSequence = statusSequence(knownVersion);
+   if (knownSequence == -1)
+      result["status"] = statusJson;
+   else
+      result["status_delta"] = statusDeltaAsJson(knownSequence);
+   result["status_version"] = statusVersion(s_statusSequence);
 
    error = vcsListBranches(request, &tmp);
    if (error)
@@ -2003,7 +2148,7 @@ Error vcsDiffFile(const json::JsonRpcRequest& request,
    if (!usedSourceEncoding)
       sourceEncoding = "";
 
-   if (!noSizeWarning && output.size() > source_control::WARN_SIZE)
+   if (!noSizeWarning && output.size() > source_control::DIFF_WARN_SIZE)
    {
       error = systemError(boost::system::errc::file_too_large,
                           ERROR_LOCATION);
@@ -241,6 +241,63 @@ Error getPackageStateJson(json::Object* pJson)
    return error;
 }
 
+// the package list last sent to the client, by library and name, and its
+// version. once the client has a package list, changes to it are sent as the
+// packages added, removed and changed since the version the client has
+std::map<std::string, json::Object> s_packages;
+int s_packagesVersion = 0;
+
+std::string packageField(const json::Object& package, const char* name)
+{
+   json::Object::Iterator it = package.find(name);
+   if (it == package.end() || !(*it).getValue().isString())
+      return std::string();
+   return (*it).getValue().getString();
+}
+
+// records the given package list as the one last sent to the client; the
+// version is bumped (and the differences collected) only if it changed
+bool updatePackages(const json::Value& packageListJson,
+                    json::Array* pAdded,
+                    json::Array* pRemoved,
+                    json::Array* pChanged)
+{
+   std::map<std::string, json::Object> packages;
+   if (packageListJson.isArray())
+   {
+      for (const json::Value& packageJson : packageListJson.getArray())
+      {
+         if (!packageJson.isObject())
+            continue;
+
+         json::Object package = packageJson.getObject();
+         packages[packageField(package, "library") + "/" + packageField(package, "name")] = package;
+      }
+   }
+
+   for (const auto& entry : packages)
+   {
+      auto it = s_packages.find(entry.first);
+      if (it == s_packages.end())
+         pAdded->push_back(entry.second);
+      else if (!(it->second == entry.second))
+         pChanged->push_back(entry.second);
+   }
+
+   for (const auto& entry : s_packages)
+   {
+      if (packages.find(entry.first) == packages.end())
+         pRemoved->push_back(entry.second);
+   }
+
+   if (pAdded->isEmpty() && pRemoved->isEmpty() && pChanged->isEmpty())
+      return false;
+
+   s_packages.swap(packages);
+   s_packagesVersion++;
+   return true;
+}
+
 SEXP rs_enqueLoadedPackageUpdates(SEXP installCmdSEXP)
 {
    std::string installCmd;
@@ -344,7 +401,12 @@ Error getPackageState(const json::JsonRpcRequest& ,
    if (error)
       LOG_ERROR(error);
    else
+   {
+      json::Array added, removed, changed;
+      updatePackages(result["package_list"], &added, &removed, &changed);
+      result["version"] = s_packagesVersion;
       pResponse->setResult(result);
+   }
    return error;
 }
 
@@ -358,6 +420,22 @@ void enquePackageStateChanged()
       LOG_ERROR(error);
    else
    {
+      // send just the changes if the client already has a package list
+      int baseVersion = s_packagesVersion;
+      json::Array added, removed, changed;
+      updatePackages(pkgState["package_list"], &added, &removed, &changed);
+      if (baseVersion > 0)
+      {
+         json::Object delta;
+         delta["added"] = added;
+         delta["removed"] = removed;
+         delta["changed"] = changed;
+         pkgState.erase("package_list");
+         pkgState["package_delta"] = delta;
+         pkgState["base_version"] = baseVersion;
+      }
+      pkgState["version"] = s_packagesVersion;
+
       ClientEvent event(client_events::kPackageStateChanged, pkgState);
       module_context::enqueClientEvent(event);
    }
@@ -74,7 +74,8 @@ void removeVarFromList(std::vector<r::sexp::Variable>* pEnv,
 
 EnvironmentMonitor::EnvironmentMonitor() :
    initialized_(false),
-   refreshOnInit_(false)
+   refreshOnInit_(false),
+   generation_(0)
 {}
 
 void EnvironmentMonitor::enqueRemovedEvent(const r::sexp::Variable& variable)
@@ -101,6 +102,7 @@ void EnvironmentMonitor::setMonitoredEnvironment(SEXP pEnvironment,
       return;
 
    environment_.set(pEnvironment);
+   generation_++;
 
    // init the environment by doing an initial check for changes
    initialized_ = false;
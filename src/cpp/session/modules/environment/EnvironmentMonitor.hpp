@@ -34,6 +34,9 @@ public:
    SEXP getMonitoredEnvironment();
    bool hasEnvironment();
    void checkForChanges();
+
+   // incremented each time a different environment is monitored
+   int getGeneration() const { return generation_; }
 private:
    void listEnv(std::vector<r::sexp::Variable>* pEnvironment);
    void enqueRemovedEvent(const r::sexp::Variable& variable);
@@ -44,6 +47,7 @@ private:
    r::sexp::PreservedSEXP environment_;
    bool initialized_;
    bool refreshOnInit_;
+   int generation_;
 };
 
 } // namespace environment
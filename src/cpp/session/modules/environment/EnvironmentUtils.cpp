@@ -15,6 +15,8 @@
 
 #include "EnvironmentUtils.hpp"
 
+#include <fmt/format.h>
+
 #include <r/RCntxt.hpp>
 #include <r/RCntxtUtils.hpp>
 #include <r/RExec.hpp>
@@ -59,8 +61,104 @@ json::Value descriptionOfVar(SEXP var)
    }
 }
 
+// describes variables whose values we can't (or shouldn't) inspect; returns
+// false if the variable's value is an ordinary one
+bool specialVarToJson(SEXP env, const r::sexp::Variable& var, json::Object* pJson)
+{
+   SEXP varSEXP = var.second;
+
+   // We can get a value from almost any object type from R, but there are
+   // a few cases in which attempting to inspect the object will lead to
+   // undesirable behavior. For these special value types, construct the
+   // object definition manually.
+   bool isActiveBinding = r::sexp::isActiveBinding(var.first, env);
+   bool hasActiveBinding = isActiveBinding
+         ? true
+         : r::sexp::hasActiveBinding(var.first, env);
+
+   if (!((varSEXP == R_UnboundValue) ||
+         (varSEXP == R_MissingArg) ||
+         isUnevaluatedPromise(varSEXP) ||
+         hasActiveBinding))
+   {
+      return false;
+   }
+
+   json::Object& varJson = *pJson;
+   varJson["name"] = var.first;
+   if (isUnevaluatedPromise(varSEXP))
+   {
+      varJson["type"] = std::string("promise");
+      varJson["value"] = descriptionOfVar(varSEXP);
+   }
+   else if (isActiveBinding)
+   {
+      varJson["type"] = std::string("active binding");
+      varJson["value"] = std::string("<Active binding>");
+   }
+   else if (hasActiveBinding)
+   {
+      varJson["type"] = std::string("object containing active binding");
+      varJson["value"] = std::string("<Object containing active binding>");
+   }
+   else
+   {
+      varJson["type"] = std::string("unknown");
+      varJson["value"] =  (varSEXP == R_MissingArg) ?
+                              descriptionOfVar(varSEXP) :
+                              json::Value(UNKNOWN_VALUE);
+   }
+   varJson["description"] = std::string("");
+   varJson["contents"] = json::Array();
+   varJson["length"] = 0;
+   varJson["size"] = 0;
+   varJson["contents_deferred"] = false;
+   varJson["token"] = varToken(varSEXP);
+   return true;
+}
+
+// describes an ordinary variable using the given R function
+json::Value describeVar(const r::sexp::Variable& var,
+                        r::exec::RFunction* pDescribeFunction)
+{
+   SEXP description;
+   json::Value val;
+   r::sexp::Protect protect;
+   Error error = pDescribeFunction->call(&description, &protect);
+   if (error)
+      LOG_ERROR(error);
+   else
+   {
+      error = r::json::jsonValueFromObject(description, &val);
+      if (error)
+         LOG_ERROR(error);
+      else
+      {
+         if (val.isObject())
+            val.getObject()["token"] = varToken(var.second);
+         return val;
+      }
+   }
+
+   json::Object varJson;
+   varJson["name"] = var.first;
+   return std::move(varJson);
+}
+
 } // anonymous namespace
 
+// identifies the value a variable is bound to; the client uses this to tell
+// whether a description it already has for the variable is still current.
+// promises are described differently once forced, so that is noted as well.
+// a value modified in place (e.g. x[1] <- 5) keeps its token, so the client
+// only relies on tokens between full listings
+std::string varToken(SEXP var)
+{
+   return fmt::format("{}{}",
+                      isUnevaluatedPromise(var) ? "promise:" : "",
+                      static_cast<const void*>(var));
+}
+
 // a variable is an unevaluated promise if its promise value is still unbound
 bool isUnevaluatedPromise (SEXP var)
 {
@@ -165,72 +263,22 @@ json::Value languageVarToJson(SEXP env, std::string objectName)
 json::Value varToJson(SEXP env, const r::sexp::Variable& var)
 {
    json::Object varJson;
-   SEXP varSEXP = var.second;
+   if (specialVarToJson(env, var, &varJson))
+      return std::move(varJson);
 
-   // We can get a value from almost any object type from R, but there are
-   // a few cases in which attempting to inspect the object will lead to
-   // undesirable behavior. For these special value types, construct the
-   // object definition manually.
-   bool isActiveBinding = r::sexp::isActiveBinding(var.first, env);
-   bool hasActiveBinding = isActiveBinding
-         ? true
-         : r::sexp::hasActiveBinding(var.first, env);
-   
-   if ((varSEXP == R_UnboundValue) ||
-       (varSEXP == R_MissingArg) ||
-       isUnevaluatedPromise(varSEXP) ||
-       hasActiveBinding)
-   {
-      varJson["name"] = var.first;
-      if (isUnevaluatedPromise(varSEXP))
-      {
-         varJson["type"] = std::string("promise");
-         varJson["value"] = descriptionOfVar(varSEXP);
-      }
-      else if (isActiveBinding)
-      {
-         varJson["type"] = std::string("active binding");
-         varJson["value"] = std::string("<Active binding>");
-      }
-      else if (hasActiveBinding)
-      {
-         varJson["type"] = std::string("object containing active binding");
-         varJson["value"] = std::string("<Object containing active binding>");
-      }
-      else
-      {
-         varJson["type"] = std::string("unknown");
-         varJson["value"] =  (varSEXP == R_MissingArg) ?
-                                 descriptionOfVar(varSEXP) :
-                                 json::Value(UNKNOWN_VALUE);
-      }
-      varJson["description"] = std::string("");
-      varJson["contents"] = json::Array();
-      varJson["length"] = 0;
-      varJson["size"] = 0;
-      varJson["contents_deferred"] = false;
-   }
-   // For all other value types, construct the definition normally.
-   else
-   {
-      SEXP description;
-      json::Value val;
-      r::sexp::Protect protect;
-      Error error = r::exec::RFunction(".rs.describeObject",
-                  env, var.first, !hasAltrep(varSEXP))
-                  .call(&description, &protect);
-      if (error)
-         LOG_ERROR(error);
-      else
-      {
-         error = r::json::jsonValueFromObject(description, &val);
-         if (error)
-            LOG_ERROR(error);
-         else
-            return val;
-      }
-   }
-   return std::move(varJson);
+   r::exec::RFunction describeObject(".rs.describeObject",
+                                     env, var.first, !hasAltrep(var.second));
+   return describeVar(var, &describeObject);
+}
+
+json::Value varToBriefJson(SEXP env, const r::sexp::Variable& var)
+{
+   json::Object varJson;
+   if (specialVarToJson(env, var, &varJson))
+      return std::move(varJson);
+
+   r::exec::RFunction describeObject(".rs.describeObjectBrief", env, var.first);
+   return describeVar(var, &describeObject);
 }
 
 bool functionDiffersFromSource(
@@ -25,6 +25,8 @@ namespace modules {
 namespace environment {
 
 core::json::Value varToJson(SEXP env, const r::sexp::Variable& var);
+core::json::Value varToBriefJson(SEXP env, const r::sexp::Variable& var);
+std::string varToken(SEXP var);
 bool isUnevaluatedPromise(SEXP var);
 bool functionDiffersFromSource(SEXP srcRef, const std::string& functionCode);
 void sourceRefToJson(const SEXP srcref, core::json::Object* pObject);
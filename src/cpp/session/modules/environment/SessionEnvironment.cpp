@@ -21,12 +21,14 @@
 #include <fmt/format.h>
 
 #include <algorithm>
+#include <chrono>
 
 #include <boost/container/flat_map.hpp>
 
 #include <core/Exec.hpp>
 #include <core/RecursionGuard.hpp>
 #include <core/system/LibraryLoader.hpp>
+#include <core/system/System.hpp>
 
 #include <r/RCntxt.hpp>
 #include <r/RCntxtUtils.hpp>
@@ -88,6 +90,11 @@ bool s_browserActive = false;
 // has undesirable side effects.
 bool s_monitoring = true;
 
+// environments with more objects than this are listed with only brief
+// descriptions of the objects (computing the full descriptions of thousands
+// of objects can take a long time)
+const std::size_t kMaxFullyDescribedObjects = 200;
+
 // whether or not the global environment can safely be serialized
 bool s_isGlobalEnvironmentSerializable = true;
 
@@ -861,16 +868,137 @@ json::Array environmentListAsJson()
                        prefs::userPrefs().showLastDotValue(),
                        &vars);
 
-       // get object details and transform to json
-       std::transform(vars.begin(),
-                      vars.end(),
-                      std::back_inserter(listJson),
-                      boost::bind(varToJson, env, _1));
+       // get object details and transform to json; for large environments,
+       // describe objects only briefly and let the client ask for the full
+       // descriptions of those it displays (see getObjectSummaries)
+       if (vars.size() > kMaxFullyDescribedObjects)
+          std::transform(vars.begin(),
+                         vars.end(),
+                         std::back_inserter(listJson),
+                         boost::bind(varToBriefJson, env, _1));
+       else
+          std::transform(vars.begin(),
+                         vars.end(),
+                         std::back_inserter(listJson),
+                         boost::bind(varToJson, env, _1));
     }
 
     return listJson;
 }
 
+// identifies the listings of the monitored environment sent to the client;
+// listings share a version for as long as the same environment is monitored
+// (within this session process)
+std::string environmentListVersion()
+{
+   static const std::string s_processId = core::system::generateShortenedUuid();
+   return fmt::format("{}:{}", s_processId, s_pEnvironmentMonitor->getGeneration());
+}
+
+// lists the objects added or changed since the client's listing of the
+// monitored environment (as identified by the given object tokens), and the
+// names of those removed
+json::Object environmentDeltaAsJson(const json::Object& knownObjects)
+{
+   using namespace rstudio::r::sexp;
+   Protect rProtect;
+   std::vector<Variable> vars;
+   std::set<std::string> names;
+   json::Array changedJson;
+   json::Array removedJson;
+
+   if (s_pEnvironmentMonitor->hasEnvironment())
+   {
+      SEXP env = s_pEnvironmentMonitor->getMonitoredEnvironment();
+      listEnvironment(env,
+                      false,
+                      prefs::userPrefs().showLastDotValue(),
+                      &vars);
+
+      bool brief = vars.size() > kMaxFullyDescribedObjects;
+      for (const Variable& var : vars)
+      {
+         names.insert(var.first);
+
+         json::Object::Iterator it = knownObjects.find(var.first);
+         if (it != knownObjects.end() &&
+             (*it).getValue().isString() &&
+             (*it).getValue().getString() == varToken(var.second))
+         {
+            continue;
+         }
+
+         changedJson.push_back(brief ? varToBriefJson(env, var) : varToJson(env, var));
+      }
+   }
+
+   for (const json::Object::Member& member : knownObjects)
+   {
+      if (names.count(member.getName()) == 0)
+         removedJson.push_back(member.getName());
+   }
+
+   json::Object deltaJson;
+   deltaJson["changed"] = changedJson;
+   deltaJson["removed"] = removedJson;
+   return deltaJson;
+}
+
+// adds the objects in the monitored environment to the environment state. if
+// the client already has a listing of the environment, only the changes
+// since are added
+void addEnvironmentListing(const json::Object& knownListing,
+                           json::Object* pStateJson)
+{
+   std::string version = environmentListVersion();
+   (*pStateJson)["environment_version"] = version;
+
+   std::string knownVersion;
+   json::Object knownObjects;
+   Error error = json::readObject(knownListing,
+                                  "version", knownVersion,
+                                  "objects", knownObjects);
+   if (error || knownVersion != version)
+      (*pStateJson)["environment_list"] = environmentListAsJson();
+   else
+      (*pStateJson)["environment_delta"] = environmentDeltaAsJson(knownObjects);
+}
+
+// logs the size and cost of the environment listings requested by the client,
+// so that full listings can be compared with listings of changes only
+void traceEnvironmentState(const json::Object& stateJson,
+                           std::chrono::steady_clock::time_point startTime)
+{
+   // measuring the response means serializing it, so only do so when it'll be logged
+   if (!log::isLogLevel(log::LogLevel::DEBUG_LEVEL))
+      return;
+
+   using namespace std::chrono;
+   long long elapsedMs = duration_cast<milliseconds>(steady_clock::now() - startTime).count();
+
+   std::string kind = "none";
+   std::size_t objectCount = 0;
+   json::Object::Iterator it = stateJson.find("environment_delta");
+   if (it != stateJson.end() && (*it).getValue().isObject())
+   {
+      kind = "changes";
+      json::Object deltaJson = (*it).getValue().getObject();
+      json::Object::Iterator changedIt = deltaJson.find("changed");
+      if (changedIt != deltaJson.end() && (*changedIt).getValue().isArray())
+         objectCount = (*changedIt).getValue().getArray().getSize();
+   }
+   else if ((it = stateJson.find("environment_list")) != stateJson.end() &&
+            (*it).getValue().isArray())
+   {
+      kind = "full";
+      objectCount = (*it).getValue().getArray().getSize();
+   }
+
+   LOG_DEBUG_MESSAGE(fmt::format(
+            "Environment state ({} listing): {} objects described, {} bytes, {}ms",
+            kind, objectCount, stateJson.write().size(), elapsedMs));
+}
+
 Error listEnvironment(boost::shared_ptr<int> pContextDepth,
                       const json::JsonRpcRequest&,
                       json::JsonRpcResponse* pResponse)
@@ -1095,7 +1223,8 @@ json::Object commonEnvironmentStateData(
       bool isDebugStepping,
       int depth,
       bool includeContents,
-      LineDebugState* pLineDebugState)
+      LineDebugState* pLineDebugState,
+      const json::Object& knownListing = json::Object())
 {
    bool hasCodeInFrame = false;
    json::Object varJson;
@@ -1110,7 +1239,10 @@ json::Object commonEnvironmentStateData(
    // emit the current list of values in the environment, but only if not monitoring (as the intent
    // of the monitoring switch is to avoid implicit environment listing)
    varJson["environment_monitoring"] = s_monitoring;
-   varJson["environment_list"] = includeContents ? environmentListAsJson() : json::Array();
+   if (includeContents)
+      addEnvironmentListing(knownListing, &varJson);
+   else
+      varJson["environment_list"] = json::Array();
    
    varJson["context_depth"] = depth;
    varJson["call_frames"] = callFramesJson;
@@ -1277,7 +1409,14 @@ Error getEnvironmentState(boost::shared_ptr<int> pContextDepth,
    Error error = json::readParams(request.params, &language, &environment);
    if (error)
       LOG_ERROR(error);
-   
+
+   // the listing of the environment the client already has, if any: its
+   // version and the tokens of the objects in it
+   json::Object knownListing;
+   if (request.params.getSize() > 2 && request.params[2].isObject())
+      knownListing = request.params[2].getObject();
+
+   auto startTime = std::chrono::steady_clock::now();
    json::Object jsonState;
    
    if (language == kEnvironmentLanguageR)
@@ -1286,7 +1425,9 @@ Error getEnvironmentState(boost::shared_ptr<int> pContextDepth,
                false,
                *pContextDepth,
                true,
-               pLineDebugState.get());
+               pLineDebugState.get(),
+               knownListing);
+      traceEnvironmentState(jsonState, startTime);
    }
    else if (language == kEnvironmentLanguagePython)
    {
@@ -1635,6 +1776,48 @@ Error getObjectContents(const json::JsonRpcRequest& request,
    return Success();
 }
 
+// Return full descriptions of the given objects. Called by the client for
+// the objects it displays when the environment was listed with only brief
+// descriptions (i.e. by environmentListAsJson for large environments)
+Error getObjectSummaries(const json::JsonRpcRequest& request,
+                         json::JsonRpcResponse* pResponse)
+{
+   json::Array namesJson;
+   Error error = json::readParams(request.params, &namesJson);
+   if (error)
+      return error;
+
+   std::set<std::string> names;
+   for (const json::Value& nameJson : namesJson)
+   {
+      if (nameJson.isString())
+         names.insert(nameJson.getString());
+   }
+
+   json::Array summariesJson;
+   if (!names.empty() && s_pEnvironmentMonitor->hasEnvironment())
+   {
+      r::sexp::Protect rProtect;
+      std::vector<r::sexp::Variable> vars;
+      SEXP env = s_pEnvironmentMonitor->getMonitoredEnvironment();
+      r::sexp::listEnvironment(env,
+                               false,
+                               prefs::userPrefs().showLastDotValue(),
+                               &vars);
+
+      // objects that no longer exist are left out; the client will hear
+      // about their removal separately
+      for (const r::sexp::Variable& var : vars)
+      {
+         if (names.count(var.first))
+            summariesJson.push_back(varToJson(env, var));
+      }
+   }
+
+   pResponse->setResult(summariesJson);
+   return Success();
+}
+
 // Called by the client to force a re-query of the currently monitored
 // context depth and environment.
 Error requeryContext(boost::shared_ptr<int> pContextDepth,
@@ -1874,6 +2057,7 @@ Error initialize()
       (bind(registerRpcMethod, "remove_all_objects", removeAllObjects))
       (bind(registerRpcMethod, "get_environment_state", getEnv))
       (bind(registerRpcMethod, "get_object_contents", getObjectContents))
+      (bind(registerRpcMethod, "get_object_summaries", getObjectSummaries))
       (bind(registerRpcMethod, "requery_context", requeryCtx))
       (bind(registerRpcMethod, "environment_set_language", environmentSetLanguage))
       (bind(registerRpcMethod, "set_environment_monitoring", setEnvironmentMonitoring))
@@ -15,8 +15,11 @@
 
 #include <session/jobs/Job.hpp>
 
+#include <algorithm>
 #include <ctime>
+#include <deque>
 
+#include <boost/function.hpp>
 #include <boost/make_shared.hpp>
 #include <core/json/JsonRpc.hpp>
 
@@ -482,9 +485,15 @@ void Job::addOutput(const std::string& output, bool asError)
 
 json::Array Job::output(int position)
 {
-   // read the lines from the file
-   json::Array output;
-   FilePath outputFile = outputCacheFile();
+   return output(position, -1);
+}
+
+namespace {
+
+// reads the job's output file a line (entry) at a time; onLine returns false to stop reading
+void readOutputFile(const FilePath& outputFile,
+                    const boost::function<bool(int, const std::string&)>& onLine)
+{
    std::shared_ptr<std::istream> pIfs;
    Error error = outputFile.openForRead(pIfs);
    if (error)
@@ -492,30 +501,27 @@ json::Array Job::output(int position)
       // path not found is expected if the job hasn't produced any output yet
       if (!isPathNotFoundError(error))
          LOG_ERROR(error);
-      return json::Array();
+      return;
    }
 
    try
    {
       int line = 0;
       std::string content;
-      json::Value val;
 
       // reading eof can trigger a failbit
       pIfs->exceptions(std::istream::badbit);
 
-      // read each line; parse it as JSON and add it to the output array if it's past the sought
-      // position
       while (!pIfs->eof())
       {
          std::getline(*pIfs, content);
-         if (++line > position)
-         {
-            if (!val.parse(content))
-            {
-               output.push_back(val);
-            }
-         }
+
+         // the file ends with a newline, so the last line read is empty
+         if (content.empty())
+            continue;
+
+         if (!onLine(line++, content))
+            break;
       }
    }
    catch(const std::exception& e)
@@ -526,7 +532,72 @@ json::Array Job::output(int position)
       error.addProperty("path", outputFile.getAbsolutePath());
       LOG_ERROR(error);
    }
+}
+
+} // anonymous namespace
+
+json::Array Job::output(int start, int end)
+{
+   // parse the lines in the requested range as JSON and add them to the output array
+   json::Array output;
+   readOutputFile(outputCacheFile(), [&](int line, const std::string& content)
+   {
+      if (end >= 0 && line >= end)
+         return false;
+
+      json::Value val;
+      if (line >= start && !val.parse(content))
+         output.push_back(val);
+
+      return true;
+   });
+
+   return output;
+}
+
+json::Array Job::outputTail(int maxEntries, int maxLines, int* pPosition)
+{
+   // keep the text of the last maxEntries lines as we go, so that only those are parsed
+   std::deque<std::string> tail;
+   int lines = 0;
+   readOutputFile(outputCacheFile(), [&](int line, const std::string& content)
+   {
+      tail.push_back(content);
+      if (static_cast<int>(tail.size()) > maxEntries)
+         tail.pop_front();
+      lines = line + 1;
+      return true;
+   });
+
+   // parse from the end, stopping before the entry that would take the output past maxLines
+   // lines of text (but always returning at least one entry)
+   std::deque<json::Value> entries;
+   int entriesRead = 0;
+   int outputLines = 0;
+   for (auto it = tail.rbegin(); it != tail.rend(); ++it)
+   {
+      json::Value val;
+      if (!val.parse(*it))
+      {
+         if (maxLines > 0 && val.isArray() && val.getArray().getSize() > 1 &&
+             val.getArray()[1].isString())
+         {
+            const std::string& text = val.getArray()[1].getString();
+            int textLines = static_cast<int>(std::count(text.begin(), text.end(), '\n'));
+            if (!entries.empty() && outputLines + textLines > maxLines)
+               break;
+            outputLines += textLines;
+         }
+         entries.push_front(val);
+      }
+      entriesRead++;
+   }
+
+   json::Array output;
+   for (const json::Value& val : entries)
+      output.push_back(val);
 
+   *pPosition = lines - entriesRead;
    return output;
 }
 
@@ -326,13 +326,18 @@ Error jobOutput(const json::JsonRpcRequest& request,
    if (error)
       return error;
 
+   // the end of the range of output to return, if any
+   int end = -1;
+   if (request.params.getSize() > 2 && request.params[2].isInt())
+      end = request.params[2].getInt();
+
    // look up in cache
    boost::shared_ptr<Job> pJob;
    if (!lookupJob(id, &pJob))
       return Error(json::errc::ParamInvalid, ERROR_LOCATION);
 
    // show output
-   pResponse->setResult(pJob->output(position));
+   pResponse->setResult(pJob->output(position, end));
 
    return Success();
 }
@@ -405,6 +410,18 @@ Error setJobListening(const json::JsonRpcRequest& request,
    if (error)
       return error;
 
+   // the number of entries of output to return when listening starts; older output can be
+   // retrieved with job_output (zero for all output)
+   int maxEntries = 0;
+   if (request.params.getSize() > 3 && request.params[3].isInt())
+      maxEntries = request.params[3].getInt();
+
+   // the most lines of text to return with those entries (zero for no limit), so that the client
+   // isn't sent more than it will show
+   int maxLines = 0;
+   if (request.params.getSize() > 4 && request.params[4].isInt())
+      maxLines = request.params[4].getInt();
+
    // look up in cache
    boost::shared_ptr<Job> pJob;
    if (!lookupJob(id, &pJob))
@@ -413,10 +430,17 @@ Error setJobListening(const json::JsonRpcRequest& request,
    if (pJob->type() == JobType::JobTypeLauncher && !bypassLauncherCall)
       modules::overlay::streamLauncherOutput(id, listening);
 
-   // if listening started, return the output so far
+   // if listening started, return the output so far, and the position of its first entry
    if (listening)
    {
-      pResponse->setResult(pJob->output(0));
+      json::Object result;
+      int position = 0;
+      if (maxEntries > 0)
+         result["output"] = pJob->outputTail(maxEntries, maxLines, &position);
+      else
+         result["output"] = pJob->output(0);
+      result["position"] = position;
+      pResponse->setResult(result);
    }
 
    // begin/end listening
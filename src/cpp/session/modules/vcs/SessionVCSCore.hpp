@@ -33,6 +33,10 @@ namespace source_control {
 // requesting might slow down the app and are they sure they want to proceed?
 const size_t WARN_SIZE = 200 * 1024;
 
+// The size threshold for diffs shown in the review pane, which renders their
+// rows as they're scrolled to and so can show much larger diffs
+const size_t DIFF_WARN_SIZE = 5 * 1024 * 1024;
+
 class VCSStatus
 {
 public:
@@ -3429,6 +3429,32 @@ core::Error UserPrefValues::setProjectUserDataDirectory(std::string val)
    return writePref("project_user_data_directory", val);
 }
 
+/**
+ * Whether to send independent RPC requests made at the same time to the R session in a single batched request.
+ */
+bool UserPrefValues::batchRpcRequests()
+{
+   return readPref<bool>("batch_rpc_requests");
+}
+
+core::Error UserPrefValues::setBatchRpcRequests(bool val)
+{
+   return writePref("batch_rpc_requests", val);
+}
+
+/**
+ * Whether to receive session events over a persistent WebSocket connection instead of by polling.
+ */
+bool UserPrefValues::streamSessionEvents()
+{
+   return readPref<bool>("stream_session_events");
+}
+
+core::Error UserPrefValues::setStreamSessionEvents(bool val)
+{
+   return writePref("stream_session_events", val);
+}
+
 std::vector<std::string> UserPrefValues::allKeys()
 {
    return std::vector<std::string>({
@@ -3694,6 +3720,8 @@ std::vector<std::string> UserPrefValues::allKeys()
       kCodeFormatterExternalCommand,
       kReformatOnSave,
       kProjectUserDataDirectory,
+      kBatchRpcRequests,
+      kStreamSessionEvents,
    });
 }
    
@@ -570,6 +570,49 @@ define('mode/r_scope_tree', ["require", "exports", "module"], function(require,
          this.printScopeTree();
       };
 
+      // Removes and returns the top-level scopes which begin at or after pos.
+      // Used when the document is edited before these scopes, so that they
+      // can be reattached once the edited region has been reparsed rather
+      // than being reparsed themselves.
+      this.detachFrom = function(pos) {
+         var children = this.$root.$children;
+         var index = children.length;
+         while (index > 0 && comparePoints(children[index - 1].preamble, pos) >= 0)
+            index--;
+         return children.splice(index, children.length - index);
+      };
+
+      // Reattaches detached top-level scopes (starting from the given index),
+      // moving them by rowDelta rows. The caller is responsible for ensuring
+      // that they lie after all scopes currently in the tree.
+      this.reattach = function(nodes, index, rowDelta) {
+         for (var i = index; i < nodes.length; i++)
+         {
+            $shiftNode(nodes[i], rowDelta);
+            nodes[i].parentScope = this.$root;
+            this.$root.$children.push(nodes[i]);
+         }
+         this.printScopeTree();
+      };
+
+      function $shiftPosition(pos, rowDelta) {
+         if (pos == null)
+            return pos;
+         return {row: pos.row + rowDelta, column: pos.column};
+      }
+
+      // NB: the start and preamble of a node may be the same object, so we
+      // replace positions rather than modifying them in place
+      function $shiftNode(node, rowDelta) {
+         if (rowDelta === 0)
+            return;
+         node.preamble = $shiftPosition(node.preamble, rowDelta);
+         node.start = $shiftPosition(node.start, rowDelta);
+         node.end = $shiftPosition(node.end, rowDelta);
+         for (var i = 0; i < node.$children.length; i++)
+            $shiftNode(node.$children[i], rowDelta);
+      }
+
       function $getChunkCount(node) {
          count = node.isChunk() ? 1 : 0;
          var children = node.$children || [];
@@ -0,0 +1,283 @@
+/*
+ * ConsoleControlScanner.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import org.rstudio.core.client.regex.Match;
+
+/**
+ * Finds the control characters and escape sequences handled by
+ * VirtualConsole without using regular expressions, so that plain text
+ * (by far the most common kind of console output) is scanned in a single
+ * pass and escape sequences are recognized in place.
+ *
+ * An instance holds the details of the last escape sequence scanned, so
+ * a single scanner can be reused without allocating per sequence.
+ */
+public class ConsoleControlScanner
+{
+   // not a recognized sequence; only the introducer should be discarded
+   public static final int UNKNOWN = 0;
+
+   // OSC 8 hyperlink: ESC ] 8 ; params ; url (BEL | ESC ')')
+   public static final int HYPERLINK = 1;
+
+   // CSI with an optional count and a single upper-case command, e.g. ESC [ 2 D
+   public static final int CSI = 2;
+
+   // SGR (select graphic rendition): ESC [ n ; n ... m
+   public static final int SGR = 3;
+
+   // possibly the start of a sequence that continues in the next submit
+   public static final int PARTIAL = 4;
+
+   // some other ANSI sequence, which should be discarded
+   public static final int OTHER = 5;
+
+   /**
+    * @return index of the next control character (\r, \b, \f, \n and, if
+    * escapes is true, ESC and CSI) at or after from, or -1 if none
+    */
+   public static int nextControl(String data, int from, boolean escapes)
+   {
+      for (int i = from, n = data.length(); i < n; i++)
+      {
+         char c = data.charAt(i);
+
+         // quickly skip printable ASCII
+         if (c >= ' ' && c < '\177')
+            continue;
+
+         switch (c)
+         {
+         case '\r':
+         case '\b':
+         case '\f':
+         case '\n':
+            return i;
+         case '\033':
+         case '\233':
+            if (escapes)
+               return i;
+            break;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Identifies the escape sequence starting at pos (which must be ESC or
+    * CSI) and records its extent; see getEnd() and the accessors for each
+    * kind of sequence.
+    *
+    * @return the kind of sequence found
+    */
+   public int scanEscape(String data, int pos)
+   {
+      end_ = pos + 1;
+
+      int n = data.length();
+      if (pos + 1 >= n)
+         return PARTIAL;
+
+      if (data.charAt(pos) == '\033' && data.charAt(pos + 1) == ']')
+         return scanHyperlink(data, pos);
+
+      if (data.charAt(pos + 1) == '[')
+      {
+         // count (for cursor movement) or parameters (for SGR)
+         int i = pos + 2;
+         while (i < n && isDigit(data.charAt(i)))
+            i++;
+
+         if (i < n)
+         {
+            char c = data.charAt(i);
+            if (c >= 'A' && c <= 'Z')
+            {
+               count_ = parseCount(data, pos + 2, i);
+               command_ = c;
+               end_ = i + 1;
+               return CSI;
+            }
+         }
+
+         int sgrEnd = scanSgr(data, pos + 2);
+         if (sgrEnd != -1)
+         {
+            end_ = sgrEnd;
+            return SGR;
+         }
+
+         if (isPartialCsi(data, pos + 2))
+            return PARTIAL;
+      }
+
+      // something we don't support; discard it if it's a well-formed
+      // sequence (rare enough that a regex is fine here)
+      Match match = AnsiCode.ANSI_ESCAPE_PATTERN.match(data, pos);
+      if (match != null && match.getIndex() == pos)
+      {
+         end_ = pos + match.getValue().length();
+         return OTHER;
+      }
+
+      return UNKNOWN;
+   }
+
+   /**
+    * @return index just past the end of the last sequence scanned
+    */
+   public int getEnd()
+   {
+      return end_;
+   }
+
+   // CSI: the count (0 if none given) and command character
+   public int getCount()
+   {
+      return count_;
+   }
+
+   public char getCommand()
+   {
+      return command_;
+   }
+
+   // HYPERLINK: the link parameters and url (empty to end a link)
+   public String getHyperlinkParams(String data)
+   {
+      return StringUtil.substring(data, paramsStart_, paramsEnd_);
+   }
+
+   public String getHyperlinkUrl(String data)
+   {
+      return StringUtil.substring(data, urlStart_, urlEnd_);
+   }
+
+   private int scanHyperlink(String data, int pos)
+   {
+      int n = data.length();
+
+      // wait for more if we have only a prefix of the introducer
+      int introEnd = pos + HYPERLINK_INTRO.length();
+      for (int i = pos; i < introEnd; i++)
+      {
+         if (i == n)
+            return partialOrUnknown(data, pos);
+         if (data.charAt(i) != HYPERLINK_INTRO.charAt(i - pos))
+            return UNKNOWN;
+      }
+
+      paramsStart_ = introEnd;
+      paramsEnd_ = data.indexOf(';', paramsStart_);
+      if (paramsEnd_ == -1)
+         return partialOrUnknown(data, pos);
+
+      urlStart_ = paramsEnd_ + 1;
+      for (int i = urlStart_; i < n; i++)
+      {
+         char c = data.charAt(i);
+         if (c == '\007')
+         {
+            urlEnd_ = i;
+            end_ = i + 1;
+            return HYPERLINK;
+         }
+         if (c == '\033' && i + 1 < n && data.charAt(i + 1) == ')')
+         {
+            urlEnd_ = i;
+            end_ = i + 2;
+            return HYPERLINK;
+         }
+      }
+
+      return partialOrUnknown(data, pos);
+   }
+
+   // returns the end of an SGR sequence whose parameters start at the
+   // given index, or -1 if there isn't one
+   private static int scanSgr(String data, int start)
+   {
+      int n = data.length();
+      int i = scanDigits(data, start, 4);
+      if (i == start)
+      {
+         // no parameters
+         return (i < n && data.charAt(i) == 'm') ? i + 1 : -1;
+      }
+
+      while (i < n && data.charAt(i) == ';')
+         i = scanDigits(data, i + 1, 4);
+
+      return (i < n && data.charAt(i) == 'm') ? i + 1 : -1;
+   }
+
+   private static int scanDigits(String data, int start, int max)
+   {
+      int i = start;
+      int n = Math.min(data.length(), start + max);
+      while (i < n && isDigit(data.charAt(i)))
+         i++;
+      return i;
+   }
+
+   // true if everything from start to the end of the data could be the
+   // parameters of a CSI sequence whose final character hasn't arrived yet
+   private static boolean isPartialCsi(String data, int start)
+   {
+      int n = data.length();
+      if (n - start > MAX_PARTIAL_LENGTH)
+         return false;
+
+      for (int i = start; i < n; i++)
+      {
+         char c = data.charAt(i);
+         if (!isDigit(c) && c != ';' && c != '?')
+            return false;
+      }
+      return true;
+   }
+
+   private static int partialOrUnknown(String data, int pos)
+   {
+      return data.length() - pos <= MAX_PARTIAL_LENGTH ? PARTIAL : UNKNOWN;
+   }
+
+   private static int parseCount(String data, int start, int end)
+   {
+      int count = 0;
+      for (int i = start; i < end; i++)
+         count = count * 10 + (data.charAt(i) - '0');
+      return count;
+   }
+
+   private static boolean isDigit(char c)
+   {
+      return c >= '0' && c <= '9';
+   }
+
+   private int end_;
+   private int count_;
+   private char command_;
+   private int paramsStart_;
+   private int paramsEnd_;
+   private int urlStart_;
+   private int urlEnd_;
+
+   private static final String HYPERLINK_INTRO = "\033]8;";
+
+   // don't hold on to more than this waiting for a sequence to complete
+   private static final int MAX_PARTIAL_LENGTH = 2048;
+}
@@ -0,0 +1,362 @@
+/*
+ * ConsoleLineBuffer.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text buffer for VirtualConsole, stored as a list of blocks of lines.
+ *
+ * Positions are character offsets (counting each newline as one character)
+ * from the start of everything written since the buffer was last cleared, so
+ * they remain valid when lines are discarded from the head of the buffer.
+ * Edits only touch the lines they overlap, and positions are located by
+ * searching backwards from the end of the buffer, so the common case of
+ * rewriting the last line (e.g. a progress bar) doesn't depend on the
+ * amount of output that precedes it.
+ */
+public class ConsoleLineBuffer
+{
+   public ConsoleLineBuffer()
+   {
+      clear();
+   }
+
+   public void clear()
+   {
+      blocks_.clear();
+      Block block = new Block();
+      block.add(block.lines.size(), "");
+      blocks_.add(block);
+      origin_ = 0;
+      span_ = 1;
+      lineCount_ = 1;
+   }
+
+   /**
+    * @return offset of the first character still held by the buffer
+    */
+   public int getStart()
+   {
+      return origin_;
+   }
+
+   /**
+    * @return offset just past the last character in the buffer
+    */
+   public int getEnd()
+   {
+      return origin_ + span_ - 1;
+   }
+
+   public int getLineCount()
+   {
+      return lineCount_;
+   }
+
+   /**
+    * @return offset of the start of the line containing the given offset
+    */
+   public int lineStart(int offset)
+   {
+      locate(offset);
+      return locStart_;
+   }
+
+   /**
+    * @return offset of the newline ending the line containing the given
+    * offset, or the end of the buffer if that is the last line
+    */
+   public int lineEnd(int offset)
+   {
+      locate(offset);
+      return locStart_ + blocks_.get(locBlock_).lines.get(locLine_).length();
+   }
+
+   /**
+    * Writes text at the given offset, overwriting as many characters as
+    * the text is long (and extending the buffer if needed); equivalent to
+    * StringBuilder.replace(offset, offset + text.length(), text).
+    */
+   public void replace(int offset, String text)
+   {
+      offset = Math.max(origin_, Math.min(offset, getEnd()));
+      locate(offset);
+      int blockIndex = locBlock_;
+      int lineIndex = locLine_;
+      int column = offset - locStart_;
+
+      Block block = blocks_.get(blockIndex);
+      String line = block.lines.get(lineIndex);
+
+      // fast path: text without newlines that stays within a single line
+      int replaceEnd = column + text.length();
+      if (replaceEnd <= line.length() || isLastLine(blockIndex, lineIndex))
+      {
+         if (text.indexOf('\n') == -1)
+         {
+            String updated = replaceRange(line, column, text);
+            block.set(lineIndex, updated);
+            span_ += updated.length() - line.length();
+            return;
+         }
+      }
+
+      // otherwise, gather the lines the write overlaps (it may overwrite
+      // newlines, joining lines) and split the result back into lines
+      StringBuilder merged = new StringBuilder(line);
+      int count = 1;
+      int b = blockIndex;
+      int l = lineIndex;
+      while (replaceEnd > merged.length() && !isLastLine(b, l))
+      {
+         if (++l == blocks_.get(b).lines.size())
+         {
+            b++;
+            l = 0;
+         }
+         merged.append('\n').append(blocks_.get(b).lines.get(l));
+         count++;
+      }
+
+      spliceLines(blockIndex, lineIndex, count,
+                  splitLines(replaceRange(merged.toString(), column, text)));
+   }
+
+   /**
+    * Discards up to the given number of lines from the head of the buffer;
+    * the last line is always retained.
+    *
+    * @return the number of lines discarded
+    */
+   public int discardLeadingLines(int count)
+   {
+      int discarded = 0;
+      while (discarded < count)
+      {
+         Block first = blocks_.get(0);
+         int remaining = count - discarded;
+         if (blocks_.size() > 1 && first.lines.size() <= remaining)
+         {
+            // drop the whole block
+            blocks_.remove(0);
+            origin_ += first.span;
+            span_ -= first.span;
+            discarded += first.lines.size();
+            continue;
+         }
+
+         // drop lines from the front of the (last remaining) block
+         int n = Math.min(remaining, first.lines.size() - (blocks_.size() > 1 ? 0 : 1));
+         if (n <= 0)
+            break;
+
+         List<String> head = first.lines.subList(0, n);
+         int headSpan = 0;
+         for (String line : head)
+            headSpan += line.length() + 1;
+         head.clear();
+         first.span -= headSpan;
+         origin_ += headSpan;
+         span_ -= headSpan;
+         discarded += n;
+      }
+      lineCount_ -= discarded;
+      return discarded;
+   }
+
+   /**
+    * @return all lines held by the buffer
+    */
+   public List<String> getLines()
+   {
+      List<String> lines = new ArrayList<>();
+      for (Block block : blocks_)
+         lines.addAll(block.lines);
+      return lines;
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder builder = new StringBuilder();
+      boolean first = true;
+      for (Block block : blocks_)
+      {
+         for (String line : block.lines)
+         {
+            if (!first)
+               builder.append('\n');
+            builder.append(line);
+            first = false;
+         }
+      }
+      return builder.toString();
+   }
+
+   private boolean isLastLine(int blockIndex, int lineIndex)
+   {
+      return blockIndex == blocks_.size() - 1 &&
+             lineIndex == blocks_.get(blockIndex).lines.size() - 1;
+   }
+
+   // finds the line containing the given offset, searching backwards from
+   // the end of the buffer; sets locBlock_, locLine_ and locStart_
+   private void locate(int offset)
+   {
+      int blockEnd = origin_ + span_;
+      for (int b = blocks_.size() - 1; b >= 0; b--)
+      {
+         Block block = blocks_.get(b);
+         int blockStart = blockEnd - block.span;
+         if (offset >= blockStart || b == 0)
+         {
+            int lineEnd = blockEnd;
+            for (int l = block.lines.size() - 1; l >= 0; l--)
+            {
+               int lineStart = lineEnd - block.lines.get(l).length() - 1;
+               if (offset >= lineStart || l == 0)
+               {
+                  locBlock_ = b;
+                  locLine_ = l;
+                  locStart_ = lineStart;
+                  return;
+               }
+               lineEnd = lineStart;
+            }
+         }
+         blockEnd = blockStart;
+      }
+   }
+
+   // replaces count lines starting at the given position with new lines
+   private void spliceLines(int blockIndex, int lineIndex, int count, List<String> lines)
+   {
+      // remove the old lines, which may extend into following blocks
+      int b = blockIndex;
+      int l = lineIndex;
+      int remaining = count;
+      while (remaining > 0)
+      {
+         Block block = blocks_.get(b);
+         while (remaining > 0 && l < block.lines.size())
+         {
+            span_ -= block.remove(l);
+            remaining--;
+         }
+         b++;
+         l = 0;
+      }
+
+      // insert the new ones in their place
+      Block target = blocks_.get(blockIndex);
+      for (int i = 0; i < lines.size(); i++)
+         span_ += target.add(lineIndex + i, lines.get(i));
+      lineCount_ += lines.size() - count;
+
+      // drop any blocks emptied by the removal
+      for (int i = blocks_.size() - 1; i > blockIndex; i--)
+      {
+         if (blocks_.get(i).lines.isEmpty())
+            blocks_.remove(i);
+      }
+
+      // keep blocks small so edits within them stay cheap
+      while (target.lines.size() > MAX_BLOCK_LINES)
+      {
+         int splitAt = target.lines.size() - BLOCK_LINES;
+         Block tail = new Block();
+         List<String> moved = target.lines.subList(splitAt, target.lines.size());
+         for (String line : moved)
+            tail.add(tail.lines.size(), line);
+         moved.clear();
+         target.span -= tail.span;
+         blocks_.add(blockIndex + 1, tail);
+      }
+   }
+
+   private static String replaceRange(String text, int start, String replacement)
+   {
+      int end = start + replacement.length();
+      if (end >= text.length())
+         return StringUtil.substring(text, 0, start) + replacement;
+      return StringUtil.substring(text, 0, start) + replacement + StringUtil.substring(text, end);
+   }
+
+   private static List<String> splitLines(String text)
+   {
+      List<String> lines = new ArrayList<>();
+      int start = 0;
+      int newline;
+      while ((newline = text.indexOf('\n', start)) != -1)
+      {
+         lines.add(StringUtil.substring(text, start, newline));
+         start = newline + 1;
+      }
+      lines.add(StringUtil.substring(text, start));
+      return lines;
+   }
+
+   private static class Block
+   {
+      // returns the change in span
+      int add(int index, String line)
+      {
+         lines.add(index, line);
+         span += line.length() + 1;
+         return line.length() + 1;
+      }
+
+      void set(int index, String line)
+      {
+         span += line.length() - lines.get(index).length();
+         lines.set(index, line);
+      }
+
+      // returns the span removed
+      int remove(int index)
+      {
+         String line = lines.remove(index);
+         span -= line.length() + 1;
+         return line.length() + 1;
+      }
+
+      final ArrayList<String> lines = new ArrayList<>();
+
+      // characters in this block, counting one newline per line
+      int span = 0;
+   }
+
+   private final ArrayList<Block> blocks_ = new ArrayList<>();
+
+   // offset of the first retained character
+   private int origin_;
+
+   // characters in all blocks, counting one newline per line (so one more
+   // than the length of the text)
+   private int span_;
+
+   // lines in all blocks
+   private int lineCount_;
+
+   // result of locate()
+   private int locBlock_;
+   private int locLine_;
+   private int locStart_;
+
+   private static final int BLOCK_LINES = 128;
+   private static final int MAX_BLOCK_LINES = 2 * BLOCK_LINES;
+}
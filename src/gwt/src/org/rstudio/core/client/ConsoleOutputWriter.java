@@ -75,6 +75,8 @@ public class ConsoleOutputWriter
    public void setMaxOutputLines(int maxLines)
    {
       maxLines_ = maxLines;
+      if (virtualConsole_ != null)
+         virtualConsole_.setMaxRetainedLines(maxLines_);
       trimExcess();
    }
 
@@ -108,6 +110,7 @@ public class ConsoleOutputWriter
          outEl.appendChild(trailing);
          virtualConsole_ = vcFactory_.create(trailing);
          virtualConsole_.setVirtualizedDisableOverride(false);
+         virtualConsole_.setMaxRetainedLines(maxLines_);
       }
 
       // set the appendTarget to the VirtualConsole bucket if possible
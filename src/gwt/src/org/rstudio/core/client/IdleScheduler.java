@@ -0,0 +1,347 @@
+/*
+ * IdleScheduler.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Runs background work (highlighting, scope trees, linting, etc.) while the
+ * browser is idle, so that it doesn't compete with typing or rendering.
+ *
+ * Work is done by tasks which, like timers, are scheduled and cancelled
+ * individually; a task does a slice of work each time it runs, returning
+ * whether it has more to do. Each idle period is shared between the
+ * scheduled tasks, with tasks working on what's visible to the user run
+ * ahead of the others. The time spent running tasks is recorded by label.
+ */
+public class IdleScheduler
+{
+   public static abstract class Task
+   {
+      public Task(String label)
+      {
+         label_ = label;
+      }
+
+      /**
+       * Does a slice of work.
+       *
+       * @param deadline The time by which the task should return.
+       * @return Whether there's more work to do; if so, the task runs again
+       *    in a later slice.
+       */
+      public abstract boolean execute(Deadline deadline);
+
+      /**
+       * Called each time the scheduler chooses a task to run, so may depend
+       * on the task's current state (e.g. whether the rows it will work on
+       * next are visible).
+       */
+      public int getPriority()
+      {
+         return PRIORITY_NORMAL;
+      }
+
+      public String getLabel()
+      {
+         return label_;
+      }
+
+      // runs the task the next time the browser is idle
+      public void schedule()
+      {
+         cancelTimer();
+         get().enqueue(this);
+      }
+
+      // runs the task the next time the browser is idle after the given
+      // delay; as with Timer.schedule(), this replaces any pending run
+      public void schedule(int delayMs)
+      {
+         if (delayMs <= 0)
+         {
+            schedule();
+            return;
+         }
+
+         get().dequeue(this);
+         if (timer_ == null)
+         {
+            timer_ = new Timer()
+            {
+               @Override
+               public void run()
+               {
+                  get().enqueue(Task.this);
+               }
+            };
+         }
+         timer_.schedule(delayMs);
+      }
+
+      public void cancel()
+      {
+         cancelTimer();
+         get().dequeue(this);
+      }
+
+      public boolean isScheduled()
+      {
+         return queued_ || (timer_ != null && timer_.isRunning());
+      }
+
+      private void cancelTimer()
+      {
+         if (timer_ != null)
+            timer_.cancel();
+      }
+
+      private final String label_;
+      private Timer timer_;
+      private boolean queued_;
+   }
+
+   public static class Deadline
+   {
+      Deadline(double endTime)
+      {
+         endTime_ = endTime;
+      }
+
+      public double timeRemaining()
+      {
+         return Math.max(0, endTime_ - Duration.currentTimeMillis());
+      }
+
+      public boolean hasExpired()
+      {
+         return Duration.currentTimeMillis() >= endTime_;
+      }
+
+      private final double endTime_;
+   }
+
+   // time spent running the tasks sharing a label
+   public static class Statistics
+   {
+      Statistics(String label)
+      {
+         label_ = label;
+      }
+
+      public String getLabel()
+      {
+         return label_;
+      }
+
+      public int getSliceCount()
+      {
+         return sliceCount_;
+      }
+
+      public double getTotalMillis()
+      {
+         return totalMillis_;
+      }
+
+      public double getMaxSliceMillis()
+      {
+         return maxSliceMillis_;
+      }
+
+      @Override
+      public String toString()
+      {
+         return label_ + ": " + sliceCount_ + " slices, " +
+                Math.round(totalMillis_) + "ms total, " +
+                Math.round(maxSliceMillis_) + "ms max";
+      }
+
+      private final String label_;
+      private int sliceCount_;
+      private double totalMillis_;
+      private double maxSliceMillis_;
+   }
+
+   public static IdleScheduler get()
+   {
+      if (INSTANCE == null)
+         INSTANCE = new IdleScheduler();
+      return INSTANCE;
+   }
+
+   private IdleScheduler()
+   {
+   }
+
+   public List<Statistics> getStatistics()
+   {
+      return new ArrayList<>(statistics_.values());
+   }
+
+   public void resetStatistics()
+   {
+      statistics_.clear();
+   }
+
+   private void enqueue(Task task)
+   {
+      if (task.queued_)
+         return;
+
+      task.queued_ = true;
+      queue_.add(task);
+      requestIdleCallback();
+   }
+
+   private void dequeue(Task task)
+   {
+      if (!task.queued_)
+         return;
+
+      task.queued_ = false;
+      queue_.remove(task);
+   }
+
+   private void onIdle(double timeRemaining, boolean didTimeout)
+   {
+      callbackPending_ = false;
+
+      // if we were run because the browser has been busy for a while, do
+      // only a little work so that background tasks can't be starved
+      double budget;
+      if (didTimeout)
+         budget = MIN_BUDGET_MS;
+      else if (timeRemaining < 0)
+         budget = FRAME_BUDGET_MS;
+      else
+         budget = Math.max(MIN_BUDGET_MS, Math.min(timeRemaining, FRAME_BUDGET_MS));
+
+      double now = Duration.currentTimeMillis();
+      double frameEnd = now + budget;
+      while (!queue_.isEmpty() && now < frameEnd)
+      {
+         Task task = next();
+         dequeue(task);
+
+         boolean more = false;
+         double taskEnd = Math.min(frameEnd, now + TASK_BUDGET_MS);
+         try
+         {
+            more = task.execute(new Deadline(taskEnd));
+         }
+         catch (Exception e)
+         {
+            Debug.logException(e);
+         }
+
+         double elapsed = Duration.currentTimeMillis() - now;
+         record(task.getLabel(), elapsed);
+         now += elapsed;
+
+         // the task may have rescheduled (or cancelled) itself while running
+         if (more && !task.isScheduled())
+            enqueue(task);
+      }
+
+      if (!queue_.isEmpty())
+         requestIdleCallback();
+   }
+
+   // the first of the highest priority tasks, so tasks with the same
+   // priority take turns
+   private Task next()
+   {
+      Task next = queue_.get(0);
+      int priority = next.getPriority();
+      for (int i = 1; i < queue_.size() && priority > PRIORITY_VISIBLE; i++)
+      {
+         Task task = queue_.get(i);
+         int taskPriority = task.getPriority();
+         if (taskPriority < priority)
+         {
+            next = task;
+            priority = taskPriority;
+         }
+      }
+      return next;
+   }
+
+   private void record(String label, double elapsed)
+   {
+      Statistics statistics = statistics_.get(label);
+      if (statistics == null)
+      {
+         statistics = new Statistics(label);
+         statistics_.put(label, statistics);
+      }
+
+      statistics.sliceCount_++;
+      statistics.totalMillis_ += elapsed;
+      statistics.maxSliceMillis_ = Math.max(statistics.maxSliceMillis_, elapsed);
+   }
+
+   private void requestIdleCallback()
+   {
+      if (callbackPending_)
+         return;
+
+      callbackPending_ = true;
+      requestIdleCallbackImpl(IDLE_TIMEOUT_MS);
+   }
+
+   // not all browsers support requestIdleCallback (notably Safari); in that
+   // case we just yield to the event loop between slices
+   private final native void requestIdleCallbackImpl(int timeoutMs) /*-{
+      var self = this;
+      if ($wnd.requestIdleCallback)
+      {
+         $wnd.requestIdleCallback($entry(function(deadline) {
+            self.@org.rstudio.core.client.IdleScheduler::onIdle(DZ)(
+               deadline.timeRemaining(), deadline.didTimeout);
+         }), { timeout: timeoutMs });
+      }
+      else
+      {
+         $wnd.setTimeout($entry(function() {
+            self.@org.rstudio.core.client.IdleScheduler::onIdle(DZ)(-1, false);
+         }), 5);
+      }
+   }-*/;
+
+   // tasks working on what's visible to the user
+   public static final int PRIORITY_VISIBLE = 0;
+   public static final int PRIORITY_NORMAL = 1;
+
+   private final List<Task> queue_ = new ArrayList<>();
+   private final LinkedHashMap<String, Statistics> statistics_ = new LinkedHashMap<>();
+   private boolean callbackPending_;
+
+   private static IdleScheduler INSTANCE;
+
+   // the most time spent running tasks in one idle period, and by any one
+   // task within it
+   private static final int FRAME_BUDGET_MS = 10;
+   private static final int TASK_BUDGET_MS = 4;
+
+   // the time spent when the browser hasn't been idle within IDLE_TIMEOUT_MS
+   private static final int MIN_BUDGET_MS = 2;
+   private static final int IDLE_TIMEOUT_MS = 250;
+}
@@ -24,13 +24,10 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.rstudio.core.client.hyperlink.Hyperlink;
-import org.rstudio.core.client.regex.Match;
-import org.rstudio.core.client.regex.Pattern;
 import org.rstudio.core.client.virtualscroller.VirtualScrollerManager;
 import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.prefs.model.UserPrefsSubset;
 
-import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Node;
@@ -86,55 +83,6 @@ public class VirtualConsole
       }
    }
    
-   private static class HyperlinkMatch
-   {
-      public static HyperlinkMatch create(String data, int offset)
-      {
-         String params;
-         String contents;
-         int endIndex;
-         
-         // ESC ']' '8' ';' <params> ';' <url> ( BEL | ESC ')')
-         TextCursor cursor = new TextCursor(data, offset);
-         if (!cursor.consume("\u001b]8;"))
-            return null;
-         
-         int paramsStart = cursor.getIndex();
-         if (!cursor.consumeUntil(';'))
-            return null;
-         
-         int paramsEnd = cursor.getIndex();
-         params = StringUtil.substring(data, paramsStart, paramsEnd);
-         
-         if (!cursor.consume(';'))
-            return null;
-         
-         int contentsStart = cursor.getIndex();
-         if (!cursor.consumeUntilRegex("(?:\\u0007|\\u001b\\))"))
-            return null;
-         
-         int contentsEnd = cursor.getIndex();
-         contents = StringUtil.substring(data, contentsStart, contentsEnd);
-         cursor.advance(cursor.peek() == '\u0007' ? 1 : 2);
-         endIndex = cursor.getIndex();
-         
-         return new HyperlinkMatch(params, contents, endIndex);
-      }
-      
-      private HyperlinkMatch(String params,
-                             String contents,
-                             int endIndex)
-      {
-         params_ = params;
-         contents_ = contents;
-         endIndex_ = endIndex;
-      }
-      
-      public final String params_;
-      public final String contents_;
-      public final int endIndex_;
-   }
-
    @Inject
    public VirtualConsole(@Assisted Element parent, final Preferences prefs)
    {
@@ -184,31 +132,28 @@ public class VirtualConsole
    private void backspace(int count)
    {
       clearPartialAnsiCode();
-      cursor_ = Math.max(0, cursor_ - count);
+      cursor_ = Math.max(output_.getStart(), cursor_ - count);
    }
 
    private void carriageReturn()
    {
       clearPartialAnsiCode();
-      if (cursor_ == 0)
-         return;
-      while (cursor_ > 0 && output_.charAt(cursor_ - 1) != '\n')
-         cursor_--;
+      cursor_ = output_.lineStart(cursor_);
    }
 
    private void newline(String clazz)
    {
       clearPartialAnsiCode();
-      while (cursor_ < output_.length() && output_.charAt(cursor_) != '\n')
-         cursor_++;
+      cursor_ = output_.lineEnd(cursor_);
       // Now we're either at the end of the buffer, or on top of a '\n'
       text("\n", clazz, false/*forceNewRange*/);
+      discardExcessLines();
    }
 
    private void formfeed()
    {
       clearPartialAnsiCode();
-      output_.setLength(0);
+      output_.clear();
       cursor_ = 0;
       class_.clear();
       if (parent_ != null)
@@ -250,32 +195,69 @@ public class VirtualConsole
       Debug.logToConsole("Done dumping " + name);
    }
 
+   /**
+    * Limits the number of lines of output retained (for cursor movement and
+    * toString) to roughly the given number; older lines are discarded. The
+    * DOM is not affected. A value of zero or less retains all output.
+    */
+   public void setMaxRetainedLines(int maxLines)
+   {
+      maxRetainedLines_ = maxLines;
+      discardExcessLines();
+   }
+
+   private void discardExcessLines()
+   {
+      if (maxRetainedLines_ <= 0)
+         return;
+
+      int excess = output_.getLineCount() - maxRetainedLines_;
+      if (excess <= 0)
+         return;
+
+      output_.discardLeadingLines(excess);
+      cursor_ = Math.max(cursor_, output_.getStart());
+
+      // forget ranges that lie entirely within the discarded output
+      while (!class_.isEmpty())
+      {
+         Entry<Integer, ClassRange> first = class_.firstEntry();
+         if (first.getKey() + first.getValue().length > output_.getStart())
+            break;
+         class_.pollFirstEntry();
+      }
+   }
+
    @Override
    public String toString()
    {
-      String output = output_.toString();
-
       int maxLength = prefs_.truncateLongLinesInConsoleHistory();
       if (maxLength == 0)
-         return output;
+         return output_.toString();
 
-      JsArrayString splat = StringUtil.split(output, "\n");
-      for (int i = 0; i < splat.length(); i++)
+      StringBuilder output = new StringBuilder();
+      boolean first = true;
+      for (String string : output_.getLines())
       {
-         String string = splat.get(i);
+         if (!first)
+            output.append('\n');
+         first = false;
+
          String trimmed = StringUtil.trimRight(string);
          if (trimmed.length() > maxLength)
-            splat.set(i, StringUtil.substring(trimmed, 0, maxLength) + "... <truncated>");
+            output.append(StringUtil.substring(trimmed, 0, maxLength)).append("... <truncated>");
          else if (string.length() > maxLength)
-            splat.set(i, StringUtil.substring(string, 0, maxLength));
+            output.append(StringUtil.substring(string, 0, maxLength));
+         else
+            output.append(string);
       }
 
-      return splat.join("\n");
+      return output.toString();
    }
 
    public int getLength()
    {
-      return output_.length();
+      return output_.getEnd();
    }
 
    public Element getParent()
@@ -315,6 +297,8 @@ public class VirtualConsole
       {
          // just append to the existing output stream
          range.appendRight(text, 0);
+         if (isVirtualized())
+            VirtualScrollerManager.onTextAppended(parent_.getParentElement(), text);
       }
    }
 
@@ -379,8 +363,12 @@ public class VirtualConsole
             if (matches)
             {
                // extend the original range
-               overlap.appendRight(range.text(), delta);
+               String text = range.text();
+               overlap.appendRight(text, delta);
                range.clearText();
+               if (isVirtualized())
+                  VirtualScrollerManager.onTextAppended(parent_.getParentElement(),
+                                                        StringUtil.substring(text, delta));
             }
             else
             {
@@ -389,7 +377,7 @@ public class VirtualConsole
                insertions.add(range);
                haveInsertedRange = true;
                if (parent_ != null)
-                  overlap.element.getParentElement().insertAfter(range.element, overlap.element);
+                  overlap.element.getParentNode().insertAfter(range.element, overlap.element);
             }
          }
          else if (start <= l && end <= r && end > l)
@@ -406,8 +394,7 @@ public class VirtualConsole
                {
                   deletions.add(l);
 
-                  if (overlap.element.getParentElement() != null)
-                     overlap.element.removeFromParent();
+                  removeElement(overlap.element);
                }
                else
                {
@@ -439,7 +426,7 @@ public class VirtualConsole
                   insertions.add(range);
                
                if (parent_ != null && !range.text().isEmpty())
-                  overlap.element.getParentElement().insertBefore(range.element, overlap.element);
+                  overlap.element.getParentNode().insertBefore(range.element, overlap.element);
 
             }
          }
@@ -448,7 +435,7 @@ public class VirtualConsole
             // this range is fully overwritten, just delete it
             deletions.add(l);
             if (parent_ != null)
-               overlap.element.removeFromParent();
+               removeElement(overlap.element);
          }
          else if (start > l && end < r)
          {
@@ -469,7 +456,7 @@ public class VirtualConsole
                // insert the new range
                insertions.add(range);
                if (parent_ != null)
-                  overlap.element.getParentElement().insertAfter(range.element, overlap.element);
+                  overlap.element.getParentNode().insertAfter(range.element, overlap.element);
 
                // add back the remainder
                ClassRange remainder = new ClassRange(
@@ -480,7 +467,7 @@ public class VirtualConsole
                      overlap.hyperlink_);
                insertions.add(remainder);
                if (parent_ != null)
-                  range.element.getParentElement().insertAfter(remainder.element, range.element);
+                  range.element.getParentNode().insertAfter(remainder.element, range.element);
             }
          }
       }
@@ -504,6 +491,16 @@ public class VirtualConsole
       }
    }
 
+   // the virtual scroller detaches elements that are scrolled out of view
+   // into document fragments, so they may have a parent node but no parent
+   // element
+   private static void removeElement(Element element)
+   {
+      Node parent = element.getParentNode();
+      if (parent != null)
+         parent.removeChild(element);
+   }
+
    /**
     * Add a child to the parent or the virtual scroller, depending on preference
     * @param element to add
@@ -529,19 +526,18 @@ public class VirtualConsole
          newText_.append(text);
 
       int start = cursor_;
-      int end = cursor_ + text.length();
 
       // real-time output if we have a parent
       if (parent_ != null)
       {
          // short circuit common case in which we're just adding output
-         if (cursor_ == output_.length() && !class_.isEmpty())
+         if (cursor_ == output_.getEnd() && !class_.isEmpty())
             appendText(text, clazz, forceNewRange);
          else
             insertText(new ClassRange(start, clazz, text, preserveHTML_, hyperlink_));
       }
 
-      output_.replace(start, end, text);
+      output_.replace(start, text);
       cursor_ += text.length();
    }
 
@@ -607,10 +603,9 @@ public class VirtualConsole
          }
       }
 
-      Match match = (ansiColorMode == UserPrefs.ANSI_CONSOLE_MODE_OFF) ?
-            CONTROL.match(data, 0) :
-            AnsiCode.CONTROL_PATTERN.match(data, 0);
-      if (match == null)
+      boolean escapes = ansiColorMode != UserPrefs.ANSI_CONSOLE_MODE_OFF;
+      int pos = ConsoleControlScanner.nextControl(data, 0, escapes);
+      if (pos == -1)
       {
          text(data, currentClazz, forceNewRange);
          return;
@@ -618,9 +613,8 @@ public class VirtualConsole
 
       int tail = 0;
       
-      while (match != null)
+      while (pos != -1)
       {
-         int pos = match.getIndex();
          // If we passed over any plain text on the way to this control
          // character, add it.
          if (tail != pos)
@@ -651,109 +645,70 @@ public class VirtualConsole
             case '\033': // \x1b
             case '\233': // \x9b
 
-               // VirtualConsole only supports ANSI SGR codes (colors, font, etc).
-               // We want to identify and act on these codes, while discarding the codes
-               // we don't support. Tricky part is we might get codes split across
-               // submit calls.
+               // VirtualConsole only supports ANSI SGR codes (colors, font, etc),
+               // hyperlinks and simple cursor movement. We want to identify and act
+               // on these codes, while discarding the codes we don't support. Tricky
+               // part is we might get codes split across submit calls.
 
                if (ansi_ == null)
                   ansi_ = new AnsiCode();
-               
-               
-               // match hyperlink, either start or end (if [url] is empty
-               // <ESC> ] 8 ; [params] ; [url] \7
-               HyperlinkMatch hyperlinkMatch = HyperlinkMatch.create(data, pos);
-               if (hyperlinkMatch != null)
-               {
-                  String params = hyperlinkMatch.params_;
-                  String url = hyperlinkMatch.contents_;
-
-                  // toggle hyperlink_
-                  if (!StringUtil.equals(url, ""))
-                  {
-                     hyperlink_ = new HyperlinkInfo(url, params);
-                  }
-                  else
-                  {
-                     hyperlink_ = null;   
-                  }
 
-                  tail = hyperlinkMatch.endIndex_;
-                  break;
-               }
-               
-               // match complete CSI codes
-               Match csiMatch = AnsiCode.CSI_PATTERN.match(data, pos);
-               if (csiMatch != null)
-               {
-                  int n = StringUtil.parseInt(csiMatch.getGroup(1), 0);
-                  String command = csiMatch.getGroup(2);
-                  
-                  if (command == "C")
-                  {
-                     cursor_ = Math.min(output_.length(), cursor_ + n);
-                  }
-                  else if (command == "D")
-                  {
-                     cursor_ = Math.max(0, cursor_ - n);
-                  }
-                  
-                  tail = pos + csiMatch.getValue().length();
-                  break;
-               }
-               
-               // match complete SGR codes
-               Match sgrMatch = AnsiCode.SGR_ESCAPE_PATTERN.match(data, pos);
-               if (sgrMatch == null)
+               switch (scanner_.scanEscape(data, pos))
                {
-                  if (StringUtil.equals(StringUtil.substring(data, tail), "["))
-                  {
-                     // only have "[" at end, could be any ANSI code, so save remainder
-                     // of string to see if we can recognize it when more arrives
-                     partialAnsiCode_ = StringUtil.substring(data, pos);
-                     return;
-                  }
-
-                  // potentially an incomplete SGR code
-                  Match partialMatch = AnsiCode.SGR_PARTIAL_ESCAPE_PATTERN.match(data, pos);
-                  if (partialMatch != null)
-                  {
-                     // Might have an SGR ANSI code that was split across submit calls;
+                  case ConsoleControlScanner.HYPERLINK:
+                     // toggle hyperlink_ (an empty url ends the link)
+                     String url = scanner_.getHyperlinkUrl(data);
+                     if (!StringUtil.equals(url, ""))
+                     {
+                        hyperlink_ = new HyperlinkInfo(url, scanner_.getHyperlinkParams(data));
+                     }
+                     else
+                     {
+                        hyperlink_ = null;
+                     }
+                     tail = scanner_.getEnd();
+                     break;
+
+                  case ConsoleControlScanner.CSI:
+                     if (scanner_.getCommand() == 'C')
+                     {
+                        cursor_ = Math.min(output_.getEnd(), cursor_ + scanner_.getCount());
+                     }
+                     else if (scanner_.getCommand() == 'D')
+                     {
+                        cursor_ = Math.max(output_.getStart(), cursor_ - scanner_.getCount());
+                     }
+                     tail = scanner_.getEnd();
+                     break;
+
+                  case ConsoleControlScanner.SGR:
+                     // process the SGR code
+                     ansiCodeStyles_ = ansi_.processCode(
+                           StringUtil.substring(data, pos, scanner_.getEnd()));
+                     currentClazz = setCurrentClazz(ansiColorMode, clazz);
+                     tail = scanner_.getEnd();
+                     break;
+
+                  case ConsoleControlScanner.PARTIAL:
+                     // Might have an ANSI code that was split across submit calls;
                      // save remainder of string to see if we can recognize it
                      // when more arrives
                      partialAnsiCode_ = StringUtil.substring(data, pos);
                      return;
-                  }
 
-                  // how about an unsupported ANSI code?
-                  Match ansiMatch = AnsiCode.ANSI_ESCAPE_PATTERN.match(data, pos);
-                  if (ansiMatch != null)
-                  {
-                     // discard it
-                     tail = pos + ansiMatch.getValue().length();
-                  }
-                  else
-                  {
+                  case ConsoleControlScanner.OTHER:
+                     // an unsupported ANSI code; discard it
+                     tail = scanner_.getEnd();
+                     break;
+
+                  default:
                      // nothing useful we can do, just throw away the ESC
-                     tail++;
-                  }
+                     break;
                }
-               else
-               {
-                  // process the SGR code
-                  ansiCodeStyles_ = ansi_.processCode(sgrMatch.getValue());
-                  currentClazz = setCurrentClazz(ansiColorMode, clazz);
-                  
-                  tail = pos + sgrMatch.getValue().length();
-               }
-               break;
-            default:
-               assert false : "Unknown control char, please check regex";
-               text(data.charAt(pos) + "", currentClazz, false/*forceNewRange*/);
                break;
          }
 
-         match = match.nextMatch();
+         pos = ConsoleControlScanner.nextControl(data, tail, escapes);
       }
 
       Entry<Integer, ClassRange> last = class_.lastEntry();
@@ -935,7 +890,6 @@ public class VirtualConsole
       public String url_;
       public String params_;
    }
-   private static final Pattern CONTROL = Pattern.create("[\r\b\f\n]");
 
    // only a select few panes should be virtualized. default it to off everywhere.
    private boolean virtualizedDisableOverride_ = true;
@@ -943,12 +897,14 @@ public class VirtualConsole
    // allows &entity_name; entities like &amp;
    private boolean preserveHTML_ = false;
 
-   private final StringBuilder output_ = new StringBuilder();
+   private final ConsoleLineBuffer output_ = new ConsoleLineBuffer();
    private final TreeMap<Integer, ClassRange> class_ = new TreeMap<>();
    private final Element parent_;
 
    private int cursor_ = 0;
+   private int maxRetainedLines_ = 0;
    private AnsiCode ansi_;
+   private final ConsoleControlScanner scanner_ = new ConsoleControlScanner();
    private String partialAnsiCode_;
    private AnsiCode.AnsiClazzes ansiCodeStyles_ = new AnsiCode.AnsiClazzes();
    private HyperlinkInfo hyperlink_;
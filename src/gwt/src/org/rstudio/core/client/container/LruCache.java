@@ -0,0 +1,74 @@
+/*
+ * LruCache.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// A map holding at most a fixed number of entries; adding an entry to a
+// full cache discards the entry that was least recently read or written.
+public class LruCache<K, V>
+{
+   public LruCache(int capacity)
+   {
+      capacity_ = Math.max(1, capacity);
+      map_ = new LinkedHashMap<>(16, 0.75f, true);
+   }
+
+   // returns null if there's no entry for the key
+   public V get(K key)
+   {
+      return map_.get(key);
+   }
+
+   public void put(K key, V value)
+   {
+      map_.put(key, value);
+      while (map_.size() > capacity_)
+      {
+         Iterator<K> eldest = map_.keySet().iterator();
+         eldest.next();
+         eldest.remove();
+      }
+   }
+
+   public V remove(K key)
+   {
+      return map_.remove(key);
+   }
+
+   public void clear()
+   {
+      map_.clear();
+   }
+
+   public int size()
+   {
+      return map_.size();
+   }
+
+   public boolean isEmpty()
+   {
+      return map_.isEmpty();
+   }
+
+   public int getCapacity()
+   {
+      return capacity_;
+   }
+
+   private final int capacity_;
+   private final LinkedHashMap<K, V> map_;
+}
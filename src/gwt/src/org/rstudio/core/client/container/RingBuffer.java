@@ -0,0 +1,103 @@
+/*
+ * RingBuffer.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+// A growable FIFO queue backed by a circular array. Unlike
+// ArrayList.remove(0), removing from the head is O(1), which matters
+// when a queue is filled and drained with many thousands of items.
+public class RingBuffer<T>
+{
+   public RingBuffer()
+   {
+      this(DEFAULT_CAPACITY);
+   }
+
+   public RingBuffer(int initialCapacity)
+   {
+      data_ = new Object[Math.max(1, initialCapacity)];
+   }
+
+   public void add(T item)
+   {
+      if (size_ == data_.length)
+         grow();
+
+      data_[(head_ + size_) % data_.length] = item;
+      size_++;
+   }
+
+   @SuppressWarnings("unchecked")
+   public T peek()
+   {
+      if (size_ == 0)
+         return null;
+      return (T) data_[head_];
+   }
+
+   // returns the item at the given offset from the head of the queue
+   @SuppressWarnings("unchecked")
+   public T get(int index)
+   {
+      if (index < 0 || index >= size_)
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size_);
+      return (T) data_[(head_ + index) % data_.length];
+   }
+
+   @SuppressWarnings("unchecked")
+   public T remove()
+   {
+      if (size_ == 0)
+         return null;
+
+      T item = (T) data_[head_];
+      data_[head_] = null;
+      head_ = (head_ + 1) % data_.length;
+      size_--;
+      return item;
+   }
+
+   public void clear()
+   {
+      for (int i = 0; i < size_; i++)
+         data_[(head_ + i) % data_.length] = null;
+      head_ = 0;
+      size_ = 0;
+   }
+
+   public int size()
+   {
+      return size_;
+   }
+
+   public boolean isEmpty()
+   {
+      return size_ == 0;
+   }
+
+   private void grow()
+   {
+      Object[] data = new Object[data_.length * 2];
+      for (int i = 0; i < size_; i++)
+         data[i] = data_[(head_ + i) % data_.length];
+      data_ = data;
+      head_ = 0;
+   }
+
+   private Object[] data_;
+   private int head_ = 0;
+   private int size_ = 0;
+
+   private static final int DEFAULT_CAPACITY = 64;
+}
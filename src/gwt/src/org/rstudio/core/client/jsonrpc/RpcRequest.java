@@ -45,6 +45,35 @@ public class RpcRequest
                      String clientId,
                      String clientVersion,
                      boolean refreshCredentials)
+   {
+      this(url,
+           method,
+           params,
+           kwparams,
+           redactLog,
+           resultFieldName,
+           sourceWindow,
+           clientId,
+           clientVersion,
+           refreshCredentials,
+           null);
+   }
+
+   // coalesceToken ("<channel>:<sequence>") marks a request whose result is
+   // only wanted until a newer request is made on the same channel; the
+   // session skips requests which have been superseded by the time it
+   // gets to them
+   public RpcRequest(String url,
+                     String method,
+                     JSONArray params,
+                     JSONObject kwparams,
+                     boolean redactLog,
+                     String resultFieldName,
+                     String sourceWindow,
+                     String clientId,
+                     String clientVersion,
+                     boolean refreshCredentials,
+                     String coalesceToken)
    {
       url_ = url;
       method_ = method;
@@ -62,6 +91,7 @@ public class RpcRequest
          clientId_ = null;
       clientVersion_ = new JSONString(clientVersion);
       refreshCredentials_ = refreshCredentials;
+      coalesceToken_ = coalesceToken;
    }
    
    public void send(RpcRequestCallback callback)
@@ -71,23 +101,7 @@ public class RpcRequest
       final RpcRequestCallback requestCallback = callback;
       
       // build json request object
-      JSONObject request = new JSONObject();
-      request.put("method", new JSONString(method_));
-      if ( params_ != null )
-         request.put("params", params_);  
-      if ( kwparams_ != null)
-         request.put("kwparams", kwparams_);
-      
-      // add src window if we have it
-      if (sourceWindow_ != null)
-         request.put("sourceWnd", sourceWindow_);
-      
-      // add client id if we have it
-      if (clientId_ != null)
-         request.put("clientId", clientId_);
-
-      // add client version
-      request.put("clientVersion", clientVersion_);
+      JSONObject request = toJSONObject();
       
       // configure request builder
       RequestBuilder builder = new RequestBuilder(RequestBuilder.POST, url_);
@@ -105,6 +119,10 @@ public class RpcRequest
       // inform the server if we should not refresh auth creds
       if (!refreshCredentials_)
          builder.setHeader("X-RStudio-Refresh-Auth-Creds", "0");
+
+      // let the server know which channel this request supersedes requests on
+      if (coalesceToken_ != null)
+         builder.setHeader("X-RS-Coalesce", coalesceToken_);
       
       // send request
       try
@@ -206,8 +224,67 @@ public class RpcRequest
       }
    }
    
+   // the json representation of this request (also used to embed the
+   // request in a batch; see RpcRequestBatcher)
+   JSONObject toJSONObject()
+   {
+      JSONObject request = new JSONObject();
+      request.put("method", new JSONString(method_));
+      if ( params_ != null )
+         request.put("params", params_);  
+      if ( kwparams_ != null)
+         request.put("kwparams", kwparams_);
+      
+      // add src window if we have it
+      if (sourceWindow_ != null)
+         request.put("sourceWnd", sourceWindow_);
+      
+      // add client id if we have it
+      if (clientId_ != null)
+         request.put("clientId", clientId_);
+
+      // add client version
+      request.put("clientVersion", clientVersion_);
+      
+      return request;
+   }
+   
+   // called by RpcRequestBatcher when this request is added to a batch
+   // (with a null batch when it leaves the batch)
+   void setBatch(RpcRequestBatcher.Batch batch)
+   {
+      batch_ = batch;
+   }
+   
+   RpcRequestBatcher.Batch getBatch()
+   {
+      return batch_;
+   }
+   
+   // logs this request as sent in a batch envelope, rather than on its own
+   void logBatched()
+   {
+      requestLogEntry_ = RequestLog.log(Integer.toString(Random.nextInt()),
+                                        redactLog_ ? constants_.redactedText()
+                                                   : toJSONObject().toString());
+   }
+   
+   void logBatchedResponse(int responseType, String data)
+   {
+      if (requestLogEntry_ != null)
+         requestLogEntry_.logResponse(responseType, data);
+   }
+   
    public void cancel()
    {
+      // the batch's envelope is cancelled once all of its requests are
+      if (batch_ != null)
+      {
+         RpcRequestBatcher.Batch batch = batch_;
+         batch_ = null;
+         batch.onRequestCancelled();
+      }
+      
       if (request_ != null)
       {
          request_.cancel();
@@ -279,6 +356,11 @@ public class RpcRequest
       return clientVersion_.toString();
    }
 
+   public String getCoalesceToken()
+   {
+      return coalesceToken_;
+   }
+
    public boolean getRefreshCreds()
    {
       return refreshCredentials_;
@@ -294,7 +376,9 @@ public class RpcRequest
    final private JSONString clientId_;
    final private JSONString clientVersion_;
    final private boolean refreshCredentials_;
+   final private String coalesceToken_;
    private Request request_ = null;
    private RequestLogEntry requestLogEntry_ = null;
+   private RpcRequestBatcher.Batch batch_ = null;
    private static final CoreClientConstants constants_ = GWT.create(CoreClientConstants.class);
 }
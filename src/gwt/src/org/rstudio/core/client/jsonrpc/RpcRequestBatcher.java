@@ -0,0 +1,303 @@
+/*
+ * RpcRequestBatcher.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.JSON;
+import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.json.client.JSONArray;
+
+// Collects the RPC requests issued during a single turn of the event loop
+// and sends them to the server in one envelope, then hands each request's
+// own response back to its callback. A batch containing a single request
+// is sent as an ordinary request.
+public class RpcRequestBatcher
+{
+   public interface EnvelopeSender
+   {
+      // send the given array of requests to the server as a single request;
+      // the response result is expected to be an array of responses in the
+      // same order as the requests
+      RpcRequest sendEnvelope(JSONArray requests, RpcResponseHandler handler);
+   }
+
+   public RpcRequestBatcher(EnvelopeSender sender)
+   {
+      sender_ = sender;
+   }
+
+   public boolean isEnabled()
+   {
+      return enabled_ && supported_;
+   }
+
+   public void setEnabled(boolean enabled)
+   {
+      enabled_ = enabled;
+   }
+
+   // sends the request either immediately (when batching is disabled) or
+   // as part of the batch sent at the end of the current event loop turn
+   public void send(RpcRequest request, RpcRequestCallback callback)
+   {
+      if (!isEnabled())
+      {
+         sendImmediately(request, callback);
+         return;
+      }
+
+      callCount_++;
+      if (pending_ == null)
+         pending_ = new Batch();
+      pending_.add(request, callback);
+      if (pending_.entries_.size() >= MAX_BATCH_SIZE)
+      {
+         flush();
+      }
+      else if (!flushScheduled_)
+      {
+         flushScheduled_ = true;
+         Scheduler.get().scheduleFinally(() ->
+         {
+            flushScheduled_ = false;
+            flush();
+         });
+      }
+   }
+
+   // sends the request on its own, after any pending batch (so that it
+   // can't overtake requests made before it)
+   public void sendImmediately(RpcRequest request, RpcRequestCallback callback)
+   {
+      flush();
+      callCount_++;
+      roundTripCount_++;
+      request.send(callback);
+   }
+
+   // number of requests sent through this batcher
+   public int getCallCount()
+   {
+      return callCount_;
+   }
+
+   // number of HTTP requests actually made to service those calls
+   public int getRoundTripCount()
+   {
+      return roundTripCount_;
+   }
+
+   public void resetStatistics()
+   {
+      callCount_ = 0;
+      roundTripCount_ = 0;
+   }
+
+   private void flush()
+   {
+      final Batch batch = pending_;
+      pending_ = null;
+      if (batch == null)
+         return;
+
+      // requests cancelled before the batch was sent are dropped
+      final ArrayList<Entry> entries = batch.getLiveEntries();
+      if (entries.isEmpty())
+         return;
+
+      if (entries.size() == 1)
+      {
+         sendIndividually(batch, entries);
+         return;
+      }
+
+      JSONArray requests = new JSONArray();
+      for (int i = 0; i < entries.size(); i++)
+      {
+         entries.get(i).request.logBatched();
+         requests.set(i, entries.get(i).request.toJSONObject());
+      }
+
+      roundTripCount_++;
+      RpcRequest envelope = sender_.sendEnvelope(requests, new RpcResponseHandler()
+      {
+         @Override
+         public void onResponseReceived(RpcResponse response)
+         {
+            batch.answered_ = true;
+            batch.envelope_ = null;
+
+            RpcError error = response.getError();
+            if (error != null)
+            {
+               logResponses(batch, entries, ResponseType.Error, error.getMessage());
+
+               // older sessions don't know how to handle batches, and reject
+               // the envelope without running any of its requests; stop
+               // batching and send these requests on their own
+               if (error.getCode() == RpcError.METHOD_NOT_FOUND)
+               {
+                  if (RpcRequest.TRACE)
+                     Debug.log("RPC batching not supported by session; disabling");
+                  supported_ = false;
+                  sendIndividually(batch, entries);
+                  return;
+               }
+
+               // otherwise some of the requests may have run, so they can't
+               // safely be sent again
+               reportError(batch, entries, error);
+               return;
+            }
+
+            JsArray<RpcResponse> responses = response.getResult();
+            if (responses == null || responses.length() != entries.size())
+            {
+               Debug.logWarning("Unexpected response to batched RPC request");
+               logResponses(batch, entries, ResponseType.Unknown, "Unexpected batch response");
+               reportError(batch, entries, RpcError.create(RpcError.PARSE_ERROR,
+                                                           "Unexpected batch response"));
+               return;
+            }
+
+            for (int i = 0; i < entries.size(); i++)
+            {
+               Entry entry = entries.get(i);
+               if (entry.request.getBatch() != batch)
+                  continue;
+
+               entry.request.setBatch(null);
+               entry.request.logBatchedResponse(ResponseType.Normal,
+                                                JSON.stringify(responses.get(i)));
+               entry.callback.onResponseReceived(entry.request, responses.get(i));
+            }
+         }
+      });
+
+      // keep the envelope so that it can be cancelled (unless it's already
+      // been answered)
+      if (!batch.answered_)
+         batch.envelope_ = envelope;
+   }
+
+   private void logResponses(Batch batch,
+                             ArrayList<Entry> entries,
+                             int responseType,
+                             String data)
+   {
+      for (Entry entry : entries)
+      {
+         if (entry.request.getBatch() == batch)
+            entry.request.logBatchedResponse(responseType, data);
+      }
+   }
+
+   // sends the requests in the batch (which haven't been cancelled) on
+   // their own
+   private void sendIndividually(Batch batch, ArrayList<Entry> entries)
+   {
+      for (Entry entry : entries)
+      {
+         if (entry.request.getBatch() != batch)
+            continue;
+
+         entry.request.setBatch(null);
+         roundTripCount_++;
+         entry.request.send(entry.callback);
+      }
+   }
+
+   // reports the error to each of the requests in the batch (which haven't
+   // been cancelled)
+   private void reportError(Batch batch, ArrayList<Entry> entries, RpcError error)
+   {
+      for (Entry entry : entries)
+      {
+         if (entry.request.getBatch() != batch)
+            continue;
+
+         entry.request.setBatch(null);
+         entry.callback.onError(entry.request, error);
+      }
+   }
+
+   private static class Entry
+   {
+      public Entry(RpcRequest request, RpcRequestCallback callback)
+      {
+         this.request = request;
+         this.callback = callback;
+      }
+
+      public final RpcRequest request;
+      public final RpcRequestCallback callback;
+   }
+
+   // The requests sent (or to be sent) in one envelope. Requests leave the
+   // batch when they're answered or cancelled; the envelope itself is
+   // cancelled if all of its requests are.
+   static class Batch
+   {
+      private void add(RpcRequest request, RpcRequestCallback callback)
+      {
+         request.setBatch(this);
+         entries_.add(new Entry(request, callback));
+         liveCount_++;
+      }
+
+      private ArrayList<Entry> getLiveEntries()
+      {
+         ArrayList<Entry> entries = new ArrayList<>();
+         for (Entry entry : entries_)
+         {
+            if (entry.request.getBatch() == this)
+               entries.add(entry);
+         }
+         return entries;
+      }
+
+      void onRequestCancelled()
+      {
+         liveCount_--;
+         if (liveCount_ == 0 && envelope_ != null)
+         {
+            envelope_.cancel();
+            envelope_ = null;
+         }
+      }
+
+      private final ArrayList<Entry> entries_ = new ArrayList<>();
+      private int liveCount_ = 0;
+      private RpcRequest envelope_ = null;
+      private boolean answered_ = false;
+   }
+
+   private final EnvelopeSender sender_;
+
+   private Batch pending_ = null;
+   private boolean flushScheduled_ = false;
+   private boolean enabled_ = false;
+   private boolean supported_ = true;
+
+   private int callCount_ = 0;
+   private int roundTripCount_ = 0;
+
+   private static final int MAX_BATCH_SIZE = 32;
+}
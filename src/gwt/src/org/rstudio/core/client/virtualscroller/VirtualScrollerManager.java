@@ -76,6 +76,19 @@ public class VirtualScrollerManager
       scrollers_.get(parent.getAttribute(scrollerAttribute_)).append(content);
    }
 
+   // tells the scroller that text was appended to an element it already has
+   public static void onTextAppended(Element parent, String text)
+   {
+      if (!initialized_ || parent == null ) return;
+
+      parent = getVirtualScrollerAncestor(parent);
+
+      if (scrollers_.get(parent.getAttribute(scrollerAttribute_)) == null)
+         return;
+
+      scrollerForElement(parent).onTextAppended(text);
+   }
+
    public static boolean scrolledToBottom(Element parent)
    {
       // if we don't have a connection to that parent there's nothing to clear
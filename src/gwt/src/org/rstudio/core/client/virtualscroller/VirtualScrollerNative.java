@@ -25,6 +25,7 @@ public class VirtualScrollerNative
    public VirtualScrollerNative() {}
    public native void setup(Element ele, String visuallyHiddenClass);
    public native void append(Element ele);
+   public native void onTextAppended(String text);
    public native Element getCurBucket();
    public native boolean scrolledToBottom();
    public native void scrollToBottom();
@@ -19,6 +19,16 @@ var VirtualScroller;
   VirtualScroller = function () {
   };
 
+  // Buckets of output outside the viewport (plus some overscan) are
+  // "dehydrated": their elements are detached from the document into a
+  // DocumentFragment, leaving the bucket as an empty placeholder of the same
+  // height. Buckets are re-hydrated as they scroll into view by moving the
+  // elements back.
+  //
+  // The elements themselves are kept (rather than a copy of their text or
+  // HTML), since VirtualConsole holds on to them and may still update them
+  // while they're detached (e.g. when output moves the cursor back over
+  // earlier lines).
   VirtualScroller.prototype = {
     setup: function(element, visuallyHiddenClass) {
       if (!element)
@@ -26,37 +36,47 @@ var VirtualScroller;
 
       //  *** _CONSTANTS ***
       this._DEBUG = false;
-      this._SCROLL_DEBOUNCE_MS = 500;
       this._BUCKET_MAX_HEIGHT = 50;
-      this._MAX_VISIBLE_BUCKETS = 10;
       this._MAX_NEWLINES = 1000;
 
-      // we use this style to keep the elements in the DOM for screen readers
-      this._HIDDEN_STYLE = visuallyHiddenClass;
+      // keep this many viewports' worth of output rendered above and below
+      // the visible region, so that scrolling doesn't reveal placeholders
+      this._OVERSCAN_VIEWPORTS = 1;
 
       //  *** global vars ***
-      this.LAST_SCROLL_TIME = 0;
       this.INITIALIZED = false;
 
       //  *** instance vars ***
       this.scrollerEle = null;
       this.consoleEle = element;
       this.buckets = [];
-      this.visibleBuckets = [];
+
+      // the fragment holding the elements of each dehydrated bucket,
+      // indexed as buckets (null when hydrated)
+      this.dehydrated = [];
+
+      // newlines written to each bucket, indexed as buckets
+      this.bucketLines = [];
+
+      // range of buckets currently hydrated (the last bucket is always
+      // hydrated, as that's where output is appended)
+      this.windowStart = 0;
+      this.windowEnd = 0;
+
+      this.updatePending = false;
 
       var self = this;
 
       self._createAndAddNewBucket = self._createAndAddNewBucket.bind(self);
       self._debug = self._debug.bind(self);
-      self._hideBucket = self._hideBucket.bind(self);
-      self._isAtBottomBucket = self._isAtBottomBucket.bind(self);
-      self._isAtTopBucket = self._isAtTopBucket.bind(self);
-      self._isBucketHidden = self._isBucketHidden.bind(self);
+      self._dehydrateBucket = self._dehydrateBucket.bind(self);
+      self._hydrateBucket = self._hydrateBucket.bind(self);
       self._isBucketFull = self._isBucketFull.bind(self);
-      self._moveWindow = self._moveWindow.bind(self);
       self._onParentScroll = self._onParentScroll.bind(self);
-      self._showBucket = self._showBucket.bind(self);
+      self._scheduleUpdate = self._scheduleUpdate.bind(self);
+      self._updateWindow = self._updateWindow.bind(self);
       self.append = self.append.bind(self);
+      self.onTextAppended = self.onTextAppended.bind(self);
       self.clear = self.clear.bind(self);
       self.scrollToBottom = self.scrollToBottom.bind(self);
       self.scrolledToBottom = self.scrolledToBottom.bind(self);
@@ -108,6 +128,7 @@ var VirtualScroller;
       }
 
       this.INITIALIZED = true;
+      this._scheduleUpdate();
     },
 
     _debug: function(msg) {
@@ -115,82 +136,120 @@ var VirtualScroller;
         console.log(msg);
     },
 
-    _moveWindow: function(up) {
-      if (up && this._isAtTopBucket())
-        return;
-      if (!up && this._isAtBottomBucket())
-        return;
-
-      var indexToShow;
-      var indexToHide;
-      var i;
-      if (up) {
-        indexToShow = this.visibleBuckets[0] - 1;
-        indexToHide = this.visibleBuckets[this.visibleBuckets.length - 1];
-
-        for (i = 0; i < this._MAX_VISIBLE_BUCKETS; i++) {
-          this.visibleBuckets[i]--;
-        }
-      } else {
-        indexToShow = this.visibleBuckets[this.visibleBuckets.length -1] + 1;
-        indexToHide = this.visibleBuckets[0];
+    _isBucketFull: function() {
+      return this.bucketLines[this.buckets.length - 1] >= this._BUCKET_MAX_HEIGHT;
+    },
 
-        for (i = 0; i < this._MAX_VISIBLE_BUCKETS; i++) {
-          this.visibleBuckets[i]++;
-        }
+    _countNewlines: function(text) {
+      var count = 0;
+      var index = text.indexOf("\n");
+      while (index !== -1) {
+        count++;
+        index = text.indexOf("\n", index + 1);
       }
+      return count;
+    },
 
-      this._showBucket(indexToShow);
-      this._hideBucket(indexToHide);
-
-      // move scrollbar to keep the content in the same location
-      if (this.scrollerEle.scrollTop === 0) {
-        var offsetHeight = this.buckets[indexToShow].offsetHeight;
+    // detaches the bucket's elements, leaving a placeholder of the given
+    // height
+    _dehydrateBucket: function(index, height) {
+      var bucket = this.buckets[index];
+      if (!bucket || !!this.dehydrated[index])
+        return;
 
-        if (!!offsetHeight) {
-          // if we're scrolling down, scroll up instead of down
-          if (!up)
-            offsetHeight *= -1;
+      var fragment = document.createDocumentFragment();
+      while (bucket.firstChild)
+        fragment.appendChild(bucket.firstChild);
 
-          this.scrollerEle.scrollTop += offsetHeight;
-        }
-      }
+      bucket.style.display = "block";
+      bucket.style.height = height + "px";
+      this.dehydrated[index] = fragment;
     },
 
-    _isBucketFull: function(bucket) {
-      var height = 0;
-      var contents = bucket.innerText;
+    _hydrateBucket: function(index) {
+      var bucket = this.buckets[index];
+      var fragment = this.dehydrated[index];
+      if (!bucket || !fragment)
+        return;
 
-      // add height for each new line
-      height += contents.split(/\n/).length - 1;
+      bucket.style.display = "";
+      bucket.style.height = "";
+      bucket.appendChild(fragment);
 
-      return height >= this._BUCKET_MAX_HEIGHT;
+      this.dehydrated[index] = null;
     },
 
-    _hideBucket: function(index) {
-      if (!!this.buckets[index] && !this._isBucketHidden(index))
-        this.buckets[index].classList.add(this._HIDDEN_STYLE);
+    // finds the first bucket whose bottom edge is below the given
+    // (client) coordinate
+    _findBucket: function(y) {
+      var low = 0;
+      var high = this.buckets.length - 1;
+      while (low < high) {
+        var mid = (low + high) >> 1;
+        if (this.buckets[mid].getBoundingClientRect().bottom < y)
+          low = mid + 1;
+        else
+          high = mid;
+      }
+      return low;
     },
 
-    _showBucket: function(index) {
-      if (!!this.buckets[index] && this._isBucketHidden(index))
-        this.buckets[index].classList.remove(this._HIDDEN_STYLE);
-    },
+    _scheduleUpdate: function() {
+      if (this.updatePending || !this.INITIALIZED)
+        return;
 
-    _isBucketHidden: function(index) {
-      return !!this.buckets[index] && this.buckets[index].classList.contains(this._HIDDEN_STYLE);
+      this.updatePending = true;
+      var self = this;
+      window.requestAnimationFrame(function() {
+        self.updatePending = false;
+        self._updateWindow();
+      });
     },
 
-    _isAtTopBucket: function() {
-      return this.visibleBuckets[0] === 0;
-    },
+    // hydrates the buckets in or near the viewport and dehydrates the rest
+    _updateWindow: function() {
+      if (!this.scrollerEle || this.buckets.length === 0)
+        return;
 
-    _isAtBottomBucket: function() {
-      return this.buckets.length - 1 === this.visibleBuckets[this.visibleBuckets.length - 1];
-    },
+      var i;
+      var last = this.buckets.length - 1;
+      var viewport = this.scrollerEle.getBoundingClientRect();
+      var overscan = viewport.height * this._OVERSCAN_VIEWPORTS;
+      var start = this._findBucket(viewport.top - overscan);
+      var end = Math.max(start, this._findBucket(viewport.bottom + overscan));
+
+      if (start === this.windowStart && end === this.windowEnd)
+        return;
+
+      // measure everything we're about to dehydrate before changing the
+      // DOM, so that we only force layout once
+      var heights = [];
+      for (i = this.windowStart; i <= this.windowEnd && i < last; i++) {
+        if ((i < start || i > end) && !this.dehydrated[i])
+          heights[i] = this.buckets[i].getBoundingClientRect().height;
+      }
 
-    _scrolledToTop: function() {
-      return this.scrollerEle.scrollTop < 4;
+      // keep the first bucket in view at the same position on screen
+      var anchor = this.buckets[start];
+      var anchorTop = anchor.getBoundingClientRect().top;
+
+      for (i = start; i <= end; i++)
+        this._hydrateBucket(i);
+
+      for (i = this.windowStart; i <= this.windowEnd && i < last; i++) {
+        if (i < start || i > end)
+          this._dehydrateBucket(i, heights[i] || 0);
+      }
+
+      this.windowStart = start;
+      this.windowEnd = end;
+
+      var delta = anchor.getBoundingClientRect().top - anchorTop;
+      if (delta !== 0)
+        this.scrollerEle.scrollTop += delta;
+
+      this._debug("virtual scroller: hydrated buckets " + start + " to " + end +
+                  " of " + this.buckets.length);
     },
 
     scrolledToBottom: function() {
@@ -201,69 +260,22 @@ var VirtualScroller;
     scrollToBottom: function() {
       if (!!this.scrollerEle)  {
         this.scrollerEle.scrollTop = this.scrollerEle.scrollHeight;
+        this._scheduleUpdate();
       }
     },
 
-    // this BOUND callback function
     _jumpToBottom: function() {
-      var i;
-
-      if (this.buckets.length <= this._MAX_VISIBLE_BUCKETS)
-        return;
-
-      // hide the current shown window
-      for (i = 0; i < this.visibleBuckets.length; i++) {
-        this._hideBucket(this.visibleBuckets[i]);
-      }
-
-      // show the bottom _MAX_VISIBLE_BUCKETS
-      this.visibleBuckets = [];
-      for (i = this.buckets.length - this._MAX_VISIBLE_BUCKETS; i < this.buckets.length; i++) {
-        this.visibleBuckets.push(i);
-        this._showBucket(i);
-      }
-
-      if (this.scrollerEle) {
-        this.scrollerEle.scrollTop = this.scrollerEle.scrollHeight - this.scrollerEle.offsetHeight;
-      }
+      this.scrollToBottom();
     },
 
     _setJumpToLatestVisible: function(visible) {
-      this.jumpToLatestButton.style.display = visible ? "block" : "none";
+      if (!!this.jumpToLatestButton)
+        this.jumpToLatestButton.style.display = visible ? "block" : "none";
     },
 
     _onParentScroll: function(event) {
-      if (this.buckets.length <= this._MAX_VISIBLE_BUCKETS)
-        return;
-
-      var now = new Date().getTime();
-
-      this._setJumpToLatestVisible(!this._isAtBottomBucket());
-
-      if (now - this.LAST_SCROLL_TIME > this._SCROLL_DEBOUNCE_MS) {
-        // if we scrolled to the top, move the window up
-        if (this._scrolledToTop() && !this._isAtTopBucket()) {
-          this._moveWindow(true);
-        }
-        // if we scrolled to the bottom, move the window down
-        else if (this.scrolledToBottom() && !this._isAtBottomBucket()) {
-          this._moveWindow(false);
-        }
-        else {
-          return;
-        }
-
-        this.LAST_SCROLL_TIME = now;
-
-        // set a timeout to call this function again if the user is holding the scrollbar
-        // at 0 so we know to keep showing more items after the debounce, or just
-        // load in a bit more data so the user knows there's more content above
-        var self = this;
-        setTimeout(function () {
-          if (self.scrolledToBottom() || self._scrolledToTop())
-            self._onParentScroll();
-        }, this._SCROLL_DEBOUNCE_MS + 10);
-      }
+      this._setJumpToLatestVisible(!this.scrolledToBottom());
+      this._scheduleUpdate();
     },
 
     setScrollParent: function(ele) {
@@ -271,7 +283,6 @@ var VirtualScroller;
         return;
 
       ele.addEventListener("scroll", this._onParentScroll);
-      ele.onscroll = this._onParentScroll;
       this.scrollerEle = ele;
     },
 
@@ -281,15 +292,24 @@ var VirtualScroller;
 
       var keepScrolled = !!this.scrollerEle && this.scrolledToBottom();
 
-      if (this._isBucketFull(this.getCurBucket())) {
+      if (this._isBucketFull()) {
         this._createAndAddNewBucket();
       }
       this.prune(element);
       this.getCurBucket().appendChild(element);
-      this._jumpToBottom();
+      this.bucketLines[this.buckets.length - 1] += this._countNewlines(element.textContent);
+
       if (keepScrolled && !!this.scrollerEle)  {
         this.scrollerEle.scrollTop = this.scrollerEle.scrollHeight;
       }
+      this._scheduleUpdate();
+    },
+
+    // VirtualConsole appends text to the last element as well as adding new
+    // elements; it tells us so that we can keep count of the bucket's lines
+    onTextAppended: function(text) {
+      if (this.buckets.length > 0)
+        this.bucketLines[this.buckets.length - 1] += this._countNewlines(text);
     },
 
     clear: function() {
@@ -302,14 +322,16 @@ var VirtualScroller;
 
       // remove possible vestigial contents of the parent element that
       // may have snuck in before the VirtualScroller was initialized
-      var eleChildren = this.consoleEle.children;
       while (this.consoleEle.children.length > 0) {
           this.consoleEle.removeChild(this.consoleEle.children[0]);
       }
 
       this._setJumpToLatestVisible(false);
-      this.visibleBuckets = [];
       this.buckets = [];
+      this.dehydrated = [];
+      this.bucketLines = [];
+      this.windowStart = 0;
+      this.windowEnd = 0;
 
       this._createAndAddNewBucket();
     },
@@ -318,7 +340,7 @@ var VirtualScroller;
     // overwriting gets partially obviated by the virtualscroller so ensure that this
     // limit is also respected here
     prune: function(element) {
-      var text = element.innerText;
+      var text = element.textContent;
       var newlineMatch = text.match(/\n/g);
       if (newlineMatch === null) return;
 
@@ -332,19 +354,22 @@ var VirtualScroller;
       }
 
       if (indexToSlice > 0) {
-        element.innerText = "<console output truncated>" +
-          element.innerText.substring(indexToSlice);
+        element.textContent = "<console output truncated>" +
+          text.substring(indexToSlice);
       }
     },
 
     ensureStartingOnNewLine: function() {
-      if (this.getCurBucket().children < 1)
+      var bucket = this.getCurBucket();
+      if (bucket.children.length < 1)
         return;
 
       // get the last element from the last bucket
-      var lastText = this.getCurBucket().lastElementChild.innerHTML;
-      if (!lastText.endsWith("\n"))
-        this.getCurBucket().lastElementChild.innerHTML = lastText + "\n";
+      var lastText = bucket.lastElementChild.innerHTML;
+      if (!lastText.endsWith("\n")) {
+        bucket.lastElementChild.innerHTML = lastText + "\n";
+        this.bucketLines[this.buckets.length - 1]++;
+      }
     },
 
     _createAndAddNewBucket: function() {
@@ -355,9 +380,11 @@ var VirtualScroller;
         this.consoleEle.appendChild(newBucket);
 
       this.buckets.push(newBucket);
+      this.dehydrated.push(null);
+      this.bucketLines.push(0);
 
-      // buckets always start visible, add to visible list
-      this.visibleBuckets.push(this.buckets.length - 1);
+      // the new bucket is hydrated, along with the previous last bucket
+      this.windowEnd = this.buckets.length - 1;
 
       return newBucket;
     },
@@ -20,7 +20,12 @@ import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.NodeList;
 import com.google.gwt.dom.client.Style.Overflow;
+import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.cellview.client.DataGrid;
+import com.google.gwt.user.client.ui.HeaderPanel;
+import com.google.gwt.user.client.ui.ScrollPanel;
+import com.google.gwt.user.client.ui.Widget;
 import com.google.gwt.view.client.ProvidesKey;
 
 public class RStudioDataGrid<T> extends DataGrid<T>
@@ -45,6 +50,61 @@ public class RStudioDataGrid<T> extends DataGrid<T>
       super(max, res, keyProvider);
    }
    
+   public HeaderPanel getHeaderPanel()
+   {
+      return (HeaderPanel) getWidget();
+   }
+   
+   public ScrollPanel getScrollPanel()
+   {
+      return (ScrollPanel) getHeaderPanel().getContentWidget();
+   }
+   
+   public HandlerRegistration addScrollHandler(ScrollHandler handler)
+   {
+      ScrollPanel panel = getScrollPanel();
+      return panel.addScrollHandler(handler);
+   }
+   
+   // Renders another chunk of rows if the end of the rows rendered so far is
+   // close to being scrolled into view. For grids whose rows differ in height
+   // (and so can't be virtualized), which render their rows a chunk at a
+   // time rather than all at once. Returns true if more rows were rendered.
+   public boolean renderMoreIfNeeded(int rowCount)
+   {
+      int rendered = getVisibleRange().getLength();
+      int rows = rowsToRender(rendered,
+                              rowCount,
+                              RENDER_CHUNK_ROWS,
+                              getScrollPanel().getWidget(),
+                              getScrollPanel());
+      if (rows == rendered)
+         return false;
+      
+      setVisibleRange(0, rows);
+      return true;
+   }
+   
+   // Returns the number of rows that should be rendered: those rendered so
+   // far, plus another chunk if the bottom of the rendered rows is within
+   // RENDER_AHEAD_PIXELS of the bottom of the panel they're scrolled in.
+   public static int rowsToRender(int rendered,
+                                  int rowCount,
+                                  int chunkRows,
+                                  Widget rows,
+                                  ScrollPanel scrollPanel)
+   {
+      if (rendered >= rowCount)
+         return rendered;
+      
+      int rowsBottom = rows.getAbsoluteTop() + rows.getOffsetHeight();
+      int panelBottom = scrollPanel.getAbsoluteTop() + scrollPanel.getOffsetHeight();
+      if (rowsBottom - panelBottom > RENDER_AHEAD_PIXELS)
+         return rendered;
+      
+      return Math.min(rowCount, rendered + chunkRows);
+   }
+   
    @Override
    protected void onLoad()
    {
@@ -107,4 +167,7 @@ public class RStudioDataGrid<T> extends DataGrid<T>
       }
       
    }
+   
+   public static final int RENDER_CHUNK_ROWS = 200;
+   public static final int RENDER_AHEAD_PIXELS = 1000;
 }
@@ -23,11 +23,9 @@ import com.google.gwt.dom.builder.shared.TableCellBuilder;
 import com.google.gwt.dom.builder.shared.TableRowBuilder;
 import com.google.gwt.event.dom.client.ScrollEvent;
 import com.google.gwt.event.dom.client.ScrollHandler;
-import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.cellview.client.AbstractCellTable;
 import com.google.gwt.user.cellview.client.DefaultCellTableBuilder;
 import com.google.gwt.user.client.Timer;
-import com.google.gwt.user.client.ui.HeaderPanel;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.view.client.ProvidesKey;
 
@@ -191,22 +189,6 @@ public abstract class VirtualizedDataGrid<T> extends RStudioDataGrid<T>
       }
    }
    
-   public HeaderPanel getHeaderPanel()
-   {
-      return (HeaderPanel) getWidget();
-   }
-   
-   public ScrollPanel getScrollPanel()
-   {
-      return (ScrollPanel) getHeaderPanel().getContentWidget();
-   }
-   
-   public HandlerRegistration addScrollHandler(ScrollHandler handler)
-   {
-      ScrollPanel panel = getScrollPanel();
-      return panel.addScrollHandler(handler);
-   }
-   
    public final int getFirstActiveRow()
    {
       return firstActiveRow_;
@@ -16,9 +16,13 @@
 
 package org.rstudio.studio.client.common.compile;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.google.gwt.core.client.GWT;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.VirtualConsole;
+import org.rstudio.core.client.container.RingBuffer;
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.widget.BottomScrollPanel;
 import org.rstudio.core.client.widget.FontSizer;
@@ -28,6 +32,11 @@ import org.rstudio.studio.client.common.StudioClientCommonConstants;
 import org.rstudio.studio.client.workbench.views.console.ConsoleResources;
 import org.rstudio.studio.client.workbench.views.source.editors.text.themes.AceTheme;
 
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.ui.Composite;
 
 public class CompileOutputBufferWithHighlight extends Composite 
@@ -51,6 +60,13 @@ public class CompileOutputBufferWithHighlight extends Composite
       scrollPanel_.addStyleName("ace_editor");
       scrollPanel_.addStyleName("ace_scroller");
       scrollPanel_.setWidget(output_);
+
+      // older output inserted by prependOutput() goes above the console
+      historyElement_ = Document.get().createPreElement();
+      historyElement_.setClassName(output_.getStyleName());
+      historyElement_.getStyle().setPaddingBottom(0, Unit.PX);
+      output_.getElement().getParentElement().insertBefore(
+            historyElement_, output_.getElement());
       
       initWidget(scrollPanel_);
    }
@@ -79,9 +95,133 @@ public class CompileOutputBufferWithHighlight extends Composite
       scrollPanel_.scrollToBottom();
    }
 
+   /**
+    * Inserts output above everything shown so far (e.g. older output fetched
+    * as the user scrolls up), keeping the viewport on what the user was
+    * looking at.
+    */
+   public void prependOutput(List<CompileOutput> output)
+   {
+      if (output.isEmpty())
+         return;
+
+      HistoryPage page = createHistoryPage(output);
+      int scrollHeight = scrollPanel_.getElement().getScrollHeight();
+      historyElement_.insertFirst(page.element);
+      history_.add(0, page);
+      historyLines_ += page.lines;
+      historyEntries_ += page.entries;
+      firstEntryOffset_ -= page.entries;
+      output_.getElement().getStyle().setPaddingTop(0, Unit.PX);
+      scrollPanel_.setVerticalScrollPosition(scrollPanel_.getVerticalScrollPosition() +
+            scrollPanel_.getElement().getScrollHeight() - scrollHeight);
+
+      // the user is at the top, so drop the pages nearest the live output;
+      // they become missing output, to be fetched again if scrolled to
+      while (historyLines_ > MAX_LINES_HISTORY && history_.size() > 1)
+      {
+         HistoryPage last = history_.remove(history_.size() - 1);
+         removeHistoryPage(last);
+         missingEntries_ += last.entries;
+      }
+   }
+
+   /**
+    * Inserts output below the older output shown, filling in (some of) the
+    * output missing between it and the live output.
+    */
+   public void appendMissingOutput(List<CompileOutput> output)
+   {
+      if (output.isEmpty() || history_.isEmpty())
+         return;
+
+      HistoryPage page = createHistoryPage(output);
+      historyElement_.appendChild(page.element);
+      history_.add(page);
+      historyLines_ += page.lines;
+      historyEntries_ += page.entries;
+      missingEntries_ = Math.max(0, missingEntries_ - page.entries);
+
+      // the user is at the bottom of the older output, so drop the pages
+      // at the top, keeping the viewport where it is
+      while (historyLines_ > MAX_LINES_HISTORY && history_.size() > 1)
+      {
+         int scrollHeight = scrollPanel_.getElement().getScrollHeight();
+         HistoryPage first = history_.remove(0);
+         removeHistoryPage(first);
+         firstEntryOffset_ += first.entries;
+         scrollPanel_.setVerticalScrollPosition(scrollPanel_.getVerticalScrollPosition() -
+               (scrollHeight - scrollPanel_.getElement().getScrollHeight()));
+      }
+   }
+
+   /**
+    * The index of the first entry of output shown (each write is an entry),
+    * relative to the first entry written since the output was cleared; this
+    * is negative once older output has been prepended.
+    */
+   public int getFirstEntryOffset()
+   {
+      return firstEntryOffset_;
+   }
+
+   /**
+    * The number of entries of older output shown above the live output.
+    */
+   public int getHistoryEntryCount()
+   {
+      return historyEntries_;
+   }
+
+   /**
+    * The number of entries missing between the older output and the live
+    * output, either because they were trimmed from the top of the live
+    * output or dropped to keep the older output small.
+    */
+   public int getMissingEntryCount()
+   {
+      return missingEntries_;
+   }
+
+   /**
+    * Whether output was discarded in a way that can't be accounted for by
+    * entry (e.g. when the panel was overloaded); if so, older output fetched
+    * by entry would not line up with what's shown.
+    */
+   public boolean hasDiscardedOutput()
+   {
+      return discarded_;
+   }
+
+   // whether the bottom of the older output is in view
+   public boolean isHistoryEndVisible()
+   {
+      if (history_.isEmpty())
+         return false;
+
+      int bottom = historyElement_.getAbsoluteBottom();
+      Element scroller = scrollPanel_.getElement();
+      return bottom >= scroller.getAbsoluteTop() && bottom <= scroller.getAbsoluteBottom();
+   }
+
+   public boolean isScrolledToTop()
+   {
+      return scrollPanel_.getVerticalScrollPosition() <= 0;
+   }
+
+   public HandlerRegistration addScrollHandler(ScrollHandler handler)
+   {
+      return scrollPanel_.addScrollHandler(handler);
+   }
+
    @Override
    public void clear()
    {
+      clearHistory();
+      tailEntryLines_.clear();
+      firstEntryOffset_ = 0;
+      missingEntries_ = 0;
+      discarded_ = false;
       console_.clear();
       state_ = PanelState.OK;
       totalSubmittedLines_ = 0;
@@ -127,19 +267,21 @@ public class CompileOutputBufferWithHighlight extends Composite
       
       case OK:
       {
-         console_.submit(output, className);
+         // empty output is still counted as an entry
+         if (!output.isEmpty())
+            console_.submit(output, className);
          int numNewlines = StringUtil.newlineCount(output);
          totalSubmittedLines_ += numNewlines;
          numDisplayedLines_ += numNewlines;
+         tailEntryLines_.add(numNewlines);
 
          if (numDisplayedLines_ > MAX_LINES_DISPLAY)
-         {
-            DomUtils.trimLines(output_.getElement(), numDisplayedLines_ - MAX_LINES_DISPLAY);
-            numDisplayedLines_ = MAX_LINES_DISPLAY;
-         }
+            trimOutput();
 
          if (totalSubmittedLines_ > MAX_LINES_OVERLOAD_BUFFER)
          {
+            // output is now buffered and only partly shown
+            discarded_ = true;
             state_ = PanelState.OVERLOADED;
             console_.submit(constants_.consoleBufferedMessage(MAX_LINES_OVERLOAD_BUFFER), styles_.warning());
          }
@@ -164,6 +306,82 @@ public class CompileOutputBufferWithHighlight extends Composite
       }
    }
    
+   // trims whole entries from the top of the output to keep it under the
+   // display limit, so that what's left starts with an entry
+   private void trimOutput()
+   {
+      int linesToTrim = 0;
+      int entriesTrimmed = 0;
+      while (numDisplayedLines_ - linesToTrim > MAX_LINES_DISPLAY && tailEntryLines_.size() > 1)
+      {
+         linesToTrim += tailEntryLines_.remove();
+         entriesTrimmed++;
+      }
+
+      // a single entry longer than the limit is cut short
+      if (numDisplayedLines_ - linesToTrim > MAX_LINES_DISPLAY)
+      {
+         int entryLines = tailEntryLines_.remove() - (numDisplayedLines_ - linesToTrim - MAX_LINES_DISPLAY);
+         linesToTrim = numDisplayedLines_ - MAX_LINES_DISPLAY;
+         tailEntryLines_.add(entryLines);
+      }
+
+      DomUtils.trimLines(output_.getElement(), linesToTrim);
+      numDisplayedLines_ -= linesToTrim;
+
+      // without older output shown, the trimmed entries just move the start
+      // of the output; otherwise they're now missing from between the two
+      if (history_.isEmpty())
+         firstEntryOffset_ += entriesTrimmed;
+      else
+         missingEntries_ += entriesTrimmed;
+   }
+
+   private HistoryPage createHistoryPage(List<CompileOutput> output)
+   {
+      // render the output with a console of its own, since the main console
+      // only appends; the older output is kept small (MAX_LINES_HISTORY), so
+      // there's no need to virtualize it
+      Element element = Document.get().createSpanElement();
+      VirtualConsole console = RStudioGinjector.INSTANCE.getVirtualConsoleFactory().create(element);
+      console.setVirtualizedDisableOverride(true);
+      int lines = 0;
+      for (CompileOutput item : output)
+      {
+         switch (item.getType())
+         {
+         case CompileOutput.kCommand:
+            console.submit(item.getOutput(), styles_.command() + ConsoleResources.KEYWORD_CLASS_NAME);
+            break;
+         case CompileOutput.kError:
+            console.submit(item.getOutput(), getErrorClass());
+            break;
+         default:
+            console.submit(item.getOutput(), styles_.output());
+            break;
+         }
+         lines += StringUtil.newlineCount(item.getOutput());
+      }
+
+      return new HistoryPage(element, output.size(), lines);
+   }
+
+   private void removeHistoryPage(HistoryPage page)
+   {
+      page.element.removeFromParent();
+      historyLines_ -= page.lines;
+      historyEntries_ -= page.entries;
+   }
+
+   private void clearHistory()
+   {
+      historyElement_.setInnerHTML("");
+      history_.clear();
+      historyLines_ = 0;
+      historyEntries_ = 0;
+      output_.getElement().getStyle().clearPaddingTop();
+   }
+
    private String getErrorClass()
    {
       return styles_.output() + " " + 
@@ -171,7 +389,32 @@ public class CompileOutputBufferWithHighlight extends Composite
                 RStudioGinjector.INSTANCE.getUserState().theme().getValue().cast());
    }
  
+   // a page of older output, inserted by prependOutput() or
+   // appendMissingOutput()
+   private static class HistoryPage
+   {
+      HistoryPage(Element element, int entries, int lines)
+      {
+         this.element = element;
+         this.entries = entries;
+         this.lines = lines;
+      }
+
+      final Element element;
+      final int entries;
+      final int lines;
+   }
+
    PreWidget output_;
+   private final Element historyElement_;
+   private final List<HistoryPage> history_ = new ArrayList<>();
+   private int historyLines_;
+   private int historyEntries_;
+   private int firstEntryOffset_;
+   private int missingEntries_;
+   private boolean discarded_;
+   // the number of lines in each entry of the live output
+   private final RingBuffer<Integer> tailEntryLines_ = new RingBuffer<>();
    VirtualConsole console_;
    PanelState state_ = PanelState.OK;
    private int numDisplayedLines_;
@@ -181,7 +424,8 @@ public class CompileOutputBufferWithHighlight extends Composite
    private BottomScrollPanel scrollPanel_;
    private ConsoleResources.ConsoleStyles styles_;
    
-   private static final int MAX_LINES_DISPLAY = 500;
+   public static final int MAX_LINES_DISPLAY = 500;
+   private static final int MAX_LINES_HISTORY = 5000;
    private static final int MAX_LINES_OVERLOAD_BUFFER = 5000;
 
    private static final StudioClientCommonConstants constants_ = GWT.create(StudioClientCommonConstants.class);
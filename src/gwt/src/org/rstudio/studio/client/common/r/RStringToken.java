@@ -22,10 +22,29 @@ public class RStringToken extends RToken
                        int length, 
                        boolean wellFormed)
    {
-      super(tokenType, content, offset, length);
+      this(tokenType, content, null, offset, length, wellFormed);
+   }
+
+   private RStringToken(int tokenType,
+                        String content,
+                        String source,
+                        int offset,
+                        int length,
+                        boolean wellFormed)
+   {
+      super(tokenType, content, source, offset, length);
 
       wellFormed_ = wellFormed;
    }
+
+   static RStringToken fromSource(int tokenType,
+                                  String source,
+                                  int offset,
+                                  int length,
+                                  boolean wellFormed)
+   {
+      return new RStringToken(tokenType, null, source, offset, length, wellFormed);
+   }
    
    public boolean isWellFormed()
    {
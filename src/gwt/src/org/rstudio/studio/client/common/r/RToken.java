@@ -14,16 +14,35 @@
  */
 package org.rstudio.studio.client.common.r;
 
+import org.rstudio.core.client.StringUtil;
+
 public class RToken
 {
    public RToken(int tokenType, String content, int offset, int length)
+   {
+      this(tokenType, content, null, offset, length);
+   }
+
+   protected RToken(int tokenType,
+                    String content,
+                    String source,
+                    int offset,
+                    int length)
    {
       super();
       this.tokenType_ = tokenType;
       this.content_ = content;
+      this.source_ = source;
       this.offset_ = offset;
       this.length_ = length;
    }
+
+   // A token which refers to its content in the source it was read from;
+   // the content is copied out only if it's asked for.
+   static RToken fromSource(int tokenType, String source, int offset, int length)
+   {
+      return new RToken(tokenType, null, source, offset, length);
+   }
    
    public int getTokenType()
    {
@@ -31,6 +50,8 @@ public class RToken
    }
    public String getContent()
    {
+      if (content_ == null && source_ != null)
+         content_ = StringUtil.substring(source_, offset_, offset_ + length_);
       return content_;
    }
    public int getOffset()
@@ -47,7 +68,8 @@ public class RToken
    {
       final int prime = 31;
       int result = 1;
-      result = prime * result + ((content_ == null) ? 0 : content_.hashCode());
+      String content = getContent();
+      result = prime * result + ((content == null) ? 0 : content.hashCode());
       result = prime * result + length_;
       result = prime * result + offset_;
       result = prime * result + tokenType_;
@@ -64,11 +86,12 @@ public class RToken
       if (getClass() != obj.getClass())
          return false;
       RToken other = (RToken) obj;
-      if (content_ == null)
+      String content = getContent();
+      if (content == null)
       {
-         if (other.content_ != null)
+         if (other.getContent() != null)
             return false;
-      } else if (!content_.equals(other.content_))
+      } else if (!content.equals(other.getContent()))
          return false;
       if (length_ != other.length_)
          return false;
@@ -99,7 +122,8 @@ public class RToken
    public static final int COMMENT        = 0x100A;
 
    private final int tokenType_;
-   private final String content_;
+   private String content_;
+   private final String source_;
    private final int offset_;
    private final int length_;
 }
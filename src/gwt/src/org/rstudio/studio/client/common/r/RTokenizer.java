@@ -15,8 +15,6 @@
 package org.rstudio.studio.client.common.r;
 
 import org.rstudio.core.client.StringUtil;
-import org.rstudio.core.client.regex.Match;
-import org.rstudio.core.client.regex.Pattern;
 
 import java.util.ArrayList;
 
@@ -108,9 +106,10 @@ public class RTokenizer
    
    private RToken matchWhitespace()
    {
-      String whitespace = peek("[\\s\\u00A0]+");
-      assert whitespace != null;
-      return consumeToken(RToken.WHITESPACE, whitespace.length());
+      int end = pos_ + 1;
+      while (end < data_.length() && isWhitespace(data_.charAt(end)))
+         end++;
+      return consumeToken(RToken.WHITESPACE, end - pos_);
    }
    
    private RToken matchStringLiteral()
@@ -124,10 +123,6 @@ public class RTokenizer
       
       while (!eol())
       {
-         eatUntil("[\\\\\'\"]", true);
-         if (eol())
-            break;
-         
          char c = eat();
          if (c == quot)
          {
@@ -147,59 +142,78 @@ public class RTokenizer
          }
       }
       
-      return new RStringToken(RToken.STRING, 
-                        StringUtil.substring(data_, start, pos_), 
-                        start, 
-                        pos_-start, wellFormed);
+      return RStringToken.fromSource(RToken.STRING,
+                                     data_,
+                                     start,
+                                     pos_-start, wellFormed);
    }
    
    private RToken matchNumber()
    {
-      String num = peek("0x[0-9a-fA-F]*L?");
-      if (num == null)
-         num = peek("[0-9]*(\\.[0-9]*)?([eE][+-]?[0-9]*)?[Li]?");
-
-      // We should only be in this method if 0-9 was matched, so this should
-      // be a safe assumption
-      assert num != null;
+      int end = pos_;
+      if (peek() == '0' && peek(1, false) == 'x')
+      {
+         // hexadecimal: 0x[0-9a-fA-F]*L?
+         end = skipWhile(end + 2, HEX_DIGITS);
+         if (charAt(end) == 'L')
+            end++;
+      }
+      else
+      {
+         // decimal: [0-9]*(\.[0-9]*)?([eE][+-]?[0-9]*)?[Li]?
+         end = skipWhile(end, DIGITS);
+         if (charAt(end) == '.')
+            end = skipWhile(end + 1, DIGITS);
+         char c = charAt(end);
+         if (c == 'e' || c == 'E')
+         {
+            end++;
+            c = charAt(end);
+            if (c == '+' || c == '-')
+               end++;
+            end = skipWhile(end, DIGITS);
+         }
+         c = charAt(end);
+         if (c == 'L' || c == 'i')
+            end++;
+      }
 
-      return consumeToken(RToken.NUMBER, num.length());
+      return consumeToken(RToken.NUMBER, end - pos_);
    }
    
    private RToken matchIdentifier()
    {
-      int start = pos_;
-      eat();
-      String rest = peek("[\\w.]*");
-      pos_ += (rest != null ? rest : "").length();
-      return new RToken(RToken.ID, 
-                        StringUtil.substring(data_, start, pos_), 
-                        start, 
-                        pos_ - start);
+      // the first character may be any letter; the rest are limited to
+      // [\w.], as in the pattern this replaces
+      int end = skipWhile(pos_ + 1, IDENTIFIER_CHARS);
+      return consumeToken(RToken.ID, end - pos_);
    }
 
    private RToken matchQuotedIdentifier()
    {
-      String iden = peek("`[^`]*`");
-      if (iden == null)
+      int end = data_.indexOf('`', pos_ + 1);
+      if (end == -1)
          return consumeToken(RToken.ERROR, 1);
       else
-         return consumeToken(RToken.ID, iden.length());
+         return consumeToken(RToken.ID, end + 1 - pos_);
    }
 
    private RToken matchComment()
    {
-      String comment = peek("#.*?$");
-      return consumeToken(RToken.COMMENT, comment.length());
+      // runs to the end of the line
+      int end = pos_ + 1;
+      while (end < data_.length() && !isLineTerminator(data_.charAt(end)))
+         end++;
+      return consumeToken(RToken.COMMENT, end - pos_);
    }
    
    private RToken matchUserOperator()
    {
-      String oper = peek("%[^%]*%");
-      if (oper == null)
+      int end = data_.indexOf('%', pos_ + 1);
+      if (end == -1)
          return consumeToken(RToken.ERROR, 1);
       else
-         return consumeToken(RToken.UOPER, oper.length());
+         return consumeToken(RToken.UOPER, end + 1 - pos_);
    }
    
    private RToken matchOperator()
@@ -254,41 +268,53 @@ public class RTokenizer
       return result;
    }
    
-   private String peek(String regex)
+   // the character at the given index, or 0 past the end of the data
+   private char charAt(int index)
    {
-      Match match = Pattern.create(regex).match(data_, pos_);
-      if (match == null)
-         return null;
-      int idx = match.getIndex();
-      if (idx != pos_)
-         return null;
-      
-      return match.getValue();
+      return index < data_.length() ? data_.charAt(index) : 0;
    }
-   
-   private String eatUntil(String regex, boolean eatAllOnFailure)
+
+   // the index of the first character at or after index not in the class
+   private int skipWhile(int index, boolean[] charClass)
    {
-      int start = pos_;
-      Match match = Pattern.create(regex).match(data_, pos_);
-      if (match == null)
+      int n = data_.length();
+      while (index < n)
       {
-         if (eatAllOnFailure)
-         {
-            pos_ = data_.length();
-            return StringUtil.substring(data_, start);
-         }
-         else
-         {
-            return null;
-         }
+         char c = data_.charAt(index);
+         if (c >= charClass.length || !charClass[c])
+            break;
+         index++;
       }
-      else
+      return index;
+   }
+
+   // matches \s in JavaScript regular expressions
+   private static boolean isWhitespace(char c)
+   {
+      switch (c)
       {
-         pos_ = match.getIndex();
-         return StringUtil.substring(data_, start, pos_);
+      case ' ': case '\t': case '\n': case '\u000B': case '\f': case '\r':
+      case '\u00A0': case '\u1680': case '\u2028': case '\u2029':
+      case '\u202F': case '\u205F': case '\u3000': case '\uFEFF':
+         return true;
+      default:
+         return c >= '\u2000' && c <= '\u200A';
       }
    }
-   
+
+   private static boolean isLineTerminator(char c)
+   {
+      return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029';
+   }
+
+   private static boolean[] charClass(String chars)
+   {
+      boolean[] result = new boolean[128];
+      for (int i = 0; i < chars.length(); i++)
+         result[chars.charAt(i)] = true;
+      return result;
+   }
+
    private RToken consumeToken(int tokenType, int length)
    {
       if (length == 0)
@@ -298,9 +324,15 @@ public class RTokenizer
       
       int start = pos_;
       pos_ += length;
-      return new RToken(tokenType, StringUtil.substring(data_, start, pos_), start, length);
+      return RToken.fromSource(tokenType, data_, start, length);
    }
    
    private final String data_;
    private int pos_;
+
+   private static final String DIGIT_CHARS = "0123456789";
+   private static final boolean[] DIGITS = charClass(DIGIT_CHARS);
+   private static final boolean[] HEX_DIGITS = charClass(DIGIT_CHARS + "abcdefABCDEF");
+   private static final boolean[] IDENTIFIER_CHARS = charClass(
+         DIGIT_CHARS + "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_.");
 }
@@ -16,13 +16,33 @@ package org.rstudio.studio.client.common.vcs;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
 
 public class AllStatus extends JavaScriptObject
 {
    protected AllStatus() {}
 
+   // null if only the changes since the requested version were sent
    public native final JsArray<StatusAndPathInfo> getStatus() /*-{
-      return this.status;
+      return this.status || null;
+   }-*/;
+
+   public native final String getStatusVersion() /*-{
+      return this.status_version || "";
+   }-*/;
+
+   public native final boolean hasStatusDelta() /*-{
+      return !!this.status_delta;
+   }-*/;
+
+   // entries which were added or changed since the requested version
+   public native final JsArray<StatusAndPathInfo> getChangedStatus() /*-{
+      return this.status_delta.changed;
+   }-*/;
+
+   // raw paths of entries which were removed since the requested version
+   public native final JsArrayString getRemovedPaths() /*-{
+      return this.status_delta.removed;
    }-*/;
 
    public native final BranchesInfo getBranches() /*-{
@@ -58,7 +58,10 @@ public interface GitServerOperations extends VCSServerOperations
    void gitUnstage(ArrayList<String> paths,
                    ServerRequestCallback<Void> requestCallback);
 
+   // knownVersion is the status version of the last AllStatus received (or
+   // null); if the server can, it sends only the changes since
    void gitAllStatus(
+         String knownVersion,
          ServerRequestCallback<AllStatus> requestCallback);
 
    void gitFullStatus(
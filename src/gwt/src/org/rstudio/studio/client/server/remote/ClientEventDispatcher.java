@@ -15,15 +15,17 @@
 package org.rstudio.studio.client.server.remote;
 
 
-import java.util.ArrayList;
-
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.command.CommandCallbacksChangedEvent;
+import org.rstudio.core.client.container.RingBuffer;
 import org.rstudio.core.client.events.ExecuteAppCommandEvent;
 import org.rstudio.core.client.events.HighlightEvent;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.files.filedialog.events.OpenFileDialogEvent;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
+import org.rstudio.core.client.jsonrpc.RpcRequest;
 import org.rstudio.studio.client.application.events.ClipboardActionEvent;
 import org.rstudio.studio.client.application.events.ComputeThemeColorsEvent;
 import org.rstudio.studio.client.application.events.DeferredInitCompletedEvent;
@@ -251,12 +253,13 @@ import org.rstudio.studio.client.workbench.views.vcs.common.events.VcsRefreshEve
 import org.rstudio.studio.client.workbench.views.vcs.common.events.VcsRefreshEvent.Reason;
 import org.rstudio.studio.client.workbench.views.viewer.events.ViewerNavigateEvent;
 
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
-import com.google.gwt.core.client.Scheduler;
-import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.user.client.Timer;
 
 public class ClientEventDispatcher 
 {
@@ -273,26 +276,167 @@ public class ClientEventDispatcher
 
    public void enqueEvent(ClientEvent event)
    {
-      pendingEvents_.add(event);
-      if (pendingEvents_.size() == 1)
+      pendingEvents_.add(new PendingEvent(event, Duration.currentTimeMillis()));
+      maxQueueDepth_ = Math.max(maxQueueDepth_, pendingEvents_.size());
+      scheduleDrain();
+   }
+
+   /**
+    * @return The number of events received from the session that have not
+    *    yet been dispatched.
+    */
+   public int getPendingEventCount()
+   {
+      return pendingEvents_.size();
+   }
+
+   /**
+    * @return The largest number of events that have been waiting for
+    *    dispatch at once since the statistics were last reset.
+    */
+   public int getMaxQueueDepth()
+   {
+      return maxQueueDepth_;
+   }
+
+   /**
+    * @return The longest time (in milliseconds) an event has spent waiting
+    *    for dispatch since the statistics were last reset.
+    */
+   public double getMaxLagMillis()
+   {
+      return maxLagMillis_;
+   }
+
+   public void resetStatistics()
+   {
+      maxQueueDepth_ = pendingEvents_.size();
+      maxLagMillis_ = 0;
+   }
+
+   private void scheduleDrain()
+   {
+      if (drainScheduled_)
+         return;
+
+      drainScheduled_ = true;
+
+      // drain on the next animation frame, so that dispatching events never
+      // competes with rendering; the timer is a fallback for when the page
+      // is hidden and the browser stops delivering animation frames
+      frameHandle_ = AnimationScheduler.get().requestAnimationFrame(
+            (double timestamp) -> drainPendingEvents());
+      fallbackTimer_.schedule(FALLBACK_DRAIN_DELAY_MS);
+   }
+
+   private void drainPendingEvents()
+   {
+      drainScheduled_ = false;
+      if (frameHandle_ != null)
+      {
+         frameHandle_.cancel();
+         frameHandle_ = null;
+      }
+      fallbackTimer_.cancel();
+
+      // dispatch events until the frame budget has been used; we always
+      // dispatch at least one event so that an expensive event can't stall
+      // the queue indefinitely
+      double startTime = Duration.currentTimeMillis();
+      double now = startTime;
+      while (!pendingEvents_.isEmpty())
+      {
+         PendingEvent pending = pendingEvents_.remove();
+         recordLag(pending, now);
+
+         String type = pending.event.getType();
+         if (type == ClientEvent.ConsoleOutput || type == ClientEvent.ConsoleError)
+            dispatchConsoleTextEvents(pending.event, now);
+         else
+            dispatchEvent(pending.event);
+
+         now = Duration.currentTimeMillis();
+         if (now - startTime >= FRAME_BUDGET_MS)
+            break;
+      }
+
+      if (!pendingEvents_.isEmpty())
       {
-         Scheduler.get().scheduleIncremental(new RepeatingCommand()
-         {
-            public boolean execute()
-            {
-               for (int i = 0;
-                    i < MAX_EVENTS_AT_ONCE && pendingEvents_.size() > 0;
-                    i++)
-               {
-                  ClientEvent currentEvent = pendingEvents_.remove(0);
-                  dispatchEvent(currentEvent);
-               }
-               return pendingEvents_.size() > 0;
-            }
-         });
+         scheduleDrain();
+         return;
       }
+
+      // the queue has caught up with the session; report if we fell behind
+      // (when tracing, as with the event stream's statistics)
+      if (RpcRequest.TRACE && burstLagMillis_ >= LAG_WARNING_MS)
+      {
+         Debug.log(
+               "Client event dispatch lagged " + Math.round(burstLagMillis_) +
+               "ms behind session (max queue depth " + maxQueueDepth_ + ")");
+      }
+      burstLagMillis_ = 0;
    }
    
+   private void recordLag(PendingEvent pending, double now)
+   {
+      double lag = now - pending.enqueueTime;
+      maxLagMillis_ = Math.max(maxLagMillis_, lag);
+      burstLagMillis_ = Math.max(burstLagMillis_, lag);
+   }
+
+   // Merges the run of console output (or error) events for the same console
+   // that immediately follows the given event in the queue, so that the
+   // console renders the whole run with one write rather than one write per
+   // chunk received from the session. Stream order is preserved since only
+   // adjacent events of the same type are merged.
+   private void dispatchConsoleTextEvents(ClientEvent event, double now)
+   {
+      String type = event.getType();
+      ConsoleText first = event.getData();
+
+      StringBuilder text = null;
+      while (!pendingEvents_.isEmpty())
+      {
+         PendingEvent next = pendingEvents_.peek();
+         if (!type.equals(next.event.getType()))
+            break;
+
+         ConsoleText nextText = next.event.getData();
+         if (!StringUtil.equals(first.console, nextText.console))
+            break;
+
+         if (text == null)
+            text = new StringBuilder(StringUtil.notNull(first.text));
+         if (text.length() >= MAX_COALESCED_CONSOLE_CHARS)
+            break;
+
+         text.append(StringUtil.notNull(nextText.text));
+         recordLag(pendingEvents_.remove(), now);
+      }
+
+      if (text == null)
+      {
+         dispatchEvent(event);
+         return;
+      }
+
+      ConsoleText merged = new ConsoleText();
+      merged.text = text.toString();
+      merged.console = first.console;
+
+      try
+      {
+         if (type == ClientEvent.ConsoleOutput)
+            eventBus_.dispatchEvent(new ConsoleWriteOutputEvent(merged));
+         else
+            eventBus_.dispatchEvent(new ConsoleWriteErrorEvent(merged));
+      }
+      catch(Throwable e)
+      {
+         GWT.log("WARNING: Exception occurred dispatching event: " + type, e);
+      }
+   }
+
    private void dispatchEvent(ClientEvent event) 
    { 
       String type = event.getType();
@@ -1196,10 +1340,44 @@ public class ClientEventDispatcher
    }
    
 
+   private static class PendingEvent
+   {
+      public PendingEvent(ClientEvent event, double enqueueTime)
+      {
+         this.event = event;
+         this.enqueueTime = enqueueTime;
+      }
+
+      public final ClientEvent event;
+      public final double enqueueTime;
+   }
+
    private final EventBus eventBus_;
 
-   private final ArrayList<ClientEvent> pendingEvents_ = new ArrayList<>();
+   private final RingBuffer<PendingEvent> pendingEvents_ = new RingBuffer<>();
+   private final Timer fallbackTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         drainPendingEvents();
+      }
+   };
+
+   private boolean drainScheduled_ = false;
+   private AnimationScheduler.AnimationHandle frameHandle_;
+
+   private int maxQueueDepth_ = 0;
+   private double maxLagMillis_ = 0;
+   private double burstLagMillis_ = 0;
+
+   // time (in milliseconds) we are willing to spend dispatching events
+   // per animation frame before yielding back to the browser
+   private static final double FRAME_BUDGET_MS = 8;
+   private static final int FALLBACK_DRAIN_DELAY_MS = 100;
+   private static final double LAG_WARNING_MS = 1000;
 
-   private static final int MAX_EVENTS_AT_ONCE = 200;
+   // upper bound on the amount of console text merged into a single write
+   private static final int MAX_COALESCED_CONSOLE_CHARS = 256 * 1024;
 
 }
@@ -0,0 +1,88 @@
+/*
+ * ClientEventSequence.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JsArray;
+
+// Dispatches client events in order, skipping any that were already
+// dispatched. The same event can be delivered more than once: the event
+// stream re-sends everything the client hasn't acknowledged whenever it
+// (re)connects, including events that were returned to an abandoned poll.
+class ClientEventSequence
+{
+   interface Dispatcher
+   {
+      // checked before each event, as dispatching an event can stop the
+      // listener (e.g. a Suicide event)
+      boolean isDispatching();
+
+      void dispatch(ClientEvent event);
+   }
+
+   ClientEventSequence(Dispatcher dispatcher)
+   {
+      dispatcher_ = dispatcher;
+   }
+
+   // the id of the last event dispatched, or -1 if none
+   int getLastEventId()
+   {
+      return lastEventId_;
+   }
+
+   void reset()
+   {
+      lastEventId_ = -1;
+   }
+
+   // returns false if we stopped dispatching part way through
+   boolean dispatch(JsArray<ClientEvent> events)
+   {
+      for (int i = 0; i < events.length(); i++)
+      {
+         if (!dispatcher_.isDispatching())
+            return false;
+
+         ClientEvent event = events.get(i);
+         if (event.getId() <= lastEventId_)
+            continue;
+
+         dispatcher_.dispatch(event);
+         lastEventId_ = event.getId();
+      }
+      return true;
+   }
+
+   // dispatches events received over a transport and then tells the
+   // transport which events we've seen, so that they aren't sent again
+   void dispatch(JsArray<ClientEvent> events, ClientEventTransport transport)
+   {
+      try
+      {
+         if (!dispatch(events))
+            return;
+      }
+      catch(Throwable e)
+      {
+         GWT.log("ERROR: Processing client events", e);
+      }
+
+      transport.acknowledge(lastEventId_);
+   }
+
+   private final Dispatcher dispatcher_;
+   private int lastEventId_ = -1;
+}
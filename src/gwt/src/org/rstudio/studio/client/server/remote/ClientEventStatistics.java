@@ -0,0 +1,121 @@
+/*
+ * ClientEventStatistics.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.Duration;
+
+// Throughput and latency of client events received over one transport, so
+// that long-polling and streaming can be compared
+class ClientEventStatistics
+{
+   ClientEventStatistics(String name)
+   {
+      name_ = name;
+      reset();
+   }
+
+   // records receipt of a batch of events; sentTime is the time (in
+   // milliseconds since the epoch) at which the server sent the batch,
+   // or NaN if not known
+   void recordEvents(int count, double sentTime)
+   {
+      recordEvents(count, sentTime, Duration.currentTimeMillis());
+   }
+
+   void recordEvents(int count, double sentTime, double receivedTime)
+   {
+      if (eventCount_ == 0)
+         firstReceivedTime_ = receivedTime;
+      lastReceivedTime_ = receivedTime;
+
+      batchCount_++;
+      eventCount_ += count;
+
+      if (!Double.isNaN(sentTime))
+      {
+         // clocks may disagree slightly, even on the same machine
+         double latency = Math.max(0, receivedTime - sentTime);
+         latencyCount_++;
+         totalLatency_ += latency;
+         maxLatency_ = Math.max(maxLatency_, latency);
+      }
+   }
+
+   int getEventCount()
+   {
+      return eventCount_;
+   }
+
+   int getBatchCount()
+   {
+      return batchCount_;
+   }
+
+   // events per second between the first and last batch received
+   double getEventsPerSecond()
+   {
+      double elapsed = lastReceivedTime_ - firstReceivedTime_;
+      if (batchCount_ < 2 || elapsed <= 0)
+         return 0;
+      return eventCount_ * 1000.0 / elapsed;
+   }
+
+   // NaN when no latencies have been recorded
+   double getMeanLatencyMillis()
+   {
+      if (latencyCount_ == 0)
+         return Double.NaN;
+      return totalLatency_ / latencyCount_;
+   }
+
+   double getMaxLatencyMillis()
+   {
+      return maxLatency_;
+   }
+
+   void reset()
+   {
+      eventCount_ = 0;
+      batchCount_ = 0;
+      latencyCount_ = 0;
+      totalLatency_ = 0;
+      maxLatency_ = 0;
+      firstReceivedTime_ = 0;
+      lastReceivedTime_ = 0;
+   }
+
+   @Override
+   public String toString()
+   {
+      String summary = name_ + ": " + eventCount_ + " events in " + batchCount_ +
+                       " batches, " + Math.round(getEventsPerSecond()) + " events/sec";
+      if (latencyCount_ > 0)
+      {
+         summary += ", latency " + Math.round(getMeanLatencyMillis()) + "ms mean, " +
+                    Math.round(maxLatency_) + "ms max";
+      }
+      return summary;
+   }
+
+   private final String name_;
+
+   private int eventCount_;
+   private int batchCount_;
+   private int latencyCount_;
+   private double totalLatency_;
+   private double maxLatency_;
+   private double firstReceivedTime_;
+   private double lastReceivedTime_;
+}
@@ -0,0 +1,50 @@
+/*
+ * ClientEventTransport.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.JsArray;
+
+// A persistent channel over which the session pushes client events as they
+// are produced. RemoteServerEventListener prefers a transport when one is
+// available, and falls back to long-polling get_events when the transport
+// can't be opened or is closed.
+interface ClientEventTransport
+{
+   interface Listener
+   {
+      // the transport is connected; events will be delivered from now on
+      void onOpened();
+
+      // events were received from the server; sentTime is the time (in
+      // milliseconds since the epoch) at which the server sent them, or
+      // NaN if not known
+      void onEventsReceived(JsArray<ClientEvent> events, double sentTime);
+
+      // the transport was closed by the server, or could not be opened;
+      // not called as a result of close()
+      void onClosed(boolean failed);
+   }
+
+   // a short name for the transport, used in diagnostics
+   String getName();
+
+   void open(Listener listener);
+
+   // let the server know which events have been received, so they aren't
+   // re-delivered should we need to fall back to long-polling
+   void acknowledge(int lastEventId);
+
+   void close();
+}
@@ -16,9 +16,12 @@
 package org.rstudio.studio.client.server.remote;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.rstudio.core.client.BrowseCap;
 import org.rstudio.core.client.Debug;
@@ -35,12 +38,15 @@ import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
 import org.rstudio.core.client.jsonrpc.RpcError;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
 import org.rstudio.core.client.jsonrpc.RpcRequest;
+import org.rstudio.core.client.jsonrpc.RpcRequestBatcher;
 import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
 import org.rstudio.core.client.jsonrpc.RpcResponse;
 import org.rstudio.core.client.jsonrpc.RpcResponseHandler;
+import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.ApplicationTutorialEvent;
 import org.rstudio.studio.client.application.Desktop;
 import org.rstudio.studio.client.application.events.ClientDisconnectedEvent;
+import org.rstudio.studio.client.application.events.DeferredInitCompletedEvent;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.application.events.InvalidClientVersionEvent;
 import org.rstudio.studio.client.application.events.InvalidSessionEvent;
@@ -201,11 +207,13 @@ import org.rstudio.studio.client.workbench.views.environment.model.MemoryUsageRe
 import org.rstudio.studio.client.workbench.views.environment.model.ObjectContents;
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
 import org.rstudio.studio.client.workbench.views.files.model.DirectoryListing;
+import org.rstudio.studio.client.workbench.views.files.model.DirectoryListingPage;
 import org.rstudio.studio.client.workbench.views.files.model.FileUploadToken;
 import org.rstudio.studio.client.workbench.views.help.model.HelpInfo;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobLaunchSpec;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobOutput;
+import org.rstudio.studio.client.workbench.views.jobs.model.JobOutputRange;
 import org.rstudio.studio.client.workbench.views.output.lint.model.AceAnnotation;
 import org.rstudio.studio.client.workbench.views.output.lint.model.LintItem;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallContext;
@@ -285,14 +293,50 @@ public class RemoteServer implements Server
          };
       }
 
+      // batches requests made in the same event loop turn (when enabled)
+      rpcBatcher_ = new RpcRequestBatcher((JSONArray requests, RpcResponseHandler handler) ->
+      {
+         JSONArray params = new JSONArray();
+         params.set(0, requests);
+         return sendRequest(null, RPC_SCOPE, BATCH_RPC, params, null, false, true, null, handler, null);
+      });
+
       // initialize user home path on init
       eventBus_.addHandler(SessionInitEvent.TYPE, (SessionInitEvent sie) ->
       {
          userHomePath_ = getUserHomePath(session_.getSessionInfo());
+
+         if (!Satellite.isCurrentWindowSatellite())
+         {
+            RStudioGinjector.INSTANCE.getUserPrefs().batchRpcRequests().bind(
+                  (Boolean enabled) -> rpcBatcher_.setEnabled(enabled));
+         }
+      });
+
+      // report how many round trips were needed to start up; compare with
+      // and without RPC batching enabled (when tracing RPC requests)
+      eventBus_.addHandler(DeferredInitCompletedEvent.TYPE, (DeferredInitCompletedEvent event) ->
+      {
+         if (RpcRequest.TRACE)
+            Debug.log("Startup RPC: " + rpcBatcher_.getCallCount() + " calls in " +
+                      rpcBatcher_.getRoundTripCount() + " round trips (batching " +
+                      (rpcBatcher_.isEnabled() ? "enabled" : "disabled") + ")");
       });
 
       // create server event listener
       serverEventListener_ = new RemoteServerEventListener(this, externalListener);
+
+      // stream events over a websocket rather than polling for them (when
+      // enabled and permitted by the server)
+      eventBus_.addHandler(SessionInitEvent.TYPE, (SessionInitEvent sie) ->
+      {
+         if (!Satellite.isCurrentWindowSatellite() &&
+             session_.getSessionInfo().getAllowTerminalWebsockets())
+         {
+            RStudioGinjector.INSTANCE.getUserPrefs().streamSessionEvents().bind(
+                  (Boolean enabled) -> serverEventListener_.setStreamingEnabled(enabled));
+         }
+      });
       
       // create JS callback for requests
       if (Desktop.isDesktop())
@@ -1065,11 +1109,7 @@ public class RemoteServer implements Server
       params.set(0, new JSONString(name));
       params.set(1, new JSONString(source));
       params.set(2,  new JSONString(StringUtil.notNull(helpHandler)));
-      sendRequest(
-            RPC_SCOPE,
-            GET_ARGS,
-            params,
-            requestCallback);
+      sendCoalescedRequest(GET_ARGS, GET_ARGS, params, requestCallback);
    }
 
    public void extractChunkOptions(
@@ -1133,10 +1173,10 @@ public class RemoteServer implements Server
             .add(isConsole)
             .get();
 
-      sendRequest(RPC_SCOPE,
-                  GET_COMPLETIONS,
-                  params,
-                  requestCallback);
+      sendCoalescedRequest(GET_COMPLETIONS + "/" + documentId,
+                           GET_COMPLETIONS,
+                           params,
+                           requestCallback);
    }
 
    public void markdownGetCompletions(int completionType,
@@ -1679,6 +1719,37 @@ public class RemoteServer implements Server
                   requestCallback);
    }
 
+   public void listFilesPage(
+                  FileSystemItem directory,
+                  boolean monitor,
+                  boolean showHidden,
+                  boolean refresh,
+                  int offset,
+                  int count,
+                  String sortColumn,
+                  boolean ascending,
+                  boolean naturalOrder,
+                  String filter,
+                  ServerRequestCallback<DirectoryListingPage> requestCallback)
+   {
+      JSONArray paramArray = new JSONArray();
+      paramArray.set(0, new JSONString(directory.getPath()));
+      paramArray.set(1, JSONBoolean.getInstance(monitor));
+      paramArray.set(2, JSONBoolean.getInstance(showHidden));
+      paramArray.set(3, JSONBoolean.getInstance(refresh));
+      paramArray.set(4, new JSONNumber(offset));
+      paramArray.set(5, new JSONNumber(count));
+      paramArray.set(6, new JSONString(sortColumn));
+      paramArray.set(7, JSONBoolean.getInstance(ascending));
+      paramArray.set(8, JSONBoolean.getInstance(naturalOrder));
+      paramArray.set(9, new JSONString(filter));
+
+      sendRequest(RPC_SCOPE,
+                  LIST_FILES_PAGE,
+                  paramArray,
+                  requestCallback);
+   }
+
    public void listAllFiles(String path,
                             String pattern,
                             ServerRequestCallback<JsArrayString> requestCallback)
@@ -2855,9 +2926,12 @@ public class RemoteServer implements Server
    }
 
    @Override
-   public void gitAllStatus(ServerRequestCallback<AllStatus> requestCallback)
+   public void gitAllStatus(String knownVersion,
+                            ServerRequestCallback<AllStatus> requestCallback)
    {
-      sendRequest(RPC_SCOPE, GIT_ALL_STATUS, requestCallback);
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONString(StringUtil.notNull(knownVersion)));
+      sendRequest(RPC_SCOPE, GIT_ALL_STATUS, params, requestCallback);
    }
 
    @Override
@@ -3301,6 +3375,12 @@ public class RemoteServer implements Server
                          retryHandler);
    }
 
+   void startEventStream(
+         ServerRequestCallback<WebSocketEventTransport.EventStreamInfo> requestCallback)
+   {
+      sendRequest(RPC_SCOPE, START_EVENT_STREAM, requestCallback);
+   }
+
    void handleUnauthorizedError()
    {
       UnauthorizedEvent event = new UnauthorizedEvent();
@@ -3472,11 +3552,32 @@ public class RemoteServer implements Server
       // otherwise just a standard request with single retry
       else
       {
-         sendRequestWithRetry(scope, method, params, kwparams, redactLog, refreshCreds, resultFieldName, cb);
+         sendRequestWithRetry(scope, method, params, kwparams, redactLog, refreshCreds, resultFieldName, null, cb);
       }
 
    }
 
+   // sends a request to an idempotent query method; a request still in
+   // flight on the same channel is cancelled, since its result is no longer
+   // wanted (and is skipped by the session if it hasn't yet run)
+   private <T> void sendCoalescedRequest(String channel,
+                                         String method,
+                                         JSONArray params,
+                                         ServerRequestCallback<T> requestCallback)
+   {
+      RequestCoalescer.Request<T> request = coalescer_.begin(channel, requestCallback);
+      if (Satellite.isCurrentWindowSatellite())
+      {
+         // requests proxied through the main window can't carry a token,
+         // so these are only cancelled here
+         sendRequestViaMainWorkbench(RPC_SCOPE, method, params, null, false, true, null, request);
+      }
+      else
+      {
+         sendRequestWithRetry(RPC_SCOPE, method, params, null, false, true, null, request.getToken(), request);
+      }
+   }
+
    private <T> void sendRequestWithRetry(
                                  final String scope,
                                  final String method,
@@ -3485,6 +3586,7 @@ public class RemoteServer implements Server
                                  final boolean redactLog,
                                  final boolean refreshCreds,
                                  final String resultFieldName,
+                                 final String coalesceToken,
                                  final ServerRequestCallback<T> requestCallback)
    {
       // retry handler (make the same call with the same params. ensure that
@@ -3502,6 +3604,7 @@ public class RemoteServer implements Server
                         redactLog,
                         refreshCreds,
                         resultFieldName,
+                        coalesceToken,
                         requestCallback,
                         null);
          }
@@ -3516,6 +3619,7 @@ public class RemoteServer implements Server
                         modifiedRequest.getRedactLog(),
                         modifiedRequest.getRefreshCreds(),
                         modifiedRequest.getResultFieldName(),
+                        modifiedRequest.getCoalesceToken(),
                         requestCallback,
                         null);
          }
@@ -3535,6 +3639,7 @@ public class RemoteServer implements Server
                   redactLog,
                   refreshCreds,
                   resultFieldName,
+                  coalesceToken,
                   requestCallback,
                   retryHandler);
    }
@@ -3551,6 +3656,30 @@ public class RemoteServer implements Server
                               String resultFieldName,
                               final ServerRequestCallback<T> requestCallback,
                               RetryHandler retryHandler)
+   {
+      return sendRequest(scope,
+                         method,
+                         params,
+                         kwparams,
+                         redactLog,
+                         refreshCreds,
+                         resultFieldName,
+                         null,
+                         requestCallback,
+                         retryHandler);
+   }
+
+   protected <T> RpcRequest sendRequest(
+                              String scope,
+                              String method,
+                              JSONArray params,
+                              JSONObject kwparams,
+                              boolean redactLog,
+                              boolean refreshCreds,
+                              String resultFieldName,
+                              String coalesceToken,
+                              final ServerRequestCallback<T> requestCallback,
+                              RetryHandler retryHandler)
    {
       final RpcRequest request = sendRequest(
             null,
@@ -3561,6 +3690,7 @@ public class RemoteServer implements Server
             redactLog,
             refreshCreds,
             resultFieldName,
+            coalesceToken,
             new RpcResponseHandler()
             {
                @Override
@@ -3612,6 +3742,31 @@ public class RemoteServer implements Server
                                   String resultFieldName,
                                   final RpcResponseHandler responseHandler,
                                   final RetryHandler retryHandler)
+   {
+      return sendRequest(sourceWindow,
+                         scope,
+                         method,
+                         params,
+                         kwparams,
+                         redactLog,
+                         refreshCreds,
+                         resultFieldName,
+                         null,
+                         responseHandler,
+                         retryHandler);
+   }
+
+   protected RpcRequest sendRequest(String sourceWindow,
+                                  String scope,
+                                  String method,
+                                  JSONArray params,
+                                  JSONObject kwparams,
+                                  boolean redactLog,
+                                  boolean refreshCreds,
+                                  String resultFieldName,
+                                  String coalesceToken,
+                                  final RpcResponseHandler responseHandler,
+                                  final RetryHandler retryHandler)
    {
       // ensure we are listening for events. note that we do this here
       // because we are no longer so aggressive about retrying on failed
@@ -3630,13 +3785,14 @@ public class RemoteServer implements Server
                                              sourceWindow,
                                              clientId_,
                                              clientVersion_,
-                                             refreshCreds);
+                                             refreshCreds,
+                                             coalesceToken);
 
       if (isDisconnected(scope))
          return rpcRequest;
 
       // send the request
-      rpcRequest.send(new RpcRequestCallback() {
+      RpcRequestCallback requestCallback = new RpcRequestCallback() {
          public void onError(RpcRequest request, RpcError error)
          {
             // ignore errors if we are disconnected
@@ -3707,12 +3863,32 @@ public class RemoteServer implements Server
                   serverEventListener_.ensureEvents();
             }
          }
-      });
+      };
+
+      if (BATCH_RPC.equals(method))
+         rpcRequest.send(requestCallback); // accounted for by the batcher
+      else if (coalesceToken == null && isBatchable(scope, method, redactLog, refreshCreds))
+         rpcBatcher_.send(rpcRequest, requestCallback);
+      else
+         rpcBatcher_.sendImmediately(rpcRequest, requestCallback);
 
       // return the request
       return rpcRequest;
    }
 
+   private boolean isBatchable(String scope,
+                               String method,
+                               boolean redactLog,
+                               boolean refreshCreds)
+   {
+      // the batch envelope carries a single set of request headers and is
+      // logged as a whole, so only plain rpc requests can be batched
+      if (!RPC_SCOPE.equals(scope) || redactLog || !refreshCreds)
+         return false;
+
+      return !UNBATCHED_METHODS.contains(method);
+   }
+
    private void ensureListeningForEvents()
    {
       // don't do this if we are disconnected
@@ -4903,6 +5079,26 @@ public class RemoteServer implements Server
                   requestCallback);
    }
 
+   @Override
+   public void getEnvironmentState(
+         String language,
+         String environment,
+         JavaScriptObject knownListing,
+         ServerRequestCallback<EnvironmentContextData> requestCallback)
+   {
+      JSONArrayBuilder builder = new JSONArrayBuilder()
+            .add(language)
+            .add(environment);
+      if (knownListing != null)
+         builder.add(knownListing);
+      JSONArray params = builder.get();
+
+      sendRequest(RPC_SCOPE,
+                  GET_ENVIRONMENT_STATE,
+                  params,
+                  requestCallback);
+   }
+
    @Override
    public void requeryContext(ServerRequestCallback<Void> requestCallback)
    {
@@ -4963,6 +5159,19 @@ public class RemoteServer implements Server
                   requestCallback);
    }
 
+   @Override
+   public void getObjectSummaries(
+                 JsArrayString objectNames,
+                 ServerRequestCallback<JsArray<RObject>> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONArray(objectNames));
+      sendRequest(RPC_SCOPE,
+                  GET_OBJECT_SUMMARIES,
+                  params,
+                  requestCallback);
+   }
+
    @Override
    public void getFunctionSteps(
                  String functionName,
@@ -5966,7 +6175,10 @@ public class RemoteServer implements Server
       params.set(2, new JSONString(content));
       params.set(3, JSONBoolean.getInstance(showMarkersPane));
       params.set(4, JSONBoolean.getInstance(explicit));
-      sendRequest(RPC_SCOPE, LINT_R_SOURCE_DOCUMENT, params, requestCallback);
+      sendCoalescedRequest(LINT_R_SOURCE_DOCUMENT + "/" + documentId,
+                           LINT_R_SOURCE_DOCUMENT,
+                           params,
+                           requestCallback);
    }
 
    @Override
@@ -6395,15 +6607,29 @@ public class RemoteServer implements Server
 
    @Override
    public void setJobListening(String id, boolean listening, boolean bypassLauncherCall,
-                               ServerRequestCallback<JsArray<JobOutput>> callback)
+                               int maxEntries, int maxLines,
+                               ServerRequestCallback<JobOutputRange> callback)
    {
       JSONArray params = new JSONArray();
       params.set(0, new JSONString(id));
       params.set(1, JSONBoolean.getInstance(listening));
       params.set(2, JSONBoolean.getInstance(bypassLauncherCall));
+      params.set(3, new JSONNumber(maxEntries));
+      params.set(4, new JSONNumber(maxLines));
       sendRequest(RPC_SCOPE, "set_job_listening", params, callback);
    }
 
+   @Override
+   public void getJobOutput(String id, int start, int end,
+                            ServerRequestCallback<JsArray<JobOutput>> callback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONString(id));
+      params.set(1, new JSONNumber(start));
+      params.set(2, new JSONNumber(end));
+      sendRequest(RPC_SCOPE, "job_output", params, callback);
+   }
+
    @Override
    public void executeJobAction(String id, String action,
                                 ServerRequestCallback<Void> callback)
@@ -6774,6 +7000,8 @@ public class RemoteServer implements Server
 
    private final RemoteServerAuth serverAuth_;
    private final RemoteServerEventListener serverEventListener_;
+   private final RpcRequestBatcher rpcBatcher_;
+   private final RequestCoalescer coalescer_ = new RequestCoalescer();
 
    private final Provider<ConsoleProcessFactory> pConsoleProcessFactory_;
 
@@ -6801,6 +7029,8 @@ public class RemoteServer implements Server
    private static final String SUSPEND_FOR_RESTART = "suspend_for_restart";
    private static final String PING = "ping";
    private static final String RSTUDIOAPI_RESPONSE = "rstudioapi_response";
+   private static final String BATCH_RPC = "batch_rpc";
+   private static final String START_EVENT_STREAM = "start_event_stream";
 
    private static final String SET_WORKBENCH_METRICS = "set_workbench_metrics";
    private static final String SET_PREFS = "set_prefs";
@@ -6893,6 +7123,7 @@ public class RemoteServer implements Server
    private static final String IS_GIT_DIRECTORY = "is_git_directory";
    private static final String IS_PACKAGE_DIRECTORY = "is_package_directory";
    private static final String LIST_FILES = "list_files";
+   private static final String LIST_FILES_PAGE = "list_files_page";
    private static final String LIST_ALL_FILES = "list_all_files";
    private static final String CREATE_FILE = "create_file";
    private static final String CREATE_FOLDER = "create_folder";
@@ -7128,6 +7359,7 @@ public class RemoteServer implements Server
    private static final String GET_ENVIRONMENT_NAMES = "get_environment_names";
    private static final String GET_ENVIRONMENT_STATE = "get_environment_state";
    private static final String GET_OBJECT_CONTENTS = "get_object_contents";
+   private static final String GET_OBJECT_SUMMARIES = "get_object_summaries";
    private static final String REQUERY_CONTEXT = "requery_context";
    private static final String ENVIRONMENT_SET_LANGUAGE = "environment_set_language";
    private static final String SET_ENVIRONMENT_MONITORING = "set_environment_monitoring";
@@ -7310,4 +7542,32 @@ public class RemoteServer implements Server
    private static final String QUARTO_SERVE_RENDER = "quarto_serve_render";
    private static final String QUARTO_CREATE_PROJECT = "quarto_create_project";
 
+   // methods which are never batched: those the session handles outside of
+   // normal rpc dispatch, and those it services while R is busy (which
+   // would otherwise wait behind R in a batch)
+   private static final Set<String> UNBATCHED_METHODS = new HashSet<>(Arrays.asList(
+         CLIENT_INIT,
+         SUSPEND_SESSION,
+         QUIT_SESSION,
+         SUSPEND_FOR_RESTART,
+         PING,
+         CONSOLE_INPUT,
+         INTERRUPT,
+         ABORT,
+         SET_CLIENT_STATE,
+         LIST_FILES,
+         NEW_DOCUMENT,
+         OPEN_DOCUMENT,
+         SAVE_DOCUMENT,
+         SAVE_DOCUMENT_DIFF,
+         MODIFY_DOCUMENT_PROPERTIES,
+         CHECK_FOR_EXTERNAL_EDIT,
+         GET_SOURCE_TEMPLATE,
+         START_TERMINAL,
+         PROCESS_START,
+         PROCESS_NOTIFY_VISIBLE,
+         PROCESS_GET_BUFFER_CHUNK,
+         PROCESS_ERASE_BUFFER,
+         PROCESS_SET_SIZE));
+
 }
@@ -21,6 +21,7 @@ import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.Window.ClosingEvent;
 import com.google.gwt.user.client.Window.ClosingHandler;
 
+import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.jsonrpc.RpcError;
 import org.rstudio.core.client.jsonrpc.RpcRequest;
 import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
@@ -55,7 +56,22 @@ class RemoteServerEventListener
       server_ = server;
       externalEventHandler_ = externalEventHandler;
       eventDispatcher_ = new ClientEventDispatcher(server_.getEventBus());
-      lastEventId_ = -1;
+      eventSequence_ = new ClientEventSequence(new ClientEventSequence.Dispatcher()
+      {
+         // we can stop listening in the middle of dispatching events (e.g.
+         // if we dispatch a Suicide event)
+         @Override
+         public boolean isDispatching()
+         {
+            return isListening_;
+         }
+
+         @Override
+         public void dispatch(ClientEvent event)
+         {
+            dispatchEvent(event);
+         }
+      });
       listenCount_ = 0;
       listenErrorCount_ = 0;
       isListening_ = false;
@@ -128,10 +144,13 @@ class RemoteServerEventListener
       // from the server). note also that when we go multi-user we'll be 
       // revisiting this mechanism again so there will be an opportunity to 
       // eliminate this scenario then
-      lastEventId_ = -1;
+      eventSequence_.reset();
       
-      // start listening
+      // start listening; if we're able to open the event stream we'll stop
+      // polling once it's connected
       listen();
+      if (streamingEnabled_)
+         openStream();
    }
      
    public void stop()
@@ -139,6 +158,7 @@ class RemoteServerEventListener
       listenTimer_.cancel();
       isListening_ = false;
       listenCount_ = 0;
+      closeStream();
       if (activeRequestCallback_ != null)
       {
          activeRequestCallback_.cancel();
@@ -151,6 +171,31 @@ class RemoteServerEventListener
       }
    }
    
+   // receive events over a persistent socket rather than by long-polling;
+   // polling is still used whenever the socket isn't connected
+   public void setStreamingEnabled(boolean enabled)
+   {
+      if (enabled == streamingEnabled_)
+         return;
+
+      streamingEnabled_ = enabled;
+      streamFailureCount_ = 0;
+      if (!isListening_)
+         return;
+
+      if (enabled)
+      {
+         openStream();
+      }
+      else if (streamTransport_ != null)
+      {
+         boolean wasStreaming = streaming_;
+         closeStream();
+         if (wasStreaming)
+            listen();
+      }
+   }
+
    // ensure that we are actively listening for events (used to make 
    // sure that we restart listening when the session is about to resume
    // after a suspension)
@@ -191,6 +236,13 @@ class RemoteServerEventListener
      {
          start();
      } 
+
+     // events are pushed to us when streaming; if the socket goes away
+     // we'll be told and resume polling
+     else if (streaming_)
+     {
+        return;
+     }
      
      // if we are listening then use the Watchdog to still make sure we 
      // receive the events even if it requires restarting
@@ -245,8 +297,9 @@ class RemoteServerEventListener
    
    private void doListen()
    {  
-      // abort if we are no longer running
-      if (!isListening_)
+      // abort if we are no longer running (or are receiving events from
+      // the event stream instead)
+      if (!isListening_ || streaming_)
          return;
           
       // setup request callback (save reference for cancellation)
@@ -268,20 +321,11 @@ class RemoteServerEventListener
                // only process events if we are still listening
                if (isListening_ && (events != null))
                {
-                  for (int i=0; i<events.length(); i++)
-                  {
-                     // we can stop listening in the middle of dispatching
-                     // events (e.g. if we dispatch a Suicide event) so we 
-                     // need to check the listening_ flag before each event
-                     // is dispatched
-                     if (!isListening_)
-                        return;
-                     
-                     // dispatch event
-                     ClientEvent event = events.get(i);
-                     dispatchEvent(event);
-                     lastEventId_ = event.getId();
-                  }   
+                  if (events.length() > 0)
+                     pollingStats_.recordEvents(events.length(), Double.NaN);
+
+                  if (!eventSequence_.dispatch(events))
+                     return;
                }
             }
             // catch all here to make sure that in all cases we call
@@ -366,12 +410,83 @@ class RemoteServerEventListener
          watchdog_.schedule(kWatchdogIntervalMs);
       
       // send request
-      activeRequest_ = server_.getEvents(lastEventId_, 
+      activeRequest_ = server_.getEvents(eventSequence_.getLastEventId(), 
                                          activeRequestCallback_,
                                          retryHandler);                             
    }
    
    
+   private void openStream()
+   {
+      if (streamFailureCount_ >= kMaxStreamFailures)
+         return;
+
+      if (streamTransport_ == null)
+         streamTransport_ = new WebSocketEventTransport(server_);
+
+      streamTransport_.open(streamListener_);
+   }
+
+   private void closeStream()
+   {
+      if (streamTransport_ != null)
+         streamTransport_.close();
+      streaming_ = false;
+   }
+
+   private final ClientEventTransport.Listener streamListener_ =
+         new ClientEventTransport.Listener()
+   {
+      @Override
+      public void onOpened()
+      {
+         // stop polling; any events delivered in response to an outstanding
+         // poll will be re-sent over the stream as we never acknowledge them
+         streaming_ = true;
+         streamFailureCount_ = 0;
+         listenTimer_.cancel();
+         watchdog_.cancel();
+         if (activeRequestCallback_ != null)
+         {
+            activeRequestCallback_.cancel();
+            activeRequestCallback_ = null;
+         }
+         if (activeRequest_ != null)
+         {
+            activeRequest_.cancel();
+            activeRequest_ = null;
+         }
+
+         streamTransport_.acknowledge(eventSequence_.getLastEventId());
+      }
+
+      @Override
+      public void onEventsReceived(JsArray<ClientEvent> events, double sentTime)
+      {
+         if (!isListening_)
+            return;
+
+         streamingStats_.recordEvents(events.length(), sentTime);
+         eventSequence_.dispatch(events, streamTransport_);
+      }
+
+      @Override
+      public void onClosed(boolean failed)
+      {
+         boolean wasStreaming = streaming_;
+         streaming_ = false;
+         if (failed)
+            streamFailureCount_++;
+
+         if (wasStreaming && RpcRequest.TRACE)
+            Debug.log("Event stream closed; " + streamingStats_ + "; " + pollingStats_);
+
+         // resume polling
+         if (isListening_ && wasStreaming)
+            listen();
+      }
+   };
+
    private void dispatchEvent(ClientEvent event)
    {
       // do some special handling before calling the standard dispatcher
@@ -468,10 +583,10 @@ class RemoteServerEventListener
    // unnecessarily during a listen delay
    private final int kWatchdogIntervalMs = 1000;
    private final int kSecondListenBounceMs = 250;
+   private final int kMaxStreamFailures = 3;
    private Timer listenTimer_;
        
    private boolean isListening_;
-   private int lastEventId_;
    private int listenCount_;
    private int listenErrorCount_;
    private boolean sessionWasQuit_;
@@ -479,7 +594,15 @@ class RemoteServerEventListener
    private RpcRequest activeRequest_;
    private ServerRequestCallback<JsArray<ClientEvent>> activeRequestCallback_;
 
+   private boolean streamingEnabled_;
+   private boolean streaming_;
+   private int streamFailureCount_;
+   private ClientEventTransport streamTransport_;
+   private final ClientEventStatistics pollingStats_ = new ClientEventStatistics("polling");
+   private final ClientEventStatistics streamingStats_ = new ClientEventStatistics("streaming");
+
    private final ClientEventDispatcher eventDispatcher_;
+   private final ClientEventSequence eventSequence_;
    
    private final ClientEventHandler externalEventHandler_;
      
@@ -0,0 +1,135 @@
+/*
+ * RequestCoalescer.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.HashMap;
+
+import org.rstudio.core.client.jsonrpc.RpcRequest;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+
+import com.google.gwt.user.client.Random;
+
+/**
+ * Coalesces requests to idempotent query methods (completions, lint, etc.)
+ * so that only the latest request on a channel is answered. Starting a
+ * request cancels the one still in flight on the same channel; since the
+ * session may not have gotten to that request yet, each request also
+ * carries a token which lets the session skip it if it has been superseded
+ * by the time it would run.
+ */
+public class RequestCoalescer
+{
+   public RequestCoalescer()
+   {
+      // distinguishes our channels from those of other clients connected
+      // to the same session
+      clientKey_ = Integer.toHexString(Random.nextInt());
+   }
+
+   /**
+    * Begins a request on the given channel, cancelling the request it
+    * supersedes. The returned callback should be used in place of the
+    * caller's callback when sending the request.
+    */
+   public <T> Request<T> begin(String channel,
+                               ServerRequestCallback<T> callback)
+   {
+      Request<?> previous = inFlight_.get(channel);
+      if (previous != null)
+      {
+         previous.cancel();
+         supersededCount_++;
+      }
+
+      Request<T> request = new Request<>(channel, ++sequence_, callback);
+      inFlight_.put(channel, request);
+      return request;
+   }
+
+   // number of requests cancelled because a newer request was made
+   public int getSupersededCount()
+   {
+      return supersededCount_;
+   }
+
+   private void end(Request<?> request)
+   {
+      if (inFlight_.get(request.channel_) == request)
+         inFlight_.remove(request.channel_);
+   }
+
+   public class Request<T> extends ServerRequestCallback<T>
+   {
+      Request(String channel,
+              int sequence,
+              ServerRequestCallback<T> callback)
+      {
+         channel_ = channel;
+         token_ = clientKey_ + "/" + channel + ":" + sequence;
+         callback_ = callback;
+      }
+
+      public String getToken()
+      {
+         return token_;
+      }
+
+      @Override
+      public void onResponseReceived(T response)
+      {
+         end(this);
+         if (!cancelled())
+            callback_.onResponseReceived(response);
+      }
+
+      @Override
+      public void onError(ServerError error)
+      {
+         end(this);
+         if (!cancelled())
+            callback_.onError(error);
+      }
+
+      @Override
+      public void onRequestInitiated(RpcRequest request)
+      {
+         super.onRequestInitiated(request);
+         callback_.onRequestInitiated(request);
+      }
+
+      @Override
+      public void cancel()
+      {
+         super.cancel();
+         end(this);
+      }
+
+      @Override
+      public boolean cancelled()
+      {
+         return super.cancelled() || callback_.cancelled();
+      }
+
+      private final String channel_;
+      private final String token_;
+      private final ServerRequestCallback<T> callback_;
+   }
+
+   private final String clientKey_;
+   private final HashMap<String, Request<?>> inFlight_ = new HashMap<>();
+   private int sequence_ = 0;
+   private int supersededCount_ = 0;
+}
@@ -0,0 +1,269 @@
+/*
+ * WebSocketEventTransport.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.jsonrpc.RpcRequest;
+import org.rstudio.studio.client.application.Desktop;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.terminal.TerminalSocketPacket;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.user.client.Timer;
+import com.sksamuel.gwt.websockets.CloseEvent;
+import com.sksamuel.gwt.websockets.Websocket;
+import com.sksamuel.gwt.websockets.WebsocketListenerExt;
+
+// Receives client events over a websocket served by the session. The
+// socket uses the same endpoint layout and packet format as terminals.
+class WebSocketEventTransport implements ClientEventTransport
+{
+   static class EventStreamInfo extends JavaScriptObject
+   {
+      protected EventStreamInfo()
+      {
+      }
+
+      // the port, or in server mode an obfuscated port token for the proxy
+      public final native String getPort() /*-{
+         return "" + this.port;
+      }-*/;
+
+      public final native String getHandle() /*-{
+         return this.handle;
+      }-*/;
+   }
+
+   static class EventStreamMessage extends JavaScriptObject
+   {
+      protected EventStreamMessage()
+      {
+      }
+
+      public static final native EventStreamMessage parse(String json) /*-{
+         return $wnd.JSON.parse(json);
+      }-*/;
+
+      public final native double getTime() /*-{
+         return this.time || NaN;
+      }-*/;
+
+      public final native JsArray<ClientEvent> getEvents() /*-{
+         return this.events || [];
+      }-*/;
+   }
+
+   WebSocketEventTransport(RemoteServer server)
+   {
+      server_ = server;
+
+      connectTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            if (RpcRequest.TRACE)
+               Debug.log("Timed out connecting event stream");
+            onClosed(true);
+         }
+      };
+
+      // keep proxies from closing the socket when there are no events
+      keepAliveTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            if (socket_ != null)
+               socket_.send(TerminalSocketPacket.keepAlivePacket());
+         }
+      };
+   }
+
+   @Override
+   public String getName()
+   {
+      return "websocket";
+   }
+
+   @Override
+   public void open(final Listener listener)
+   {
+      close();
+      listener_ = listener;
+
+      if (!Websocket.isSupported())
+      {
+         onClosed(true);
+         return;
+      }
+
+      final int connection = connection_;
+      server_.startEventStream(new ServerRequestCallback<EventStreamInfo>()
+      {
+         @Override
+         public void onResponseReceived(EventStreamInfo info)
+         {
+            if (connection == connection_)
+               connect(info);
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            if (connection == connection_)
+            {
+               if (RpcRequest.TRACE)
+                  Debug.log("Unable to start event stream: " + error.getUserMessage());
+               onClosed(true);
+            }
+         }
+      });
+   }
+
+   @Override
+   public void acknowledge(int lastEventId)
+   {
+      if (socket_ != null && opened_)
+         socket_.send(TerminalSocketPacket.textPacket(String.valueOf(lastEventId)));
+   }
+
+   @Override
+   public void close()
+   {
+      // ignore anything still in flight for the previous connection
+      connection_++;
+      listener_ = null;
+      opened_ = false;
+      connectTimer_.cancel();
+      keepAliveTimer_.cancel();
+
+      if (socket_ != null)
+      {
+         Websocket socket = socket_;
+         socket_ = null;
+         socket.close();
+      }
+   }
+
+   private void connect(EventStreamInfo info)
+   {
+      // as with terminals, talk directly to the socket on desktop and go
+      // through the /p proxy otherwise
+      String urlSuffix = info.getPort() + "/events/" + info.getHandle() + "/";
+      String url;
+      if (Desktop.isDesktop())
+      {
+         url = "ws://127.0.0.1:" + urlSuffix;
+      }
+      else
+      {
+         url = GWT.getHostPageBaseURL();
+         if (url.startsWith("https:"))
+         {
+            url = "wss:" + StringUtil.substring(url, 6) + "p/" + urlSuffix;
+         }
+         else if (url.startsWith("http:"))
+         {
+            url = "ws:" + StringUtil.substring(url, 5) + "p/" + urlSuffix;
+         }
+         else
+         {
+            onClosed(true);
+            return;
+         }
+      }
+
+      final Websocket socket = new Websocket(url);
+      socket.addListener(new WebsocketListenerExt()
+      {
+         @Override
+         public void onOpen()
+         {
+            if (socket != socket_)
+               return;
+
+            opened_ = true;
+            connectTimer_.cancel();
+            keepAliveTimer_.scheduleRepeating(KEEP_ALIVE_INTERVAL_MS);
+            if (listener_ != null)
+               listener_.onOpened();
+         }
+
+         @Override
+         public void onMessage(String msg)
+         {
+            if (socket != socket_ || TerminalSocketPacket.isKeepAlive(msg))
+               return;
+
+            EventStreamMessage message;
+            try
+            {
+               message = EventStreamMessage.parse(TerminalSocketPacket.getMessage(msg));
+            }
+            catch (Exception e)
+            {
+               Debug.logException(e);
+               return;
+            }
+
+            if (listener_ != null)
+               listener_.onEventsReceived(message.getEvents(), message.getTime());
+         }
+
+         @Override
+         public void onClose(CloseEvent event)
+         {
+            if (socket == socket_)
+               onClosed(!opened_);
+         }
+
+         @Override
+         public void onError()
+         {
+            if (socket == socket_)
+               onClosed(true);
+         }
+      });
+
+      socket_ = socket;
+      connectTimer_.schedule(CONNECT_TIMEOUT_MS);
+      socket.open();
+   }
+
+   private void onClosed(boolean failed)
+   {
+      Listener listener = listener_;
+      close();
+      if (listener != null)
+         listener.onClosed(failed);
+   }
+
+   private final RemoteServer server_;
+   private final Timer connectTimer_;
+   private final Timer keepAliveTimer_;
+
+   private Listener listener_;
+   private Websocket socket_;
+   private boolean opened_;
+   private int connection_;
+
+   private static final int CONNECT_TIMEOUT_MS = 5000;
+   private static final int KEEP_ALIVE_INTERVAL_MS = 30000;
+}
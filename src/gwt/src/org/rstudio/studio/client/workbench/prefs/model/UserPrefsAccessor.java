@@ -3756,6 +3756,30 @@ public class UserPrefsAccessor extends Prefs
          "");
    }
 
+   /**
+    * Whether to send independent RPC requests made at the same time to the R session in a single batched request.
+    */
+   public PrefValue<Boolean> batchRpcRequests()
+   {
+      return bool(
+         "batch_rpc_requests",
+         _constants.batchRpcRequestsTitle(), 
+         _constants.batchRpcRequestsDescription(), 
+         false);
+   }
+
+   /**
+    * Whether to receive session events over a persistent WebSocket connection instead of by polling.
+    */
+   public PrefValue<Boolean> streamSessionEvents()
+   {
+      return bool(
+         "stream_session_events",
+         _constants.streamSessionEventsTitle(), 
+         _constants.streamSessionEventsDescription(), 
+         false);
+   }
+
    public void syncPrefs(String layer, JsObject source)
    {
       if (source.hasKey("run_rprofile_on_resume"))
@@ -4282,6 +4306,10 @@ public class UserPrefsAccessor extends Prefs
          reformatOnSave().setValue(layer, source.getBool("reformat_on_save"));
       if (source.hasKey("project_user_data_directory"))
          projectUserDataDirectory().setValue(layer, source.getString("project_user_data_directory"));
+      if (source.hasKey("batch_rpc_requests"))
+         batchRpcRequests().setValue(layer, source.getBool("batch_rpc_requests"));
+      if (source.hasKey("stream_session_events"))
+         streamSessionEvents().setValue(layer, source.getBool("stream_session_events"));
    }
    public List<PrefValue<?>> allPrefs()
    {
@@ -4548,6 +4576,8 @@ public class UserPrefsAccessor extends Prefs
       prefs.add(codeFormatterExternalCommand());
       prefs.add(reformatOnSave());
       prefs.add(projectUserDataDirectory());
+      prefs.add(batchRpcRequests());
+      prefs.add(streamSessionEvents());
       return prefs;
    }
    
@@ -2193,6 +2193,20 @@ public interface UserPrefsAccessorConstants extends Constants {
    @DefaultStringValue("The folder in which RStudio should store project .Rproj.user data.")
    String projectUserDataDirectoryDescription();
 
+   /**
+    * Whether to send independent RPC requests made at the same time to the R session in a single batched request.
+    */
+   @DefaultStringValue("Batch remote procedure calls")
+   String batchRpcRequestsTitle();
+   @DefaultStringValue("Whether to send independent RPC requests made at the same time to the R session in a single batched request.")
+   String batchRpcRequestsDescription();
+   /**
+    * Whether to receive session events over a persistent WebSocket connection instead of by polling.
+    */
+   @DefaultStringValue("Stream session events")
+   String streamSessionEventsTitle();
+   @DefaultStringValue("Whether to receive session events over a persistent WebSocket connection instead of by polling.")
+   String streamSessionEventsDescription();
 
 
 }
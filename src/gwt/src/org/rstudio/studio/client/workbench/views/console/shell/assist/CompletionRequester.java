@@ -18,7 +18,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 
 import org.rstudio.core.client.SafeHtmlUtil;
 import org.rstudio.core.client.StringUtil;
@@ -69,12 +68,12 @@ public class CompletionRequester
    private final DocDisplay docDisplay_;
    private final SnippetHelper snippets_;
    
-   private String cachedLinePrefix_;
-   private HashMap<String, CompletionResult> cachedCompletions_ = new HashMap<>();
+   private CompletionResultCache.Entry activeEntry_;
 
    // Injected ----
    private CodeToolsServerOperations server_;
    private UserPrefs uiPrefs_;
+   private CompletionResultCache cache_;
    
    public CompletionRequester(CompletionContext context,
                               RnwCompletionContext rnwContext,
@@ -89,50 +88,59 @@ public class CompletionRequester
    }
 
    @Inject
-   void initialize(CodeToolsServerOperations server, UserPrefs uiPrefs)
+   void initialize(CodeToolsServerOperations server,
+                   UserPrefs uiPrefs,
+                   CompletionResultCache cache)
    {
       server_ = server;
       uiPrefs_ = uiPrefs;
-   }
-
-   private boolean usingCache(
-         String token,
-         final ServerRequestCallback<CompletionResult> callback)
-   {
-      return usingCache(token, false, callback);
+      cache_ = cache;
    }
 
    private boolean usingCache(
          String token,
          boolean isHelpCompletion,
+         String contextKey,
          final ServerRequestCallback<CompletionResult> callback)
    {
       if (isHelpCompletion)
          token = StringUtil.substring(token, token.lastIndexOf(':') + 1);
 
-      if (cachedLinePrefix_ == null)
-         return false;
+      // continue narrowing the completions we're showing; otherwise, use
+      // those last received for this context (if any)
+      CompletionResultCache.Entry entry = activeEntry_;
+      if (entry == null)
+         entry = cache_.get(contextKey);
 
-      CompletionResult cachedResult = cachedCompletions_.get("");
-      if (cachedResult == null)
+      if (entry == null)
          return false;
 
-      if (token.toLowerCase().startsWith(cachedLinePrefix_.toLowerCase()))
+      String requestToken = entry.getRequestToken();
+      if (token.toLowerCase().startsWith(requestToken.toLowerCase()))
       {
-         String diff = StringUtil.substring(token, cachedLinePrefix_.length());
+         String diff = StringUtil.substring(token, requestToken.length());
 
          // if we already have a cached result for this diff, use it
-         CompletionResult cached = cachedCompletions_.get(diff);
+         if (diff.length() == 0)
+         {
+            activeEntry_ = entry;
+            callback.onResponseReceived(entry.getResult());
+            return true;
+         }
+
+         CompletionResultCache.Narrowed cached = entry.getNarrowed(diff);
          if (cached != null)
          {
-            callback.onResponseReceived(cached);
+            activeEntry_ = entry;
+            callback.onResponseReceived(cached.result);
             return true;
          }
 
          // otherwise, produce a new completion list
-         if (diff.length() > 0 && !diff.endsWith("::"))
+         if (!diff.endsWith("::"))
          {
-            callback.onResponseReceived(narrow(cachedResult.token + diff, diff, cachedResult));
+            activeEntry_ = entry;
+            callback.onResponseReceived(narrow(entry, diff));
             return true;
          }
       }
@@ -155,137 +163,139 @@ public class CompletionRequester
       return string.replace(/(?!^)[._]/g, "");
    }-*/;
 
-   private CompletionResult narrow(final String token,
-                                   final String diff,
-                                   CompletionResult cachedResult)
+   // the text a completion is matched against when narrowing, lowercased
+   private String[] matchValues(ArrayList<QualifiedName> completions)
    {
-      ArrayList<QualifiedName> newCompletions = new ArrayList<>();
-      newCompletions.ensureCapacity(cachedResult.completions.size());
+      String[] values = new String[completions.size()];
+      for (int i = 0; i < values.length; i++)
+      {
+         // For completions that are files or directories, we need to post-process
+         // the qualified name to strip out just the basename (filename).
+         // Note that we normalize the paths such that files will have no trailing slash,
+         // while directories will have one trailing slash (but we defend against multiple
+         // trailing slashes)
+         QualifiedName qname = completions.get(i);
+         String value;
+         if (RCompletionType.isFileType(qname.type))
+         {
+            value = basename(qname.name);
+         }
+         else if (qname.type == RCompletionType.ROXYGEN)
+         {
+            value = qname.name.replaceAll("\\s.*", "");
+         }
+         else
+         {
+            String displayMeta = StringUtil.truncate(qname.meta, META_DISPLAY_LIMIT_CHARACTERS, " <...>");
+            value = qname.name + displayMeta;
+         }
+         values[i] = value.toLowerCase();
+      }
+      return values;
+   }
 
-      // For completions that are files or directories, we need to post-process
-      // the token and the qualified name to strip out just the basename (filename).
-      // Note that we normalize the paths such that files will have no trailing slash,
-      // while directories will have one trailing slash (but we defend against multiple
-      // trailing slashes)
+   private static class ScoredCompletion
+   {
+      ScoredCompletion(QualifiedName qname, int typeScore, int matchScore)
+      {
+         this.qname = qname;
+         this.typeScore = typeScore;
+         this.matchScore = matchScore;
+      }
+
+      final QualifiedName qname;
+      final int typeScore;
+      final int matchScore;
+   }
+
+   private CompletionResult narrow(CompletionResultCache.Entry entry,
+                                   final String diff)
+   {
+      CompletionResult cachedResult = entry.getResult();
+      String[] values = entry.getMatchValues();
+      final String token = cachedResult.token + diff;
 
       // Transform the token once beforehand for completions.
       final String tokenSub   = StringUtil.substring(token, token.lastIndexOf('/') + 1);
-      final String tokenFuzzy = fuzzy(tokenSub);
+      final String tokenFuzzy = fuzzy(tokenSub).toLowerCase();
 
-      for (QualifiedName qname : cachedResult.completions)
+      // A completion matching a token also matches every prefix of it, so
+      // start from the list narrowed for the longest prefix we have (unless
+      // the token has since started a new path component)
+      int[] candidates = null;
+      for (int i = diff.length() - 1; i > 0; i--)
       {
-         // File types are narrowed only by the file name
-         if (RCompletionType.isFileType(qname.type))
-         {
-            if (StringUtil.isSubsequence(basename(qname.name), tokenFuzzy, true))
-               newCompletions.add(qname);
-         }
-         else
+         if (diff.charAt(i) == '/')
+            break;
+
+         CompletionResultCache.Narrowed parent = entry.getNarrowed(StringUtil.substring(diff, 0, i));
+         if (parent != null)
          {
-            String value;
-            if (qname.type == RCompletionType.ROXYGEN)
-            {
-               value = qname.name.replaceAll("\\s.*", "");
-            }
-            else
-            {
-               String displayMeta = StringUtil.truncate(qname.meta, META_DISPLAY_LIMIT_CHARACTERS, " <...>");
-               value = qname.name + displayMeta;
-            }
-            
-            if (StringUtil.isSubsequence(value, tokenFuzzy, true) &&
-                filterStartsWithDot(value, token))
-               newCompletions.add(qname);
+            candidates = parent.matches;
+            break;
          }
       }
 
-      newCompletions.sort(new Comparator<QualifiedName>()
+      int count = candidates == null ? values.length : candidates.length;
+      int[] matches = new int[count];
+      int matchCount = 0;
+      for (int i = 0; i < count; i++)
+      {
+         int index = candidates == null ? i : candidates[i];
+         QualifiedName qname = cachedResult.completions.get(index);
+
+         // File types are narrowed only by the file name
+         if (StringUtil.isSubsequence(values[index], tokenFuzzy) &&
+             (RCompletionType.isFileType(qname.type) || filterStartsWithDot(values[index], token)))
+            matches[matchCount++] = index;
+      }
+      matches = Arrays.copyOf(matches, matchCount);
+
+      // score each match once, rather than on every comparison
+      ArrayList<ScoredCompletion> scored = new ArrayList<>(matchCount);
+      for (int index : matches)
+      {
+         QualifiedName qname = cachedResult.completions.get(index);
+         int matchScore = RCompletionType.isFileType(qname.type)
+               ? CodeSearchOracle.scoreMatch(basename(qname.name), tokenSub, true)
+               : CodeSearchOracle.scoreMatch(qname.name, token, false);
+         scored.add(new ScoredCompletion(
+               qname,
+               RCompletionType.score(qname.type, qname.context),
+               matchScore));
+      }
+
+      scored.sort(new Comparator<ScoredCompletion>()
       {
          @Override
-         public int compare(QualifiedName lhs, QualifiedName rhs)
+         public int compare(ScoredCompletion lhs, ScoredCompletion rhs)
          {
             // compare completion type first
-            int lhsTypeScore = RCompletionType.score(lhs.type, lhs.context);
-            int rhsTypeScore = RCompletionType.score(rhs.type, rhs.context);
-            if (lhsTypeScore < rhsTypeScore)
-               return -1;
-            else if (lhsTypeScore > rhsTypeScore)
-               return 1;
-
-            // when type score is equal: calculate score with scoreMatch()
-            int lhsScore = RCompletionType.isFileType(lhs.type)
-                  ? CodeSearchOracle.scoreMatch(basename(lhs.name), tokenSub, true)
-                  : CodeSearchOracle.scoreMatch(lhs.name, token, false);
-            
-            int rhsScore = RCompletionType.isFileType(rhs.type)
-               ? CodeSearchOracle.scoreMatch(basename(rhs.name), tokenSub, true)
-               : CodeSearchOracle.scoreMatch(rhs.name, token, false);
+            if (lhs.typeScore != rhs.typeScore)
+               return lhs.typeScore < rhs.typeScore ? -1 : 1;
 
-            if (lhsScore == rhsScore)
-               return lhs.compareTo(rhs);
+            // when type score is equal: compare score from scoreMatch()
+            if (lhs.matchScore == rhs.matchScore)
+               return lhs.qname.compareTo(rhs.qname);
 
-            return lhsScore < rhsScore ? -1 : 1;
+            return lhs.matchScore < rhs.matchScore ? -1 : 1;
          }
       });
 
+      ArrayList<QualifiedName> newCompletions = new ArrayList<>(matchCount);
+      for (ScoredCompletion completion : scored)
+         newCompletions.add(completion.qname);
+
       CompletionResult result = new CompletionResult(
             token,
             newCompletions,
             cachedResult.guessedFunctionName,
             cachedResult.dontInsertParens);
 
-      cachedCompletions_.put(diff, result);
+      entry.putNarrowed(diff, new CompletionResultCache.Narrowed(result, matches));
       return result;
    }
 
-   private void fillCompletionResult(
-         Completions response,
-         boolean implicit,
-         ServerRequestCallback<CompletionResult> callback)
-   {
-      JsArrayString comp = response.getCompletions();
-      JsArrayString display = response.getCompletionsDisplay();
-      JsArrayString pkgs = response.getPackages();
-      JsArrayBoolean quote = response.getQuote();
-      JsArrayInteger type = response.getType();
-      JsArrayBoolean suggestOnAccept = response.getSuggestOnAccept();
-      JsArrayBoolean replaceToEnd = response.getReplaceToEnd();
-      JsArrayString meta = response.getMeta();
-      ArrayList<QualifiedName> newComp = new ArrayList<>();
-      for (int i = 0; i < comp.length(); i++)
-      {
-         newComp.add(new QualifiedName(
-            comp.get(i), 
-            display.get(i),
-            pkgs.get(i), 
-            quote.get(i), 
-            type.get(i), 
-            suggestOnAccept.get(i),  
-            replaceToEnd.get(i),
-            meta.get(i), 
-            response.getHelpHandler(), 
-            response.getLanguage(),
-            response.getContext().get(i)
-            )
-         );
-      }
-
-      CompletionResult result = new CompletionResult(
-            response.getToken(),
-            newComp,
-            response.getGuessedFunctionName(),
-            response.getOverrideInsertParens());
-
-      if (response.isCacheable())
-      {
-         cachedCompletions_.put("", result);
-      }
-
-      if (!implicit || result.completions.size() != 0)
-         callback.onResponseReceived(result);
-
-   }
-
    private static final Pattern RE_EXTRACTION = Pattern.create("[$@:\\[\\(=]", "");
    private boolean isTopLevelCompletionRequest()
    {
@@ -307,7 +317,17 @@ public class CompletionRequester
             context.getContextData().length() > 0 &&
             context.getContextData().get(0).getType() == AutocompletionContext.TYPE_HELP;
 
-      if (usingCache(token, isHelp, callback))
+      // completions are cached by the text on the line before the token
+      String linePrefix = StringUtil.notNull(line);
+      if (linePrefix.endsWith(token))
+         linePrefix = StringUtil.substring(linePrefix, 0, linePrefix.length() - token.length());
+      final String contextKey = CompletionResultCache.contextKey(
+            documentId,
+            isConsole,
+            docDisplay_.getCursorPosition().getRow(),
+            linePrefix);
+
+      if (usingCache(token, isHelp, contextKey, callback))
          return;
 
       doGetCompletions(
@@ -335,7 +355,7 @@ public class CompletionRequester
          @Override
          public void onResponseReceived(Completions response)
          {
-            cachedLinePrefix_ = token;
+            String requestToken = token;
             String token = response.getToken();
 
             JsArrayString comp = response.getCompletions();
@@ -435,7 +455,12 @@ public class CompletionRequester
 
             if (response.isCacheable())
             {
-               cachedCompletions_.put("", result);
+               activeEntry_ = cache_.put(contextKey, requestToken, result, matchValues(newComp));
+            }
+            else
+            {
+               activeEntry_ = null;
+               cache_.remove(contextKey);
             }
 
             callback.onResponseReceived(result);
@@ -747,10 +772,11 @@ public class CompletionRequester
       });
    }
 
+   // Stops narrowing the completions last shown; those cached for each
+   // context are kept until they expire or are invalidated
    public void flushCache()
    {
-      cachedLinePrefix_ = null;
-      cachedCompletions_.clear();
+      activeEntry_ = null;
    }
 
    public static class CompletionResult
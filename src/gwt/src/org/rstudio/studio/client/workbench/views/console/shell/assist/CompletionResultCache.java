@@ -0,0 +1,167 @@
+/*
+ * CompletionResultCache.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.console.shell.assist;
+
+import java.util.HashMap;
+
+import org.rstudio.core.client.container.LruCache;
+import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.workbench.views.console.shell.assist.CompletionRequester.CompletionResult;
+import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentObjectAssignedEvent;
+import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentObjectRemovedEvent;
+import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentRefreshEvent;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStatusChangedEvent;
+
+import com.google.gwt.core.client.Duration;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Holds the completions most recently received from the server for a
+ * number of completion contexts (a document, row, and the text on the line
+ * before the token being completed), along with the lists narrowed from
+ * them as the user types, so that returning to a context doesn't require
+ * another round trip.
+ *
+ * The completions include objects from the search path and the global
+ * environment, so entries are discarded when packages are attached or
+ * detached, when the environment changes, and after a short time.
+ */
+@Singleton
+public class CompletionResultCache
+{
+   @Inject
+   public CompletionResultCache(EventBus events)
+   {
+      entries_ = new LruCache<>(MAX_CONTEXTS);
+
+      events.addHandler(PackageStatusChangedEvent.TYPE, event -> clear());
+      events.addHandler(EnvironmentObjectAssignedEvent.TYPE, event -> clear());
+      events.addHandler(EnvironmentObjectRemovedEvent.TYPE, event -> clear());
+      events.addHandler(EnvironmentRefreshEvent.TYPE, event -> clear());
+   }
+
+   public static String contextKey(String documentId,
+                                   boolean isConsole,
+                                   int row,
+                                   String linePrefix)
+   {
+      return (isConsole ? "console" : documentId) + ":" + row + ":" + linePrefix;
+   }
+
+   // returns null if there is no entry for the context, or it has expired
+   public Entry get(String key)
+   {
+      Entry entry = entries_.get(key);
+      if (entry == null)
+         return null;
+
+      if (Duration.currentTimeMillis() - entry.created_ > ENTRY_LIFETIME_MS)
+      {
+         entries_.remove(key);
+         return null;
+      }
+
+      return entry;
+   }
+
+   public Entry put(String key,
+                    String requestToken,
+                    CompletionResult result,
+                    String[] matchValues)
+   {
+      Entry entry = new Entry(requestToken, result, matchValues);
+      entries_.put(key, entry);
+      return entry;
+   }
+
+   public void remove(String key)
+   {
+      entries_.remove(key);
+   }
+
+   public void clear()
+   {
+      entries_.clear();
+   }
+
+   /**
+    * The completions received for a single context. Lists narrowed from
+    * them are kept by the text typed after the request token, and record
+    * which of the received completions matched so that a longer token can
+    * be narrowed from those rather than from the full list.
+    */
+   public static class Entry
+   {
+      Entry(String requestToken, CompletionResult result, String[] matchValues)
+      {
+         requestToken_ = requestToken;
+         result_ = result;
+         matchValues_ = matchValues;
+         created_ = Duration.currentTimeMillis();
+      }
+
+      public String getRequestToken()
+      {
+         return requestToken_;
+      }
+
+      public CompletionResult getResult()
+      {
+         return result_;
+      }
+
+      // the lowercased text each completion is matched against, by index
+      public String[] getMatchValues()
+      {
+         return matchValues_;
+      }
+
+      public Narrowed getNarrowed(String diff)
+      {
+         return narrowed_.get(diff);
+      }
+
+      public void putNarrowed(String diff, Narrowed narrowed)
+      {
+         narrowed_.put(diff, narrowed);
+      }
+
+      private final String requestToken_;
+      private final CompletionResult result_;
+      private final String[] matchValues_;
+      private final double created_;
+      private final HashMap<String, Narrowed> narrowed_ = new HashMap<>();
+   }
+
+   public static class Narrowed
+   {
+      public Narrowed(CompletionResult result, int[] matches)
+      {
+         this.result = result;
+         this.matches = matches;
+      }
+
+      public final CompletionResult result;
+
+      // indices of the matching completions in the entry's result
+      public final int[] matches;
+   }
+
+   private final LruCache<String, Entry> entries_;
+
+   private static final int MAX_CONTEXTS = 16;
+   private static final int ENTRY_LIFETIME_MS = 30000;
+}
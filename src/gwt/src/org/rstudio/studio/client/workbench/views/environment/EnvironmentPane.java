@@ -21,11 +21,14 @@ import java.util.List;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.event.logical.shared.ResizeEvent;
 import com.google.gwt.event.logical.shared.ResizeHandler;
+import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.DebugFilePosition;
 import org.rstudio.core.client.ElementIds;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.command.AppCommand;
+import org.rstudio.core.client.js.JsObject;
+import org.rstudio.core.client.js.JsUtil;
 import org.rstudio.core.client.resources.ImageResource2x;
 import org.rstudio.core.client.theme.res.ThemeStyles;
 import org.rstudio.core.client.widget.MonitoringMenuItem;
@@ -310,6 +313,18 @@ public class EnvironmentPane extends WorkbenchPane
       objects_.removeObject(objectName);
    }
 
+   @Override
+   public void updateObjects(JsArray<RObject> changed, JsArrayString removed)
+   {
+      objects_.updateObjects(changed, removed);
+   }
+
+   @Override
+   public JsObject getObjectTokens()
+   {
+      return objects_.getObjectTokens();
+   }
+
    @Override
    public void setContextDepth(int contextDepth)
    {
@@ -538,6 +553,27 @@ public class EnvironmentPane extends WorkbenchPane
       });
    }
 
+   @Override
+   public void fillObjectSummaries(List<String> objectNames,
+                                   final CommandWithArg<JsArray<RObject>> onCompleted)
+   {
+      server_.getObjectSummaries(JsUtil.toJsArrayString(objectNames),
+            new ServerRequestCallback<JsArray<RObject>>()
+      {
+         @Override
+         public void onResponseReceived(JsArray<RObject> summaries)
+         {
+            onCompleted.execute(summaries);
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            onCompleted.execute(JsArray.createArray().cast());
+         }
+      });
+   }
+
    // Private methods ---------------------------------------------------------
 
    private void executeFunctionForObject(String function, String objectName)
@@ -121,6 +121,8 @@ public class EnvironmentPresenter extends BasePresenter
       void clearSelection();
       void setContextDepth(int contextDepth);
       void removeObject(String object);
+      void updateObjects(JsArray<RObject> changed, JsArrayString removed);
+      JsObject getObjectTokens();
       void setEnvironmentName(String name, boolean local);
       void setEnvironmentMonitoring(boolean monitoring);
       boolean environmentMonitoring();
@@ -227,7 +229,12 @@ public class EnvironmentPresenter extends BasePresenter
                   event.getCallFrames(),
                   event.useProvidedSource(),
                   event.getFunctionCode());
-            setViewFromEnvironmentList(event.getEnvironmentList());
+            EnvironmentChangedEvent.Data delta = event.getEnvironmentDelta();
+            if (delta != null)
+               updateViewFromEnvironmentDelta(delta, event.getEnvironmentVersion());
+            else
+               setViewFromEnvironmentList(event.getEnvironmentList(),
+                                          event.getEnvironmentVersion());
             requeryContextTimer_.cancel();
          }
       });
@@ -419,7 +426,9 @@ public class EnvironmentPresenter extends BasePresenter
    @Handler
    void onRefreshEnvironment()
    {
-      refreshView();
+      // an explicit refresh gets a full listing, which picks up values that
+      // were modified in place (these keep their object tokens)
+      refreshView(true);
    }
 
    @Handler
@@ -719,8 +728,9 @@ public class EnvironmentPresenter extends BasePresenter
          // environment was loaded from .RData and therefore not available
          // during session init; we also want to fetch a fresh list in this
          // case).
-         JsArray<RObject> environmentList =
-              session_.getSessionInfo().getEnvironmentState().environmentList();
+         EnvironmentContextData environmentState =
+              session_.getSessionInfo().getEnvironmentState();
+         JsArray<RObject> environmentList = environmentState.environmentList();
          if (environmentList == null ||
              environmentList.length() == 0)
          {
@@ -728,7 +738,8 @@ public class EnvironmentPresenter extends BasePresenter
          }
          else
          {
-            setViewFromEnvironmentList(environmentList);
+            setViewFromEnvironmentList(environmentList,
+                                       environmentState.environmentVersion());
          }
          initialized_ = true;
       }
@@ -757,7 +768,8 @@ public class EnvironmentPresenter extends BasePresenter
             environmentState.callFrames(),
             environmentState.useProvidedSource(),
             environmentState.functionCode());
-      setViewFromEnvironmentList(environmentState.environmentList());
+      setViewFromEnvironmentList(environmentState.environmentList(),
+                                 environmentState.environmentVersion());
       initialized_ = true;
    }
 
@@ -1074,10 +1086,20 @@ public class EnvironmentPresenter extends BasePresenter
       }
    }
 
-   private void setViewFromEnvironmentList(JsArray<RObject> objects)
+   private void setViewFromEnvironmentList(JsArray<RObject> objects,
+                                           String version)
    {
       view_.clearObjects();
       view_.addObjects(objects);
+      environmentVersion_ = version;
+   }
+
+   // applies the changes to the environment since the listing the view has
+   private void updateViewFromEnvironmentDelta(EnvironmentChangedEvent.Data delta,
+                                               String version)
+   {
+      view_.updateObjects(delta.getChangedObjects(), delta.getRemovedObjects());
+      environmentVersion_ = version;
    }
 
    /***
@@ -1091,6 +1113,11 @@ public class EnvironmentPresenter extends BasePresenter
    }
 
    private void refreshView()
+   {
+      refreshView(false);
+   }
+
+   private void refreshView(boolean fullListing)
    {
       // if we're currently waiting for a view refresh to come back, don't
       // queue another server request
@@ -1102,9 +1129,26 @@ public class EnvironmentPresenter extends BasePresenter
       // start showing the progress spinner and initiate the request
       view_.setProgress(true);
       refreshingView_ = true;
+
+      // if the view has a listing of the environment, ask only for the
+      // changes since; the view is kept up to date with changes to the
+      // environment while it's monitored, so the listing remains current
+      // until the server says otherwise
+      JsObject knownListing = null;
+      if (!fullListing &&
+          initialized_ &&
+          !StringUtil.isNullOrEmpty(environmentVersion_) &&
+          StringUtil.equalsIgnoreCase(view_.getActiveLanguage(), "R"))
+      {
+         knownListing = JsObject.createJsObject();
+         knownListing.setString("version", environmentVersion_);
+         knownListing.setObject("objects", view_.getObjectTokens());
+      }
+
       server_.getEnvironmentState(
             view_.getActiveLanguage(),
             view_.getMonitoredEnvironment(),
+            knownListing,
             new ServerRequestCallback<EnvironmentContextData>()
       {
 
@@ -1238,6 +1282,8 @@ public class EnvironmentPresenter extends BasePresenter
 
    private int contextDepth_;
    private boolean refreshingView_;
+   // the version of the environment listing the view has (see refreshView)
+   private String environmentVersion_ = "";
    private boolean initialized_;
    private DebugFilePosition currentBrowsePosition_;
    private int currentFunctionLineNumber_;
@@ -50,6 +50,16 @@ public class ContextDepthChangedEvent extends
       return contextData_.environmentList();
    }
 
+   public EnvironmentChangedEvent.Data getEnvironmentDelta()
+   {
+      return contextData_.environmentDelta();
+   }
+
+   public String getEnvironmentVersion()
+   {
+      return contextData_.environmentVersion();
+   }
+
    public JsArray<CallFrame> getCallFrames()
    {
       return contextData_.callFrames();
@@ -14,6 +14,8 @@
  */
 package org.rstudio.studio.client.workbench.views.environment.model;
 
+import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentChangedEvent;
+
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 
@@ -49,6 +51,18 @@ public class EnvironmentContextData extends JavaScriptObject
       return this.environment_list;
    }-*/;
 
+   // when the state was requested with a listing the client already had,
+   // the objects changed since that listing (in place of the full list)
+   public final native EnvironmentChangedEvent.Data environmentDelta() /*-{
+      return this.environment_delta || null;
+   }-*/;
+
+   // identifies the listing of the environment, so the client can later ask
+   // for only the changes to it
+   public final native String environmentVersion() /*-{
+      return this.environment_version || "";
+   }-*/;
+
    public final native String environmentName() /*-{
       return this.environment_name;
    }-*/;
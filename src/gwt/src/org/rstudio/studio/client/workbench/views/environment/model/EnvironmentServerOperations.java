@@ -16,7 +16,9 @@ package org.rstudio.studio.client.workbench.views.environment.model;
 
 import java.util.List;
 
+import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
 
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
@@ -65,6 +67,14 @@ public interface EnvironmentServerOperations
               String language,
               String environment,
               ServerRequestCallback<EnvironmentContextData> requestCallback);
+
+   // as above, but lists only the objects changed since the given listing
+   // (its version, and the tokens of its objects by name)
+   void getEnvironmentState(
+              String language,
+              String environment,
+              JavaScriptObject knownListing,
+              ServerRequestCallback<EnvironmentContextData> requestCallback);
    
    void setEnvironmentMonitoring(boolean monitoring,
               ServerRequestCallback<Void> requestCallback);
@@ -73,6 +83,10 @@ public interface EnvironmentServerOperations
               String objectName,
               ServerRequestCallback<ObjectContents> requestCallback);
    
+   void getObjectSummaries(
+              JsArrayString objectNames,
+              ServerRequestCallback<JsArray<RObject>> requestCallback);
+
    void requeryContext(ServerRequestCallback<Void> requestCallback);
    
    void environmentSetLanguage(String language,
@@ -64,6 +64,18 @@ public class RObject extends JavaScriptObject
       return this.contents_deferred;
    }-*/;
    
+   // whether this is a brief description (name, class and length only) of an
+   // object in a large environment; the full description must be requested
+   public final native boolean isSummaryDeferred() /*-{
+      return !!this.summary_deferred;
+   }-*/;
+
+   // identifies the value the object's name was bound to when it was
+   // described; differs between descriptions of different values
+   public final native String getToken() /*-{
+      return this.token || "";
+   }-*/;
+
    public final native void setDeferredContents(JsArrayString contents) /*-{
       this.contents_deferred = false;
       this.contents = contents;
@@ -20,6 +20,7 @@ import java.util.List;
 import org.rstudio.core.client.SafeHtmlUtil;
 import org.rstudio.core.client.cellview.ScrollingDataGrid;
 import org.rstudio.core.client.theme.res.ThemeStyles;
+import org.rstudio.core.client.widget.RStudioDataGrid;
 import org.rstudio.studio.client.workbench.views.environment.EnvironmentPane;
 
 import com.google.gwt.cell.client.FieldUpdater;
@@ -50,7 +51,7 @@ public abstract class EnvironmentObjectDisplay
                                    EnvironmentObjectsObserver observer,
                                    String environmentName)
    {
-      super(EnvironmentObjects.MAX_ENVIRONMENT_OBJECTS, 
+      super(RStudioDataGrid.RENDER_CHUNK_ROWS, 
             RObjectEntry.KEY_PROVIDER);
 
       observer_ = observer;
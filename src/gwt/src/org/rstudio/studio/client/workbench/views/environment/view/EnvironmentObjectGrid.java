@@ -207,6 +207,9 @@ public class EnvironmentObjectGrid extends EnvironmentObjectDisplay
                   @Override
                   public String getValue(RObjectEntry object)
                   {
+                     // not known until the full description arrives
+                     if (object.rObject.isSummaryDeferred())
+                        return "";
                      return StringUtil.formatFileSize(object.rObject.getSize());
                   }
               });
@@ -17,6 +17,8 @@ package org.rstudio.studio.client.workbench.views.environment.view;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 import com.google.gwt.core.client.GWT;
@@ -24,6 +26,8 @@ import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.dom.client.NodeList;
+import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.ScrollEvent;
 import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.uibinder.client.UiBinder;
@@ -34,10 +38,13 @@ import com.google.gwt.view.client.ListDataProvider;
 
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.ElementIds;
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.theme.res.ThemeResources;
 import org.rstudio.core.client.theme.res.ThemeStyles;
 import org.rstudio.core.client.widget.FontSizer;
 import org.rstudio.core.client.widget.Operation;
+import org.rstudio.core.client.widget.RStudioDataGrid;
 import org.rstudio.studio.client.common.SuperDevMode;
 import org.rstudio.studio.client.workbench.views.environment.EnvironmentPane;
 import org.rstudio.studio.client.workbench.views.environment.ViewEnvironmentConstants;
@@ -139,57 +146,52 @@ public class EnvironmentObjects extends ResizeComposite
 
    public void addObject(RObject obj)
    {
-      int idx = indexOfExistingObject(obj.getName());
-      final RObjectEntry newEntry = entryFromRObject(obj);
-      boolean added = false;
+      int idx = setObject(obj);
+      updateCategoryLeaders(true);
 
-      // if the object is already in the environment, just update the value
-      if (idx >= 0)
+      // scroll into view, rendering the object's row first if need be
+      if (objectDisplay_ != null &&
+          idx >= objectDisplay_.getVisibleRange().getLength())
       {
-         final RObjectEntry oldEntry = objectDataProvider_.getList().get(idx);
-
-         if (oldEntry.rObject.getType() == obj.getType())
-         {
-            // type hasn't changed
-            if (oldEntry.expanded &&
-                newEntry.contentsAreDeferred)
-            {
-               // we're replacing an object that has server-deferred contents--
-               // refill it immediately. (another approach would be to push the
-               // set of currently expanded objects to the server so these
-               // objects would show up on the client already expanded)
-               fillEntryContents(newEntry, idx, false);
-            }
-            else
-            {
-               // contents aren't deferred, just use the expanded state directly
-               newEntry.expanded = oldEntry.expanded;
-            }
-            objectDataProvider_.getList().set(idx, newEntry);
-            added = true;
-         }
-         else
-         {
-            // types did change, do a full add/remove
-            objectDataProvider_.getList().remove(idx);
-         }
-
+         objectDisplay_.setVisibleRange(0, idx + RStudioDataGrid.RENDER_CHUNK_ROWS);
       }
-      if (!added)
+      scrollTimer_.setRow(idx);
+      scrollTimer_.schedule(100);
+   }
+
+   // applies changes to the objects in the environment, e.g. those since the
+   // objects were last listed
+   public void updateObjects(JsArray<RObject> changed, JsArrayString removed)
+   {
+      for (int i = 0; i < removed.length(); i++)
       {
-         RObjectEntry entry = entryFromRObject(obj);
-         idx = indexOfNewObject(entry);
-         objectDataProvider_.getList().add(idx, entry);
+         summaryCache_.remove(removed.get(i));
+         int idx = indexOfExistingObject(removed.get(i));
+         if (idx >= 0)
+            objectDataProvider_.getList().remove(idx);
       }
+
+      for (int i = 0; i < changed.length(); i++)
+         setObject(changed.get(i));
+
       updateCategoryLeaders(true);
+      viewportTimer_.schedule(VIEWPORT_DELAY_MS);
+   }
 
-      // scroll into view
-      scrollTimer_.setRow(idx);
-      scrollTimer_.schedule(100);
+   // the token of each object, by name; identifies the values the objects
+   // had when they were described
+   public JsObject getObjectTokens()
+   {
+      JsObject tokens = JsObject.createJsObject();
+      for (RObjectEntry entry : objectDataProvider_.getList())
+         tokens.setString(entry.rObject.getName(), entry.rObject.getToken());
+      return tokens;
    }
 
    public void removeObject(String objName)
    {
+      summaryCache_.remove(objName);
+
       int idx = indexOfExistingObject(objName);
       if (idx >= 0)
       {
@@ -212,6 +214,11 @@ public class EnvironmentObjects extends ResizeComposite
    // bulk add for objects--used on init or environment switch
    public void addObjects(JsArray<RObject> objects)
    {
+      // a full listing replaces any descriptions we have: tokens identify
+      // values by address, so a value modified in place keeps its token and
+      // a cached description of it would be out of date
+      summaryCache_.clear();
+
       // create an entry for each object and sort the array
       int numObjects = objects.length();
       ArrayList<RObjectEntry> objectEntryList = new ArrayList<>();
@@ -222,9 +229,17 @@ public class EnvironmentObjects extends ResizeComposite
       }
       Collections.sort(objectEntryList, objectSort_);
 
+      // cache the full descriptions included in the listing
+      for (RObjectEntry entry : objectEntryList)
+      {
+         if (!entry.rObject.isSummaryDeferred())
+            summaryCache_.put(entry.rObject.getName(), entry.rObject);
+      }
+
       // push the list into the UI and update category leaders
       objectDataProvider_.getList().addAll(objectEntryList);
       updateCategoryLeaders(false);
+      viewportTimer_.schedule(VIEWPORT_DELAY_MS);
 
       if (useStatePersistence())
       {
@@ -244,6 +259,8 @@ public class EnvironmentObjects extends ResizeComposite
 
    public void setEnvironmentName(String environmentName)
    {
+      if (!environmentName_.equals(environmentName))
+         summaryCache_.clear();
       environmentName_ = environmentName;
       if (objectDisplay_ != null)
          objectDisplay_.setEnvironmentName(environmentName);
@@ -290,6 +307,7 @@ public class EnvironmentObjects extends ResizeComposite
       }
 
       updateCategoryLeaders(true);
+      viewportTimer_.schedule(VIEWPORT_DELAY_MS);
    }
 
    public int getObjectDisplay()
@@ -391,6 +409,7 @@ public class EnvironmentObjects extends ResizeComposite
          @Override
          public void onScroll(ScrollEvent event)
          {
+            viewportTimer_.schedule(VIEWPORT_DELAY_MS);
             if (useStatePersistence())
             {
                deferredScrollPosition_ = getScrollPosition();
@@ -404,6 +423,7 @@ public class EnvironmentObjects extends ResizeComposite
       objectDisplay_.addStyleName(style.environmentPanel());
       splitPanel.add(objectDisplay_);
       deferredObjectDisplayType_ = null;
+      viewportTimer_.schedule(VIEWPORT_DELAY_MS);
    }
 
    // CallFramePanelHost implementation ---------------------------------------
@@ -468,6 +488,7 @@ public class EnvironmentObjects extends ResizeComposite
       objectSort_.setSortColumn(col);
       observer_.setViewDirty();
       Collections.sort(objectDataProvider_.getList(), objectSort_);
+      viewportTimer_.schedule(VIEWPORT_DELAY_MS);
    }
 
    @Override
@@ -487,6 +508,7 @@ public class EnvironmentObjects extends ResizeComposite
       objectSort_.setAscending(ascending);
       observer_.setViewDirty();
       Collections.sort(objectDataProvider_.getList(), objectSort_);
+      viewportTimer_.schedule(VIEWPORT_DELAY_MS);
    }
 
    public void setSort(int column, boolean ascending)
@@ -494,6 +516,7 @@ public class EnvironmentObjects extends ResizeComposite
       objectSort_.setSortColumn(column);
       objectSort_.setAscending(ascending);
       Collections.sort(objectDataProvider_.getList(), objectSort_);
+      viewportTimer_.schedule(VIEWPORT_DELAY_MS);
    }
 
    @Override
@@ -517,6 +540,59 @@ public class EnvironmentObjects extends ResizeComposite
 
    // Private methods: object management --------------------------------------
 
+   // adds or replaces an object, returning its index
+   private int setObject(RObject obj)
+   {
+      if (obj.isSummaryDeferred())
+         summaryCache_.remove(obj.getName());
+      else
+         summaryCache_.put(obj.getName(), obj);
+
+      int idx = indexOfExistingObject(obj.getName());
+      final RObjectEntry newEntry = entryFromRObject(obj);
+      boolean added = false;
+
+      // if the object is already in the environment, just update the value
+      if (idx >= 0)
+      {
+         final RObjectEntry oldEntry = objectDataProvider_.getList().get(idx);
+
+         if (oldEntry.rObject.getType() == obj.getType())
+         {
+            // type hasn't changed
+            if (oldEntry.expanded &&
+                newEntry.contentsAreDeferred)
+            {
+               // we're replacing an object that has server-deferred contents--
+               // refill it immediately. (another approach would be to push the
+               // set of currently expanded objects to the server so these
+               // objects would show up on the client already expanded)
+               fillEntryContents(newEntry, idx, false);
+            }
+            else
+            {
+               // contents aren't deferred, just use the expanded state directly
+               newEntry.expanded = oldEntry.expanded;
+            }
+            objectDataProvider_.getList().set(idx, newEntry);
+            added = true;
+         }
+         else
+         {
+            // types did change, do a full add/remove
+            objectDataProvider_.getList().remove(idx);
+         }
+
+      }
+      if (!added)
+      {
+         RObjectEntry entry = entryFromRObject(obj);
+         idx = indexOfNewObject(entry);
+         objectDataProvider_.getList().add(idx, entry);
+      }
+      return idx;
+   }
+
    private int indexOfExistingObject(String objectName)
    {
       List<RObjectEntry> objects = objectDataProvider_.getList();
@@ -668,6 +744,94 @@ public class EnvironmentObjects extends ResizeComposite
    }
 
 
+   // Private methods: rendering and summaries --------------------------------
+
+   // large environments are listed with only brief descriptions of their
+   // objects; request the full descriptions of those in (or near) view
+   private void requestVisibleSummaries()
+   {
+      ScrollPanel scrollPanel = objectDisplay_.getScrollPanel();
+      int top = scrollPanel.getVerticalScrollPosition();
+      int bottom = top + 2 * scrollPanel.getOffsetHeight();
+
+      // rows are laid out in order, so find the first one in view by bisection
+      NodeList<TableRowElement> rows = objectDisplay_.getTableBodyElement().getRows();
+      int lo = 0;
+      int hi = rows.getLength();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         TableRowElement row = rows.getItem(mid);
+         if (row.getOffsetTop() + row.getOffsetHeight() <= top)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+
+      // objects can be drawn with more than one row (e.g. a category header
+      // or expanded contents); each row records the index of its object
+      List<RObjectEntry> objects = objectDataProvider_.getList();
+      List<String> names = new ArrayList<>();
+      for (int i = lo; i < rows.getLength(); i++)
+      {
+         TableRowElement row = rows.getItem(i);
+         if (row.getOffsetTop() >= bottom)
+            break;
+
+         int idx = StringUtil.parseInt(row.getAttribute("__gwt_row"), -1);
+         if (idx < 0 || idx >= objects.size())
+            continue;
+
+         RObject obj = objects.get(idx).rObject;
+         if (obj.isSummaryDeferred() && pendingSummaries_.add(obj.getName()))
+            names.add(obj.getName());
+      }
+
+      if (names.isEmpty())
+         return;
+
+      observer_.fillObjectSummaries(names, summaries ->
+      {
+         pendingSummaries_.removeAll(names);
+         applySummaries(summaries);
+      });
+   }
+
+   private void applySummaries(JsArray<RObject> summaries)
+   {
+      HashMap<String, RObject> summariesByName = new HashMap<>();
+      for (int i = 0; i < summaries.length(); i++)
+         summariesByName.put(summaries.get(i).getName(), summaries.get(i));
+
+      boolean updated = false;
+      List<RObjectEntry> objects = objectDataProvider_.getList();
+      for (int i = 0; i < objects.size(); i++)
+      {
+         RObjectEntry entry = objects.get(i);
+         RObject summary = summariesByName.get(entry.rObject.getName());
+
+         // ignore descriptions of values the object no longer has
+         if (summary == null ||
+             !entry.rObject.isSummaryDeferred() ||
+             !summary.getToken().equals(entry.rObject.getToken()))
+         {
+            continue;
+         }
+
+         summaryCache_.put(summary.getName(), summary);
+         RObjectEntry newEntry = entryFromRObject(summary);
+         newEntry.isCategoryLeader = entry.isCategoryLeader;
+         newEntry.isFirstObject = entry.isFirstObject;
+         newEntry.expanded = entry.expanded && !summary.getContentsDeferred();
+         objects.set(i, newEntry);
+         updated = true;
+      }
+
+      // the new descriptions may change which objects match the filter
+      if (updated && !filterText_.isEmpty())
+         updateCategoryLeaders(true);
+   }
+
    // Private methods: state persistence --------------------------------------
 
    private void setDeferredState()
@@ -710,22 +874,32 @@ public class EnvironmentObjects extends ResizeComposite
    {
       if (filterText_.isEmpty())
          return true;
-      return obj.getName().toLowerCase().contains(filterText_) ||
+      if (obj.getName().toLowerCase().contains(filterText_))
+         return true;
+
+      // objects without full descriptions can only be matched by name
+      return !obj.isSummaryDeferred() &&
              obj.getValue().toLowerCase().contains(filterText_);
    }
 
+   // uses the full description of the object if we have one for its value
    private RObjectEntry entryFromRObject(RObject obj)
    {
+      if (obj.isSummaryDeferred())
+      {
+         RObject summary = summaryCache_.get(obj.getName());
+         if (summary != null && summary.getToken().equals(obj.getToken()))
+            obj = summary;
+      }
       return new RObjectEntry(obj, matchesFilter(obj));
    }
 
-   // for very large environments, the number of objects may exceed the number
-   // of physical rows; avoid redrawing rows outside the bounds of the
-   // container's physical limit
+   // rows are rendered in chunks as they're scrolled to; avoid redrawing rows
+   // that haven't been rendered yet
    private void redrawRowSafely(int idx)
    {
       boolean oob =
-            idx >= MAX_ENVIRONMENT_OBJECTS ||
+            idx >= objectDisplay_.getVisibleItemCount() ||
             idx >= objectDisplay_.getRowCount();
 
       if (oob)
@@ -759,11 +933,36 @@ public class EnvironmentObjects extends ResizeComposite
 
    private ScrollIntoViewTimer scrollTimer_;
 
+   // renders rows and requests the full descriptions of objects as they're
+   // scrolled into view
+   private final Timer viewportTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         if (objectDisplay_ == null)
+            return;
+
+         // rows are rendered in chunks as they're scrolled to, rather than
+         // all at once; rows can't be fully virtualized as expanded objects
+         // take up more than one row
+         if (objectDisplay_.renderMoreIfNeeded(objectDataProvider_.getList().size()))
+            schedule(VIEWPORT_DELAY_MS);
+         requestVisibleSummaries();
+      }
+   };
+
+   // full descriptions of objects, by name; objects in large environments are
+   // listed with brief descriptions, and the full descriptions fetched as the
+   // objects are displayed
+   private final HashMap<String, RObject> summaryCache_ = new HashMap<>();
+   private final HashSet<String> pendingSummaries_ = new HashSet<>();
+
    // deferred settings--set on load but not applied until we have data.
    private int deferredScrollPosition_ = 0;
    private JsArrayString deferredExpandedObjects_;
    private Integer deferredObjectDisplayType_ = OBJECT_LIST_VIEW;
    private int gridRenderRetryCount_ = 0;
 
-   public final static int MAX_ENVIRONMENT_OBJECTS = 1024;
+   private final static int VIEWPORT_DELAY_MS = 100;
 }
\ No newline at end of file
@@ -14,9 +14,14 @@
  */
 package org.rstudio.studio.client.workbench.views.environment.view;
 
+import java.util.List;
+
+import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.widget.Operation;
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
 
+import com.google.gwt.core.client.JsArray;
+
 public interface EnvironmentObjectsObserver
 {
    void viewObject(String action, String objectName);
@@ -28,4 +33,6 @@ public interface EnvironmentObjectsObserver
    boolean getShowInternalFunctions();
    void setShowInternalFunctions(boolean show);
    void fillObjectContents(RObject object, Operation onCompleted);
+   void fillObjectSummaries(List<String> objectNames,
+                            CommandWithArg<JsArray<RObject>> onCompleted);
 }
@@ -47,7 +47,6 @@ import org.rstudio.studio.client.common.filetypes.events.OpenFileInBrowserEvent;
 import org.rstudio.studio.client.common.filetypes.events.RenameFileInitiatedEvent;
 import org.rstudio.studio.client.common.filetypes.events.RenameSourceFileEvent;
 import org.rstudio.studio.client.events.RStudioApiRequestEvent;
-import org.rstudio.studio.client.server.ServerDataSource;
 import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.VoidServerRequestCallback;
@@ -69,7 +68,7 @@ import org.rstudio.studio.client.workbench.views.environment.dataimport.DataImpo
 import org.rstudio.studio.client.workbench.views.files.events.DirectoryNavigateEvent;
 import org.rstudio.studio.client.workbench.views.files.events.FileChangeEvent;
 import org.rstudio.studio.client.workbench.views.files.events.ShowFolderEvent;
-import org.rstudio.studio.client.workbench.views.files.model.DirectoryListing;
+import org.rstudio.studio.client.workbench.views.files.model.DirectoryListingPageSource;
 import org.rstudio.studio.client.workbench.views.files.model.FileChange;
 import org.rstudio.studio.client.workbench.views.files.model.FilesServerOperations;
 import org.rstudio.studio.client.workbench.views.files.model.PendingFileUpload;
@@ -117,7 +116,7 @@ public class Files
       void setColumnSortOrder(JsArray<ColumnSortInfo> sortOrder);
 
       void listDirectory(FileSystemItem directory,
-                         ServerDataSource<DirectoryListing> filesDS);
+                         DirectoryListingPageSource pages);
 
       void updateDirectoryListing(FileChange action);
 
@@ -380,7 +379,7 @@ public class Files
    void onRefreshFiles()
    {
       view_.resetColumnWidths();
-      view_.listDirectory(currentPath_, currentPathFilesDS_);
+      view_.listDirectory(currentPath_, currentPathPages());
    }
 
    @Handler
@@ -1003,7 +1002,7 @@ public class Files
    {
       hasNavigatedToDirectory_ = true;
       currentPath_ = directoryEntry;
-      view_.listDirectory(currentPath_, currentPathFilesDS_);
+      view_.listDirectory(currentPath_, currentPathPages());
       session_.persistClientState();
    }
 
@@ -1242,21 +1241,26 @@ public class Files
       });
    }
 
-   // data source for listing files on the current path which can
-   // be passed to the files view
-   ServerDataSource<DirectoryListing> currentPathFilesDS_ =
-      new ServerDataSource<DirectoryListing>()
+   // source for pages of the listing of the current path which can be
+   // passed to the files view
+   private DirectoryListingPageSource currentPathPages()
+   {
+      final FileSystemItem directory = currentPath_;
+      return (refresh, offset, count, sortColumn, ascending, requestCallback) ->
       {
-         public void requestData(
-               ServerRequestCallback<DirectoryListing> requestCallback)
-         {
-
-            server_.listFiles(currentPath_,
-                  true, // pass true to enable monitoring for all calls to list_files
-                  pPrefs_.get().showHiddenFiles().getValue(), // respect user pref for showing hidden
-                  requestCallback);
-         }
+         server_.listFilesPage(directory,
+               true, // pass true to enable monitoring for all calls to list_files_page
+               pPrefs_.get().showHiddenFiles().getValue(), // respect user pref for showing hidden
+               refresh,
+               offset,
+               count,
+               sortColumn,
+               ascending,
+               pPrefs_.get().sortFileNamesNaturally().getValue(),
+               "", // the pane doesn't filter by name
+               requestCallback);
       };
+   }
 
    private final Display view_;
    private final FileTypeRegistry fileTypeRegistry_;
@@ -42,7 +42,6 @@ import org.rstudio.studio.client.common.FileDialogs;
 import org.rstudio.studio.client.common.GlobalDisplay;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
 import org.rstudio.studio.client.common.icons.StandardIcons;
-import org.rstudio.studio.client.server.ServerDataSource;
 import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.workbench.commands.Commands;
@@ -52,7 +51,8 @@ import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.ui.WorkbenchPane;
 import org.rstudio.studio.client.workbench.views.console.shell.assist.PopupPositioner;
-import org.rstudio.studio.client.workbench.views.files.model.DirectoryListing;
+import org.rstudio.studio.client.workbench.views.files.model.DirectoryListingPage;
+import org.rstudio.studio.client.workbench.views.files.model.DirectoryListingPageSource;
 import org.rstudio.studio.client.workbench.views.files.model.FileChange;
 import org.rstudio.studio.client.workbench.views.files.model.PendingFileUpload;
 import org.rstudio.studio.client.workbench.views.files.ui.*;
@@ -128,12 +128,19 @@ public class FilesPane extends WorkbenchPane implements Files.Display
    }
     
    public void listDirectory(final FileSystemItem directory, 
-                             ServerDataSource<DirectoryListing> dataSource)
+                             final DirectoryListingPageSource pages)
    {
       setProgress(true);
         
-      dataSource.requestData(new ServerRequestCallback<DirectoryListing>(){
-         public void onResponseReceived(DirectoryListing response)
+      // directories with more files than fit in the first page are shown
+      // a page at a time
+      pages.requestPage(true,
+                        0,
+                        FilesList.MAX_UNPAGED_FILES,
+                        filesList_.getSortColumn(),
+                        filesList_.isSortAscending(),
+                        new ServerRequestCallback<DirectoryListingPage>(){
+         public void onResponseReceived(DirectoryListingPage response)
          {
             setProgress(false);
             String lastBrowseable = null;
@@ -152,7 +159,10 @@ public class FilesPane extends WorkbenchPane implements Files.Display
             }
                
             filePathToolbar_.setPath(directory.getPath(), lastBrowseable);
-            filesList_.displayFiles(directory, response.getFiles()); 
+            if (response.getTotal() > response.getFiles().length())
+               filesList_.displayFilesPage(directory, response, pages);
+            else
+               filesList_.displayFiles(directory, response.getFiles());
          }
          public void onError(ServerError error)
          {
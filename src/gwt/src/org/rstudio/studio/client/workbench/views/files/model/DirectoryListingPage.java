@@ -0,0 +1,32 @@
+/*
+ * DirectoryListingPage.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.files.model;
+
+// A page of a directory listing: the files at [offset, offset + files.length)
+// of the total files listed
+public class DirectoryListingPage extends DirectoryListing
+{
+   protected DirectoryListingPage()
+   {
+   }
+
+   public final native int getOffset() /*-{
+      return this.offset;
+   }-*/;
+
+   public final native int getTotal() /*-{
+      return this.total;
+   }-*/;
+}
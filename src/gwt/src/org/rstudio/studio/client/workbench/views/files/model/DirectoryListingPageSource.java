@@ -0,0 +1,30 @@
+/*
+ * DirectoryListingPageSource.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.files.model;
+
+import org.rstudio.studio.client.server.ServerRequestCallback;
+
+// Requests pages of the listing of a directory, sorted by the server. Unless
+// refresh is set, pages come from the listing made for the previous request
+// (if it was for the same sort order)
+public interface DirectoryListingPageSource
+{
+   void requestPage(boolean refresh,
+                    int offset,
+                    int count,
+                    String sortColumn,
+                    boolean ascending,
+                    ServerRequestCallback<DirectoryListingPage> requestCallback);
+}
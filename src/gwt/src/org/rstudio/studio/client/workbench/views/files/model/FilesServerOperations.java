@@ -47,6 +47,20 @@ public interface FilesServerOperations
                   boolean showHidden,
                   ServerRequestCallback<DirectoryListing> requestCallback);
 
+   // get a page of a file listing, sorted (by "name", "type", "size" or
+   // "modified") and filtered (by name) on the server
+   void listFilesPage(FileSystemItem directory,
+                      boolean monitor,
+                      boolean showHidden,
+                      boolean refresh,
+                      int offset,
+                      int count,
+                      String sortColumn,
+                      boolean ascending,
+                      boolean naturalOrder,
+                      String filter,
+                      ServerRequestCallback<DirectoryListingPage> requestCallback);
+
    void listAllFiles(String path,
                      String pattern,
                      ServerRequestCallback<JsArrayString> requestCallback);
@@ -15,8 +15,13 @@
 package org.rstudio.studio.client.workbench.views.files.ui;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.rstudio.core.client.Debug;
@@ -32,8 +37,12 @@ import org.rstudio.studio.client.ResizableHeader;
 import org.rstudio.studio.client.common.filetypes.FileIcon;
 import org.rstudio.studio.client.common.filetypes.FileIconResourceCell;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.workbench.views.files.Files;
 import org.rstudio.studio.client.workbench.views.files.FilesConstants;
+import org.rstudio.studio.client.workbench.views.files.model.DirectoryListingPage;
+import org.rstudio.studio.client.workbench.views.files.model.DirectoryListingPageSource;
 import org.rstudio.studio.client.workbench.views.files.model.FileChange;
 
 import com.google.gwt.core.client.GWT;
@@ -51,6 +60,7 @@ import com.google.gwt.user.cellview.client.ColumnSortEvent;
 import com.google.gwt.user.cellview.client.ColumnSortEvent.Handler;
 import com.google.gwt.user.cellview.client.ColumnSortList;
 import com.google.gwt.user.cellview.client.TextColumn;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.HasVerticalAlignment;
 import com.google.gwt.user.client.ui.ResizeLayoutPanel;
@@ -119,7 +129,7 @@ public class FilesList extends Composite
 
       // add columns
       addSelectionColumn();
-      addIconColumn(fileTypeRegistry);
+      iconColumn_ = addIconColumn(fileTypeRegistry);
       nameColumn_ = addNameColumn();
       sizeColumn_ = addSizeColumn();
       modifiedColumn_ = addModifiedColumn();
@@ -127,6 +137,29 @@ public class FilesList extends Composite
       // initialize sorting
       addColumnSortHandler();
 
+      // fetch the pages of a paged listing as they're scrolled into view
+      pageTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            requestVisiblePages();
+         }
+      };
+      refreshTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            reloadPages(true);
+         }
+      };
+      filesDataGrid_.addScrollHandler(event ->
+      {
+         if (pageSource_ != null)
+            pageTimer_.schedule(PAGE_DELAY_MS);
+      });
+
       // enclose in scroll panel
       layoutPanel_ = new ResizeLayoutPanel();
       initWidget(layoutPanel_);
@@ -150,8 +183,12 @@ public class FilesList extends Composite
             public void render(Context context, LabeledBoolean value, SafeHtmlBuilder sb)
             {
                // don't render the check box if its for the parent path
-               if (parentPath_ == null || context.getIndex() > 0)
+               // (or a file we haven't fetched yet)
+               if ((parentPath_ == null || context.getIndex() > 0) &&
+                   !isPlaceholderKey(context.getKey()))
+               {
                   super.render(context, value, sb);
+               }
             }
          })
          {
@@ -182,6 +219,8 @@ public class FilesList extends Composite
             {
                if (object == parentPath_)
                   return FileIcon.PARENT_FOLDER_ICON;
+               else if (isPlaceholder(object))
+                  return null;
                else
                   return fileTypeRegistry.getIconForFile(object);
             }
@@ -215,7 +254,8 @@ public class FilesList extends Composite
          {
             public void execute(FileSystemItem input)
             {
-               observer_.onFileNavigation(input);
+               if (!isPlaceholder(input))
+                  observer_.onFileNavigation(input);
             }
          })
          {
@@ -224,6 +264,8 @@ public class FilesList extends Composite
             {
                if (item == parentPath_)
                   return "..";
+               else if (isPlaceholder(item))
+                  return "";
                else
                   return item.getName();
             }
@@ -258,7 +300,7 @@ public class FilesList extends Composite
       TextColumn<FileSystemItem> sizeColumn = new TextColumn<FileSystemItem>() {
          public String getValue(FileSystemItem file)
          {
-            if (!file.isDirectory())
+            if (!file.isDirectory() && !isPlaceholder(file))
                return StringUtil.formatFileSize(file.getLength());
             else
                return "";
@@ -286,7 +328,7 @@ public class FilesList extends Composite
       TextColumn<FileSystemItem> modColumn = new TextColumn<FileSystemItem>() {
          public String getValue(FileSystemItem file)
          {
-            if (!file.isDirectory())
+            if (!file.isDirectory() && !isPlaceholder(file))
                return StringUtil.formatDate(file.getLastModified());
             else
                return "";
@@ -369,6 +411,14 @@ public class FilesList extends Composite
             // record active sort column ascending state
             activeSortColumnAscending_ = event.isSortAscending();
 
+            // paged listings are sorted by the server
+            if (pageSource_ != null)
+            {
+               if (!applyingProgrammaticSort_)
+                  reloadPages(false);
+               return;
+            }
+
             // delegate the sort
             sortHandler_.onColumnSort(event);
          }
@@ -399,12 +449,40 @@ public class FilesList extends Composite
    }
 
 
+   // the column the list is sorted by, as named by the server for paged
+   // listings
+   public String getSortColumn()
+   {
+      ColumnSortList sortList = filesDataGrid_.getColumnSortList();
+      if (sortList.size() == 0)
+         return SORT_COLUMN_NAME;
+
+      Object column = sortList.get(0).getColumn();
+      if (column == iconColumn_)
+         return SORT_COLUMN_TYPE;
+      else if (column == sizeColumn_)
+         return SORT_COLUMN_SIZE;
+      else if (column == modifiedColumn_)
+         return SORT_COLUMN_MODIFIED;
+      else
+         return SORT_COLUMN_NAME;
+   }
+
+   public boolean isSortAscending()
+   {
+      ColumnSortList sortList = filesDataGrid_.getColumnSortList();
+      return sortList.size() == 0 || sortList.get(0).isAscending();
+   }
+
    public void displayFiles(FileSystemItem containingPath,
                             JsArray<FileSystemItem> files)
    {
       // clear the selection
       selectNone();
 
+      // this listing isn't paged
+      endPaging();
+
       // set containing path
       containingPath_ = containingPath;
       parentPath_ = containingPath_.getParentPath();
@@ -421,8 +499,14 @@ public class FilesList extends Composite
          fileList.add(parentPath_);
 
       // add files to table
+      filesByKey_.clear();
+      pendingChanges_.clear();
       for (int i = 0, n = files.length(); i < n; i++)
-         fileList.add(files.get(i));
+      {
+         FileSystemItem file = files.get(i);
+         fileList.add(file);
+         filesByKey_.put(fileKey(file), file);
+      }
 
       // apply sort list
       applyColumnSortList();
@@ -434,11 +518,211 @@ public class FilesList extends Composite
       observer_.onFileSelectionChanged();
    }
 
+   // shows a directory with too many files to list at once: the list is
+   // filled with placeholders for the files, which are replaced by pages of
+   // files fetched (sorted by the server) as they're scrolled into view
+   public void displayFilesPage(FileSystemItem containingPath,
+                                DirectoryListingPage page,
+                                DirectoryListingPageSource pageSource)
+   {
+      // clear the selection
+      selectNone();
+
+      // set containing path
+      containingPath_ = containingPath;
+      parentPath_ = containingPath_.getParentPath();
+
+      // file changes are handled by refreshing the listing
+      filesByKey_.clear();
+      pendingChanges_.clear();
+
+      endPaging();
+      pageSource_ = pageSource;
+      resetPages(page);
+
+      // force redraw of data grid
+      filesDataGrid_.redraw();
+      requestVisiblePages();
+
+      // fire selection changed
+      observer_.onFileSelectionChanged();
+   }
+
+   private void endPaging()
+   {
+      pageSource_ = null;
+      pageGeneration_++;
+      requestedPages_.clear();
+      pageTimer_.cancel();
+      refreshTimer_.cancel();
+   }
+
+   // replaces the list with placeholders for all the files in the page's
+   // listing, and fills in the page
+   private void resetPages(DirectoryListingPage page)
+   {
+      pageGeneration_++;
+      requestedPages_.clear();
+      pageTotal_ = page.getTotal();
+
+      List<FileSystemItem> files = new ArrayList<>(pageTotal_ + 1);
+      if (parentPath_ != null)
+         files.add(parentPath_);
+      for (int i = 0; i < pageTotal_; i++)
+         files.add(FileSystemItem.createFile(PLACEHOLDER_PREFIX + i));
+
+      fillPage(files, page);
+      replaceFiles(files);
+   }
+
+   private void fillPage(List<FileSystemItem> files, DirectoryListingPage page)
+   {
+      JsArray<FileSystemItem> pageFiles = page.getFiles();
+      int start = page.getOffset() + (parentPath_ != null ? 1 : 0);
+      for (int i = 0, n = Math.min(pageFiles.length(), files.size() - start); i < n; i++)
+      {
+         FileSystemItem file = pageFiles.get(i);
+         files.set(start + i, file);
+
+         // the selection model is keyed by path but holds on to the items
+         // selected, so point it at the fetched items
+         if (selectionModel_.isSelected(file))
+            selectionModel_.setSelected(file, true);
+      }
+
+      for (int i = page.getOffset() / PAGE_SIZE;
+           i * PAGE_SIZE < page.getOffset() + pageFiles.length();
+           i++)
+      {
+         requestedPages_.add(i);
+      }
+   }
+
+   private void replaceFiles(List<FileSystemItem> files)
+   {
+      // replace the list contents in one go, so the grid is drawn once
+      List<FileSystemItem> list = getFiles();
+      list.clear();
+      list.addAll(files);
+      filesDataGrid_.setPageSize(files.size() + 1);
+   }
+
+   // requests the pages with the rows in view, and the page after them
+   private void requestVisiblePages()
+   {
+      if (pageSource_ == null)
+         return;
+
+      int firstRow = firstVisibleFile();
+      int visibleRows = (int) (filesDataGrid_.getOffsetHeight() / filesDataGrid_.getRowHeight());
+      int firstPage = firstRow / PAGE_SIZE;
+      int lastPage = Math.min((firstRow + visibleRows) / PAGE_SIZE + 1,
+                              (pageTotal_ - 1) / PAGE_SIZE);
+      for (int i = firstPage; i <= lastPage; i++)
+      {
+         if (!requestedPages_.contains(i))
+            requestPage(i);
+      }
+   }
+
+   private int firstVisibleFile()
+   {
+      int row = (int) (filesDataGrid_.getScrollPanel().getVerticalScrollPosition() /
+                       filesDataGrid_.getRowHeight());
+      return Math.max(0, Math.min(row - (parentPath_ != null ? 1 : 0), pageTotal_ - 1));
+   }
+
+   private void requestPage(final int index)
+   {
+      final int generation = pageGeneration_;
+      requestedPages_.add(index);
+      pageSource_.requestPage(
+            false,
+            index * PAGE_SIZE,
+            PAGE_SIZE,
+            getSortColumn(),
+            isSortAscending(),
+            new ServerRequestCallback<DirectoryListingPage>()
+            {
+               @Override
+               public void onResponseReceived(DirectoryListingPage page)
+               {
+                  if (generation != pageGeneration_)
+                     return;
+
+                  // the server listed the directory again; start over
+                  if (page.getTotal() != pageTotal_)
+                  {
+                     reloadPages(false);
+                     return;
+                  }
+
+                  List<FileSystemItem> files = new ArrayList<>(getFiles());
+                  fillPage(files, page);
+                  replaceFiles(files);
+               }
+
+               @Override
+               public void onError(ServerError error)
+               {
+                  if (generation == pageGeneration_)
+                     requestedPages_.remove(index);
+                  Debug.logError(error);
+               }
+            });
+   }
+
+   // lists the directory again (e.g. after the sort order or the files
+   // changed), starting with the page in view
+   private void reloadPages(boolean refresh)
+   {
+      if (pageSource_ == null)
+         return;
+
+      final int generation = ++pageGeneration_;
+      pageTimer_.cancel();
+      refreshTimer_.cancel();
+      pageSource_.requestPage(
+            refresh,
+            (firstVisibleFile() / PAGE_SIZE) * PAGE_SIZE,
+            PAGE_SIZE,
+            getSortColumn(),
+            isSortAscending(),
+            new ServerRequestCallback<DirectoryListingPage>()
+            {
+               @Override
+               public void onResponseReceived(DirectoryListingPage page)
+               {
+                  if (generation != pageGeneration_)
+                     return;
+
+                  resetPages(page);
+                  requestVisiblePages();
+               }
+
+               @Override
+               public void onError(ServerError error)
+               {
+                  Debug.logError(error);
+               }
+            });
+   }
+
+   private static boolean isPlaceholder(FileSystemItem file)
+   {
+      return isPlaceholderKey(file.getPath());
+   }
+
+   private static boolean isPlaceholderKey(Object key)
+   {
+      return key instanceof String && ((String) key).startsWith(PLACEHOLDER_PREFIX);
+   }
+
    public void selectAll()
    {
       for (FileSystemItem item : dataProvider_.getList())
       {
-         if (item != parentPath_)
+         if (item != parentPath_ && !isPlaceholder(item))
             selectionModel_.setSelected(item, true);
       }
    }
@@ -460,92 +744,208 @@ public class FilesList extends Composite
 
    public void updateWithAction(FileChange viewAction)
    {
-      final FileSystemItem file = viewAction.getFile();
-      final List<FileSystemItem> files = getFiles();
-      switch(viewAction.getType())
+      // paged listings are refreshed once changes stop coming in
+      if (pageSource_ != null)
+      {
+         refreshTimer_.schedule(REFRESH_DELAY_MS);
+         return;
+      }
+
+      // changes are applied in batches, since a tool writing to the directory
+      // being shown (e.g. installing packages into renv/library) can produce
+      // thousands of them at once; only the latest change to a file matters,
+      // except that a file added and then modified is still an addition
+      String key = fileKey(viewAction.getFile());
+      FileChange pending = pendingChanges_.get(key);
+      if (pending != null &&
+          pending.getType() == FileChange.ADD &&
+          viewAction.getType() == FileChange.MODIFIED)
+      {
+         viewAction = FileChange.createAdd(viewAction.getFile());
+      }
+      pendingChanges_.put(key, viewAction);
+      if (!flushScheduled_)
+      {
+         flushScheduled_ = true;
+         Scheduler.get().scheduleDeferred(() -> flushPendingChanges());
+      }
+   }
+
+   public void renameFile(FileSystemItem from, FileSystemItem to)
+   {
+      if (pageSource_ != null)
+      {
+         refreshTimer_.schedule(REFRESH_DELAY_MS);
+         return;
+      }
+
+      if (!filesByKey_.containsKey(fileKey(from)))
+         return;
+
+      selectNone();
+      pendingChanges_.put(fileKey(from), FileChange.createDelete(from));
+      pendingChanges_.put(fileKey(to), FileChange.createAdd(to));
+      flushPendingChanges();
+   }
+
+   private List<FileSystemItem> getFiles()
+   {
+      return dataProvider_.getList();
+   }
+
+   // files are considered the same if they have the same path (ignoring
+   // case) and are both files or both directories; see FileSystemItem.equalTo
+   private static String fileKey(FileSystemItem file)
+   {
+      return (file.isDirectory() ? "d:" : "f:") + file.getPath().toLowerCase();
+   }
+
+   private void flushPendingChanges()
+   {
+      flushScheduled_ = false;
+      if (pendingChanges_.isEmpty())
+         return;
+
+      // the list wrapper redraws the rows changed once we're done, so
+      // update the list in place
+      List<FileSystemItem> files = getFiles();
+      Comparator<FileSystemItem> comparator = activeComparator();
+      for (Map.Entry<String, FileChange> entry : pendingChanges_.entrySet())
       {
-      case FileChange.ADD:
-         if (file.getParentPath().equalTo(containingPath_))
+         String key = entry.getKey();
+         FileSystemItem file = entry.getValue().getFile();
+         switch (entry.getValue().getType())
          {
-            int row = rowForFile(file);
-            if (row == -1)
+         case FileChange.ADD:
+            // since we eagerly perform renames at the client UI layer then
+            // sometimes an "added" file is really just a rename. in this case
+            // the file already exists due to the eager rename in the client
+            // but still needs its metadata updated
+            if (containingPath_ != null &&
+                file.getParentPath().equalTo(containingPath_))
             {
-               files.add(file);
-               filesDataGrid_.setPageSize(files.size() + 1);
-            }
-            else
-            {
-               // since we eagerly perform renames at the client UI
-               // layer then sometimes an "added" file is really just
-               // a rename. in this case the file already exists due
-               // to the eager rename in the client but still needs its
-               // metadata updated
-               files.set(row, file);
+               putFile(files, key, file, comparator);
             }
+            break;
+
+         case FileChange.MODIFIED:
+            if (filesByKey_.containsKey(key))
+               putFile(files, key, file, comparator);
+            break;
+
+         case FileChange.DELETE:
+            FileSystemItem previous = filesByKey_.remove(key);
+            if (previous != null)
+               removeFile(files, previous, comparator);
+            break;
+
+         default:
+            Debug.log("Unexpected file change type: " + entry.getValue().getType());
+            break;
          }
-         break;
+      }
+      pendingChanges_.clear();
+
+      filesDataGrid_.setPageSize(files.size() + 1);
+   }
+
+   // puts the file at its sorted position in the list, in place of the
+   // file with the same key (if any)
+   private void putFile(List<FileSystemItem> files,
+                        String key,
+                        FileSystemItem file,
+                        Comparator<FileSystemItem> comparator)
+   {
+      FileSystemItem previous = filesByKey_.put(key, file);
+      if (previous != null)
+         removeFile(files, previous, comparator);
+
+      if (comparator == null)
+         files.add(file);
+      else
+         files.add(insertionIndex(files, file, comparator), file);
+
+      // the selection model is keyed by path but holds on to the items
+      // selected, so point it at the updated item
+      if (selectionModel_.isSelected(file))
+         selectionModel_.setSelected(file, true);
+   }
+
+   private static void removeFile(List<FileSystemItem> files,
+                                  FileSystemItem file,
+                                  Comparator<FileSystemItem> comparator)
+   {
+      int index = indexOfFile(files, file, comparator);
+      if (index >= 0)
+         files.remove(index);
+   }
 
-      case FileChange.MODIFIED:
+   // finds the file in the (sorted) list
+   private static int indexOfFile(List<FileSystemItem> files,
+                                  FileSystemItem file,
+                                  Comparator<FileSystemItem> comparator)
+   {
+      if (comparator != null)
+      {
+         // the search can land on any file that sorts alongside this one
+         int index = Collections.binarySearch(files, file, comparator);
+         if (index >= 0)
          {
-            int row = rowForFile(file);
-            if (row != -1)
+            for (int i = index; i >= 0; i--)
             {
-               // the selection model loses the selection state when we update
-               // the row, so save and restore it manually.
-               boolean selected = selectionModel_.isSelected(file);
-               files.set(row, file);
-               selectionModel_.setSelected(file, selected);
+               if (files.get(i) == file)
+                  return i;
+               if (comparator.compare(files.get(i), file) != 0)
+                  break;
             }
-         }
-         break;
-
-      case FileChange.DELETE:
-         {
-            int row = rowForFile(file);
-            if (row != -1)
+            for (int i = index + 1; i < files.size(); i++)
             {
-               files.remove(row);
-
-               // if a file is deleted and then re-added within the same
-               // event loop (as occurs when gedit saves a text file) the
-               // table doesn't always update correctly (it has a duplicate
-               // of the item deleted / re-added). the call to flush overcomes
-               // this issue
-               dataProvider_.flush();
+               if (files.get(i) == file)
+                  return i;
+               if (comparator.compare(files.get(i), file) != 0)
+                  break;
             }
          }
-         break;
-
-      default:
-         Debug.log("Unexpected file change type: " + viewAction.getType());
-
-         break;
       }
+
+      return files.indexOf(file);
    }
 
-   public void renameFile(FileSystemItem from, FileSystemItem to)
+   // the index after the last file that sorts before or alongside this one
+   private static int insertionIndex(List<FileSystemItem> files,
+                                     FileSystemItem file,
+                                     Comparator<FileSystemItem> comparator)
    {
-      int index = getFiles().indexOf(from);
-      if (index != -1)
+      int lo = 0, hi = files.size();
+      while (lo < hi)
       {
-         selectNone();
-         getFiles().set(index, to);
+         int mid = (lo + hi) >>> 1;
+         if (comparator.compare(files.get(mid), file) <= 0)
+            lo = mid + 1;
+         else
+            hi = mid;
       }
+      return lo;
    }
 
-   private List<FileSystemItem> getFiles()
-   {
-      return dataProvider_.getList();
-   }
-
-   private int rowForFile(FileSystemItem file)
+   // the comparator used to sort the list by the active sort column
+   @SuppressWarnings("unchecked")
+   private Comparator<FileSystemItem> activeComparator()
    {
-      List<FileSystemItem> files = getFiles();
-      for (int i=0; i<files.size(); i++)
-         if (files.get(i).equalTo(file))
-            return i;
-
-      return -1;
+      ColumnSortList sortList = filesDataGrid_.getColumnSortList();
+      if (sortList.size() == 0)
+         return null;
+
+      ColumnSortList.ColumnSortInfo sortInfo = sortList.get(0);
+      final Comparator<FileSystemItem> comparator = sortHandler_.getComparator(
+            (Column<FileSystemItem, ?>) sortInfo.getColumn());
+      if (comparator == null)
+         return null;
+
+      // reversed for descending sorts, as in ColumnSortEvent.ListHandler
+      if (sortInfo.isAscending())
+         return comparator;
+      return (FileSystemItem a, FileSystemItem b) -> -comparator.compare(a, b);
    }
 
    private void applyColumnSortList()
@@ -710,6 +1110,7 @@ public class FilesList extends Composite
    private FileSystemItem parentPath_ = null;
 
    private final VirtualizedDataGrid<FileSystemItem> filesDataGrid_;
+   private final Column<FileSystemItem, FileIcon> iconColumn_;
    private final LinkColumn<FileSystemItem> nameColumn_;
    private final TextColumn<FileSystemItem> sizeColumn_;
    private final TextColumn<FileSystemItem> modifiedColumn_;
@@ -718,6 +1119,21 @@ public class FilesList extends Composite
    private boolean applyingProgrammaticSort_ = false;
 
 
+   // the files in the list (excluding the parent path), by fileKey()
+   private final HashMap<String, FileSystemItem> filesByKey_ = new HashMap<>();
+
+   // file changes not yet applied to the list, by fileKey()
+   private final LinkedHashMap<String, FileChange> pendingChanges_ = new LinkedHashMap<>();
+   private boolean flushScheduled_ = false;
+
+   // the source of the pages of the listing shown, if it's paged
+   private DirectoryListingPageSource pageSource_ = null;
+   private int pageTotal_ = 0;
+   private int pageGeneration_ = 0;
+   private final HashSet<Integer> requestedPages_ = new HashSet<>();
+   private final Timer pageTimer_;
+   private final Timer refreshTimer_;
+
    private final MultiSelectionModel<FileSystemItem> selectionModel_;
    private final ListDataProvider<FileSystemItem> dataProvider_;
    private final ColumnSortEvent.ListHandler<FileSystemItem> sortHandler_;
@@ -725,6 +1141,20 @@ public class FilesList extends Composite
    private final Files.Display.Observer observer_;
    private final ResizeLayoutPanel layoutPanel_;
 
+   // directories with more files than this are listed a page at a time
+   public static final int MAX_UNPAGED_FILES = 5000;
+   private static final int PAGE_SIZE = 500;
+   private static final int PAGE_DELAY_MS = 100;
+   private static final int REFRESH_DELAY_MS = 500;
+
+   // placeholders have paths which can't be those of real files
+   private static final String PLACEHOLDER_PREFIX = "\u0000placeholder:";
+
+   private static final String SORT_COLUMN_NAME = "name";
+   private static final String SORT_COLUMN_TYPE = "type";
+   private static final String SORT_COLUMN_SIZE = "size";
+   private static final String SORT_COLUMN_MODIFIED = "modified";
+
    private static final int CHECK_COLUMN_WIDTH_PIXELS = 30;
    private static final int ICON_COLUMN_WIDTH_PIXELS = 26;
    private static final int SIZE_COLUMN_WIDTH_PIXELS = 80;
@@ -21,10 +21,12 @@ import com.google.inject.Provider;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.JsArrayUtil;
 import org.rstudio.core.client.SessionServer;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.application.Desktop;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.GlobalDisplay;
+import org.rstudio.studio.client.common.compile.CompileOutputBufferWithHighlight;
 import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.workbench.views.jobs.JobsConstants;
@@ -32,6 +34,7 @@ import org.rstudio.studio.client.workbench.views.jobs.model.Job;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobConstants;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobManager;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobOutput;
+import org.rstudio.studio.client.workbench.views.jobs.model.JobOutputRange;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobState;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobsServerOperations;
 import org.rstudio.studio.client.workbench.views.jobs.model.LauncherJobManager;
@@ -52,6 +55,8 @@ public class JobsPresenterEventHandlersImpl implements JobsPresenterEventHandler
       
       jobType_ = jobType;
       display_ = display;
+
+      display_.setJobOutputRangeHandler((start, end) -> loadOutput(start, end));
    }
 
    @Inject
@@ -165,10 +170,13 @@ public class JobsPresenterEventHandlersImpl implements JobsPresenterEventHandler
    {
       boolean bypassLauncherCall = (isLauncherJob && getSessionServer() != null);
 
-      server_.setJobListening(id, false, bypassLauncherCall, new ServerRequestCallback<JsArray<JobOutput>>()
+      if (StringUtil.equals(id, outputJobId_))
+         outputJobId_ = null;
+
+      server_.setJobListening(id, false, bypassLauncherCall, 0, 0, new ServerRequestCallback<JobOutputRange>()
       {
          @Override
-         public void onResponseReceived(JsArray<JobOutput> output)
+         public void onResponseReceived(JobOutputRange output)
          {
             if (bypassLauncherCall && Desktop.hasDesktopFrame())
             {
@@ -196,17 +204,21 @@ public class JobsPresenterEventHandlersImpl implements JobsPresenterEventHandler
       
       Job job = pJobManager_.get().getJob(id);
 
-      server_.setJobListening(id, true, bypassLauncherCall, new ServerRequestCallback<JsArray<JobOutput>>()
+      // only the most recent output is retrieved up front, no more than the
+      // output pane will show; older output is fetched as the user scrolls up
+      server_.setJobListening(id, true, bypassLauncherCall, MAX_OUTPUT_ENTRIES,
+            CompileOutputBufferWithHighlight.MAX_LINES_DISPLAY, new ServerRequestCallback<JobOutputRange>()
       {
          @Override
-         public void onResponseReceived(JsArray<JobOutput> output)
+         public void onResponseReceived(JobOutputRange output)
          {
             if (bypassLauncherCall && Desktop.hasDesktopFrame())
             {
                Desktop.getFrame().startLauncherJobOutputStream(id);
             }
 
-            display_.showJobOutput(id, output, animate);
+            outputJobId_ = id;
+            display_.showJobOutput(id, output.getOutput(), output.getPosition(), animate);
          }
          
          @Override
@@ -225,6 +237,36 @@ public class JobsPresenterEventHandlersImpl implements JobsPresenterEventHandler
       });
    }
 
+   private void loadOutput(final int start, final int end)
+   {
+      final String id = outputJobId_;
+      if (id == null)
+         return;
+
+      server_.getJobOutput(id, start, end, new ServerRequestCallback<JsArray<JobOutput>>()
+      {
+         @Override
+         public void onResponseReceived(JsArray<JobOutput> output)
+         {
+            // ignore output for a job we're no longer showing
+            if (!StringUtil.equals(id, outputJobId_))
+               return;
+
+            display_.insertJobOutput(id, output, start);
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            Debug.logError(error);
+
+            // let the pane try again later
+            if (StringUtil.equals(id, outputJobId_))
+               display_.insertJobOutput(id, JsArray.createArray().cast(), start);
+         }
+      });
+   }
+
    private SessionServer getSessionServer()
    {
       return pLauncherJobManager_.get().getSessionServer();
@@ -232,6 +274,12 @@ public class JobsPresenterEventHandlersImpl implements JobsPresenterEventHandler
    
    private final int jobType_;
    private final JobsDisplay display_;
+
+   // the job whose output is shown
+   private String outputJobId_;
+
+   // the most entries of output retrieved when the output is first shown
+   private static final int MAX_OUTPUT_ENTRIES = 500;
    
    // injected
    private JobsServerOperations server_;
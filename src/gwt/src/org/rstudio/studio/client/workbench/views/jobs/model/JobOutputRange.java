@@ -0,0 +1,37 @@
+/*
+ * JobOutputRange.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.jobs.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+
+/**
+ * A contiguous range of a job's output entries, starting at the given
+ * position (the index of the first entry in the job's output).
+ */
+public class JobOutputRange extends JavaScriptObject
+{
+   protected JobOutputRange()
+   {
+   }
+
+   public final native JsArray<JobOutput> getOutput() /*-{
+      return this.output;
+   }-*/;
+
+   public final native int getPosition() /*-{
+      return this.position;
+   }-*/;
+}
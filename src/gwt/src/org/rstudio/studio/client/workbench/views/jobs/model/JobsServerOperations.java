@@ -21,8 +21,15 @@ import com.google.gwt.core.client.JsArray;
 
 public interface JobsServerOperations
 {
+   // when listening starts, returns at most maxEntries entries from the end
+   // of the job's output (all output if maxEntries is zero), making up no
+   // more than maxLines lines of text (no limit if zero)
    void setJobListening(String id, boolean listening, boolean bypassLauncherCall,
-                        ServerRequestCallback<JsArray<JobOutput> > output);
+                        int maxEntries, int maxLines,
+                        ServerRequestCallback<JobOutputRange> output);
+   // returns the job's output entries [start, end)
+   void getJobOutput(String id, int start, int end,
+                     ServerRequestCallback<JsArray<JobOutput>> output);
    void startJob(JobLaunchSpec spec, ServerRequestCallback<String> callback);
    void clearBackgroundJobs(ServerRequestCallback<Void> callback);
    void executeJobAction(String id, String action, ServerRequestCallback<Void> callback);
@@ -14,6 +14,8 @@
  */
 package org.rstudio.studio.client.workbench.views.jobs.view;
 
+import java.util.List;
+
 import org.rstudio.core.client.ElementIds;
 import org.rstudio.studio.client.common.compile.CompileOutput;
 import org.rstudio.studio.client.common.compile.CompileOutputBufferWithHighlight;
@@ -36,7 +38,8 @@ public class JobOutputPanel extends Composite
 
    public JobOutputPanel()
    {
-      output_ = new CompilePanel(new CompileOutputBufferWithHighlight());
+      buffer_ = new CompileOutputBufferWithHighlight();
+      output_ = new CompilePanel(buffer_);
       output_.setHeight("100%");
       ElementIds.assignElementId(output_.asWidget(), ElementIds.JOB_LAUNCHER_OUTPUT_PANEL);
 
@@ -44,10 +47,74 @@ public class JobOutputPanel extends Composite
       
       // initially empty
       clearOutput();
+
+      // fetch older or missing output as the user scrolls to it
+      buffer_.addScrollHandler(event -> maybeLoadOutput());
+   }
+
+   public void setOutputRangeHandler(JobsDisplay.OutputRangeHandler handler)
+   {
+      outputRangeHandler_ = handler;
+   }
+
+   // the position of the first entry of the output about to be shown, which
+   // determines the range of any older output to be fetched
+   public void setOutputPosition(int position)
+   {
+      position_ = position;
+   }
+
+   // inserts output fetched by the output range handler, starting with the
+   // entry at the given position
+   public void insertOutput(int position, List<CompileOutput> output)
+   {
+      requestPending_ = false;
+      if (output.isEmpty())
+         return;
+
+      // the output shown may have changed since the output was requested,
+      // in which case it's no longer needed
+      int first = position_ + buffer_.getFirstEntryOffset();
+      if (position + output.size() == first)
+      {
+         empty_.setVisible(false);
+         output_.setVisible(true);
+         buffer_.prependOutput(output);
+      }
+      else if (position == first + buffer_.getHistoryEntryCount())
+      {
+         buffer_.appendMissingOutput(output);
+      }
+
+      // the user may still be looking at the edge of what's shown
+      maybeLoadOutput();
+   }
+
+   private void maybeLoadOutput()
+   {
+      // one request at a time
+      if (outputRangeHandler_ == null || requestPending_ || buffer_.hasDiscardedOutput())
+         return;
+
+      int first = position_ + buffer_.getFirstEntryOffset();
+      if (first > 0 && buffer_.isScrolledToTop())
+      {
+         requestPending_ = true;
+         outputRangeHandler_.onOutputRangeRequested(Math.max(0, first - PAGE_ENTRIES), first);
+      }
+      else if (buffer_.getMissingEntryCount() > 0 && buffer_.isHistoryEndVisible())
+      {
+         int start = first + buffer_.getHistoryEntryCount();
+         requestPending_ = true;
+         outputRangeHandler_.onOutputRangeRequested(start,
+               start + Math.min(buffer_.getMissingEntryCount(), PAGE_ENTRIES));
+      }
    }
    
    public void clearOutput()
    {
+      position_ = 0;
+      requestPending_ = false;
       output_.clearOutput();
       output_.setVisible(false);
       empty_.setVisible(true);
@@ -60,8 +127,13 @@ public class JobOutputPanel extends Composite
    
    public void showOutput(CompileOutput output, boolean scrollToBottom)
    {
+      // there's nothing to show, but the output still needs to be counted
+      // so that older output lines up with it
       if (output.getOutput().isEmpty())
+      {
+         output_.showOutput(output, false);
          return;
+      }
       
       // make sure output is visible
       empty_.setVisible(false);
@@ -77,4 +149,12 @@ public class JobOutputPanel extends Composite
    
    @UiField(provided=true) CompilePanel output_;
    @UiField Label empty_;
+
+   private final CompileOutputBufferWithHighlight buffer_;
+   private JobsDisplay.OutputRangeHandler outputRangeHandler_;
+   private int position_;
+   private boolean requestPending_;
+
+   // the most entries of output fetched at once
+   private static final int PAGE_ENTRIES = 500;
 }
@@ -23,9 +23,18 @@ import java.util.List;
 
 public interface JobsDisplay extends WorkbenchView
 {
+   interface OutputRangeHandler
+   {
+      // fetch the entries [start, end) of the output shown, and pass them
+      // to insertJobOutput
+      void onOutputRangeRequested(int start, int end);
+   }
+
    void updateJob(int updateType, Job job);
    void setInitialJobs(List<Job> jobs);
-   void showJobOutput(String id, JsArray<JobOutput> output, boolean animate);
+   void showJobOutput(String id, JsArray<JobOutput> output, int position, boolean animate);
+   void insertJobOutput(String id, JsArray<JobOutput> output, int position);
+   void setJobOutputRangeHandler(OutputRangeHandler handler);
    void addJobOutput(String id, int type, String output);
    void hideJobOutput(String id, boolean animate);
    void syncElapsedTime(int timestamp);
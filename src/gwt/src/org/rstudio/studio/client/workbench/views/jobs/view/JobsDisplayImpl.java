@@ -27,6 +27,7 @@ import org.rstudio.studio.client.workbench.views.jobs.model.Job;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobConstants;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobOutput;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -99,10 +100,11 @@ public class JobsDisplayImpl implements JobsDisplay
    }
    
    @Override
-   public void showJobOutput(String id, JsArray<JobOutput> output, boolean animate)
+   public void showJobOutput(String id, JsArray<JobOutput> output, int position, boolean animate)
    {
        // clear any existing output in the pane
       widgets_.getOutputPanel().clearOutput();
+      widgets_.getOutputPanel().setOutputPosition(position);
 
       // display all the output, but don't scroll as we go
       for (int i = 0; i < output.length(); i++)
@@ -127,6 +129,30 @@ public class JobsDisplayImpl implements JobsDisplay
             animate, widgets_::installJobToolbar);
    }
    
+   @Override
+   public void insertJobOutput(String id, JsArray<JobOutput> output, int position)
+   {
+      // make sure this output belongs to the job currently being displayed
+      if (!widgets_.isCurrent(id))
+         return;
+
+      List<CompileOutput> items = new ArrayList<>();
+      for (int i = 0; i < output.length(); i++)
+      {
+         items.add(CompileOutput.create(output.get(i).type(), output.get(i).output()));
+      }
+
+      widgets_.getOutputPanel().insertOutput(position, items);
+   }
+
+   @Override
+   public void setJobOutputRangeHandler(OutputRangeHandler handler)
+   {
+      // not all job panes show output
+      if (widgets_.getOutputPanel() != null)
+         widgets_.getOutputPanel().setOutputRangeHandler(handler);
+   }
+   
    @Override
    public void addJobOutput(String id, int type, String output)
    {
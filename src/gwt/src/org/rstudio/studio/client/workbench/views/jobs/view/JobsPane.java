@@ -75,9 +75,21 @@ public class JobsPane extends WorkbenchPane
    }
 
    @Override
-   public void showJobOutput(String id, JsArray<JobOutput> output, boolean animate)
+   public void showJobOutput(String id, JsArray<JobOutput> output, int position, boolean animate)
    {
-      baseImpl_.showJobOutput(id, output, animate);
+      baseImpl_.showJobOutput(id, output, position, animate);
+   }
+
+   @Override
+   public void insertJobOutput(String id, JsArray<JobOutput> output, int position)
+   {
+      baseImpl_.insertJobOutput(id, output, position);
+   }
+
+   @Override
+   public void setJobOutputRangeHandler(OutputRangeHandler handler)
+   {
+      baseImpl_.setJobOutputRangeHandler(handler);
    }
 
    @Override
@@ -17,6 +17,7 @@ package org.rstudio.studio.client.workbench.views.output.lint;
 import java.util.List;
 
 import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.IdleScheduler;
 import org.rstudio.core.client.Invalidation;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.studio.client.RStudioGinjector;
@@ -48,7 +49,6 @@ import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
-import com.google.gwt.user.client.Timer;
 import com.google.inject.Inject;
 
 public class LintManager
@@ -109,16 +109,16 @@ public class LintManager
       showMarkers_ = false;
       explicit_ = false;
       invalidation_ = new Invalidation();
-      timer_ = new Timer()
+      task_ = new IdleScheduler.Task("Diagnostics")
       {
 
          @Override
-         public void run()
+         public boolean execute(IdleScheduler.Deadline deadline)
          {
             if (!isLintableDocument())
             {
                getAceWorkerDiagnostics(docDisplay_);
-               return;
+               return false;
             }
 
             invalidation_.invalidate();
@@ -130,6 +130,16 @@ public class LintManager
                   excludeCurrentStatement_);
             reset();
             lintActiveDocument(context);
+            return false;
+         }
+
+         @Override
+         public int getPriority()
+         {
+            // explicitly requested lint is shown to the user right away
+            return explicit_
+                  ? IdleScheduler.PRIORITY_VISIBLE
+                  : IdleScheduler.PRIORITY_NORMAL;
          }
       };
 
@@ -158,7 +168,7 @@ public class LintManager
                   showMarkers_ = false;
                   excludeCurrentStatement_ = true;
                   explicit_ = false;
-                  timer_.schedule(defaultLintDelayMs());
+                  task_.schedule(defaultLintDelayMs());
                }
             });
          }
@@ -185,7 +195,7 @@ public class LintManager
 
    public void relintAfterDelay(int delayMills)
    {
-      timer_.schedule(delayMills == DEFAULT_LINT_DELAY ? defaultLintDelayMs() : delayMills);
+      task_.schedule(delayMills == DEFAULT_LINT_DELAY ? defaultLintDelayMs() : delayMills);
    }
 
    @Inject
@@ -403,7 +413,7 @@ public class LintManager
     */
    public void schedule(int milliseconds)
    {
-      timer_.schedule(milliseconds);
+      task_.schedule(milliseconds);
    }
 
    /**
@@ -411,9 +421,9 @@ public class LintManager
     */
    public void cancelPending()
    {
-      if (timer_ != null && timer_.isRunning())
+      if (task_ != null && task_.isScheduled())
       {
-         timer_.cancel();
+         task_.cancel();
       }
    }
 
@@ -426,7 +436,7 @@ public class LintManager
       excludeCurrentStatement_ = excludeCurrentStatement;
       
       // Add tiny delay to ensure lint not cleared by other concurrent events
-      timer_.schedule(20);
+      task_.schedule(20);
    }
    
    private void getAceWorkerDiagnostics(final DocDisplay docDisplay)
@@ -454,7 +464,7 @@ public class LintManager
 
    public final static int DEFAULT_LINT_DELAY = -1;
 
-   private final Timer timer_;
+   private final IdleScheduler.Task task_;
    private final LintSource source_;
    private final DocDisplay docDisplay_;
    private final Invalidation invalidation_;
@@ -16,7 +16,7 @@ package org.rstudio.studio.client.workbench.views.packages;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
@@ -794,10 +794,15 @@ public class Packages
    {
       PackageState newState = event.getPackageState();
 
-      // if the event contains embedded state, apply it directly; if it doesn't,
-      // fetch the new state from the server.
-      if (newState != null)
+      // if the event contains embedded state, apply it directly; if it doesn't
+      // (or holds changes to a package list we don't have), fetch the new
+      // state from the server.
+      if (newState == null)
+         updatePackageState(false, false);
+      else if (!newState.isDelta())
          setPackageState(newState);
+      else if (newState.getBaseVersion() == packageStateVersion_)
+         applyPackageStateDelta(newState);
       else
          updatePackageState(false, false);
    }
@@ -820,15 +825,14 @@ public class Packages
       view_.setPackageStatus(status);
 
       // also update the list of allPackages_
-      for (int i = 0; i<allPackages_.size(); i++)
+      Integer row = packageRows_.get(packageKey(status.getLib(), status.getName()));
+      if (row != null)
       {
-         PackageInfo packageInfo = allPackages_.get(i);
-         if (packageInfo.getName() == status.getName() &&
-             packageInfo.getLibrary() == status.getLib())
-         {
-            allPackages_.set(i, status.isLoaded() ? packageInfo.asLoaded() :
-                                                    packageInfo.asUnloaded());
-         }
+         PackageInfo packageInfo = allPackages_.get(row);
+         packageInfo = status.isLoaded() ? packageInfo.asLoaded() :
+                                           packageInfo.asUnloaded();
+         allPackages_.set(row, packageInfo);
+         packageIndex_.get(row).info = packageInfo;
       }
    }
 
@@ -839,38 +843,42 @@ public class Packages
       // apply filter (if any)
       if (packageFilter_.length() > 0)
       {
-         packages = new ArrayList<>();
-
-         // first do prefix search
-         for (PackageInfo pkgInfo : allPackages_)
+         // a filter containing the last one (e.g. as it's typed) can only
+         // match packages that one did
+         List<Integer> candidates = null;
+         if (lastFilter_ != null && packageFilter_.contains(lastFilter_))
+            candidates = lastFilterMatches_;
+
+         // do prefix search, then contains search on name & desc
+         ArrayList<IndexedPackage> prefixMatches = new ArrayList<>();
+         ArrayList<IndexedPackage> otherMatches = new ArrayList<>();
+         ArrayList<Integer> matches = new ArrayList<>();
+         int n = candidates == null ? packageIndex_.size() : candidates.size();
+         for (int i = 0; i < n; i++)
          {
-            if (pkgInfo.getName().toLowerCase().startsWith(packageFilter_))
-               packages.add(pkgInfo);
-         }
+            int row = candidates == null ? i : candidates.get(i);
+            IndexedPackage pkg = packageIndex_.get(row);
+            if (pkg.name.startsWith(packageFilter_))
+               prefixMatches.add(pkg);
+            else if (pkg.name.contains(packageFilter_) ||
+                     pkg.desc.contains(packageFilter_))
+               otherMatches.add(pkg);
+            else
+               continue;
 
-         // then do contains search on name & desc
-         for (PackageInfo pkgInfo : allPackages_)
-         {
-            if (pkgInfo.getName().toLowerCase().contains(packageFilter_) ||
-                pkgInfo.getDesc().toLowerCase().contains(packageFilter_))
-            {
-               if (!packages.contains(pkgInfo))
-                  packages.add(pkgInfo);
-            }
+            matches.add(row);
          }
+         lastFilter_ = packageFilter_;
+         lastFilterMatches_ = matches;
 
          // sort results by library (to preserve grouping)
-         Collections.sort(packages, new Comparator<PackageInfo>()
-               {
-                  @Override
-                  public int compare(PackageInfo o1, PackageInfo o2)
-                  {
-                     return PackageLibraryUtils.typeOfLibrary(
-                                   session_, o1.getLibrary()).compareTo(
-                             PackageLibraryUtils.typeOfLibrary(
-                                   session_, o2.getLibrary()));
-                  }
-               });
+         prefixMatches.addAll(otherMatches);
+         Collections.sort(prefixMatches,
+               (o1, o2) -> o1.libraryType.compareTo(o2.libraryType));
+
+         packages = new ArrayList<>(prefixMatches.size());
+         for (IndexedPackage pkg : prefixMatches)
+            packages.add(pkg.info);
       }
       else
       {
@@ -1205,43 +1213,114 @@ public class Packages
 
    private void setPackageState(PackageState newState)
    {
-      // sort the packages
-      allPackages_ = new ArrayList<>();
+      ArrayList<PackageInfo> packages = new ArrayList<>();
       JsArray<PackageInfo> serverPackages = newState.getPackageList();
       for (int i = 0; i < serverPackages.length(); i++)
-         allPackages_.add(serverPackages.get(i));
-      Collections.sort(allPackages_, new Comparator<PackageInfo>() {
-         public int compare(PackageInfo o1, PackageInfo o2)
+         packages.add(serverPackages.get(i));
+
+      setPackageList(packages);
+      packageStateVersion_ = newState.getVersion();
+
+      projectContext_ = newState.getProjectContext();
+      view_.setProgress(false);
+      setViewPackageList();
+   }
+
+   private void applyPackageStateDelta(PackageState delta)
+   {
+      LinkedHashMap<String, PackageInfo> packages = new LinkedHashMap<>();
+      for (PackageInfo pkgInfo : allPackages_)
+         packages.put(packageKey(pkgInfo), pkgInfo);
+
+      JsArray<PackageInfo> removed = delta.getRemovedPackages();
+      for (int i = 0; i < removed.length(); i++)
+         packages.remove(packageKey(removed.get(i)));
+
+      JsArray<PackageInfo> added = delta.getAddedPackages();
+      for (int i = 0; i < added.length(); i++)
+         packages.put(packageKey(added.get(i)), added.get(i));
+
+      JsArray<PackageInfo> changed = delta.getChangedPackages();
+      for (int i = 0; i < changed.length(); i++)
+         packages.put(packageKey(changed.get(i)), changed.get(i));
+
+      setPackageList(new ArrayList<>(packages.values()));
+      packageStateVersion_ = delta.getVersion();
+
+      projectContext_ = delta.getProjectContext();
+      view_.setProgress(false);
+      setViewPackageList();
+   }
+
+   private void setPackageList(ArrayList<PackageInfo> packages)
+   {
+      // index the packages, looking up each library's type just once
+      HashMap<String, PackageLibraryType> libraryTypes = new HashMap<>();
+      ArrayList<IndexedPackage> index = new ArrayList<>(packages.size());
+      for (PackageInfo pkgInfo : packages)
+      {
+         PackageLibraryType libraryType = libraryTypes.get(pkgInfo.getLibrary());
+         if (libraryType == null)
          {
-            // sort first by library, then by name
-            int library =
-                  PackageLibraryUtils.typeOfLibrary(
-                        session_, o1.getLibrary()).compareTo(
-                  PackageLibraryUtils.typeOfLibrary(
-                        session_, o2.getLibrary()));
-            return library == 0 ?
-                  o1.getName().compareToIgnoreCase(o2.getName()) :
-                  library;
+            libraryType = PackageLibraryUtils.typeOfLibrary(session_, pkgInfo.getLibrary());
+            libraryTypes.put(pkgInfo.getLibrary(), libraryType);
          }
+         index.add(new IndexedPackage(pkgInfo, libraryType));
+      }
+
+      // sort first by library, then by name
+      Collections.sort(index, (o1, o2) ->
+      {
+         int library = o1.libraryType.compareTo(o2.libraryType);
+         return library == 0 ?
+               o1.info.getName().compareToIgnoreCase(o2.info.getName()) :
+               library;
       });
 
       // Mark  which packages are first in their respective libraries (used
       // later to render headers)
+      allPackages_ = new ArrayList<>(index.size());
+      packageRows_.clear();
       PackageLibraryType libraryType = PackageLibraryType.None;
-      for (PackageInfo pkgInfo: allPackages_)
+      for (IndexedPackage pkg : index)
       {
-         PackageLibraryType pkgLibraryType = PackageLibraryUtils.typeOfLibrary(
-               session_, pkgInfo.getLibrary());
-         if (pkgLibraryType != libraryType)
-         {
-            pkgInfo.setFirstInLibrary(true);
-            libraryType = pkgLibraryType;
-         }
+         pkg.info.setFirstInLibrary(pkg.libraryType != libraryType);
+         libraryType = pkg.libraryType;
+
+         packageRows_.put(packageKey(pkg.info), allPackages_.size());
+         allPackages_.add(pkg.info);
       }
 
-      projectContext_ = newState.getProjectContext();
-      view_.setProgress(false);
-      setViewPackageList();
+      packageIndex_ = index;
+      lastFilter_ = null;
+      lastFilterMatches_ = null;
+   }
+
+   private static String packageKey(PackageInfo pkgInfo)
+   {
+      return packageKey(pkgInfo.getLibrary(), pkgInfo.getName());
+   }
+
+   private static String packageKey(String library, String name)
+   {
+      return library + "/" + name;
+   }
+
+   // a package, with the (lowercase) text matched by the package filter
+   private static class IndexedPackage
+   {
+      IndexedPackage(PackageInfo info, PackageLibraryType libraryType)
+      {
+         this.info = info;
+         this.libraryType = libraryType;
+         name = info.getName().toLowerCase();
+         desc = info.getDesc().toLowerCase();
+      }
+
+      PackageInfo info;
+      final PackageLibraryType libraryType;
+      final String name;
+      final String desc;
    }
 
    private void getPackageNamesFromActions(
@@ -1260,6 +1339,11 @@ public class Packages
    private final PackratServerOperations packratServer_;
    private final RenvServerOperations renvServer_;
    private ArrayList<PackageInfo> allPackages_ = new ArrayList<>();
+   private ArrayList<IndexedPackage> packageIndex_ = new ArrayList<>();
+   private final HashMap<String, Integer> packageRows_ = new HashMap<>();
+   private int packageStateVersion_ = 0;
+   private String lastFilter_ = null;
+   private List<Integer> lastFilterMatches_ = null;
    private ProjectContext projectContext_;
    private String packageFilter_ = new String();
    private HandlerRegistration consolePromptHandlerReg_ = null;
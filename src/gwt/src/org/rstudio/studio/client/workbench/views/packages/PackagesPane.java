@@ -66,7 +66,6 @@ import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.user.cellview.client.AbstractCellTable;
 import com.google.gwt.user.cellview.client.Column;
-import com.google.gwt.user.cellview.client.DataGrid;
 import com.google.gwt.user.cellview.client.DefaultCellTableBuilder;
 import com.google.gwt.user.cellview.client.HasKeyboardSelectionPolicy.KeyboardSelectionPolicy;
 import com.google.gwt.user.cellview.client.TextColumn;
@@ -109,7 +108,12 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
    {
       projectContext_ = projectContext;
       packagesDataProvider_.setList(packages);
-      createPackagesTable();
+
+      // the table's columns depend on whether there's a project library; if
+      // they haven't changed, the table can be reused (so that, e.g., typing
+      // in the filter box just updates the rows shown)
+      if (packagesTable_ == null || projectColumns_ != projectContext_.isActive())
+         createPackagesTable();
 
       // manage visibility of Packrat / renv menu buttons
       PackratContext packratContext = projectContext_.getPackratContext();
@@ -333,8 +337,7 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
       try
       {
          packagesTableContainer_.clear();
-         packagesTable_ = new RStudioDataGrid<>(
-            packagesDataProvider_.getList().size(), dataGridRes_);
+         packagesTable_ = new RStudioDataGrid<>(RStudioDataGrid.RENDER_CHUNK_ROWS, dataGridRes_);
       }
       catch (Exception e)
       {
@@ -379,6 +382,14 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
    {
       packagesTable_.setKeyboardSelectionPolicy(KeyboardSelectionPolicy.DISABLED);
       packagesTable_.setSelectionModel(new NoSelectionModel<>());
+      projectColumns_ = projectContext_.isActive();
+
+      // rows are rendered as they're scrolled to (rather than all at once),
+      // a chunk at a time; since rows differ in height (descriptions wrap,
+      // and libraries have headers) they can't be virtualized like those in
+      // a VirtualizedDataGrid
+      packagesTable_.addScrollHandler(event ->
+         packagesTable_.renderMoreIfNeeded(packagesDataProvider_.getList().size()));
         
       LoadedColumn loadedColumn = new LoadedColumn();
       
@@ -678,7 +689,7 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
       }
    }
    
-   private DataGrid<PackageInfo> packagesTable_;
+   private RStudioDataGrid<PackageInfo> packagesTable_;
    private ListDataProvider<PackageInfo> packagesDataProvider_;
    private SearchWidget searchWidget_;
    private PackagesDisplayObserver observer_;
@@ -688,6 +699,7 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
    private Widget projectButtonSeparator_;
    
    private LayoutPanel packagesTableContainer_;
+   private boolean projectColumns_;
    private int gridRenderRetryCount_;
    private ProjectContext projectContext_;
 
@@ -695,5 +707,6 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
    private final Session session_;
    private final GlobalDisplay display_;
    private final PackagesDataGridResources dataGridRes_;
+
    private static final PackagesConstants constants_ = com.google.gwt.core.client.GWT.create(PackagesConstants.class);
 }
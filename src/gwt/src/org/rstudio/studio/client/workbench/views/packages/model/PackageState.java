@@ -28,6 +28,33 @@ public class PackageState extends JavaScriptObject
    public final native JsArray<PackageInfo> getPackageList() /*-{
       return this.package_list;
    }-*/;
+
+   // the version of the package list; package state changes sent after the
+   // client has a package list hold just the differences from the version
+   // they're based on
+   public final native int getVersion() /*-{
+      return this.version || 0;
+   }-*/;
+
+   public final native boolean isDelta() /*-{
+      return this.package_delta != null;
+   }-*/;
+
+   public final native int getBaseVersion() /*-{
+      return this.base_version || 0;
+   }-*/;
+
+   public final native JsArray<PackageInfo> getAddedPackages() /*-{
+      return this.package_delta.added;
+   }-*/;
+
+   public final native JsArray<PackageInfo> getRemovedPackages() /*-{
+      return this.package_delta.removed;
+   }-*/;
+
+   public final native JsArray<PackageInfo> getChangedPackages() /*-{
+      return this.package_delta.changed;
+   }-*/;
    
    public final native ProjectContext getProjectContext() /*-{
       return {
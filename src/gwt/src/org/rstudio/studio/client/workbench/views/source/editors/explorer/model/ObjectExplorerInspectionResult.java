@@ -41,6 +41,7 @@ public class ObjectExplorerInspectionResult extends JavaScriptObject
    public final native boolean isNamed()           /*-{ return this["named"];      }-*/;
    public final native boolean isS4()              /*-{ return this["s4"];         }-*/;
    public final native boolean isMoreAvailable()   /*-{ return this["more"];       }-*/;
+   public final native void setMoreAvailable(boolean more) /*-{ this["more"] = more; }-*/;
    
    public final native String getDisplayName() /*-{ return this["display"]["name"];      }-*/;
    public final native String getDisplayType() /*-{ return this["display"]["type"];      }-*/;
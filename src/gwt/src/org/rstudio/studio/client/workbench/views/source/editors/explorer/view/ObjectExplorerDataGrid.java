@@ -15,7 +15,9 @@
 package org.rstudio.studio.client.workbench.views.source.editors.explorer.view;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.JsVectorString;
@@ -24,6 +26,7 @@ import org.rstudio.core.client.ListUtil.FilterPredicate;
 import org.rstudio.core.client.SafeHtmlUtil;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.command.KeyboardShortcut;
+import org.rstudio.core.client.container.LruCache;
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.dom.DomUtils.ElementPredicate;
 import org.rstudio.core.client.theme.RStudioDataGridResources;
@@ -89,6 +92,8 @@ import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.KeyCodes;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.event.logical.shared.AttachEvent;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.resources.client.ImageResource;
@@ -100,6 +105,7 @@ import com.google.gwt.user.cellview.client.RowHoverEvent;
 import com.google.gwt.user.cellview.client.TextHeader;
 import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Event;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.view.client.CellPreviewEvent;
 import com.google.gwt.view.client.ListDataProvider;
 import com.google.inject.Inject;
@@ -594,6 +600,25 @@ public class ObjectExplorerDataGrid
       addRowHoverHandler(this);
       addDomHandler(this, ClickEvent.getType());
 
+      // retrieve more children as the user scrolls towards 'More...' rows
+      prefetchTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            prefetchVisiblePages();
+         }
+      };
+
+      addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            prefetchTimer_.schedule(PREFETCH_DELAY_MS);
+         }
+      });
+
       // populate the view once initially
       initializeRoot();
    }
@@ -1003,19 +1028,19 @@ public class ObjectExplorerDataGrid
          @Override
          public void execute()
          {
-            // set all direct children as visible
-            JsArray<Data> children = data.getChildrenData();
-            for (int i = 0, n = children.length(); i < n; i++)
-               children.get(i).setVisible(true);
+            // bail if the row was closed while we were waiting for children
+            if (data.getExpansionState() != ExpansionState.OPEN)
+               return;
 
             // set attributes as visible if available
             Data attributes = data.getObjectAttributes().<Data>cast();
             if (attributes != null)
                attributes.setVisible(true);
 
-            // force update of data grid
-            synchronize();
+            // update the rows for this node
+            synchronize(data);
             setFocusDeferred(true);
+            prefetchTimer_.schedule(PREFETCH_DELAY_MS);
          }
       });
    }
@@ -1031,27 +1056,24 @@ public class ObjectExplorerDataGrid
       // toggle expansion state
       data.setExpansionState(ExpansionState.CLOSED);
 
-      // set direct children as non-visible
-      withChildren(data, false, new Command()
+      // move the children we've retrieved into the subtree cache, so that
+      // they're restored without a server request if the row is re-opened
+      // soon, but can be discarded if many other rows are opened and closed
+      JsArray<Data> children = data.getChildrenData();
+      if (children != null)
       {
-         @Override
-         public void execute()
-         {
-            // set all direct children as invisible
-            JsArray<Data> children = data.getChildrenData();
-            for (int i = 0, n = children.length(); i < n; i++)
-               children.get(i).setVisible(false);
+         subtreeCache_.put(data, children);
+         data.setChildren(null);
+      }
 
-            // set attributes as invisible if available
-            Data attributes = data.getObjectAttributes().<Data>cast();
-            if (attributes != null)
-               attributes.setVisible(false);
+      // set attributes as invisible if available
+      Data attributes = data.getObjectAttributes().<Data>cast();
+      if (attributes != null)
+         attributes.setVisible(false);
 
-            // force update of data grid
-            synchronize();
-            setFocusDeferred(true);
-         }
-      });
+      // update the rows for this node
+      synchronize(data);
+      setFocusDeferred(true);
    }
 
    private void setFocusDeferred(final boolean focused)
@@ -1094,25 +1116,61 @@ public class ObjectExplorerDataGrid
       // select the previous row (so that we don't end up scrolling all over the place)
       selectRowRelative(row);
 
+      retrieveMore(parent);
+   }
+
+   // retrieves the next page of children for a node, unless we're already
+   // doing so
+   private void retrieveMore(final Data parent)
+   {
+      if (pendingPages_.contains(parent))
+         return;
+
       // update the limit on the number of children we're showing
       parent.setMaximumChildRowsShown(parent.getMaximumChildRowsShown() + DEFAULT_ROW_LIMIT);
 
+      pendingPages_.add(parent);
       withChildren(parent, true, new Command()
       {
          @Override
          public void execute()
          {
-            synchronize();
+            synchronize(parent);
+            prefetchTimer_.schedule(PREFETCH_DELAY_MS);
          }
       });
    }
 
+   // retrieves the next page of children for any node whose 'More...' row is
+   // on screen or about to be, so that the user can keep scrolling through
+   // large objects without waiting on (or clicking) the 'More...' row
+   private void prefetchVisiblePages()
+   {
+      List<Data> rows = getData();
+      int firstRow = (int) (getScrollPanel().getVerticalScrollPosition() / getRowHeight());
+      int lastRow = firstRow + (int) (getOffsetHeight() / getRowHeight()) + PREFETCH_AHEAD_ROWS;
+      for (int i = Math.max(0, firstRow), n = Math.min(lastRow, rows.size()); i < n; i++)
+      {
+         Data data = rows.get(i);
+         if (data.isMorePlaceholder() && data.getParentData() != null)
+            retrieveMore(data.getParentData());
+      }
+   }
+
    private void withChildren(final Data data,
                              final boolean forceRequest,
                              final Command command)
    {
-      // if we already have children, exit early
+      // restore children from the subtree cache if we have them
       JsArray<Data> children = data.getChildrenData();
+      if (children == null && !forceRequest)
+      {
+         children = subtreeCache_.remove(data);
+         if (children != null)
+            data.setChildren(children.cast());
+      }
+
+      // if we already have children, exit early
       if (!forceRequest && children != null)
       {
          if (command != null)
@@ -1120,6 +1178,12 @@ public class ObjectExplorerDataGrid
          return;
       }
 
+      // if we're retrieving children from scratch (e.g. they were evicted
+      // from the subtree cache), show only the first page of them
+      final int fromIndex = data.getNumChildren();
+      if (fromIndex == 0)
+         data.setMaximumChildRowsShown(DEFAULT_ROW_LIMIT);
+
       // no children; make a server RPC request and then call back
       String extractingCode = generateExtractingCode(data, "`__OBJECT__`");
       server_.explorerInspectObject(
@@ -1128,15 +1192,23 @@ public class ObjectExplorerDataGrid
             data.getDisplayName(),
             data.getObjectAccess(),
             data.getTags().<JsArrayString>cast(),
-            data.getNumChildren(),
+            fromIndex,
             new ServerRequestCallback<ObjectExplorerInspectionResult>()
             {
                @Override
                public void onResponseReceived(ObjectExplorerInspectionResult result)
                {
+                  pendingPages_.remove(data);
+
+                  // bail if the node's children changed while the request
+                  // was in flight (e.g. the node was closed)
+                  if (data.getNumChildren() != fromIndex)
+                     return;
+
                   // set parent ownership for children
                   JsArray<Data> children = result.getChildren().cast();
                   data.addChildrenData(children);
+                  data.setMoreAvailable(result.isMoreAvailable());
                   for (int i = 0, n = children.length(); i < n; i++)
                      children.get(i).setParentData(data);
 
@@ -1156,6 +1228,7 @@ public class ObjectExplorerDataGrid
                @Override
                public void onError(ServerError error)
                {
+                  pendingPages_.remove(data);
                   Debug.logError(error);
                }
             });
@@ -1180,6 +1253,8 @@ public class ObjectExplorerDataGrid
                {
                   root_ = result.cast();
                   root_.updateChildOwnership();
+                  subtreeCache_.clear();
+                  pendingPages_.clear();
                   root_.setExpansionState(ExpansionState.OPEN);
                   synchronize();
 
@@ -1271,6 +1346,48 @@ public class ObjectExplorerDataGrid
       redraw();
    }
 
+   // Updates only the rows below 'data' after it has been opened or closed,
+   // or has had more children retrieved, rather than flattening the whole
+   // tree again.
+   private void synchronize(Data data)
+   {
+      List<Data> rows = getData();
+      int row = rows.indexOf(data);
+
+      // the filter may match rows anywhere in the tree, so synchronize
+      // everything when it's active
+      if (row == -1 || !StringUtil.notNull(filter_).trim().isEmpty())
+      {
+         synchronize();
+         return;
+      }
+
+      saveScrollPosition();
+
+      // find the rows currently drawn for this node's descendants
+      int end = row + 1;
+      while (end < rows.size() && rows.get(end).hasParentData(data))
+         end++;
+
+      List<Data> descendants = new ArrayList<>();
+      flattenChildrenImpl(data, VISIBLE_FILTER, descendants);
+
+      List<Data> updated = new ArrayList<>(rows.size() - (end - row - 1) + descendants.size());
+      updated.addAll(rows.subList(0, row + 1));
+      updated.addAll(descendants);
+      updated.addAll(rows.subList(end, rows.size()));
+
+      // keep the selection on the same row if it was below the updated rows
+      int selectedRow = getKeyboardSelectedRow();
+      int delta = updated.size() - rows.size();
+
+      setData(updated);
+      redraw();
+
+      if (delta != 0 && selectedRow >= end)
+         setKeyboardSelectedRow(selectedRow + delta, false);
+   }
+
    @Override
    public double getRowHeight()
    {
@@ -1328,9 +1445,16 @@ public class ObjectExplorerDataGrid
       // add data
       output.add(data);
 
-      // recurse through children
+      flattenChildrenImpl(data, filter, output);
+   }
+
+   private final void flattenChildrenImpl(Data data,
+                                          Filter<Data> filter,
+                                          List<Data> output)
+   {
+      // recurse through children of open nodes
       JsArray<Data> children = data.getChildrenData();
-      if (children == null)
+      if (children == null || data.getExpansionState() != ExpansionState.OPEN)
          return;
 
       // only add children within the drawing limit to this list
@@ -1380,6 +1504,14 @@ public class ObjectExplorerDataGrid
 
    private final ListDataProvider<Data> dataProvider_;
 
+   // children of closed nodes, kept so that re-opening them is immediate
+   private final LruCache<Data, JsArray<Data>> subtreeCache_ =
+         new LruCache<>(MAX_CACHED_SUBTREES);
+
+   // nodes for which we're retrieving another page of children
+   private final Set<Data> pendingPages_ = new HashSet<>();
+   private final Timer prefetchTimer_;
+
    private int scrollPosition_ = -1;
    private TableRowElement hoveredRow_;
    private boolean showAttributes_;
@@ -1398,6 +1530,21 @@ public class ObjectExplorerDataGrid
    // SessionObjectExplorer.R
    private static final int DEFAULT_ROW_LIMIT = 1000;
 
+   // how far below the visible rows we look for 'More...' rows to retrieve
+   private static final int PREFETCH_AHEAD_ROWS = 200;
+   private static final int PREFETCH_DELAY_MS = 100;
+
+   private static final int MAX_CACHED_SUBTREES = 50;
+
+   private static final Filter<Data> VISIBLE_FILTER = new Filter<Data>()
+   {
+      @Override
+      public boolean accept(Data data)
+      {
+         return data.isVisible();
+      }
+   };
+
    private static final String ACTION_OPEN    = "open";
    private static final String ACTION_CLOSE   = "close";
    private static final String ACTION_EXTRACT = "extract";
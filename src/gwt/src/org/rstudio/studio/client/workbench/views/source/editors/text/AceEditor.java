@@ -124,6 +124,7 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.events.Fold
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.LineWidgetsChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.PasteEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.RenderFinishedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.ScopeTreeChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.ScopeTreeReadyEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.UndoRedoEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkDefinition;
@@ -3477,6 +3478,11 @@ public class AceEditor implements DocDisplay,
       return handlers_.addHandler(ScopeTreeReadyEvent.TYPE, handler);
    }
 
+   public HandlerRegistration addScopeTreeChangedHandler(ScopeTreeChangedEvent.Handler handler)
+   {
+      return handlers_.addHandler(ScopeTreeChangedEvent.TYPE, handler);
+   }
+
    public HandlerRegistration addActiveScopeChangedHandler(ActiveScopeChangedEvent.Handler handler)
    {
       return handlers_.addHandler(ActiveScopeChangedEvent.TYPE, handler);
@@ -4404,6 +4410,12 @@ public class AceEditor implements DocDisplay,
       return getSession().getTokens(row);
    }
 
+   @Override
+   public String getTokenizerState(int row)
+   {
+      return getSession().getState(row);
+   }
+
    @Override
    public TokenIterator createTokenIterator()
    {
@@ -60,6 +60,7 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.events.HasF
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.HasLineWidgetsChangedHandlers;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.HasRenderFinishedHandlers;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.PasteEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.ScopeTreeChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.ScopeTreeReadyEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.UndoRedoEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkDefinition;
@@ -270,6 +271,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
 
    boolean isScopeTreeReady(int row);
    HandlerRegistration addScopeTreeReadyHandler(ScopeTreeReadyEvent.Handler handler);
+   HandlerRegistration addScopeTreeChangedHandler(ScopeTreeChangedEvent.Handler handler);
    HandlerRegistration addActiveScopeChangedHandler(ActiveScopeChangedEvent.Handler handler);
 
    Position getCursorPosition();
@@ -386,6 +388,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    Token getTokenAt(int row, int column);
    Token getTokenAt(Position position);
    JsArray<Token> getTokens(int row);
+   String getTokenizerState(int row);
 
    TokenIterator createTokenIterator();
    TokenIterator createTokenIterator(Position position);
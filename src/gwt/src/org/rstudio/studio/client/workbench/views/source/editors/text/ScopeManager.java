@@ -36,7 +36,9 @@ public class ScopeManager
    public final native JsArray<Scope> getActiveScopes(Position position);
    public final native JsArray<Scope> getScopeList();
    public final native Position invalidateFrom(Position position);
-   
+   public final native JsArray<Scope> detachFrom(Position position);
+   public final native void reattach(JsArray<Scope> scopes, int index, int rowDelta);
+
    @JsOverlay
    public final Scope getScopeAt(Position position)
    {
@@ -0,0 +1,97 @@
+/*
+ * ScopeTreeDamage.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+/**
+ * Accumulates the rows touched by edits made before the scope tree is next
+ * updated into a single damaged row range and a net row delta.
+ *
+ * The range is kept in the coordinates of the current document: rows before
+ * its start are unchanged, and rows after its end are unchanged apart from
+ * having moved by the row delta.
+ */
+public class ScopeTreeDamage
+{
+   /**
+    * Adds an edit of the given rows; for an insert the end row is that of
+    * the document after the edit, and for a removal that of the document
+    * before it (as in Ace's change events).
+    */
+   public void onChange(boolean insert, int startRow, int endRow)
+   {
+      int rows = endRow - startRow;
+      if (isEmpty())
+      {
+         startRow_ = startRow;
+         endRow_ = insert ? endRow : startRow;
+         rowDelta_ = insert ? rows : -rows;
+         return;
+      }
+
+      // rows after the edit move; rows removed by the edit collapse onto its start
+      startRow_ = Math.min(startRow_, startRow);
+      if (insert)
+      {
+         if (endRow_ >= startRow)
+            endRow_ += rows;
+         endRow_ = Math.max(endRow_, endRow);
+         rowDelta_ += rows;
+      }
+      else
+      {
+         if (endRow_ > endRow)
+            endRow_ -= rows;
+         else if (endRow_ >= startRow)
+            endRow_ = startRow;
+         endRow_ = Math.max(endRow_, startRow);
+         rowDelta_ -= rows;
+      }
+   }
+
+   public boolean isEmpty()
+   {
+      return startRow_ == -1;
+   }
+
+   public int getStartRow()
+   {
+      return startRow_;
+   }
+
+   public int getEndRow()
+   {
+      return endRow_;
+   }
+
+   public int getRowDelta()
+   {
+      return rowDelta_;
+   }
+
+   /**
+    * Returns true if the given row (of the current document) is outside the
+    * damaged range, so that the tokenizer state recorded for it before the
+    * tokenizer revisits the edit is still the state it had before the edits.
+    * Rows in the range hold whatever placeholder state Ace gave them.
+    */
+   public boolean isUnchanged(int row)
+   {
+      return isEmpty() || row < startRow_ || row > endRow_;
+   }
+
+   private int startRow_ = -1;
+   private int endRow_;
+   private int rowDelta_;
+}
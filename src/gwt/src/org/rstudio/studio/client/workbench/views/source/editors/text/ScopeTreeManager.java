@@ -14,20 +14,23 @@
  */
 package org.rstudio.studio.client.workbench.views.source.editors.text;
 
+import org.rstudio.core.client.IdleScheduler;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.studio.client.RStudioGinjector;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Token;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.TokenIterator;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.ActiveScopeChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.ScopeTreeChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.ScopeTreeReadyEvent;
 
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.event.logical.shared.AttachEvent;
 import com.google.gwt.event.shared.HandlerRegistration;
-import com.google.gwt.user.client.Timer;
 
 // NOTE: Historically, scope tree management was implemented as part of
 // an accompanying code model, written as part of our JavaScript Ace
@@ -58,15 +61,7 @@ public abstract class ScopeTreeManager
             }),
             
             docDisplay.addDocumentChangedHandler((DocumentChangedEvent event) -> {
-               final Position position = event.getEvent().getRange().getStart();
-               Scheduler.get().scheduleDeferred(() -> {
-                  
-                  Position rebuildPos = scopeManager_.invalidateFrom(Position.create(position));
-                  if (rebuildPos == null)
-                     rebuildPos = position;
-                     
-                  worker_.rebuildScopeTreeFromRow(rebuildPos.getRow());
-               });
+               onDocumentChanged(event.getEvent());
             }),
             
             docDisplay.addCursorChangedHandler((CursorChangedEvent event) -> {
@@ -104,28 +99,122 @@ public abstract class ScopeTreeManager
          handler.removeHandler();
    }
    
+   // Accumulates the rows touched by edits made before the scope tree is
+   // next updated (edits arriving in the same event loop are handled together)
+   private void onDocumentChanged(AceDocumentChangeEventNative event)
+   {
+      if (damage_.isEmpty())
+         Scheduler.get().scheduleDeferred(() -> onDocumentDamaged());
+      
+      damage_.onChange(StringUtil.equals(event.getAction(), "insert"),
+                       event.start.getRow(),
+                       event.end.getRow());
+   }
+   
+   private void onDocumentDamaged()
+   {
+      ScopeTreeDamage damage = damage_;
+      damage_ = new ScopeTreeDamage();
+      int startRow = damage.getStartRow();
+      
+      // the scopes beginning after the edited rows are unchanged apart from
+      // their position; detach them so they can be reattached once the reparse
+      // is past the edit, rather than reparsing through to the end of the
+      // document. (we can only do this if the tree was complete, since otherwise
+      // the last of these scopes may be only partially built.)
+      JsArray<Scope> retained = null;
+      if (worker_.isFinished())
+      {
+         int firstUnchangedRow = damage.getEndRow() + 1 - damage.getRowDelta();
+         retained = scopeManager_.detachFrom(Position.create(firstUnchangedRow, 0));
+      }
+      else
+      {
+         // don't skip over rows the worker hadn't reached yet
+         startRow = Math.min(startRow, Math.max(0, scopeManager_.getParsePosition().getRow()));
+      }
+      
+      Position rebuildPos = scopeManager_.invalidateFrom(Position.create(startRow, 0));
+      if (rebuildPos == null)
+         rebuildPos = Position.create(startRow, 0);
+      
+      worker_.rebuildScopeTreeFromRow(rebuildPos.getRow(), damage, retained);
+   }
+   
    private class Worker
    {
       private Worker()
       {
-         timer_ = new Timer()
+         task_ = new IdleScheduler.Task("Scope tree")
          {
             @Override
-            public void run()
+            public boolean execute(IdleScheduler.Deadline deadline)
             {
-               work();
+               while (work())
+               {
+                  if (deadline.hasExpired())
+                     return true;
+               }
+               return false;
             }
          };
       }
       
-      public void rebuildScopeTreeFromRow(int row)
+      // Rebuilds the scope tree from the given row. Scopes detached from the
+      // tree which began after the edited rows (retained) are reattached, moved
+      // by the damage's row delta, as soon as the reparse reaches one of them
+      // in the same state in which it was originally parsed.
+      public void rebuildScopeTreeFromRow(int row,
+                                          ScopeTreeDamage damage,
+                                          JsArray<Scope> retained)
       {
          startRow_ = row;
          endRow_ = Math.min(docDisplay_.getRowCount(), startRow_ + ROWS_TOKENIZED_PER_ITERATION);
-         work();
+         rebuildStartRow_ = Math.max(0, row - 1);
+         damageEndRow_ = damage.getEndRow();
+         rowDelta_ = damage.getRowDelta();
+         finished_ = false;
+         
+         retained_ = retained;
+         retainedIndex_ = 0;
+         retainedStates_ = null;
+         if (retained_ != null && retained_.length() > 0)
+         {
+            // the tokenizer hasn't yet revisited the rows after the edit, so
+            // their states are those from when the retained scopes were parsed.
+            // the states of the edited rows are placeholders (Ace reports
+            // "start" for them), so a scope preceded by one of those is left
+            // with a null (unknown) state
+            retainedStates_ = new String[retained_.length()];
+            for (int i = 0; i < retained_.length(); i++)
+            {
+               int stateRow = retained_.get(i).getPreamble().getRow() + rowDelta_ - 1;
+               if (stateRow >= 0 &&
+                   stateRow < docDisplay_.getRowCount() &&
+                   damage.isUnchanged(stateRow))
+               {
+                  retainedStates_[i] = docDisplay_.getTokenizerState(stateRow);
+               }
+            }
+         }
+         else
+         {
+            retained_ = null;
+         }
+         
+         // parse the first rows now (usually enough to resynchronize after
+         // an edit), and the remainder when the browser is idle
+         if (work())
+            task_.schedule();
       }
       
-      private int work()
+      public boolean isFinished()
+      {
+         return finished_;
+      }
+      
+      // parses the next rows, returning true if there are more to parse
+      private boolean work()
       {
          Position position = Position.create(startRow_ - 1, 0);
          
@@ -137,6 +226,7 @@ public abstract class ScopeTreeManager
          if (token == null)
             token = it.stepForward();
          
+         int lastRow = -1;
          while (true)
          {
             // if we don't have a token, that implies we've reached the end of the document.
@@ -146,14 +236,12 @@ public abstract class ScopeTreeManager
                // save the parse position (needed when invalidating rows as the document mutates)
                scopeManager_.setParsePosition(Position.create(it.getCurrentTokenRow(), -1));
                
-               // notify listeners that we have a scope tree + the current scope
-               JsArray<Scope> scopeTree = scopeManager_.getScopeList();
-               Scope currentScope = scopeManager_.getScopeAt(docDisplay_.getCursorPosition());
-               ScopeTreeReadyEvent event = new ScopeTreeReadyEvent(scopeTree, currentScope);
-               docDisplay_.fireEvent(event);
+               // any retained scopes were reparsed
+               retained_ = null;
+               finish(docDisplay_.getRowCount());
                
                // we're done!
-               return docDisplay_.getRowCount();
+               return false;
             }
             
             // if we've walked past the end row, bail
@@ -161,6 +249,16 @@ public abstract class ScopeTreeManager
             if (row >= endRow_)
                break;
             
+            // if the reparse has caught up with the scopes that followed the edit,
+            // put those back and stop here
+            if (row != lastRow && resync(row))
+            {
+               scopeManager_.setParsePosition(Position.create(docDisplay_.getRowCount(), -1));
+               finish(row);
+               return false;
+            }
+            lastRow = row;
+            
             // let subclass respond to current token, and move forward
             onToken(token, it.getCurrentTokenPosition(), scopeManager_);
             token = it.stepForward();
@@ -170,28 +268,98 @@ public abstract class ScopeTreeManager
          scopeManager_.setParsePosition(Position.create(it.getCurrentTokenRow(), -1));
          
          // if there are still rows to be tokenized in the document,
-         // schedule more work
+         // there's more work to do
          if (startRow_ < docDisplay_.getRowCount())
          {
             startRow_ = it.getCurrentTokenRow();
             endRow_ = Math.min(docDisplay_.getRowCount(), startRow_ + ROWS_TOKENIZED_PER_ITERATION);
-            timer_.schedule(DELAY_MS);
+            return true;
          }
          
-         return it.getCurrentTokenRow();
+         return false;
+      }
+      
+      // Called before the first token on each row is parsed. Returns true if
+      // the retained scopes were reattached at this row.
+      private boolean resync(int row)
+      {
+         if (retained_ == null || row <= damageEndRow_)
+            return false;
+         
+         // retained scopes we've already passed have been reparsed
+         while (retainedIndex_ < retained_.length() &&
+                retainedRow(retainedIndex_) < row)
+         {
+            retainedIndex_++;
+         }
+         
+         if (retainedIndex_ == retained_.length())
+         {
+            retained_ = null;
+            return false;
+         }
+         
+         if (retainedRow(retainedIndex_) != row)
+            return false;
+         
+         // the scope must follow the same tokenizer state as before (e.g. the
+         // edit hasn't opened a string that now swallows it); if we don't know
+         // that state, keep reparsing until a scope whose state we do know ...
+         String state = retainedStates_[retainedIndex_];
+         if (state == null || !StringUtil.equals(state, docDisplay_.getTokenizerState(row - 1)))
+            return false;
+         
+         // ... and must be at the top level of the reparsed tree
+         JsArray<Scope> active = scopeManager_.getActiveScopes(Position.create(row, 0));
+         if (active.length() != 1)
+            return false;
+         
+         scopeManager_.reattach(retained_, retainedIndex_, rowDelta_);
+         retained_ = null;
+         return true;
+      }
+      
+      private int retainedRow(int index)
+      {
+         return retained_.get(index).getPreamble().getRow() + rowDelta_;
+      }
+      
+      private void finish(int endRow)
+      {
+         finished_ = true;
+         task_.cancel();
+         
+         // notify listeners of the rows that were reparsed ...
+         docDisplay_.fireEvent(new ScopeTreeChangedEvent(rebuildStartRow_, endRow, rowDelta_));
+         
+         // ... and that we have a scope tree + the current scope
+         JsArray<Scope> scopeTree = scopeManager_.getScopeList();
+         Scope currentScope = scopeManager_.getScopeAt(docDisplay_.getCursorPosition());
+         ScopeTreeReadyEvent event = new ScopeTreeReadyEvent(scopeTree, currentScope);
+         docDisplay_.fireEvent(event);
       }
       
       private int startRow_;
       private int endRow_;
+      private int rebuildStartRow_;
+      private int damageEndRow_;
+      private int rowDelta_;
+      private boolean finished_;
+      
+      private JsArray<Scope> retained_;
+      private String[] retainedStates_;
+      private int retainedIndex_;
       
-      private final Timer timer_;
+      private final IdleScheduler.Task task_;
       
-      private static final int DELAY_MS = 5;
       private static final int ROWS_TOKENIZED_PER_ITERATION = 200;
    }
    
    protected Scope lastActiveScope_;
    
+   // the rows edited since the scope tree was last updated
+   private ScopeTreeDamage damage_ = new ScopeTreeDamage();
+   
    protected final DocDisplay docDisplay_;
    private final Worker worker_;
    private final ScopeManager scopeManager_;
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.rstudio.core.client.IdleScheduler;
 import org.rstudio.core.client.JsVector;
 import org.rstudio.core.client.JsVectorInteger;
 import org.rstudio.core.client.ListUtil;
@@ -30,12 +31,12 @@ import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.EditorModeChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.RenderFinishedEvent;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
-import com.google.gwt.user.client.Timer;
 import com.google.inject.Inject;
 
 public class AceBackgroundHighlighter
@@ -86,56 +87,96 @@ public class AceBackgroundHighlighter
       private int matchLength_;
    }
   
+   // Computes the state of each row, starting from the first row whose state
+   // is unknown, and draws markers for the rows near the viewport. Since the
+   // state of a row depends on the rows above it, rows are processed in order,
+   // but only as far as the viewport; rows below are processed once they're
+   // scrolled into view.
    private class Worker
    {
       public Worker()
       {
-         timer_ = new Timer()
+         task_ = new IdleScheduler.Task("Chunk background highlighting")
          {
             @Override
-            public void run()
+            public boolean execute(IdleScheduler.Deadline deadline)
             {
-               work();
+               if (!enabled_)
+                  return false;
+               
+               while (work())
+               {
+                  if (deadline.hasExpired())
+                     return true;
+               }
+               
+               syncMarkers();
+               return false;
+            }
+            
+            @Override
+            public int getPriority()
+            {
+               return row_ <= editor_.getLastVisibleRow()
+                     ? IdleScheduler.PRIORITY_VISIBLE
+                     : IdleScheduler.PRIORITY_NORMAL;
             }
          };
       }
       
-      private void work()
+      // computes the state of the next chunk of rows, returning true if
+      // there are more rows to compute before the end of the viewport
+      private boolean work()
       {
-         if (!enabled_)
-            return;
-         
-         // determine range to update
-         int n = editor_.getRowCount();
-         int startRow = row_;
-         int endRow = Math.min(startRow + CHUNK_SIZE, editor_.getRowCount());
+         int endRow = Math.min(row_ + CHUNK_SIZE, lastRow());
+         if (row_ >= endRow)
+            return false;
          
-         activeHighlightPattern_ = findActiveHighlightPattern(startRow);
+         activeHighlightPattern_ = findActiveHighlightPattern(row_);
          
-         // first, update local background state for each row
-         for (int row = startRow; row < endRow; row++)
+         int row = row_;
+         for (; row < endRow; row++)
          {
             // determine what state this row is in
             int state = computeState(row);
             
-            // if there's been no change, bail
+            // if there's been no change, the rows following are also up to
+            // date, up to the next row that has been edited
             boolean isConsistentState =
-                  rowStates_.isSet(row) &&
-                  rowPatterns_.isSet(row) &&
+                  hasState(row) &&
                   (rowStates_.get(row) == state) &&
                   (rowPatterns_.get(row) == activeHighlightPattern_);
             
             if (isConsistentState)
-               break;
+            {
+               row = nextRowWithoutState(row + 1, endRow);
+               if (row == endRow)
+                  break;
+               
+               activeHighlightPattern_ = findActiveHighlightPattern(row);
+               state = computeState(row);
+            }
             
             // update state for this row
             rowStates_.set(row, state);
             rowPatterns_.set(row, activeHighlightPattern_);
          }
          
-         // then, notify Ace and perform actual rendering of markers
-         for (int row = startRow; row < endRow; row++)
+         row_ = endRow;
+         return endRow < lastRow();
+      }
+      
+      // notify Ace and perform actual rendering of markers for the
+      // rows near the viewport
+      private void syncMarkers()
+      {
+         int firstRow = firstRow();
+         int lastRow = Math.min(row_, lastRow());
+         for (int row = firstRow; row < lastRow; row++)
          {
+            if (!hasState(row))
+               continue;
+            
             int state = rowStates_.get(row);
             int marker = markerIds_.get(row, 0);
             
@@ -167,24 +208,53 @@ public class AceBackgroundHighlighter
             }
          }
          
-         // update worker state and reschedule if there's
-         // more work to be done
-         row_ = endRow;
-         if (endRow != n)
-            timer_.schedule(DELAY_MS);
+         syncedFirstRow_ = firstRow;
+         syncedLastRow_ = lastRow;
       }
       
       public void start(int row)
       {
          row_ = Math.min(row, row_);
-         timer_.schedule(0);
+         task_.schedule();
       }
       
-      private final Timer timer_;
+      // called when the editor is rendered, e.g. after scrolling
+      public void onRender()
+      {
+         if (!enabled_ || highlightPatterns_.isEmpty() || task_.isScheduled())
+            return;
+         
+         if (row_ < lastRow() || firstRow() < syncedFirstRow_ || lastRow() > syncedLastRow_)
+            task_.schedule();
+      }
+      
+      private int nextRowWithoutState(int row, int endRow)
+      {
+         while (row < endRow && hasState(row))
+            row++;
+         return row;
+      }
+      
+      // the range of rows (end exclusive) near the viewport
+      private int firstRow()
+      {
+         return Math.max(0, editor_.getFirstVisibleRow() - VIEWPORT_MARGIN_ROWS);
+      }
+      
+      private int lastRow()
+      {
+         return Math.min(editor_.getRowCount(), editor_.getLastVisibleRow() + 1 + VIEWPORT_MARGIN_ROWS);
+      }
+      
+      private final IdleScheduler.Task task_;
       private int row_;
       
-      private static final int DELAY_MS = 5;
+      // the rows whose markers were last synchronized with their state
+      private int syncedFirstRow_;
+      private int syncedLastRow_;
+      
       private static final int CHUNK_SIZE = 200;
+      private static final int VIEWPORT_MARGIN_ROWS = 100;
    }
    
    public AceBackgroundHighlighter(AceEditor editor)
@@ -196,6 +266,7 @@ public class AceBackgroundHighlighter
       
       highlightPatterns_ = new ArrayList<>();
       editor.addEditorModeChangedHandler(this);
+      editor.addRenderFinishedHandler((RenderFinishedEvent event) -> worker_.onRender());
       
       int n = editor.getRowCount();
       rowStates_ = JavaScriptObject.createArray(n).cast();
@@ -384,7 +455,7 @@ public class AceBackgroundHighlighter
       
       // if this row has no state, then we need to look
       // back until we find a row with cached state
-      while (startRow > 0 && !rowStates_.isSet(startRow - 1))
+      while (startRow > 0 && !hasState(startRow - 1))
          startRow--;
       
       // start the worker that will update ace
@@ -405,6 +476,11 @@ public class AceBackgroundHighlighter
       }
    }
    
+   private boolean hasState(int row)
+   {
+      return rowStates_.get(row, 0) != 0 && rowPatterns_.isSet(row);
+   }
+   
    private void clearRowState()
    {
       rowStates_.fill(0);
@@ -19,6 +19,8 @@ import java.util.List;
 
 import org.rstudio.core.client.BrowseCap;
 import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.IdleScheduler;
+import org.rstudio.core.client.JsVectorString;
 import org.rstudio.core.client.ListUtil;
 import org.rstudio.core.client.MapUtil;
 import org.rstudio.core.client.MapUtil.ForEachCommand;
@@ -47,6 +49,7 @@ import org.rstudio.studio.client.workbench.views.source.ViewsSourceConstants;
 import org.rstudio.studio.client.workbench.views.source.editors.text.AceEditor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.EditorModeChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.RenderFinishedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CommandClickEvent;
 
 import com.google.gwt.core.client.GWT;
@@ -60,7 +63,6 @@ import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.resources.client.CssResource;
 import com.google.gwt.user.client.Event;
-import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Event.NativePreviewEvent;
 import com.google.gwt.user.client.Event.NativePreviewHandler;
 import com.google.inject.Inject;
@@ -99,25 +101,39 @@ public class AceEditorBackgroundLinkHighlighter
       editor_ = editor;
       activeMarkers_ = new SafeMap<>();
 
-      nextHighlightStart_ = 0;
-      timer_ = new Timer()
+      highlightedLines_ = JsVectorString.createVector();
+      task_ = new IdleScheduler.Task("Link highlighting")
       {
          @Override
-         public void run()
+         public boolean execute(IdleScheduler.Deadline deadline)
          {
+            // highlight the visible rows first, then the rows just below and
+            // above them; other rows are highlighted when scrolled into view
             int n = editor_.getCurrentLineCount();
-            int startRow = nextHighlightStart_;
-            int endRow   = Math.min(nextHighlightStart_ + N_HIGHLIGHT_ROWS, n);
+            int firstVisibleRow = Math.max(0, editor_.getFirstVisibleRow());
+            int lastVisibleRow = Math.min(n - 1, editor_.getLastVisibleRow());
+            int firstRow = Math.max(0, firstVisibleRow - VIEWPORT_MARGIN_ROWS);
+            int lastRow = Math.min(n - 1, lastVisibleRow + VIEWPORT_MARGIN_ROWS);
 
-            for (int row = startRow; row < endRow; row++)
-               highlightRow(row);
+            boolean done =
+                  highlightRows(firstVisibleRow, lastVisibleRow, deadline) &&
+                  highlightRows(lastVisibleRow + 1, lastRow, deadline) &&
+                  highlightRows(firstRow, firstVisibleRow - 1, deadline);
 
-            nextHighlightStart_ = endRow;
-            if (endRow != n)
-               timer_.schedule(5);
+            if (done)
+            {
+               highlightedFirstRow_ = firstRow;
+               highlightedLastRow_ = lastRow;
+            }
+            return !done;
          }
-      };
 
+         @Override
+         public int getPriority()
+         {
+            return IdleScheduler.PRIORITY_VISIBLE;
+         }
+      };
 
       highlighters_ = new ArrayList<>();
       
@@ -127,6 +143,19 @@ public class AceEditorBackgroundLinkHighlighter
       handlers_.add(editor_.addEditorModeChangedHandler(this));
       handlers_.add(editor_.addMouseMoveHandler(this));
       handlers_.add(editor_.addCommandClickHandler(this));
+      handlers_.add(editor_.addRenderFinishedHandler((RenderFinishedEvent event) ->
+      {
+         // highlight rows scrolled into view (unless we're waiting to
+         // highlight after an edit)
+         if (task_.isScheduled())
+            return;
+
+         if (editor_.getFirstVisibleRow() < highlightedFirstRow_ ||
+             editor_.getLastVisibleRow() > highlightedLastRow_)
+         {
+            task_.schedule();
+         }
+      }));
       
       userPrefs_.highlightWebLink().bind((Boolean enabled) ->
       {
@@ -160,19 +189,50 @@ public class AceEditorBackgroundLinkHighlighter
                highlighters_.add(markdownLinkHighlighter());
             }
             
-            nextHighlightStart_ = 0;
-            timer_.schedule(100);
+            clearHighlightedRows();
+            task_.schedule(100);
          }
       });
    }
 
-   private void highlightRow(int row)
+   // highlights those rows whose text has changed since they were last
+   // highlighted; returns false if the deadline expired before we finished
+   private boolean highlightRows(int startRow,
+                                 int endRow,
+                                 IdleScheduler.Deadline deadline)
+   {
+      for (int row = startRow; row <= endRow; row++)
+      {
+         String line = editor_.getLine(row);
+         if (highlightedLines_.isSet(row) &&
+             StringUtil.equals(highlightedLines_.get(row), line))
+         {
+            continue;
+         }
+
+         highlightRow(row, line);
+         highlightedLines_.set(row, line);
+
+         if (deadline.hasExpired())
+            return false;
+      }
+
+      return true;
+   }
+
+   private void highlightRow(int row, String line)
    {
-      String line = editor_.getLine(row);
       for (Highlighter highlighter : highlighters_)
          highlighter.highlight(line, row);
    }
 
+   private void clearHighlightedRows()
+   {
+      highlightedLines_.setLength(0);
+      highlightedFirstRow_ = -1;
+      highlightedLastRow_ = -1;
+   }
+
    private void registerActiveMarker(int row,
                                      int markerId,
                                      final AnchoredRange range)
@@ -608,10 +668,23 @@ public class AceEditorBackgroundLinkHighlighter
       // clear markers within the delete range
       clearMarkers(event.getEvent().getRange());
 
-      // prepare highlighter
-      int row = event.getEvent().getRange().getStart().getRow();
-      nextHighlightStart_ = Math.min(nextHighlightStart_, row);
-      timer_.schedule(700);
+      // rows touched by the edit need to be highlighted again; the rows
+      // after it move with the edit
+      AceDocumentChangeEventNative nativeEvent = event.getEvent();
+      int startRow = nativeEvent.getRange().getStart().getRow();
+      int newlineCount = nativeEvent.getRange().getEnd().getRow() - startRow;
+      if (nativeEvent.getAction().startsWith("insert"))
+      {
+         highlightedLines_.unset(startRow);
+         highlightedLines_.insert(startRow, JsVectorString.ofLength(newlineCount));
+      }
+      else
+      {
+         if (newlineCount > 0)
+            highlightedLines_.remove(startRow, newlineCount);
+         highlightedLines_.unset(startRow);
+      }
+      task_.schedule(700);
 
       // update marker positions (deferred so that anchors update)
       Scheduler.get().scheduleDeferred(new ScheduledCommand()
@@ -751,12 +824,20 @@ public class AceEditorBackgroundLinkHighlighter
 
    private final AceEditor editor_;
    private final List<Highlighter> highlighters_;
-   private final Timer timer_;
+   private final IdleScheduler.Task task_;
    private final List<HandlerRegistration> handlers_;
 
    private SafeMap<Integer, List<MarkerRegistration>> activeMarkers_;
-   private int nextHighlightStart_;
-   private static final int N_HIGHLIGHT_ROWS = 200;
+
+   // the text of each row when it was last highlighted, so that rows whose
+   // text hasn't changed aren't highlighted again
+   private final JsVectorString highlightedLines_;
+
+   // the rows highlighted the last time the highlighter ran to completion
+   private int highlightedFirstRow_ = -1;
+   private int highlightedLastRow_ = -1;
+
+   private static final int VIEWPORT_MARGIN_ROWS = 100;
 
    private HandlerRegistration previewHandler_;
    
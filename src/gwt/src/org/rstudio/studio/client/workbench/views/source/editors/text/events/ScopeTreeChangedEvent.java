@@ -0,0 +1,61 @@
+/*
+ * ScopeTreeChangedEvent.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.events;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+
+// Describes the part of the scope tree that changed after an edit: scopes
+// beginning on rows [startRow, endRow) were rebuilt, and the scopes after
+// them were kept, moved by rowDelta rows. Fired before the ScopeTreeReadyEvent
+// for the same update.
+public class ScopeTreeChangedEvent extends GwtEvent<ScopeTreeChangedEvent.Handler>
+{
+   public ScopeTreeChangedEvent(int startRow, int endRow, int rowDelta)
+   {
+      startRow_ = startRow;
+      endRow_ = endRow;
+      rowDelta_ = rowDelta;
+   }
+
+   public int getStartRow() { return startRow_; }
+   public int getEndRow() { return endRow_; }
+   public int getRowDelta() { return rowDelta_; }
+
+   private final int startRow_;
+   private final int endRow_;
+   private final int rowDelta_;
+
+   // Boilerplate ----
+
+   public interface Handler extends EventHandler
+   {
+      void onScopeTreeChanged(ScopeTreeChangedEvent event);
+   }
+
+   @Override
+   public Type<Handler> getAssociatedType()
+   {
+      return TYPE;
+   }
+
+   @Override
+   protected void dispatch(Handler handler)
+   {
+      handler.onScopeTreeChanged(this);
+   }
+
+   public static final Type<Handler> TYPE = new Type<>();
+}
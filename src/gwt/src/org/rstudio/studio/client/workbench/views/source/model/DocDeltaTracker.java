@@ -0,0 +1,190 @@
+/*
+ * DocDeltaTracker.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * Accumulates editor changes into the single region of a document that
+ * differs from a baseline (the contents last saved), so that a save can
+ * send just that region without comparing the whole document against the
+ * baseline.
+ *
+ * The region is kept in the coordinates of the current document: text
+ * before its start and after its end is the same as in the baseline.
+ */
+public class DocDeltaTracker
+{
+   /**
+    * Starts tracking changes against a baseline that matches the current
+    * document, whose length is given.
+    */
+   public void reset(int length)
+   {
+      valid_ = true;
+      changed_ = false;
+      length_ = length;
+   }
+
+   /**
+    * Stops tracking; the region is unknown until the next reset.
+    */
+   public void invalidate()
+   {
+      valid_ = false;
+      changed_ = false;
+   }
+
+   public boolean isValid()
+   {
+      return valid_;
+   }
+
+   public boolean hasChanges()
+   {
+      return changed_;
+   }
+
+   // length of the document, as tracked from the changes applied to it
+   public int getLength()
+   {
+      return length_;
+   }
+
+   public Position getStart()
+   {
+      return Position.create(startRow_, startColumn_);
+   }
+
+   public Position getEnd()
+   {
+      return Position.create(endRow_, endColumn_);
+   }
+
+   public int getStartRow()
+   {
+      return startRow_;
+   }
+
+   public void onDocumentChanged(AceDocumentChangeEventNative event)
+   {
+      if (!valid_)
+         return;
+
+      JsArrayString lines = event.lines;
+      int textLength = lines.length() - 1;
+      for (int i = 0; i < lines.length(); i++)
+         textLength += lines.get(i).length();
+
+      onChange(StringUtil.equals(event.action, "insert"),
+               event.start.getRow(), event.start.getColumn(),
+               event.end.getRow(), event.end.getColumn(),
+               textLength);
+   }
+
+   /**
+    * Records a change. For an insert, the range spans the inserted text
+    * after the change; for a removal, it spans the removed text before it.
+    */
+   public void onChange(boolean insert,
+                        int startRow, int startColumn,
+                        int endRow, int endColumn,
+                        int textLength)
+   {
+      if (!valid_)
+         return;
+
+      length_ += insert ? textLength : -textLength;
+
+      if (!changed_)
+      {
+         changed_ = true;
+         startRow_ = startRow;
+         startColumn_ = startColumn;
+         if (insert)
+         {
+            endRow_ = endRow;
+            endColumn_ = endColumn;
+         }
+         else
+         {
+            endRow_ = startRow;
+            endColumn_ = startColumn;
+         }
+         return;
+      }
+
+      // text before the change is untouched, so the region need only be
+      // extended back to the start of the change
+      if (compare(startRow, startColumn, startRow_, startColumn_) < 0)
+      {
+         startRow_ = startRow;
+         startColumn_ = startColumn;
+      }
+
+      if (insert)
+      {
+         if (compare(startRow, startColumn, endRow_, endColumn_) > 0)
+         {
+            // inserted after the region; extend it over the new text
+            endRow_ = endRow;
+            endColumn_ = endColumn;
+         }
+         else
+         {
+            // inserted within or before the region; its end moves along
+            // with the text that follows it
+            if (endRow_ == startRow)
+               endColumn_ = endColumn + (endColumn_ - startColumn);
+            endRow_ += endRow - startRow;
+         }
+      }
+      else
+      {
+         if (compare(endRow, endColumn, endRow_, endColumn_) > 0)
+         {
+            // removed text after the region's end; the region now extends
+            // to where the text was removed
+            endRow_ = startRow;
+            endColumn_ = startColumn;
+         }
+         else
+         {
+            // removed within or before the region
+            if (endRow_ == endRow)
+               endColumn_ = startColumn + (endColumn_ - endColumn);
+            endRow_ -= endRow - startRow;
+         }
+      }
+   }
+
+   private static int compare(int row1, int column1, int row2, int column2)
+   {
+      return row1 != row2 ? row1 - row2 : column1 - column2;
+   }
+
+   private boolean valid_ = false;
+   private boolean changed_ = false;
+   private int length_ = 0;
+
+   private int startRow_;
+   private int startColumn_;
+   private int endRow_;
+   private int endColumn_;
+}
@@ -0,0 +1,89 @@
+/*
+ * DocSaveStatistics.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+// Timings for the saves of a single document, for diagnosing slow saves.
+// "Prepare" is the time spent on the client computing what to send;
+// "round trip" is the time from sending the save to receiving the response.
+public class DocSaveStatistics
+{
+   void recordPrepared(boolean incremental, int charactersSent, double prepareMillis)
+   {
+      lastIncremental_ = incremental;
+      lastCharactersSent_ = charactersSent;
+      lastPrepareMillis_ = prepareMillis;
+      lastRoundTripMillis_ = Double.NaN;
+
+      if (incremental)
+         incrementalCount_++;
+      else
+         fullCount_++;
+   }
+
+   void recordCompleted(double roundTripMillis)
+   {
+      lastRoundTripMillis_ = roundTripMillis;
+   }
+
+   // whether the last save sent only the changes accumulated since the
+   // previous save (rather than diffing the whole document)
+   public boolean isLastIncremental()
+   {
+      return lastIncremental_;
+   }
+
+   public int getLastCharactersSent()
+   {
+      return lastCharactersSent_;
+   }
+
+   public double getLastPrepareMillis()
+   {
+      return lastPrepareMillis_;
+   }
+
+   // NaN if the last save hasn't completed
+   public double getLastRoundTripMillis()
+   {
+      return lastRoundTripMillis_;
+   }
+
+   public int getIncrementalCount()
+   {
+      return incrementalCount_;
+   }
+
+   public int getFullCount()
+   {
+      return fullCount_;
+   }
+
+   @Override
+   public String toString()
+   {
+      return (lastIncremental_ ? "incremental" : "full") + " save: " +
+             lastCharactersSent_ + " chars, prepared in " +
+             Math.round(lastPrepareMillis_) + "ms, round trip " +
+             (Double.isNaN(lastRoundTripMillis_) ? "pending" : Math.round(lastRoundTripMillis_) + "ms") +
+             " (" + incrementalCount_ + " incremental, " + fullCount_ + " full)";
+   }
+
+   private boolean lastIncremental_;
+   private int lastCharactersSent_;
+   private double lastPrepareMillis_;
+   private double lastRoundTripMillis_ = Double.NaN;
+   private int incrementalCount_;
+   private int fullCount_;
+}
@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.workbench.views.source.model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -42,6 +43,7 @@ import org.rstudio.studio.client.workbench.prefs.model.UserPrefs;
 import org.rstudio.studio.client.workbench.views.source.ViewsSourceConstants;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.Fold;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.VimMarks;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.FoldChangeEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.SourceOnSaveChangedEvent;
@@ -50,6 +52,7 @@ import org.rstudio.studio.client.workbench.views.source.events.SaveFailedEvent;
 import org.rstudio.studio.client.workbench.views.source.events.SaveFileEvent;
 import org.rstudio.studio.client.workbench.views.source.events.SaveInitiatedEvent;
 
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
@@ -84,9 +87,15 @@ public class DocUpdateSentinel
             SourceDocument response)
       {
          sourceDoc_ = response;
+         savedDiff_ = null;
          docDisplay_.setCode(sourceDoc_.getContents(), true);
          dirtyState_.markClean();
 
+         // the document now matches what the server has
+         deltaTracker_.reset(sourceDoc_.getContents().length());
+         ackedGeneration_ = ++deltaGeneration_;
+         sourceAscii_ = SaveDiff.isAscii(sourceDoc_.getContents());
+
          if (progress_ != null)
             progress_.onCompleted();
 
@@ -119,6 +128,167 @@ public class DocUpdateSentinel
       private boolean ignoreDeletes_ = false;
    }
 
+   // The change to send to the server: a replacement for a range of the
+   // saved contents, with the offset and length in UTF-8 bytes. The contents
+   // after the change are only built when asked for, so that saving doesn't
+   // have to copy the whole document.
+   private static class SaveDiff
+   {
+      // no change to the given contents
+      public SaveDiff(String contents, boolean ascii)
+      {
+         replacement_ = "";
+         valid_ = true;
+         newLength_ = contents.length();
+         newAscii_ = ascii;
+         newContents_ = contents;
+      }
+
+      // diffs the whole document against the saved contents
+      public SaveDiff(String oldContents, String newContents)
+      {
+         SubstringDiff diff = new SubstringDiff(oldContents, newContents);
+         newContents_ = newContents;
+         replacement_ = diff.getReplacement();
+         offset_ = diff.getOffset();
+         length_ = diff.getLength();
+         valid_ = diff.isValid();
+         newLength_ = newContents.length();
+         newAscii_ = isAscii(newContents);
+      }
+
+      // replaces the given range (in characters) of the contents produced
+      // by the saved diff
+      public SaveDiff(SaveDiff saved,
+                      String replacement,
+                      int charOffset,
+                      int charLength)
+      {
+         base_ = saved;
+         replacement_ = replacement;
+         charOffset_ = charOffset;
+         charLength_ = charLength;
+         valid_ = true;
+         newLength_ = saved.getNewLength() - charLength + replacement.length();
+         newAscii_ = saved.isNewContentsAscii() && isAscii(replacement);
+
+         if (saved.isNewContentsAscii())
+         {
+            offset_ = charOffset;
+            length_ = charLength;
+         }
+         else
+         {
+            String oldContents = saved.getNewContents();
+            offset_ = utf8Length(oldContents, 0, charOffset);
+            length_ = utf8Length(oldContents, charOffset, charOffset + charLength);
+         }
+      }
+
+      public String getReplacement()
+      {
+         return replacement_;
+      }
+
+      public int getOffset()
+      {
+         return offset_;
+      }
+
+      public int getLength()
+      {
+         return length_;
+      }
+
+      public boolean isValid()
+      {
+         return valid_;
+      }
+
+      public boolean isEmpty()
+      {
+         return length_ == 0 && replacement_.length() == 0;
+      }
+
+      public int getNewLength()
+      {
+         return newLength_;
+      }
+
+      public boolean isNewContentsAscii()
+      {
+         return newAscii_;
+      }
+
+      public String getNewContents()
+      {
+         if (newContents_ == null)
+         {
+            // this may follow a run of saves whose contents were never
+            // needed; build those first, oldest first
+            ArrayList<SaveDiff> unbuilt = new ArrayList<>();
+            for (SaveDiff diff = this; diff.newContents_ == null; diff = diff.base_)
+               unbuilt.add(diff);
+            for (int i = unbuilt.size() - 1; i >= 0; i--)
+               unbuilt.get(i).build();
+         }
+         return newContents_;
+      }
+
+      private void build()
+      {
+         String oldContents = base_.newContents_;
+         newContents_ =
+               StringUtil.substring(oldContents, 0, charOffset_) +
+               replacement_ +
+               StringUtil.substring(oldContents, charOffset_ + charLength_);
+         base_ = null;
+      }
+
+      public static boolean isAscii(String text)
+      {
+         for (int i = 0, n = text.length(); i < n; i++)
+            if (text.charAt(i) >= 128)
+               return false;
+         return true;
+      }
+
+      // the number of bytes needed to encode the given range as UTF-8 (as
+      // TextEncoder does, so unpaired surrogates take three bytes)
+      private static int utf8Length(String text, int start, int end)
+      {
+         int length = 0;
+         for (int i = start; i < end; i++)
+         {
+            char ch = text.charAt(i);
+            if (ch < 0x80)
+               length += 1;
+            else if (ch < 0x800)
+               length += 2;
+            else if (Character.isHighSurrogate(ch) && i + 1 < end &&
+                     Character.isLowSurrogate(text.charAt(i + 1)))
+            {
+               length += 4;
+               i++;
+            }
+            else
+               length += 3;
+         }
+         return length;
+      }
+
+      private SaveDiff base_;
+      private final String replacement_;
+      private final boolean valid_;
+      private final int newLength_;
+      private final boolean newAscii_;
+      private int offset_;
+      private int length_;
+      private int charOffset_;
+      private int charLength_;
+      private String newContents_;
+   }
+
    public DocUpdateSentinel(SourceServerOperations server,
                             DocDisplay docDisplay,
                             SourceDocument sourceDoc,
@@ -172,6 +342,8 @@ public class DocUpdateSentinel
 
       docDisplay_.addValueChangeHandler(this);
       docDisplay_.addFoldChangeHandler(this);
+      documentChangedHandlerReg_ = docDisplay_.addDocumentChangedHandler(
+            event -> deltaTracker_.onDocumentChanged(event.getEvent()));
       
       // Web only
       if (!Desktop.isDesktop())
@@ -501,19 +673,27 @@ public class DocUpdateSentinel
          actually sent to the server. */
       final ChangeTracker thisChangeTracker = changeTracker_.fork();
 
-      final String newContents = docDisplay_.getCode();
-      String oldContents = sourceDoc_.getContents();
+      final double prepareStart = Duration.currentTimeMillis();
+
+      final SaveDiff saved = getSavedDiff();
       final String hash = sourceDoc_.getHash();
 
-      final String foldSpec = Fold.encode(Fold.flatten(docDisplay_.getFolds()));
+      // Prefer sending just the region changed since the last save, which
+      // doesn't require reading or scanning the rest of the document; fall
+      // back to diffing the whole document against the last saved copy.
+      SaveDiff incrementalDiff = getIncrementalDiff(saved);
+      final boolean incremental = incrementalDiff != null;
+      final SaveDiff diff = incremental ?
+            incrementalDiff :
+            new SaveDiff(saved.getNewContents(), docDisplay_.getCode());
+
+      final String foldSpec = getFoldSpec(incremental);
       String oldFoldSpec = sourceDoc_.getFoldSpec();
 
       final JsArray<ChunkDefinition> newChunkDefs = chunkDefProvider_.getChunkDefs();
       JsArray<ChunkDefinition> oldChunkDefs =
             sourceDoc_.getNotebookDoc().getChunkDefs();
 
-      SubstringDiff diff = new SubstringDiff(oldContents, newContents);
-
       // Don't auto-save when there are no changes. In addition to being
       // wasteful, it causes the server to think the document is dirty.
       if (path == null && fileType == null && diff.isValid() && diff.isEmpty()
@@ -521,13 +701,19 @@ public class DocUpdateSentinel
           && (newChunkDefs == null ||
               ChunkDefinition.equalTo(newChunkDefs, oldChunkDefs)))
       {
+         // the document matches what was last saved, so we can start
+         // tracking changes from here
+         if (!incremental && ackedGeneration_ == deltaGeneration_)
+            deltaTracker_.reset(saved.getNewLength());
+
          changesPending_ = false;
          return false;
       }
 
       if (path == null && fileType == null
-          && oldContents.length() == 0
-          && newContents == "\n")
+          && saved.getNewLength() == 0
+          && diff.getNewLength() == 1
+          && diff.getNewContents() == "\n")
       {
          // This is necessary due to us adding an extra \n to empty
          // documents, which we have to do or else CodeMirror starts
@@ -538,6 +724,10 @@ public class DocUpdateSentinel
          return false;
       }
 
+      // Changes made from here on are relative to the contents we're about
+      // to send; they can be sent incrementally once this save succeeds.
+      final int generation = ++deltaGeneration_;
+      deltaTracker_.reset(diff.getNewLength());
 
       try
       {
@@ -552,6 +742,11 @@ public class DocUpdateSentinel
          Debug.logException(e);
       }
 
+      saveStatistics_.recordPrepared(incremental,
+                                     diff.getReplacement().length(),
+                                     Duration.currentTimeMillis() - prepareStart);
+      final double sendTime = Duration.currentTimeMillis();
+
       server_.saveDocumentDiff(
             sourceDoc_.getId(),
             path,
@@ -570,6 +765,8 @@ public class DocUpdateSentinel
                @Override
                public void onError(ServerError error)
                {
+                  saveStatistics_.recordCompleted(Duration.currentTimeMillis() - sendTime);
+
                   // Always log save errors.
                   Debug.logError(error);
 
@@ -603,6 +800,8 @@ public class DocUpdateSentinel
                {
                   if (newHash != null)
                   {
+                     saveStatistics_.recordCompleted(Duration.currentTimeMillis() - sendTime);
+
                      // If the document hasn't changed further since the version
                      // we saved, then we know we're all synced up.
                      try
@@ -610,13 +809,20 @@ public class DocUpdateSentinel
                         if (!thisChangeTracker.hasChanged())
                            changeTracker_.reset();
 
+                        // changes tracked since this save are now relative
+                        // to what the server has (unless another save has
+                        // started since)
+                        if (generation == deltaGeneration_)
+                           ackedGeneration_ = generation;
+                        sourceAscii_ = diff.isNewContentsAscii();
+
                         // update the foldSpec and newChunkDefs so we
                         // can use them for change detection the next
                         // time around
                         sourceDoc_.setFoldSpec(foldSpec);
                         sourceDoc_.getNotebookDoc().setChunkDefs(newChunkDefs);
 
-                        onSuccessfulUpdate(newContents,
+                        onSuccessfulUpdate(diff,
                                            newHash,
                                            path,
                                            fileType,
@@ -654,7 +860,7 @@ public class DocUpdateSentinel
                            encoding,
                            foldSpec,
                            newChunkDefs,
-                           newContents,
+                           diff.getNewContents(),
                            retryWrite,
                            this);
                   }
@@ -664,14 +870,74 @@ public class DocUpdateSentinel
       return true;
    }
 
-   private void onSuccessfulUpdate(String contents,
+   // Returns the changes made since the last save, based on the document's
+   // change events; or null if they aren't known and the whole document must
+   // be diffed instead.
+   private SaveDiff getIncrementalDiff(SaveDiff saved)
+   {
+      if (!deltaTracker_.isValid() || ackedGeneration_ != deltaGeneration_)
+         return null;
+
+      if (!deltaTracker_.hasChanges())
+         return new SaveDiff(saved, "", 0, 0);
+
+      // check that the tracked changes account for the whole document (e.g.
+      // they won't if a change event was dropped)
+      int lastRow = docDisplay_.getRowCount() - 1;
+      int length = docDisplay_.indexFromPosition(
+            Position.create(lastRow, docDisplay_.getLength(lastRow)));
+      if (length != deltaTracker_.getLength())
+      {
+         deltaTracker_.invalidate();
+         return null;
+      }
+
+      Position start = deltaTracker_.getStart();
+      Position end = deltaTracker_.getEnd();
+      int startIndex = docDisplay_.indexFromPosition(start);
+      int endIndex = docDisplay_.indexFromPosition(end);
+      int oldEndIndex = saved.getNewLength() - (length - endIndex);
+      if (endIndex < startIndex || oldEndIndex < startIndex)
+      {
+         deltaTracker_.invalidate();
+         return null;
+      }
+
+      return new SaveDiff(saved,
+                          docDisplay_.getCode(start, end),
+                          startIndex,
+                          oldEndIndex - startIndex);
+   }
+
+   private String getFoldSpec(boolean incremental)
+   {
+      // Folds only move when the text before them changes, so if every change
+      // since the last save comes after the last fold, the fold spec from
+      // that save is still current.
+      String oldFoldSpec = sourceDoc_.getFoldSpec();
+      if (incremental && !foldsChanged_ && oldFoldSpec != null &&
+          (!deltaTracker_.hasChanges() || deltaTracker_.getStartRow() > lastFoldRow_))
+      {
+         return oldFoldSpec;
+      }
+
+      ArrayList<Fold> folds = Fold.flatten(docDisplay_.getFolds());
+      lastFoldRow_ = -1;
+      for (Fold fold : folds)
+         lastFoldRow_ = Math.max(lastFoldRow_, fold.getEndRow());
+      foldsChanged_ = false;
+
+      return Fold.encode(folds);
+   }
+
+   private void onSuccessfulUpdate(SaveDiff diff,
                                    String hash,
                                    String path,
                                    String fileType,
                                    String encoding)
    {
       changesPending_ = false;
-      sourceDoc_.setContents(contents);
+      savedDiff_ = diff;
       sourceDoc_.setHash(hash);
       if (path != null)
       {
@@ -882,6 +1148,7 @@ public class DocUpdateSentinel
    @Override
    public void onFoldChange(FoldChangeEvent event)
    {
+      foldsChanged_ = true;
       nudgeAutosave();
    }
 
@@ -902,14 +1169,33 @@ public class DocUpdateSentinel
 
    public String getContents()
    {
-      return sourceDoc_.getContents();
+      return getDoc().getContents();
    }
 
    public SourceDocument getDoc()
    {
+      // store the contents last saved, if they haven't been yet
+      if (savedDiff_ != null)
+      {
+         sourceDoc_.setContents(savedDiff_.getNewContents());
+         savedDiff_ = null;
+      }
       return sourceDoc_;
    }
 
+   // the contents the server has, as the diff that produced them
+   private SaveDiff getSavedDiff()
+   {
+      if (savedDiff_ != null)
+         return savedDiff_;
+      return new SaveDiff(sourceDoc_.getContents(), sourceAscii_);
+   }
+
+   public DocSaveStatistics getSaveStatistics()
+   {
+      return saveStatistics_;
+   }
+
    public void stop()
    {
       if (autosaver_ != null)
@@ -926,6 +1212,12 @@ public class DocUpdateSentinel
          lastChanceSaveHandlerReg_.removeHandler();
          lastChanceSaveHandlerReg_ = null;
       }
+
+      if (documentChangedHandlerReg_ != null)
+      {
+         documentChangedHandlerReg_.removeHandler();
+         documentChangedHandlerReg_ = null;
+      }
    }
 
    public void revert()
@@ -1009,11 +1301,28 @@ public class DocUpdateSentinel
    private ApplicationQuit quit_;
    private HandlerRegistration closeHandlerReg_;
    private HandlerRegistration lastChanceSaveHandlerReg_;
+   private HandlerRegistration documentChangedHandlerReg_;
    private final HashMap<String, ValueChangeHandlerManager<String>>
                  propertyChangeHandlers_;
    private final ChunkDefinition.Provider chunkDefProvider_;
    private boolean loggedAutosaveError_ = false;
 
+   // changes made since the contents were last sent to the server; the
+   // generation counts saves (and reloads) so that changes are only sent
+   // incrementally when the last save has been acknowledged
+   private final DocDeltaTracker deltaTracker_ = new DocDeltaTracker();
+   private int deltaGeneration_ = 0;
+   private int ackedGeneration_ = 0;
+   private boolean sourceAscii_ = false;
+
+   // the last successful save, if sourceDoc_ doesn't yet have its contents
+   private SaveDiff savedDiff_ = null;
+
+   private boolean foldsChanged_ = true;
+   private int lastFoldRow_ = -1;
+
+   private final DocSaveStatistics saveStatistics_ = new DocSaveStatistics();
+
    public final static String PROPERTY_TRUE = "true";
    public final static String PROPERTY_FALSE = "false";
    private static final ViewsSourceConstants constants_ = GWT.create(ViewsSourceConstants.class);
@@ -250,6 +250,24 @@ public interface TerminalConstants extends com.google.gwt.i18n.client.Messages {
     @Key("notApplicableText")
     String notApplicableText();
 
+    /**
+     * Translated "\nOutput Statistics\n-----------------\n".
+     *
+     * @return translated "\nOutput Statistics\n-----------------\n"
+     */
+    @DefaultMessage("\\nOutput Statistics\\n-----------------\\n")
+    @Key("outputStatisticsText")
+    String outputStatisticsText();
+
+    /**
+     * Translated "Messages:   {0}\nCharacters: {1}\nWrites:     {2}\nLatency:    {3}ms mean, {4}ms max\nPaused:     {5}\n".
+     *
+     * @return translated "Messages:   {0}\nCharacters: {1}\nWrites:     {2}\nLatency:    {3}ms mean, {4}ms max\nPaused:     {5}\n"
+     */
+    @DefaultMessage("Messages:   {0}\\nCharacters: {1}\\nWrites:     {2}\\nLatency:    {3}ms mean, {4}ms max\\nPaused:     {5}\\n")
+    @Key("outputStatisticsMessage")
+    String outputStatisticsMessage(int messages, int characters, int writes, int meanLatency, int maxLatency, int paused);
+
     /**
      * Translated "Close".
      *
@@ -42,5 +42,58 @@ public class TerminalDiagnostics
       diagnostic_ = null;
    }
 
+   // output received from the server, before it is written to the terminal
+   public void outputReceived(int length)
+   {
+      outputMessages_++;
+      outputCharacters_ += length;
+   }
+
+   // a batch of output written to the terminal, latency being the time the
+   // oldest output in the batch waited to be written
+   public void outputWritten(double latencyMs)
+   {
+      outputWrites_++;
+      totalLatencyMs_ += latencyMs;
+      maxLatencyMs_ = Math.max(maxLatencyMs_, latencyMs);
+   }
+
+   // the server was asked to hold output because the terminal fell behind
+   public void outputPaused()
+   {
+      outputPauses_++;
+   }
+
+   public String getOutputStatistics()
+   {
+      int meanLatency = outputWrites_ == 0 ? 0 : (int) Math.round(totalLatencyMs_ / outputWrites_);
+      return constants_.outputStatisticsMessage(
+            outputMessages_,
+            (int) Math.min(outputCharacters_, Integer.MAX_VALUE),
+            outputWrites_,
+            meanLatency,
+            (int) Math.round(maxLatencyMs_),
+            outputPauses_);
+   }
+
+   public void resetOutputStatistics()
+   {
+      outputMessages_ = 0;
+      outputCharacters_ = 0;
+      outputWrites_ = 0;
+      totalLatencyMs_ = 0;
+      maxLatencyMs_ = 0;
+      outputPauses_ = 0;
+   }
+
    private StringBuilder diagnostic_;
+
+   private int outputMessages_;
+   private long outputCharacters_;
+   private int outputWrites_;
+   private double totalLatencyMs_;
+   private double maxLatencyMs_;
+   private int outputPauses_;
+
+   private static final TerminalConstants constants_ = com.google.gwt.core.client.GWT.create(TerminalConstants.class);
 }
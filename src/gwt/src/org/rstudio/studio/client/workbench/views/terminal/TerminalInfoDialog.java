@@ -86,6 +86,9 @@ public class TerminalInfoDialog extends ModalDialogBase
          diagnostics.append(constants_.connectionInformationText());
          diagnostics.append(session.getSocket().getConnectionDiagnostics());
 
+         diagnostics.append(constants_.outputStatisticsText());
+         diagnostics.append(session.getSocket().getOutputStatistics());
+
          diagnostics.append(constants_.matchFailuresText());
          if (!localEchoEnabled)
             diagnostics.append(constants_.notApplicableText());
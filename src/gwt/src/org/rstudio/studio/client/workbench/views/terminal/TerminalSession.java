@@ -16,6 +16,7 @@
 package org.rstudio.studio.client.workbench.views.terminal;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import com.google.gwt.user.client.Timer;
 import org.rstudio.core.client.AnsiCode;
@@ -542,6 +543,7 @@ public class TerminalSession extends XTermWidget
     */
    public void clearBuffer()
    {
+      socket_.flushOutput();
       clear();
 
       // talk directly to the server so it will wake up if suspended and
@@ -574,6 +576,7 @@ public class TerminalSession extends XTermWidget
 
    protected void writeError(String msg)
    {
+      socket_.flushOutput();
       writeln(constants_.writeErrorMessage(AnsiCode.ForeColor.RED, msg, AnsiCode.DEFAULTCOLORS));
    }
 
@@ -739,7 +742,7 @@ public class TerminalSession extends XTermWidget
       else
       {
          setReloading();
-         fetchNextChunk(0);
+         fetchBuffer();
       }
    }
 
@@ -773,7 +776,7 @@ public class TerminalSession extends XTermWidget
       }
    }
 
-   private void fetchNextChunk(final int chunkToFetch)
+   private void fetchBuffer()
    {
       if (!shellSupportsReload())
       {
@@ -781,51 +784,121 @@ public class TerminalSession extends XTermWidget
          return;
       }
 
+      final BufferReplay replay = new BufferReplay();
+      bufferReplay_ = replay;
       Scheduler.get().scheduleDeferred(() ->
       {
          onResize();
-         if (consoleProcess_ != null)
+         if (consoleProcess_ != null && bufferReplay_ == replay)
+            replay.start();
+      });
+   }
+
+   /**
+    * Fetches the saved terminal buffer and writes it to the terminal.
+    *
+    * Chunk zero is fetched on its own, since the server trims the saved
+    * buffer when it's requested; the remaining chunks are then requested
+    * several at a time rather than one round trip apiece. Responses are
+    * reassembled in chunk order and the whole buffer is written to the
+    * terminal once the last chunk has arrived.
+    */
+   private class BufferReplay
+   {
+      public void start()
+      {
+         requestChunk(0);
+      }
+
+      private boolean isActive()
+      {
+         return bufferReplay_ == this;
+      }
+
+      private void requestChunk(final int chunkToFetch)
+      {
+         inFlight_++;
+         consoleProcess_.getTerminalBufferChunk(chunkToFetch,
+               new ServerRequestCallback<ProcessBufferChunk>()
          {
-            consoleProcess_.getTerminalBufferChunk(chunkToFetch,
-                  new ServerRequestCallback<ProcessBufferChunk>()
+            @Override
+            public void onResponseReceived(ProcessBufferChunk chunk)
             {
-               @Override
-               public void onResponseReceived(final ProcessBufferChunk chunk)
-               {
-                  accept(chunk.getChunk());
-                  if (chunk.getMoreAvailable())
-                  {
-                     fetchNextChunk(chunk.getChunkNumber() + 1);
-                  }
-                  else
-                  {
-                     writeRestartSequence();
-                     if (procInfo_.getZombie())
-                        showZombieMessage();
-                     setNotReloading();
-                     for (String outputStr : deferredOutput_)
-                     {
-                        socket_.dispatchOutput(outputStr, doLocalEcho());
-                     }
-                     deferredOutput_.clear();
-                  }
-               }
+               inFlight_--;
+               if (isActive())
+                  onChunk(chunkToFetch, chunk);
+            }
 
-               @Override
-               public void onError(ServerError error)
-               {
-                  Debug.logError(error);
-                  writeError(error.getUserMessage());
-                  setNotReloading();
-                  deferredOutput_.clear();
-               }
-            });
+            @Override
+            public void onError(ServerError error)
+            {
+               inFlight_--;
+               if (!isActive())
+                  return;
+
+               bufferReplay_ = null;
+               Debug.logError(error);
+               writeError(error.getUserMessage());
+               setNotReloading();
+               deferredOutput_.clear();
+            }
+         });
+      }
+
+      private void onChunk(int chunkNumber, ProcessBufferChunk chunk)
+      {
+         // chunks requested past the end of the buffer come back empty
+         if (chunkNumber > lastChunk_)
+            return;
+
+         received_.put(chunkNumber, chunk.getChunk());
+         if (!chunk.getMoreAvailable())
+            lastChunk_ = chunkNumber;
+
+         while (received_.containsKey(nextToAppend_))
+         {
+            buffer_.append(received_.remove(nextToAppend_));
+            if (nextToAppend_ == lastChunk_)
+            {
+               finish();
+               return;
+            }
+            nextToAppend_++;
          }
-      });
+
+         if (consoleProcess_ == null)
+            return;
+
+         while (nextToRequest_ <= lastChunk_ && inFlight_ < REPLAY_PIPELINE_DEPTH)
+            requestChunk(nextToRequest_++);
+      }
+
+      private void finish()
+      {
+         bufferReplay_ = null;
+         accept(buffer_.toString());
+         writeRestartSequence();
+         if (procInfo_.getZombie())
+            showZombieMessage();
+         setNotReloading();
+         for (String outputStr : deferredOutput_)
+         {
+            socket_.dispatchOutput(outputStr, doLocalEcho());
+         }
+         deferredOutput_.clear();
+      }
+
+      private final StringBuilder buffer_ = new StringBuilder();
+      private final HashMap<Integer, String> received_ = new HashMap<>();
+      private int lastChunk_ = Integer.MAX_VALUE;
+      private int nextToAppend_ = 0;
+      private int nextToRequest_ = 1;
+      private int inFlight_ = 0;
    }
 
    public void showZombieMessage()
    {
+      socket_.flushOutput();
       writeln(constants_.processCompletedText());
       accept(constants_.zombieExitCodeText());
       if (procInfo_.getExitCode() != null)
@@ -959,6 +1032,10 @@ public class TerminalSession extends XTermWidget
    private boolean newTerminal_ = true;
    private boolean showAltAfterReload_;
    private final boolean createdByApi_;
+   private BufferReplay bufferReplay_;
+
+   // number of buffer chunks requested at once when reloading the terminal
+   private static final int REPLAY_PIPELINE_DEPTH = 4;
 
    // Injected ----
    private WorkbenchServerOperations server_;
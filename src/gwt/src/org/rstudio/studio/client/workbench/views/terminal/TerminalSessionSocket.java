@@ -32,6 +32,9 @@ import org.rstudio.studio.client.server.VoidServerRequestCallback;
 import org.rstudio.studio.client.workbench.views.terminal.events.TerminalDataInputEvent;
 import org.rstudio.studio.client.workbench.views.terminal.xterm.XTermWidget;
 
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationHandle;
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.sksamuel.gwt.websockets.CloseEvent;
@@ -115,6 +118,15 @@ public class TerminalSessionSocket
          }
       };
 
+      flushTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            flushOutput();
+         }
+      };
+
       // Underlying WebSocket object (JavaScript) can take up to 2 minutes to timeout
       // for certain issues with the server; shorten that via this timer
       connectWebSocketTimer_ = new Timer()
@@ -325,11 +337,60 @@ public class TerminalSessionSocket
    }
 
    /**
-    * Send output to the terminal emulator.
+    * Send output to the terminal emulator. Output is buffered and written to
+    * the terminal once per animation frame, so that a flood of small
+    * messages costs one terminal write per frame rather than one per message.
     * @param output text to send to the terminal
     * @param detectLocalEcho local-echo detection
     */
    public void dispatchOutput(String output, boolean detectLocalEcho)
+   {
+      if (pendingOutput_.length() > 0 && detectLocalEcho != pendingDetectLocalEcho_)
+         flushOutput();
+
+      if (pendingOutput_.length() == 0)
+         pendingSince_ = Duration.currentTimeMillis();
+      pendingOutput_.append(output);
+      pendingDetectLocalEcho_ = detectLocalEcho;
+      diagnostic_.outputReceived(output.length());
+
+      scheduleFlush();
+      updateFlowControl();
+   }
+
+   /**
+    * Write any buffered output to the terminal emulator now; used before
+    * writing directly to the terminal so that output stays in order.
+    */
+   public void flushOutput()
+   {
+      flushTimer_.cancel();
+      if (flushFrame_ != null)
+      {
+         flushFrame_.cancel();
+         flushFrame_ = null;
+      }
+
+      if (pendingOutput_.length() == 0)
+         return;
+
+      String output = pendingOutput_.toString();
+      pendingOutput_.setLength(0);
+      writeOutput(output, pendingDetectLocalEcho_);
+      diagnostic_.outputWritten(Duration.currentTimeMillis() - pendingSince_);
+
+      // xterm.js parses writes asynchronously; track how much it has yet to
+      // get through so we can tell the server when we've fallen behind
+      final int length = output.length();
+      unprocessedOutput_ += length;
+      xterm_.whenWritten(() ->
+      {
+         unprocessedOutput_ -= length;
+         updateFlowControl();
+      });
+   }
+
+   private void writeOutput(String output, boolean detectLocalEcho)
    {
       if (detectLocalEcho && PASSWORD_PATTERN.test(output))
       {
@@ -352,6 +413,48 @@ public class TerminalSessionSocket
       localEcho_.write(output);
    }
 
+   private void scheduleFlush()
+   {
+      if (flushFrame_ == null)
+         flushFrame_ = AnimationScheduler.get().requestAnimationFrame(timestamp ->
+         {
+            flushFrame_ = null;
+            flushOutput();
+         });
+
+      // animation frames don't run while the browser tab is hidden
+      if (!flushTimer_.isRunning())
+         flushTimer_.schedule(MAX_FLUSH_DELAY_MS);
+   }
+
+   /**
+    * Ask the server to hold output while we have more than
+    * OUTPUT_HIGH_WATER_MARK characters waiting to be written, and to resume
+    * once we're below OUTPUT_LOW_WATER_MARK. Only websocket connections
+    * support this; output over RPC is already limited by the server.
+    */
+   private void updateFlowControl()
+   {
+      if (socket_ == null)
+      {
+         outputPaused_ = false;
+         return;
+      }
+
+      int backlog = pendingOutput_.length() + unprocessedOutput_;
+      if (!outputPaused_ && backlog > OUTPUT_HIGH_WATER_MARK)
+      {
+         outputPaused_ = true;
+         diagnostic_.outputPaused();
+         socket_.send(TerminalSocketPacket.pauseOutputPacket());
+      }
+      else if (outputPaused_ && backlog < OUTPUT_LOW_WATER_MARK)
+      {
+         outputPaused_ = false;
+         socket_.send(TerminalSocketPacket.resumeOutputPacket());
+      }
+   }
+
    @Override
    public void onTerminalDataInput(TerminalDataInputEvent event)
    {
@@ -382,6 +485,8 @@ public class TerminalSessionSocket
    public void disconnect(boolean permanent)
    {
       diagnostic_.log(permanent ? constants_.permanentlyDisconnectedLabel() : constants_.disconnectedLabel());
+      flushOutput();
+      outputPaused_ = false;
       if (socket_ != null)
          socket_.close();
       socket_ = null;
@@ -395,6 +500,7 @@ public class TerminalSessionSocket
    public void resetDiagnostics()
    {
       diagnostic_.resetLog();
+      diagnostic_.resetOutputStatistics();
       localEcho_.resetDiagnostics();
    }
 
@@ -403,6 +509,11 @@ public class TerminalSessionSocket
       return diagnostic_.getLog();
    }
 
+   public String getOutputStatistics()
+   {
+      return diagnostic_.getOutputStatistics();
+   }
+
    public String getLocalEchoDiagnostics()
    {
       return localEcho_.getDiagnostics();
@@ -428,6 +539,22 @@ public class TerminalSessionSocket
    private final TerminalLocalEcho localEcho_;
    private final TerminalDiagnostics diagnostic_ = new TerminalDiagnostics();
 
+   private final StringBuilder pendingOutput_ = new StringBuilder();
+   private boolean pendingDetectLocalEcho_;
+   private double pendingSince_;
+   private AnimationHandle flushFrame_;
+   private final Timer flushTimer_;
+   private int unprocessedOutput_;
+   private boolean outputPaused_;
+
+   // how long output may wait to be written when animation frames aren't running
+   private static final int MAX_FLUSH_DELAY_MS = 100;
+
+   // characters of output waiting to be written to the terminal before we ask
+   // the server to pause output, and to resume it
+   private static final int OUTPUT_HIGH_WATER_MARK = 512 * 1024;
+   private static final int OUTPUT_LOW_WATER_MARK = 64 * 1024;
+
    // RegEx to match common password prompts
    private static final String PASSWORD_REGEX = "(?:password:)|(?:passphrase:)";
 
@@ -25,6 +25,8 @@ import org.rstudio.core.client.StringUtil;
  * First character is a method indicator, as follows:
  *    "a" = send text, e.g. "aHello"
  *    "b" = ping/pong, e.g. "b"
+ *    "c" = pause output, sent by the client when it has fallen behind
+ *    "d" = resume output
  *
  * Only the "send text" method has a payload (everything after the "a").
  *
@@ -43,6 +45,16 @@ public class TerminalSocketPacket
       return keepAlivePrefix;
    }
 
+   public static String pauseOutputPacket()
+   {
+      return pauseOutputPrefix;
+   }
+
+   public static String resumeOutputPacket()
+   {
+      return resumeOutputPrefix;
+   }
+
    public static boolean isKeepAlive(String text)
    {
       return StringUtil.equals(text, keepAlivePrefix);
@@ -59,4 +71,6 @@ public class TerminalSocketPacket
 
    private static final String keepAlivePrefix = "b";
    private static final String textPrefix = "a";
+   private static final String pauseOutputPrefix = "c";
+   private static final String resumeOutputPrefix = "d";
 }
@@ -19,6 +19,7 @@ import org.rstudio.core.client.CommandWithArg;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.dom.client.Element;
+import com.google.gwt.user.client.Command;
 
 /**
  * <code>JavaScriptObject</code> wrapper for xterm.js
@@ -64,6 +65,18 @@ public class XTermNative extends JavaScriptObject
       this.write(data);
    }-*/;
 
+   /**
+    * Write text to the terminal, with a callback run once xterm.js has
+    * processed it (writes are parsed asynchronously).
+    * @param data String to write
+    * @param callback Run after data has been processed
+    */
+   public final native void write(String data, Command callback) /*-{
+      this.write(data, $entry(function() {
+         callback.@com.google.gwt.user.client.Command::execute()();
+      }));
+   }-*/;
+
    /**
     * Compute and return available dimensions for terminal.
     * @return Visible number of columns and rows
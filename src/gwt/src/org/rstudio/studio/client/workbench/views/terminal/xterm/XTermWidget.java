@@ -146,6 +146,16 @@ public class XTermWidget extends Widget
       terminal_.write(str);
    }
 
+   /**
+    * Run a command once the terminal has processed everything written to it
+    * so far.
+    * @param command Command to run
+    */
+   public void whenWritten(Command command)
+   {
+      terminal_.write("", command);
+   }
+
    /**
     * Clear terminal buffer.
     */
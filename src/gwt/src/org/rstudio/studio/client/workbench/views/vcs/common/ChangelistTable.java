@@ -28,10 +28,13 @@ import com.google.gwt.text.shared.SafeHtmlRenderer;
 import com.google.gwt.user.cellview.client.CellTable;
 import com.google.gwt.user.cellview.client.Column;
 import com.google.gwt.user.cellview.client.ColumnSortEvent;
+import com.google.gwt.user.cellview.client.ColumnSortList;
+import com.google.gwt.user.cellview.client.ColumnSortList.ColumnSortInfo;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.LayoutPanel;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.view.client.*;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.theme.RStudioCellTableStyle;
 import org.rstudio.core.client.widget.InfoBar;
 import org.rstudio.core.client.widget.MultiSelectCellTable;
@@ -40,8 +43,11 @@ import org.rstudio.studio.client.common.vcs.StatusAndPath;
 import org.rstudio.studio.client.workbench.views.vcs.ViewVcsConstants;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public abstract class ChangelistTable extends Composite
@@ -295,10 +301,16 @@ public abstract class ChangelistTable extends Composite
    {
       setProgress(false);
       table_.setPageSize(items.size());
-      dataProvider_.getList().clear();
-      dataProvider_.getList().addAll(items);
-      ColumnSortEvent.fire(table_,
-                           table_.getColumnSortList());
+
+      // update just the rows which changed, if there aren't many of them;
+      // otherwise replace (and re-sort) them all
+      if (!updateItems(items))
+      {
+         dataProvider_.getList().clear();
+         dataProvider_.getList().addAll(items);
+         ColumnSortEvent.fire(table_,
+                              table_.getColumnSortList());
+      }
 
       if (selectFirstItemByDefault_)
       {
@@ -317,6 +329,96 @@ public abstract class ChangelistTable extends Composite
       }
    }
 
+   // Updates the rows for items which were added, changed or removed, keyed
+   // by path, keeping the rows sorted. Returns false if there are too many
+   // changes for this to be worthwhile.
+   private boolean updateItems(ArrayList<StatusAndPath> items)
+   {
+      List<StatusAndPath> list = dataProvider_.getList();
+      if (list.isEmpty())
+         return false;
+
+      HashMap<String, StatusAndPath> incoming = new HashMap<>();
+      for (StatusAndPath item : items)
+         incoming.put(item.getPath(), item);
+
+      // find the rows to remove or replace
+      HashSet<String> existing = new HashSet<>();
+      ArrayList<Integer> staleRows = new ArrayList<>();
+      ArrayList<StatusAndPath> newRows = new ArrayList<>();
+      for (int i = 0, n = list.size(); i < n; i++)
+      {
+         StatusAndPath item = list.get(i);
+         existing.add(item.getPath());
+
+         StatusAndPath update = incoming.get(item.getPath());
+         if (update == null)
+         {
+            staleRows.add(i);
+         }
+         else if (!isSameRow(item, update))
+         {
+            staleRows.add(i);
+            newRows.add(update);
+         }
+      }
+
+      // find the rows to add
+      for (StatusAndPath item : incoming.values())
+      {
+         if (!existing.contains(item.getPath()))
+            newRows.add(item);
+      }
+
+      if (staleRows.size() + newRows.size() > MAX_ROW_UPDATES)
+         return false;
+
+      // remove rows from the bottom up, so that row indexes stay valid
+      for (int i = staleRows.size() - 1; i >= 0; i--)
+         list.remove((int) staleRows.get(i));
+
+      Comparator<StatusAndPath> comparator = getSortComparator();
+      for (StatusAndPath item : newRows)
+      {
+         if (comparator == null)
+         {
+            list.add(item);
+            continue;
+         }
+
+         int index = Collections.binarySearch(list, item, comparator);
+         list.add(index < 0 ? -index - 1 : index, item);
+      }
+
+      return true;
+   }
+
+   private static boolean isSameRow(StatusAndPath a, StatusAndPath b)
+   {
+      return StringUtil.equals(a.getStatus(), b.getStatus()) &&
+             StringUtil.equals(a.getRawPath(), b.getRawPath()) &&
+             StringUtil.equals(a.getChangelist(), b.getChangelist()) &&
+             a.isDiscardable() == b.isDiscardable() &&
+             a.isDirectory() == b.isDirectory();
+   }
+
+   // the comparator rows are currently sorted with, or null if unsorted
+   @SuppressWarnings("unchecked")
+   private Comparator<StatusAndPath> getSortComparator()
+   {
+      ColumnSortList sortList = table_.getColumnSortList();
+      if (sortList.size() == 0)
+         return null;
+
+      ColumnSortInfo info = sortList.get(0);
+      Comparator<StatusAndPath> comparator = sortHandler_.getComparator(
+            (Column<StatusAndPath, ?>) info.getColumn());
+      if (comparator == null)
+         return null;
+
+      return info.isAscending() ? comparator : Collections.reverseOrder(comparator);
+   }
+
    public ArrayList<StatusAndPath> getSelectedItems()
    {
       SelectionModel<? super StatusAndPath> selectionModel = table_.getSelectionModel();
@@ -434,6 +536,10 @@ public abstract class ChangelistTable extends Composite
    private ScrollPanel scrollPanel_;
    private ChangelistInfoBar infoBar_;
    private boolean selectFirstItemByDefault_;
+
+   // the most rows to add, change or remove individually when the items are
+   // updated; beyond this, the table is repopulated
+   private static final int MAX_ROW_UPDATES = 500;
    private static final ChangelistTableCellTableResources resources_ = GWT.<ChangelistTableCellTableResources>create(ChangelistTableCellTableResources.class);
    private static final ViewVcsConstants constants_ = GWT.create(ViewVcsConstants.class);
 }
\ No newline at end of file
@@ -21,12 +21,17 @@ import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.NativeEvent;
 import com.google.gwt.dom.client.Node;
 import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.user.cellview.client.CellTable;
 import com.google.gwt.user.cellview.client.Column;
 import com.google.gwt.user.cellview.client.RowStyles;
 import com.google.gwt.user.cellview.client.TextColumn;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.ui.ScrollPanel;
+import com.google.gwt.user.client.ui.Widget;
 import com.google.gwt.view.client.MultiSelectionModel;
 import com.google.gwt.view.client.ProvidesKey;
 import com.google.gwt.view.client.SelectionChangeEvent;
@@ -38,6 +43,7 @@ import org.rstudio.core.client.dom.DomUtils.NodePredicate;
 import org.rstudio.core.client.theme.RStudioCellTableStyle;
 import org.rstudio.core.client.widget.FontSizer;
 import org.rstudio.core.client.widget.MultiSelectCellTable;
+import org.rstudio.core.client.widget.RStudioDataGrid;
 import org.rstudio.studio.client.common.vcs.GitServerOperations.PatchMode;
 import org.rstudio.studio.client.workbench.views.vcs.ViewVcsConstants;
 import org.rstudio.studio.client.workbench.views.vcs.common.diff.Line.Type;
@@ -47,7 +53,7 @@ import org.rstudio.studio.client.workbench.views.vcs.common.events.DiffChunkActi
 import org.rstudio.studio.client.workbench.views.vcs.common.events.DiffLinesActionEvent;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.List;
 
 public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements Display
 {
@@ -303,9 +309,9 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
             else
             {
                String prefix = "";
-               if (startRows_.contains(rowIndex))
+               if (hasBorder(rowIndex, BORDER_START))
                   prefix += res.cellTableStyle().start() + " ";
-               if (endRows_.contains(rowIndex))
+               if (hasBorder(rowIndex, BORDER_END))
                   prefix += res.cellTableStyle().end() + " ";
 
                switch (line.getType())
@@ -378,12 +384,62 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
       });
       setSelectionModel(selectionModel_);
 
+      renderTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            renderMoreIfNeeded();
+         }
+      };
+
       setData(new ArrayList<>(), PatchMode.Working);
    }
 
+   @Override
+   protected void onLoad()
+   {
+      super.onLoad();
+
+      // render more rows as the user scrolls the panel we're shown in
+      // towards the end of the rows rendered so far
+      for (Widget parent = getParent(); parent != null; parent = parent.getParent())
+      {
+         if (parent instanceof ScrollPanel)
+         {
+            scrollPanel_ = (ScrollPanel) parent;
+            scrollHandlerReg_ = scrollPanel_.addScrollHandler(new ScrollHandler()
+            {
+               @Override
+               public void onScroll(ScrollEvent event)
+               {
+                  renderTimer_.schedule(RENDER_DELAY_MS);
+               }
+            });
+            break;
+         }
+      }
+
+      renderTimer_.schedule(RENDER_DELAY_MS);
+   }
+
+   @Override
+   protected void onUnload()
+   {
+      if (scrollHandlerReg_ != null)
+      {
+         scrollHandlerReg_.removeHandler();
+         scrollHandlerReg_ = null;
+      }
+      scrollPanel_ = null;
+      renderTimer_.cancel();
+
+      super.onUnload();
+   }
+
    private void refreshValue(ChunkOrLine value)
    {
-      int index = lines_.indexOf(value);
+      int index = indexOf(value);
       if (index >= 0)
       {
          ArrayList<ChunkOrLine> list = new ArrayList<>();
@@ -393,6 +449,61 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
 
    }
 
+   // finds the row for a chunk or line by its diff index, which increases
+   // from each row to the next
+   private int indexOf(ChunkOrLine value)
+   {
+      int diffIndex = getDiffIndex(value);
+      int low = 0;
+      int high = lines_.size() - 1;
+      while (low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         int midIndex = getDiffIndex(lines_.get(mid));
+         if (midIndex < diffIndex)
+            low = mid + 1;
+         else if (midIndex > diffIndex)
+            high = mid - 1;
+         else
+            return lines_.get(mid) == value ? mid : lines_.indexOf(value);
+      }
+
+      return lines_.indexOf(value);
+   }
+
+   private static int getDiffIndex(ChunkOrLine value)
+   {
+      return value.getChunk() != null
+            ? value.getChunk().getDiffIndex()
+            : value.getLine().getDiffIndex();
+   }
+
+   // rows are rendered a chunk at a time, as they're scrolled towards, so
+   // that large diffs don't have to be rendered all at once
+   private void renderMoreIfNeeded()
+   {
+      if (!isAttached() || scrollPanel_ == null)
+         return;
+
+      int start = renderedRows_;
+      renderedRows_ = RStudioDataGrid.rowsToRender(
+            start, lines_.size(), RENDER_CHUNK_ROWS, this, scrollPanel_);
+      if (renderedRows_ == start)
+         return;
+
+      setVisibleRange(0, renderedRows_);
+      setRowData(start, lines_.subList(start, renderedRows_));
+
+      // check again once the new rows have been drawn, in case they didn't
+      // fill the viewport
+      renderTimer_.schedule(RENDER_DELAY_MS);
+   }
+
+   private boolean hasBorder(int row, int border)
+   {
+      return row < rowBorders_.length && (rowBorders_[row] & border) != 0;
+   }
+
    private String intToString(Integer value)
    {
       if (value == null)
@@ -442,13 +553,27 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
       }
 
       lines_ = diffData;
-      setPageSize(diffData.size());
       selectionModel_.clear();
       firstSelectedLine_ = null;
-      setRowData(diffData);
+      computeRowBorders();
+
+      // render as many rows as we did before, so that refreshing the diff
+      // (e.g. after staging a line) keeps the scroll position, but at least
+      // the first chunk of rows
+      renderedRows_ = Math.min(
+            lines_.size(),
+            Math.max(renderedRows_, RENDER_CHUNK_ROWS));
+      setRowCount(lines_.size(), true);
+      setVisibleRange(0, Math.max(1, renderedRows_));
+      setRowData(0, lines_.subList(0, renderedRows_));
+
+      if (isAttached())
+         renderTimer_.schedule(RENDER_DELAY_MS);
+   }
 
-      startRows_.clear();
-      endRows_.clear();
+   private void computeRowBorders()
+   {
+      rowBorders_ = new byte[lines_.size()];
 
       Line.Type state = Line.Type.Same;
       boolean suppressNextStart = true; // Suppress at start to avoid 2px border
@@ -460,21 +585,21 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
          Line.Type newState = isChunk ? Line.Type.Same : line.getType();
 
          if (useStartBorder_ && i == 0)
-            startRows_.add(i);
+            rowBorders_[i] |= BORDER_START;
 
          // Edge case: last line is a diff line
          if (useEndBorder_ && i == lines_.size() - 1)
-            endRows_.add(i);
+            rowBorders_[i] |= BORDER_END;
 
          if (newState != state)
          {
-            // Note: endRows_ doesn't include the borders between insertions and
+            // Note: end borders aren't drawn between insertions and
             // deletions, or vice versa. This is to avoid 2px borders between
             // these regions when just about everything else is 1px.
             if (state != Line.Type.Same && newState == Line.Type.Same && !isChunk)
-               endRows_.add(i-1);
+               rowBorders_[i-1] |= BORDER_END;
             if (!suppressNextStart && newState != Line.Type.Same)
-               startRows_.add(i);
+               rowBorders_[i] |= BORDER_START;
 
             state = newState;
          }
@@ -494,9 +619,18 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
                               || line.getType() == Type.Deletion);
    }
 
+   // rows are rendered as they're scrolled to, but select all should cover
+   // the whole diff
+   @Override
+   protected List<ChunkOrLine> getAllItems()
+   {
+      return lines_;
+   }
+
    @Override
    public void clear()
    {
+      renderedRows_ = 0;
       setData(new ArrayList<>(), PatchMode.Working);
    }
 
@@ -546,12 +680,23 @@ public class LineTableView extends MultiSelectCellTable<ChunkOrLine> implements
    private boolean showActions_ = true;
    private ArrayList<ChunkOrLine> lines_;
    private SwitchableSelectionModel<ChunkOrLine> selectionModel_;
-   private HashSet<Integer> startRows_ = new HashSet<>();
-   private HashSet<Integer> endRows_ = new HashSet<>();
+   // BORDER_START and BORDER_END flags for each row
+   private byte[] rowBorders_ = new byte[0];
+   private int renderedRows_ = 0;
+   private ScrollPanel scrollPanel_;
+   private HandlerRegistration scrollHandlerReg_;
+   private final Timer renderTimer_;
    private boolean useStartBorder_ = false;
    private boolean useEndBorder_ = true;
    // Keep explicit track of the first selected line so we can render it differently
    private ChunkOrLine firstSelectedLine_;
+
+   private static final byte BORDER_START = 1;
+   private static final byte BORDER_END = 2;
+
+   private static final int RENDER_CHUNK_ROWS = 500;
+   private static final int RENDER_DELAY_MS = 50;
+
    private static final LineTableViewCellTableResources RES = GWT.create(LineTableViewCellTableResources.class);
    private static final LineActionButtonRenderer blueButtonRenderer_ = LineActionButtonRenderer.createBlue();
    private static final LineActionButtonRenderer grayButtonRenderer_ = LineActionButtonRenderer.createGray();
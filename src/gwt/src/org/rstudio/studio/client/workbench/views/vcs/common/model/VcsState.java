@@ -110,6 +110,7 @@ public abstract class VcsState
                         status_.remove(i);
                      else
                         status_.set(i, status);
+                     onStatusChangedLocally();
                      handlers_.fireEvent(new VcsRefreshEvent(Reason.FileChange));
                      return;
                   }
@@ -118,6 +119,7 @@ public abstract class VcsState
                if (status.getStatus().trim().length() != 0)
                {
                   status_.add(status);
+                  onStatusChangedLocally();
                   handlers_.fireEvent(new VcsRefreshEvent(Reason.FileChange));
                   return;
                }
@@ -180,6 +182,12 @@ public abstract class VcsState
 
    protected abstract boolean needsFullRefresh(FileSystemItem file);
 
+   // called when status_ has been updated from a file change rather than
+   // from the server
+   protected void onStatusChangedLocally()
+   {
+   }
+
    public abstract void refresh(final boolean showError);
 
    protected abstract boolean isInitialized();
@@ -17,6 +17,7 @@ package org.rstudio.studio.client.workbench.views.vcs.git.dialog;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.NativeEvent;
 import com.google.gwt.event.dom.client.*;
@@ -797,37 +798,54 @@ public class GitReviewPresenter implements ReviewPresenter
             new SimpleRequestCallback<DiffResult>(constants_.diffError())
             {
                @Override
-               public void onResponseReceived(DiffResult diffResult)
+               public void onResponseReceived(final DiffResult diffResult)
                {
                   if (token.isInvalid())
                      return;
 
                   // Use lastResponse_ to prevent unnecessary flicker
-                  String response = diffResult.getDecodedValue();
+                  final String response = diffResult.getDecodedValue();
                   if (response.equals(currentResponse_))
                      return;
-                  currentResponse_ = response;
-                  currentSourceEncoding_ = diffResult.getSourceEncoding();
 
-                  UnifiedParser parser = new UnifiedParser(response);
+                  final UnifiedParser parser = new UnifiedParser(response);
                   parser.nextFilePair();
 
-                  ArrayList<ChunkOrLine> allLines = new ArrayList<>();
+                  final ArrayList<DiffChunk> chunks = new ArrayList<>();
+                  final ArrayList<ChunkOrLine> allLines = new ArrayList<>();
 
-                  activeChunks_.clear();
-                  for (DiffChunk chunk;
-                       null != (chunk = parser.nextChunk());)
+                  // parse the diff a slice of chunks at a time, so that large
+                  // diffs don't block the UI, and stop if another diff is
+                  // requested in the meantime
+                  Scheduler.get().scheduleIncremental(new RepeatingCommand()
                   {
-                     activeChunks_.add(chunk);
-                     allLines.add(new ChunkOrLine(chunk));
-                     for (Line line : chunk.getLines())
-                        allLines.add(new ChunkOrLine(line));
-                  }
+                     @Override
+                     public boolean execute()
+                     {
+                        if (token.isInvalid())
+                           return false;
+
+                        int sliceEnd = allLines.size() + PARSE_SLICE_LINES;
+                        while (allLines.size() < sliceEnd)
+                        {
+                           DiffChunk chunk = parser.nextChunk();
+                           if (chunk == null)
+                           {
+                              showDiff(item, patchMode, response,
+                                       diffResult.getSourceEncoding(),
+                                       chunks, allLines);
+                              return false;
+                           }
 
-                  view_.setShowActions(
-                        !"??".equals(item.getStatus()) &&
-                        !"UU".equals(item.getStatus()));
-                  view_.setData(allLines, patchMode);
+                           chunks.add(chunk);
+                           allLines.add(new ChunkOrLine(chunk));
+                           for (Line line : chunk.getLines())
+                              allLines.add(new ChunkOrLine(line));
+                        }
+
+                        return true;
+                     }
+                  });
                }
 
                @Override
@@ -845,6 +863,23 @@ public class GitReviewPresenter implements ReviewPresenter
             });
    }
 
+   private void showDiff(StatusAndPath item,
+                         PatchMode patchMode,
+                         String response,
+                         String sourceEncoding,
+                         ArrayList<DiffChunk> chunks,
+                         ArrayList<ChunkOrLine> allLines)
+   {
+      currentResponse_ = response;
+      currentSourceEncoding_ = sourceEncoding;
+      activeChunks_ = chunks;
+
+      view_.setShowActions(
+            !"??".equals(item.getStatus()) &&
+            !"UU".equals(item.getStatus()));
+      view_.setData(allLines, patchMode);
+   }
+
    private void clearDiff()
    {
       softModeSwitch_ = false;
@@ -924,6 +959,8 @@ public class GitReviewPresenter implements ReviewPresenter
    }
 
    private final Invalidation diffInvalidation_ = new Invalidation();
+   // the number of diff lines to parse between yields to the browser
+   private static final int PARSE_SLICE_LINES = 5000;
    private final GitServerOperations server_;
    private final GitPresenterCore gitPresenterCore_;
    private final Display view_;
@@ -15,6 +15,8 @@
 package org.rstudio.studio.client.workbench.views.vcs.git.model;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.user.client.Command;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -31,6 +33,10 @@ import org.rstudio.studio.client.workbench.views.vcs.common.events.VcsRefreshEve
 import org.rstudio.studio.client.workbench.views.vcs.common.events.VcsRefreshEvent.Reason;
 import org.rstudio.studio.client.workbench.views.vcs.common.model.VcsState;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
 @Singleton
 public class GitState extends VcsState
 {
@@ -77,6 +83,14 @@ public class GitState extends VcsState
       return file.getName().equalsIgnoreCase(".gitignore");
    }
 
+   @Override
+   protected void onStatusChangedLocally()
+   {
+      // the status no longer matches the version the server gave us, so
+      // a delta against that version can't be applied to it
+      statusVersion_ = null;
+   }
+
    public void refresh(boolean showError)
    {
       refresh(showError, null);
@@ -84,12 +98,24 @@ public class GitState extends VcsState
 
    public void refresh(final boolean showError, final Command onCompleted)
    {
-      server_.gitAllStatus(new ServerRequestCallback<AllStatus>()
+      // ask for only the status changes since the status we have
+      String knownVersion = status_ != null ? statusVersion_ : null;
+      server_.gitAllStatus(knownVersion, new ServerRequestCallback<AllStatus>()
       {
          @Override
          public void onResponseReceived(AllStatus response)
          {
-            status_ = StatusAndPath.fromInfos(response.getStatus());
+            if (response.hasStatusDelta() && status_ != null)
+            {
+               status_ = applyStatusDelta(status_,
+                                          response.getChangedStatus(),
+                                          response.getRemovedPaths());
+            }
+            else
+            {
+               status_ = StatusAndPath.fromInfos(response.getStatus());
+            }
+            statusVersion_ = response.getStatusVersion();
             branches_ = response.getBranches();
             remoteBranchInfo_ = response.getRemoteBranchInfo();
             handlers_.fireEvent(new VcsRefreshEvent(Reason.VcsOperation));
@@ -108,6 +134,40 @@ public class GitState extends VcsState
       });
    }
 
+   // applies the status entries added, changed or removed since our last
+   // status, keyed by path
+   private static ArrayList<StatusAndPath> applyStatusDelta(
+         ArrayList<StatusAndPath> status,
+         JsArray<StatusAndPathInfo> changed,
+         JsArrayString removed)
+   {
+      LinkedHashMap<String, StatusAndPath> updates = new LinkedHashMap<>();
+      for (int i = 0; i < changed.length(); i++)
+      {
+         StatusAndPath item = StatusAndPath.fromInfo(changed.get(i));
+         updates.put(item.getRawPath(), item);
+      }
+
+      HashSet<String> removedPaths = new HashSet<>();
+      for (int i = 0; i < removed.length(); i++)
+         removedPaths.add(removed.get(i));
+
+      ArrayList<StatusAndPath> result = new ArrayList<>(status.size() + updates.size());
+      for (StatusAndPath item : status)
+      {
+         if (removedPaths.contains(item.getRawPath()))
+            continue;
+
+         StatusAndPath update = updates.remove(item.getRawPath());
+         result.add(update != null ? update : item);
+      }
+
+      // whatever's left was added
+      result.addAll(updates.values());
+      return result;
+   }
+
+   private String statusVersion_;
    private BranchesInfo branches_;
    private RemoteBranchInfo remoteBranchInfo_;
    private final GitServerOperations server_;
@@ -0,0 +1,82 @@
+/*
+ * ConsoleControlScannerBenchmarks.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.junit.client.GWTTestCase;
+import junit.framework.Assert;
+
+// Run with RStudioBenchmarkSuite ("ant benchmark"), not the unit tests
+public class ConsoleControlScannerBenchmarks extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testColoredOutputBenchmark()
+   {
+      // colored testthat output, submitted a line at a time as the console
+      // would receive it
+      ArrayList<String> chunks = lines(ConsoleControlScannerTests.coloredTestOutput(5000));
+      final int iterations = 5;
+
+      String legacyOutput = null;
+      double start = Duration.currentTimeMillis();
+      for (int i = 0; i < iterations; i++)
+      {
+         LegacyVirtualConsole console = new LegacyVirtualConsole(null, new VirtualConsoleTests.FakePrefs());
+         for (String chunk : chunks)
+            console.submit(chunk);
+         legacyOutput = console.toString();
+      }
+      double legacyElapsed = Duration.currentTimeMillis() - start;
+
+      String output = null;
+      start = Duration.currentTimeMillis();
+      for (int i = 0; i < iterations; i++)
+      {
+         VirtualConsole console = new VirtualConsole(null, new VirtualConsoleTests.FakePrefs());
+         for (String chunk : chunks)
+            console.submit(chunk);
+         output = console.toString();
+      }
+      double elapsed = Duration.currentTimeMillis() - start;
+
+      GWT.log("Colored console output, " + chunks.size() + " chunks x " + iterations +
+              ": regex (old VirtualConsole) " + Math.round(legacyElapsed) + "ms, scanner " +
+              Math.round(elapsed) + "ms");
+
+      Assert.assertEquals(legacyOutput, output);
+   }
+
+   private static ArrayList<String> lines(String data)
+   {
+      ArrayList<String> lines = new ArrayList<>();
+      int start = 0;
+      while (start < data.length())
+      {
+         int end = data.indexOf('\n', start);
+         end = end == -1 ? data.length() : end + 1;
+         lines.add(data.substring(start, end));
+         start = end;
+      }
+      return lines;
+   }
+}
@@ -0,0 +1,233 @@
+/*
+ * ConsoleControlScannerTests.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import org.rstudio.core.client.regex.Match;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import junit.framework.Assert;
+
+public class ConsoleControlScannerTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testPlainTextHasNoControls()
+   {
+      Assert.assertEquals(-1, ConsoleControlScanner.nextControl("Hello, World!", 0, true));
+      Assert.assertEquals(-1, ConsoleControlScanner.nextControl("", 0, true));
+      Assert.assertEquals(-1, ConsoleControlScanner.nextControl("café ✓", 0, true));
+   }
+
+   public void testFindsControlCharacters()
+   {
+      String data = "a\rb\bc\fd\ne\033[31m";
+      Assert.assertEquals(1, ConsoleControlScanner.nextControl(data, 0, true));
+      Assert.assertEquals(3, ConsoleControlScanner.nextControl(data, 2, true));
+      Assert.assertEquals(5, ConsoleControlScanner.nextControl(data, 4, true));
+      Assert.assertEquals(7, ConsoleControlScanner.nextControl(data, 6, true));
+      Assert.assertEquals(9, ConsoleControlScanner.nextControl(data, 8, true));
+      Assert.assertEquals(-1, ConsoleControlScanner.nextControl(data, 10, false));
+      Assert.assertEquals(-1, ConsoleControlScanner.nextControl("\u009b31m", 0, false));
+      Assert.assertEquals(0, ConsoleControlScanner.nextControl("\u009b31m", 0, true));
+   }
+
+   public void testSgr()
+   {
+      ConsoleControlScanner scanner = new ConsoleControlScanner();
+      String data = "x\033[1;31mred\033[0m";
+      Assert.assertEquals(ConsoleControlScanner.SGR, scanner.scanEscape(data, 1));
+      Assert.assertEquals(8, scanner.getEnd());
+      Assert.assertEquals(ConsoleControlScanner.SGR, scanner.scanEscape(data, 11));
+      Assert.assertEquals(data.length(), scanner.getEnd());
+      Assert.assertEquals(ConsoleControlScanner.SGR, scanner.scanEscape("\033[m", 0));
+      Assert.assertEquals(ConsoleControlScanner.SGR, scanner.scanEscape("\033[38;5;214m", 0));
+   }
+
+   public void testCursorMovement()
+   {
+      ConsoleControlScanner scanner = new ConsoleControlScanner();
+      Assert.assertEquals(ConsoleControlScanner.CSI, scanner.scanEscape("\033[12D", 0));
+      Assert.assertEquals(12, scanner.getCount());
+      Assert.assertEquals('D', scanner.getCommand());
+      Assert.assertEquals(5, scanner.getEnd());
+
+      Assert.assertEquals(ConsoleControlScanner.CSI, scanner.scanEscape("\033[C", 0));
+      Assert.assertEquals(0, scanner.getCount());
+      Assert.assertEquals('C', scanner.getCommand());
+   }
+
+   public void testHyperlink()
+   {
+      ConsoleControlScanner scanner = new ConsoleControlScanner();
+      String data = "\033]8;id=1;https://posit.co\007Posit\033]8;;\007";
+      Assert.assertEquals(ConsoleControlScanner.HYPERLINK, scanner.scanEscape(data, 0));
+      Assert.assertEquals("id=1", scanner.getHyperlinkParams(data));
+      Assert.assertEquals("https://posit.co", scanner.getHyperlinkUrl(data));
+
+      int close = data.indexOf("\033", 1);
+      Assert.assertEquals(close, scanner.getEnd() + "Posit".length());
+      Assert.assertEquals(ConsoleControlScanner.HYPERLINK, scanner.scanEscape(data, close));
+      Assert.assertEquals("", scanner.getHyperlinkUrl(data));
+      Assert.assertEquals(data.length(), scanner.getEnd());
+
+      // terminated by ESC ) rather than BEL
+      data = "\033]8;;file://a.R\033)";
+      Assert.assertEquals(ConsoleControlScanner.HYPERLINK, scanner.scanEscape(data, 0));
+      Assert.assertEquals("file://a.R", scanner.getHyperlinkUrl(data));
+      Assert.assertEquals(data.length(), scanner.getEnd());
+   }
+
+   public void testPartialSequences()
+   {
+      ConsoleControlScanner scanner = new ConsoleControlScanner();
+      String[] partials = { "\033", "\033[", "\033[3", "\033[1;3", "\033]8", "\033]8;;http://x" };
+      for (String partial : partials)
+      {
+         Assert.assertEquals(AnsiCode.prettyPrint(partial),
+               ConsoleControlScanner.PARTIAL, scanner.scanEscape(partial, 0));
+      }
+   }
+
+   public void testUnsupportedSequences()
+   {
+      ConsoleControlScanner scanner = new ConsoleControlScanner();
+
+      // erase in display with a private parameter; discarded as a whole
+      Assert.assertEquals(ConsoleControlScanner.OTHER, scanner.scanEscape("\033[?1Jabc", 0));
+      Assert.assertEquals(5, scanner.getEnd());
+
+      // private mode (hide cursor)
+      Assert.assertEquals(ConsoleControlScanner.OTHER, scanner.scanEscape("\033[?25l", 0));
+      Assert.assertEquals(6, scanner.getEnd());
+
+      // a lone ESC followed by text
+      Assert.assertEquals(ConsoleControlScanner.UNKNOWN, scanner.scanEscape("\033 hello", 0));
+      Assert.assertEquals(1, scanner.getEnd());
+   }
+
+   public void testSequencesAnchoredAtPosition()
+   {
+      // a sequence later in the data must not be mistaken for one at pos
+      ConsoleControlScanner scanner = new ConsoleControlScanner();
+      String data = "\033 abc \033[31m";
+      Assert.assertEquals(ConsoleControlScanner.UNKNOWN, scanner.scanEscape(data, 0));
+      Assert.assertEquals(ConsoleControlScanner.SGR, scanner.scanEscape(data, 7));
+   }
+
+   public void testMatchesRegexScan()
+   {
+      String data = coloredTestOutput(200);
+      Assert.assertEquals(regexScan(data), scannerScan(data));
+   }
+
+   // colored output in the style of testthat
+   static String coloredTestOutput(int tests)
+   {
+      StringBuilder output = new StringBuilder();
+      for (int i = 0; i < tests; i++)
+      {
+         output.append("\033[32m✔\033[39m | ")
+               .append(i % 100)
+               .append("       | test-file-").append(i).append(".R ")
+               .append("\033[2m[0.1s]\033[22m\n");
+         if (i % 50 == 0)
+         {
+            output.append("\033[1m\033[33mWarning\033[39m\033[22m (test-file-").append(i)
+                  .append(".R:12:3): something is off\n");
+         }
+         output.append("\r\033[K[ FAIL 0 | WARN 0 | SKIP 0 | PASS ").append(i).append(" ]");
+      }
+      return output.toString();
+   }
+
+   // Tokenizes the data the way VirtualConsole.submit used to, with the
+   // control regex followed by the escape regex, as a reference
+   private static String regexScan(String data)
+   {
+      StringBuilder tokens = new StringBuilder();
+      int tail = 0;
+      Match match = AnsiCode.CONTROL_PATTERN.match(data, 0);
+      while (match != null)
+      {
+         int pos = match.getIndex();
+         if (pos < tail)
+         {
+            match = match.nextMatch();
+            continue;
+         }
+         appendText(tokens, data, tail, pos);
+         tail = pos + 1;
+
+         char c = data.charAt(pos);
+         if (c == '\033' || c == '\u009b')
+         {
+            Match escape = AnsiCode.ANSI_ESCAPE_PATTERN.match(data, pos);
+            if (escape != null && escape.getIndex() == pos)
+            {
+               tail = pos + escape.getValue().length();
+               tokens.append("<ESC:").append(StringUtil.substring(data, pos + 1, tail)).append(">");
+            }
+         }
+         else
+         {
+            tokens.append("<").append((int) c).append(">");
+         }
+         match = match.nextMatch();
+      }
+      appendText(tokens, data, tail, data.length());
+      return tokens.toString();
+   }
+
+   private static String scannerScan(String data)
+   {
+      StringBuilder tokens = new StringBuilder();
+      ConsoleControlScanner scanner = new ConsoleControlScanner();
+      int tail = 0;
+      int pos = ConsoleControlScanner.nextControl(data, 0, true);
+      while (pos != -1)
+      {
+         appendText(tokens, data, tail, pos);
+         tail = pos + 1;
+
+         char c = data.charAt(pos);
+         if (c == '\033' || c == '\u009b')
+         {
+            int kind = scanner.scanEscape(data, pos);
+            if (kind != ConsoleControlScanner.UNKNOWN && kind != ConsoleControlScanner.PARTIAL)
+            {
+               tail = scanner.getEnd();
+               tokens.append("<ESC:").append(StringUtil.substring(data, pos + 1, tail)).append(">");
+            }
+         }
+         else
+         {
+            tokens.append("<").append((int) c).append(">");
+         }
+         pos = ConsoleControlScanner.nextControl(data, tail, true);
+      }
+      appendText(tokens, data, tail, data.length());
+      return tokens.toString();
+   }
+
+   private static void appendText(StringBuilder tokens, String data, int start, int end)
+   {
+      if (end > start)
+         tokens.append("[").append(StringUtil.substring(data, start, end)).append("]");
+   }
+}
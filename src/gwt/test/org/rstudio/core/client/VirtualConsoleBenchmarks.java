@@ -0,0 +1,99 @@
+/*
+ * VirtualConsoleBenchmarks.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.junit.client.GWTTestCase;
+import junit.framework.Assert;
+
+// Run with RStudioBenchmarkSuite ("ant benchmark"), not the unit tests
+public class VirtualConsoleBenchmarks extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testProgressBarBenchmark()
+   {
+      // 1M lines, each redrawn several times as a progress bar would be
+      final int lineCount = 1000000;
+      String data = progressBarLines(LINES_PER_SUBMIT);
+
+      VirtualConsole vc = new VirtualConsole(null, new VirtualConsoleTests.FakePrefs());
+      double start = Duration.currentTimeMillis();
+      for (int i = 0; i < lineCount / LINES_PER_SUBMIT; i++)
+         vc.submit(data);
+      double elapsed = Duration.currentTimeMillis() - start;
+
+      GWT.log("VirtualConsole progress bar benchmark: " + lineCount + " lines in " +
+              Math.round(elapsed) + "ms");
+
+      int lineLength = BARS[0].length() - 1;
+      Assert.assertEquals(lineCount * (lineLength + 1), vc.getLength());
+
+      // rewriting the last line stays cheap however much output precedes it
+      vc.submit("[==========] 100%\r[=====     ]  50%");
+      Assert.assertEquals(lineCount * (lineLength + 1) + lineLength, vc.getLength());
+   }
+
+   public void testProgressBarBenchmarkAgainstLegacy()
+   {
+      // the old console rewrote its whole buffer on each redraw, so compare
+      // the two over far fewer lines
+      final int lineCount = 20000;
+      String data = progressBarLines(LINES_PER_SUBMIT);
+
+      LegacyVirtualConsole legacy = new LegacyVirtualConsole(null, new VirtualConsoleTests.FakePrefs());
+      double start = Duration.currentTimeMillis();
+      for (int i = 0; i < lineCount / LINES_PER_SUBMIT; i++)
+         legacy.submit(data);
+      double legacyElapsed = Duration.currentTimeMillis() - start;
+
+      VirtualConsole vc = new VirtualConsole(null, new VirtualConsoleTests.FakePrefs());
+      start = Duration.currentTimeMillis();
+      for (int i = 0; i < lineCount / LINES_PER_SUBMIT; i++)
+         vc.submit(data);
+      double elapsed = Duration.currentTimeMillis() - start;
+
+      GWT.log("VirtualConsole progress bar benchmark: " + lineCount + " lines in " +
+              Math.round(legacyElapsed) + "ms (old VirtualConsole), " +
+              Math.round(elapsed) + "ms");
+
+      Assert.assertEquals(legacy.getLength(), vc.getLength());
+   }
+
+   private static String progressBarLines(int lines)
+   {
+      StringBuilder chunk = new StringBuilder();
+      for (int i = 0; i < lines; i++)
+      {
+         for (String bar : BARS)
+            chunk.append(bar);
+         chunk.append("\n");
+      }
+      return chunk.toString();
+   }
+
+   private static final int LINES_PER_SUBMIT = 1000;
+   private static final String[] BARS = {
+      "\r[          ]   0%",
+      "\r[===       ]  30%",
+      "\r[======    ]  60%",
+      "\r[==========] 100%"
+   };
+}
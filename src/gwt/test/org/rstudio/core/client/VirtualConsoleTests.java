@@ -36,7 +36,7 @@ public class VirtualConsoleTests extends GWTTestCase
       return "org.rstudio.studio.RStudioTests";
    }
 
-   private static class FakePrefs implements VirtualConsole.Preferences
+   static class FakePrefs implements VirtualConsole.Preferences
    {
       @Override
       public int truncateLongLinesInConsoleHistory()
@@ -1257,4 +1257,64 @@ public class VirtualConsoleTests extends GWTTestCase
       vc.submit("Hello world!\033[10DLL\033[4CRL");
       Assert.assertEquals(ele.getInnerText(), "HeLLo woRLd!");
    }
+
+   public void testBackspaceAcrossNewlineOverwrites()
+   {
+      // overwriting from the previous line replaces the newline itself
+      Assert.assertEquals("abXYZef", consolify("abc\ndef\b\b\b\b\bXYZ"));
+      Assert.assertEquals("abXYZ", consolify("abc\nd\b\b\bXYZ"));
+   }
+
+   public void testCarriageReturnAfterManyLines()
+   {
+      StringBuilder input = new StringBuilder();
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0; i < 1000; i++)
+      {
+         input.append("line ").append(i).append("\rLINE\n");
+         expected.append("LINE ").append(i).append("\n");
+      }
+      Assert.assertEquals(expected.toString(), consolify(input.toString()));
+   }
+
+   public void testMaxRetainedLines()
+   {
+      VirtualConsole vc = new VirtualConsole(null, new FakePrefs());
+      vc.setMaxRetainedLines(3);
+      for (int i = 0; i < 10; i++)
+         vc.submit("line " + i + "\n");
+      vc.submit("progress 1\rprogress 2");
+      Assert.assertEquals("line 8\nline 9\nprogress 2", vc.toString());
+      Assert.assertEquals(70 + 10, vc.getLength());
+   }
+
+   public void testProgressBarRedraws()
+   {
+      // each line is redrawn several times, as a progress bar would be
+      final String[] bars = {
+         "\r[          ]   0%",
+         "\r[===       ]  30%",
+         "\r[======    ]  60%",
+         "\r[==========] 100%"
+      };
+      StringBuilder chunk = new StringBuilder();
+      for (int i = 0; i < 100; i++)
+      {
+         for (String bar : bars)
+            chunk.append(bar);
+         chunk.append("\n");
+      }
+
+      VirtualConsole vc = new VirtualConsole(null, new FakePrefs());
+      vc.setMaxRetainedLines(50);
+      for (int i = 0; i < 10; i++)
+         vc.submit(chunk.toString());
+
+      int lineLength = bars[0].length() - 1;
+      Assert.assertEquals(1000 * (lineLength + 1), vc.getLength());
+
+      vc.submit("[==========] 100%\r[=====     ]  50%");
+      Assert.assertEquals(1000 * (lineLength + 1) + lineLength, vc.getLength());
+      Assert.assertTrue(vc.toString().endsWith("[==========] 100%\n[=====     ]  50%"));
+   }
 }
@@ -0,0 +1,70 @@
+/*
+ * LruCacheTests.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class LruCacheTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testGetAndPut()
+   {
+      LruCache<String, Integer> cache = new LruCache<>(4);
+      assertTrue(cache.isEmpty());
+      assertNull(cache.get("a"));
+
+      cache.put("a", 1);
+      cache.put("b", 2);
+      assertEquals(2, cache.size());
+      assertEquals(Integer.valueOf(1), cache.get("a"));
+
+      cache.put("a", 3);
+      assertEquals(2, cache.size());
+      assertEquals(Integer.valueOf(3), cache.get("a"));
+
+      assertEquals(Integer.valueOf(2), cache.remove("b"));
+      assertNull(cache.get("b"));
+      cache.clear();
+      assertTrue(cache.isEmpty());
+   }
+
+   public void testEvictsLeastRecentlyUsed()
+   {
+      LruCache<String, Integer> cache = new LruCache<>(3);
+      cache.put("a", 1);
+      cache.put("b", 2);
+      cache.put("c", 3);
+
+      // reading "a" makes "b" the least recently used
+      cache.get("a");
+      cache.put("d", 4);
+      assertEquals(3, cache.size());
+      assertNull(cache.get("b"));
+      assertEquals(Integer.valueOf(1), cache.get("a"));
+      assertEquals(Integer.valueOf(3), cache.get("c"));
+      assertEquals(Integer.valueOf(4), cache.get("d"));
+
+      // as does writing
+      cache.put("a", 5);
+      cache.put("e", 6);
+      assertNull(cache.get("c"));
+      assertEquals(Integer.valueOf(5), cache.get("a"));
+   }
+}
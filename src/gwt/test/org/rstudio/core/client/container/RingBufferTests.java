@@ -0,0 +1,78 @@
+/*
+ * RingBufferTests.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class RingBufferTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testEmpty()
+   {
+      RingBuffer<String> buffer = new RingBuffer<>();
+      assertTrue(buffer.isEmpty());
+      assertEquals(0, buffer.size());
+      assertNull(buffer.peek());
+      assertNull(buffer.remove());
+   }
+
+   public void testFifoOrder()
+   {
+      RingBuffer<Integer> buffer = new RingBuffer<>(4);
+      for (int i = 0; i < 3; i++)
+         buffer.add(i);
+      assertEquals(3, buffer.size());
+      assertEquals(Integer.valueOf(0), buffer.peek());
+      for (int i = 0; i < 3; i++)
+         assertEquals(Integer.valueOf(i), buffer.remove());
+      assertTrue(buffer.isEmpty());
+   }
+
+   public void testGrowWhileWrapped()
+   {
+      RingBuffer<Integer> buffer = new RingBuffer<>(4);
+
+      // advance the head so that subsequent adds wrap around the array
+      buffer.add(-1);
+      buffer.add(-2);
+      buffer.remove();
+      buffer.remove();
+
+      for (int i = 0; i < 10; i++)
+         buffer.add(i);
+      assertEquals(10, buffer.size());
+      for (int i = 0; i < 10; i++)
+         assertEquals(Integer.valueOf(i), buffer.get(i));
+      for (int i = 0; i < 10; i++)
+         assertEquals(Integer.valueOf(i), buffer.remove());
+   }
+
+   public void testClear()
+   {
+      RingBuffer<String> buffer = new RingBuffer<>(2);
+      buffer.add("a");
+      buffer.add("b");
+      buffer.add("c");
+      buffer.clear();
+      assertTrue(buffer.isEmpty());
+      buffer.add("d");
+      assertEquals("d", buffer.remove());
+   }
+}
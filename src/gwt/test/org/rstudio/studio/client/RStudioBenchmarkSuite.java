@@ -0,0 +1,39 @@
+/*
+ * RStudioBenchmarkSuite.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client;
+
+import org.rstudio.core.client.ConsoleControlScannerBenchmarks;
+import org.rstudio.core.client.VirtualConsoleBenchmarks;
+import org.rstudio.studio.client.common.r.RTokenizerBenchmarks;
+
+import com.google.gwt.junit.tools.GWTTestSuite;
+
+import junit.framework.Test;
+
+// Timing comparisons, which log their results rather than asserting on them;
+// run with "ant benchmark" (they're kept out of RStudioUnitTestSuite, which
+// runs with every build)
+public class RStudioBenchmarkSuite extends GWTTestSuite
+{
+   public static Test suite()
+   {
+      GWTTestSuite suite = new GWTTestSuite("RStudio Benchmark Suite");
+      suite.addTestSuite(ConsoleControlScannerBenchmarks.class);
+      suite.addTestSuite(RTokenizerBenchmarks.class);
+      suite.addTestSuite(VirtualConsoleBenchmarks.class);
+
+      return suite;
+   }
+}
@@ -15,6 +15,7 @@
 package org.rstudio.studio.client;
 
 import org.rstudio.core.client.AnsiCodeTests;
+import org.rstudio.core.client.ConsoleControlScannerTests;
 import org.rstudio.core.client.ConsoleOutputWriterTests;
 import org.rstudio.core.client.ElementIdsTests;
 import org.rstudio.core.client.SafeHtmlUtilTests;
@@ -22,14 +23,20 @@ import org.rstudio.core.client.StringUtilTests;
 import org.rstudio.core.client.TextCursorTests;
 import org.rstudio.core.client.URIUtilsTests;
 import org.rstudio.core.client.VirtualConsoleTests;
+import org.rstudio.core.client.container.LruCacheTests;
+import org.rstudio.core.client.container.RingBufferTests;
 import org.rstudio.core.client.dom.DomUtilsTests;
 import org.rstudio.studio.client.application.ApplicationUtilsTests;
 import org.rstudio.studio.client.application.model.SessionScopeTests;
 import org.rstudio.studio.client.common.r.RTokenizerTests;
 import org.rstudio.studio.client.projects.model.ProjectMRUEntryTests;
+import org.rstudio.studio.client.server.remote.ClientEventTransportTests;
+import org.rstudio.studio.client.server.remote.RequestCoalescerTests;
 import org.rstudio.studio.client.workbench.views.jobs.model.JobManagerTests;
 import org.rstudio.studio.client.workbench.views.jobs.view.JobsListTests;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ScopeTreeDamageTests;
 import org.rstudio.studio.client.workbench.views.source.editors.text.assist.RChunkHeaderParserTests;
+import org.rstudio.studio.client.workbench.views.source.model.DocDeltaTrackerTests;
 import org.rstudio.studio.client.workbench.views.terminal.TerminalLocalEchoTests;
 import org.rstudio.studio.client.workbench.views.terminal.TerminalSessionSocketTests;
 import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkContextUiTests;
@@ -50,6 +57,7 @@ public class RStudioUnitTestSuite extends GWTTestSuite
       suite.addTestSuite(StringUtilTests.class);
       suite.addTestSuite(DomUtilsTests.class);
       suite.addTestSuite(AnsiCodeTests.class);
+      suite.addTestSuite(ConsoleControlScannerTests.class);
       suite.addTestSuite(TerminalLocalEchoTests.class);
       suite.addTestSuite(TerminalSessionSocketTests.class);
       suite.addTestSuite(JobManagerTests.class);
@@ -65,6 +73,12 @@ public class RStudioUnitTestSuite extends GWTTestSuite
       suite.addTestSuite(TestMocks.class);
       suite.addTestSuite(ApplicationUtilsTests.class);
       suite.addTestSuite(ProjectMRUEntryTests.class);
+      suite.addTestSuite(RingBufferTests.class);
+      suite.addTestSuite(ClientEventTransportTests.class);
+      suite.addTestSuite(DocDeltaTrackerTests.class);
+      suite.addTestSuite(LruCacheTests.class);
+      suite.addTestSuite(RequestCoalescerTests.class);
+      suite.addTestSuite(ScopeTreeDamageTests.class);
 
       return suite;
    }
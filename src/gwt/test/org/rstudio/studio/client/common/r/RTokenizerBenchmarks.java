@@ -0,0 +1,53 @@
+/*
+ * RTokenizerBenchmarks.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.r;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.junit.client.GWTTestCase;
+
+import junit.framework.Assert;
+
+// Run with RStudioBenchmarkSuite ("ant benchmark"), not the unit tests
+public class RTokenizerBenchmarks extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   public void testTokenizerBenchmark()
+   {
+      // roughly 10k lines of R
+      String source = RTokenizerTests.largeRSource(500);
+      final int iterations = 5;
+
+      int tokens = 0;
+      double start = Duration.currentTimeMillis();
+      for (int i = 0; i < iterations; i++)
+      {
+         RTokenizer rt = new RTokenizer(source);
+         while (rt.nextToken() != null)
+            tokens++;
+      }
+      double elapsed = Math.max(1, Duration.currentTimeMillis() - start);
+
+      GWT.log("RTokenizer: " + tokens + " tokens from " + (source.length() * iterations) +
+              " chars in " + Math.round(elapsed) + "ms (" +
+              Math.round(tokens / elapsed * 1000) + " tokens/sec)");
+      Assert.assertTrue(tokens > 0);
+   }
+}
@@ -14,6 +14,8 @@
  */
 package org.rstudio.studio.client.common.r;
 
+import java.util.ArrayList;
+
 import com.google.gwt.junit.client.GWTTestCase;
 
 import junit.framework.Assert;
@@ -117,6 +119,64 @@ public class RTokenizerTests extends GWTTestCase
       });
    }
    
+   public void testUnterminated()
+   {
+      Verifier v = new Verifier(RToken.ERROR, " ", " ");
+      v.verify("`");
+      v.verify("%");
+
+      ArrayList<RToken> tokens = RTokenizer.asTokens("'abc");
+      Assert.assertEquals(1, tokens.size());
+      Assert.assertEquals(RToken.STRING, tokens.get(0).getTokenType());
+      Assert.assertFalse(((RStringToken) tokens.get(0)).isWellFormed());
+   }
+
+   public void testTokensCoverSource()
+   {
+      String source = largeRSource(20);
+      ArrayList<RToken> tokens = RTokenizer.asTokens(source);
+
+      StringBuilder rebuilt = new StringBuilder();
+      int offset = 0;
+      for (RToken token : tokens)
+      {
+         Assert.assertEquals(offset, token.getOffset());
+         Assert.assertTrue(token.getTokenType() != RToken.ERROR);
+         rebuilt.append(token.getContent());
+         offset += token.getLength();
+      }
+      Assert.assertEquals(source, rebuilt.toString());
+   }
+
+   static String largeRSource(int copies)
+   {
+      String chunk =
+            "#' Summarise a data frame by group\n" +
+            "#'\n" +
+            "#' @param data A data frame.\n" +
+            "#' @param ... Grouping columns.\n" +
+            "#' @export\n" +
+            "summarise_by <- function(data, ..., .fn = mean, na.rm = TRUE) {\n" +
+            "   groups <- list(...)\n" +
+            "   if (length(groups) == 0L && !is.null(data[[\"id\"]]))\n" +
+            "      stop(\"no groups given for 'data'\", call. = FALSE)\n" +
+            "   result <- data %>% dplyr::group_by(!!!groups) %in% c(1e-3, 0x1F, 2.5i)\n" +
+            "   `odd name` <- result$value[1:10] * 2 ^ 3 / 4\n" +
+            "   x <- if (na.rm) .fn(result$value, na.rm = TRUE) else NA_real_\n" +
+            "   y = x >= 10 || x <= -10; z <<- ~ x + y\n" +
+            "   message('done: ', format(Sys.time(), \"%H:%M\\t\"))\n" +
+            "   invisible(result)\n" +
+            "}\n" +
+            "\n" +
+            "values <- vapply(seq_len(100), function(i) i * 2, numeric(1))  # doubled\n" +
+            "\n";
+
+      StringBuilder source = new StringBuilder();
+      for (int i = 0; i < copies; i++)
+         source.append(chunk);
+      return source.toString();
+   }
+
    protected void verify(String data,
                          int tokenType,
                          String content)
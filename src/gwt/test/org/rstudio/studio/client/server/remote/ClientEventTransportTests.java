@@ -0,0 +1,250 @@
+/*
+ * ClientEventTransportTests.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.ArrayList;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class ClientEventTransportTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // Stands in for the session's event service: holds on to events until
+   // they are acknowledged, and re-sends unacknowledged events when the
+   // transport is re-opened (as the session does for the event stream)
+   private static class LocalEventServer implements ClientEventTransport
+   {
+      @Override
+      public String getName()
+      {
+         return "local";
+      }
+
+      @Override
+      public void open(Listener listener)
+      {
+         listener_ = listener;
+         listener_.onOpened();
+         if (!pending_.isEmpty())
+            send(pending_, Double.NaN);
+      }
+
+      @Override
+      public void acknowledge(int lastEventId)
+      {
+         lastAcknowledged_ = lastEventId;
+         ArrayList<ClientEvent> pending = new ArrayList<>();
+         for (ClientEvent event : pending_)
+         {
+            if (event.getId() > lastEventId)
+               pending.add(event);
+         }
+         pending_ = pending;
+      }
+
+      @Override
+      public void close()
+      {
+         listener_ = null;
+      }
+
+      void produce(int count, double sentTime)
+      {
+         ArrayList<ClientEvent> events = new ArrayList<>();
+         for (int i = 0; i < count; i++)
+         {
+            ClientEvent event = createEvent(nextEventId_++);
+            events.add(event);
+            pending_.add(event);
+         }
+         if (listener_ != null)
+            send(events, sentTime);
+      }
+
+      void disconnect()
+      {
+         Listener listener = listener_;
+         listener_ = null;
+         listener.onClosed(false);
+      }
+
+      private void send(ArrayList<ClientEvent> events, double sentTime)
+      {
+         JsArray<ClientEvent> array = JavaScriptObject.createArray().cast();
+         for (ClientEvent event : events)
+            array.push(event);
+         listener_.onEventsReceived(array, sentTime);
+      }
+
+      private static native ClientEvent createEvent(int id) /*-{
+         return { id: id, type: "console_output", data: "" };
+      }-*/;
+
+      private Listener listener_;
+      private ArrayList<ClientEvent> pending_ = new ArrayList<>();
+      private int nextEventId_ = 0;
+      int lastAcknowledged_ = -1;
+   }
+
+   // Receives events the way RemoteServerEventListener does when streaming:
+   // records statistics and hands them to a ClientEventSequence, which
+   // dispatches unseen events and acknowledges them
+   private static class RecordingListener implements ClientEventTransport.Listener
+   {
+      RecordingListener(ClientEventTransport transport)
+      {
+         transport_ = transport;
+         sequence_ = new ClientEventSequence(new ClientEventSequence.Dispatcher()
+         {
+            @Override
+            public boolean isDispatching()
+            {
+               return dispatching_;
+            }
+
+            @Override
+            public void dispatch(ClientEvent event)
+            {
+               dispatched_.add(event.getId());
+            }
+         });
+      }
+
+      @Override
+      public void onOpened()
+      {
+         opened_ = true;
+      }
+
+      @Override
+      public void onEventsReceived(JsArray<ClientEvent> events, double sentTime)
+      {
+         stats_.recordEvents(events.length(), sentTime);
+
+         // simulate acknowledgements lost along with the connection
+         if (acknowledge_)
+            sequence_.dispatch(events, transport_);
+         else
+            sequence_.dispatch(events);
+      }
+
+      @Override
+      public void onClosed(boolean failed)
+      {
+         opened_ = false;
+      }
+
+      private final ClientEventTransport transport_;
+      final ClientEventSequence sequence_;
+      final ClientEventStatistics stats_ = new ClientEventStatistics("local");
+      final ArrayList<Integer> dispatched_ = new ArrayList<>();
+      boolean acknowledge_ = true;
+      boolean dispatching_ = true;
+      boolean opened_ = false;
+   }
+
+   public void testStatisticsThroughputAndLatency()
+   {
+      ClientEventStatistics stats = new ClientEventStatistics("test");
+      assertEquals(0.0, stats.getEventsPerSecond(), 0.001);
+      assertTrue(Double.isNaN(stats.getMeanLatencyMillis()));
+
+      stats.recordEvents(10, 990, 1000);
+      stats.recordEvents(30, 1970, 2000);
+      stats.recordEvents(60, Double.NaN, 3000);
+
+      assertEquals(100, stats.getEventCount());
+      assertEquals(3, stats.getBatchCount());
+      assertEquals(50.0, stats.getEventsPerSecond(), 0.001);
+      assertEquals(20.0, stats.getMeanLatencyMillis(), 0.001);
+      assertEquals(30.0, stats.getMaxLatencyMillis(), 0.001);
+
+      stats.reset();
+      assertEquals(0, stats.getEventCount());
+      assertEquals(0, stats.getBatchCount());
+   }
+
+   public void testEventsDeliveredAndAcknowledged()
+   {
+      LocalEventServer server = new LocalEventServer();
+      RecordingListener listener = new RecordingListener(server);
+      server.open(listener);
+      assertTrue(listener.opened_);
+
+      for (int i = 0; i < 10; i++)
+         server.produce(100, Double.NaN);
+
+      assertEquals(1000, listener.dispatched_.size());
+      assertEquals(1000, listener.stats_.getEventCount());
+      assertEquals(10, listener.stats_.getBatchCount());
+      assertEquals(999, server.lastAcknowledged_);
+      assertTrue(server.pending_.isEmpty());
+   }
+
+   public void testUnacknowledgedEventsResentWithoutDuplicates()
+   {
+      LocalEventServer server = new LocalEventServer();
+      RecordingListener listener = new RecordingListener(server);
+      server.open(listener);
+
+      server.produce(5, Double.NaN);
+      listener.acknowledge_ = false;
+      server.produce(5, Double.NaN);
+      assertEquals(5, server.pending_.size());
+
+      // reconnecting re-sends the unacknowledged events, which the
+      // listener has already dispatched
+      server.disconnect();
+      assertFalse(listener.opened_);
+      listener.acknowledge_ = true;
+      server.open(listener);
+      server.produce(5, Double.NaN);
+
+      assertEquals(15, listener.dispatched_.size());
+      for (int i = 0; i < 15; i++)
+         assertEquals(Integer.valueOf(i), listener.dispatched_.get(i));
+      assertTrue(server.pending_.isEmpty());
+   }
+
+   public void testDispatchStopsWhenListenerStops()
+   {
+      LocalEventServer server = new LocalEventServer();
+      RecordingListener listener = new RecordingListener(server);
+      server.open(listener);
+      server.produce(3, Double.NaN);
+
+      // events after the one that stops the listener aren't dispatched or
+      // acknowledged, so the server holds on to them
+      listener.dispatching_ = false;
+      server.produce(3, Double.NaN);
+      assertEquals(3, listener.dispatched_.size());
+      assertEquals(2, listener.sequence_.getLastEventId());
+      assertEquals(2, server.lastAcknowledged_);
+      assertEquals(3, server.pending_.size());
+
+      listener.dispatching_ = true;
+      server.disconnect();
+      server.open(listener);
+      assertEquals(6, listener.dispatched_.size());
+      assertTrue(server.pending_.isEmpty());
+   }
+}
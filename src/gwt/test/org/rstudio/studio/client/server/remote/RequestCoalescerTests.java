@@ -0,0 +1,115 @@
+/*
+ * RequestCoalescerTests.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.ArrayList;
+
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class RequestCoalescerTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   private static class RecordingCallback extends ServerRequestCallback<String>
+   {
+      @Override
+      public void onResponseReceived(String response)
+      {
+         responses.add(response);
+      }
+
+      @Override
+      public void onError(ServerError error)
+      {
+         errors++;
+      }
+
+      final ArrayList<String> responses = new ArrayList<>();
+      int errors = 0;
+   }
+
+   public void testLatestRequestWins()
+   {
+      RequestCoalescer coalescer = new RequestCoalescer();
+      RecordingCallback first = new RecordingCallback();
+      RecordingCallback second = new RecordingCallback();
+
+      RequestCoalescer.Request<String> firstRequest = coalescer.begin("completions", first);
+      RequestCoalescer.Request<String> secondRequest = coalescer.begin("completions", second);
+      assertTrue(firstRequest.cancelled());
+      assertFalse(secondRequest.cancelled());
+      assertEquals(1, coalescer.getSupersededCount());
+
+      // a response for the superseded request is dropped
+      firstRequest.onResponseReceived("stale");
+      secondRequest.onResponseReceived("fresh");
+      assertEquals(0, first.responses.size());
+      assertEquals(1, second.responses.size());
+      assertEquals("fresh", second.responses.get(0));
+   }
+
+   public void testChannelsAreIndependent()
+   {
+      RequestCoalescer coalescer = new RequestCoalescer();
+      RecordingCallback lint = new RecordingCallback();
+      RecordingCallback completions = new RecordingCallback();
+
+      RequestCoalescer.Request<String> lintRequest = coalescer.begin("lint/1", lint);
+      coalescer.begin("completions/1", completions);
+      assertFalse(lintRequest.cancelled());
+
+      // a completed request isn't cancelled by the next one
+      lintRequest.onResponseReceived("done");
+      coalescer.begin("lint/1", new RecordingCallback());
+      assertFalse(lintRequest.cancelled());
+      assertEquals(0, coalescer.getSupersededCount());
+   }
+
+   public void testTokensOrderRequestsOnChannel()
+   {
+      RequestCoalescer coalescer = new RequestCoalescer();
+      String first = coalescer.begin("args", new RecordingCallback()).getToken();
+      String second = coalescer.begin("args", new RecordingCallback()).getToken();
+
+      String channel = first.substring(0, first.lastIndexOf(':'));
+      assertEquals(channel, second.substring(0, second.lastIndexOf(':')));
+      assertTrue(channel.endsWith("/args"));
+      assertTrue(sequence(second) > sequence(first));
+   }
+
+   public void testCallerCancellation()
+   {
+      RequestCoalescer coalescer = new RequestCoalescer();
+      RecordingCallback callback = new RecordingCallback();
+      RequestCoalescer.Request<String> request = coalescer.begin("args", callback);
+
+      callback.cancel();
+      assertTrue(request.cancelled());
+      request.onResponseReceived("ignored");
+      assertEquals(0, callback.responses.size());
+   }
+
+   private static int sequence(String token)
+   {
+      return Integer.parseInt(token.substring(token.lastIndexOf(':') + 1));
+   }
+}
@@ -0,0 +1,164 @@
+/*
+ * ScopeTreeDamageTests.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class ScopeTreeDamageTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // A document whose rows record the row they had before any edits (or
+   // EDITED), and which reports its edits to the damage the way the editor does
+   private static class TestDocument
+   {
+      TestDocument(int rows, ScopeTreeDamage damage)
+      {
+         for (int i = 0; i < rows; i++)
+            rows_.add(i);
+         damage_ = damage;
+      }
+
+      // inserts text containing the given number of newlines within a row
+      void insert(int row, int newlines)
+      {
+         rows_.set(row, EDITED);
+         for (int i = 0; i < newlines; i++)
+            rows_.add(row + 1, EDITED);
+         damage_.onChange(true, row, row + newlines);
+      }
+
+      // removes text from within the start row to within the end row
+      void remove(int startRow, int endRow)
+      {
+         for (int i = startRow; i < endRow; i++)
+            rows_.remove(startRow + 1);
+         rows_.set(startRow, EDITED);
+         damage_.onChange(false, startRow, endRow);
+      }
+
+      // the original row of each current row that the damage says is unchanged
+      void check()
+      {
+         for (int row = 0; row < rows_.size(); row++)
+         {
+            if (!damage_.isUnchanged(row))
+               continue;
+
+            int original = row < damage_.getStartRow()
+                  ? row
+                  : row - damage_.getRowDelta();
+            assertEquals(original, (int) rows_.get(row));
+         }
+      }
+
+      final List<Integer> rows_ = new ArrayList<>();
+      private final ScopeTreeDamage damage_;
+
+      static final int EDITED = -1;
+   }
+
+   public void testNoChanges()
+   {
+      ScopeTreeDamage damage = new ScopeTreeDamage();
+      assertTrue(damage.isEmpty());
+      assertTrue(damage.isUnchanged(0));
+   }
+
+   public void testMultiLineInsert()
+   {
+      ScopeTreeDamage damage = new ScopeTreeDamage();
+      TestDocument doc = new TestDocument(10, damage);
+
+      // three rows inserted within row 2; rows 2 to 5 are now edited
+      doc.insert(2, 3);
+      assertEquals(2, damage.getStartRow());
+      assertEquals(5, damage.getEndRow());
+      assertEquals(3, damage.getRowDelta());
+      doc.check();
+
+      // a scope that began at row 3 now begins at row 6; the state before it
+      // is that of an inserted row, so isn't known ...
+      assertFalse(damage.isUnchanged(3 + damage.getRowDelta() - 1));
+
+      // ... while the state before a scope that began at row 8 is that of
+      // the row it followed before the edit
+      assertTrue(damage.isUnchanged(8 + damage.getRowDelta() - 1));
+      assertEquals(7, (int) doc.rows_.get(8 + damage.getRowDelta() - 1));
+   }
+
+   public void testMultiLineRemove()
+   {
+      ScopeTreeDamage damage = new ScopeTreeDamage();
+      TestDocument doc = new TestDocument(10, damage);
+
+      // rows 2 to 5 joined into row 2
+      doc.remove(2, 5);
+      assertEquals(2, damage.getStartRow());
+      assertEquals(2, damage.getEndRow());
+      assertEquals(-3, damage.getRowDelta());
+      doc.check();
+
+      // a scope that began at row 6 now begins at row 3, following the row
+      // the removal joined
+      assertFalse(damage.isUnchanged(6 + damage.getRowDelta() - 1));
+      assertTrue(damage.isUnchanged(8 + damage.getRowDelta() - 1));
+      assertEquals(7, (int) doc.rows_.get(8 + damage.getRowDelta() - 1));
+   }
+
+   public void testEditsBeforeAndAfterRange()
+   {
+      ScopeTreeDamage damage = new ScopeTreeDamage();
+      TestDocument doc = new TestDocument(20, damage);
+
+      doc.insert(10, 2);
+      doc.insert(2, 4);     // before the range, moving it down
+      doc.remove(14, 18);   // across the end of the range
+      doc.insert(doc.rows_.size() - 1, 1);
+      doc.check();
+      assertEquals(2, damage.getStartRow());
+      assertEquals(doc.rows_.size() - 1, damage.getEndRow());
+   }
+
+   public void testRandomEdits()
+   {
+      Random random = new Random(42);
+      for (int trial = 0; trial < 200; trial++)
+      {
+         ScopeTreeDamage damage = new ScopeTreeDamage();
+         TestDocument doc = new TestDocument(40, damage);
+
+         for (int edit = 0; edit < 10; edit++)
+         {
+            int rows = doc.rows_.size();
+            int row = random.nextInt(rows);
+            if (random.nextBoolean())
+               doc.remove(row, row + random.nextInt(Math.min(rows - row, 6)));
+            else
+               doc.insert(row, random.nextInt(6));
+
+            doc.check();
+         }
+      }
+   }
+}
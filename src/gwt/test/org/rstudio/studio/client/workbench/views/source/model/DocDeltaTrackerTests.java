@@ -0,0 +1,175 @@
+/*
+ * DocDeltaTrackerTests.java
+ *
+ * Copyright (C) 2022 by Posit Software, PBC
+ *
+ * Unless you have received this program directly from Posit Software pursuant
+ * to the terms of a commercial license agreement with Posit Software, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import java.util.Random;
+
+import com.google.gwt.junit.client.GWTTestCase;
+
+public class DocDeltaTrackerTests extends GWTTestCase
+{
+   @Override
+   public String getModuleName()
+   {
+      return "org.rstudio.studio.RStudioTests";
+   }
+
+   // A plain string document that reports its edits to a tracker the way
+   // the editor does
+   private static class TestDocument
+   {
+      TestDocument(String text, DocDeltaTracker tracker)
+      {
+         text_ = text;
+         tracker_ = tracker;
+      }
+
+      void insert(int index, String text)
+      {
+         text_ = text_.substring(0, index) + text + text_.substring(index);
+         int[] start = position(index);
+         int[] end = position(index + text.length());
+         tracker_.onChange(true, start[0], start[1], end[0], end[1], text.length());
+      }
+
+      void remove(int index, int length)
+      {
+         int[] start = position(index);
+         int[] end = position(index + length);
+         text_ = text_.substring(0, index) + text_.substring(index + length);
+         tracker_.onChange(false, start[0], start[1], end[0], end[1], length);
+      }
+
+      int[] position(int index)
+      {
+         int row = 0;
+         int lineStart = 0;
+         for (int i = 0; i < index; i++)
+         {
+            if (text_.charAt(i) == '\n')
+            {
+               row++;
+               lineStart = i + 1;
+            }
+         }
+         return new int[] { row, index - lineStart };
+      }
+
+      int index(int row, int column)
+      {
+         int index = 0;
+         for (int i = 0; i < row; i++)
+            index = text_.indexOf('\n', index) + 1;
+         return index + column;
+      }
+
+      // rebuilds the document from the saved text and the tracked region
+      String apply(String saved)
+      {
+         if (!tracker_.hasChanges())
+            return saved;
+
+         int start = index(tracker_.getStart().getRow(), tracker_.getStart().getColumn());
+         int end = index(tracker_.getEnd().getRow(), tracker_.getEnd().getColumn());
+         int suffix = text_.length() - end;
+         assertTrue(start <= end);
+         assertTrue(saved.length() - suffix >= start);
+         return saved.substring(0, start) +
+                text_.substring(start, end) +
+                saved.substring(saved.length() - suffix);
+      }
+
+      String text_;
+      private final DocDeltaTracker tracker_;
+   }
+
+   public void testNoChanges()
+   {
+      DocDeltaTracker tracker = new DocDeltaTracker();
+      assertFalse(tracker.isValid());
+      tracker.reset(10);
+      assertTrue(tracker.isValid());
+      assertFalse(tracker.hasChanges());
+   }
+
+   public void testSingleEdits()
+   {
+      String saved = "first line\nsecond line\nthird line";
+      DocDeltaTracker tracker = new DocDeltaTracker();
+      tracker.reset(saved.length());
+      TestDocument doc = new TestDocument(saved, tracker);
+
+      doc.insert(11, "inserted\n");
+      assertEquals(1, tracker.getStart().getRow());
+      assertEquals(0, tracker.getStart().getColumn());
+      assertEquals(2, tracker.getEnd().getRow());
+      assertEquals(0, tracker.getEnd().getColumn());
+      assertEquals(doc.text_, doc.apply(saved));
+      assertEquals(doc.text_.length(), tracker.getLength());
+   }
+
+   public void testEditsBeforeAndAfterRegion()
+   {
+      String saved = "aaaa\nbbbb\ncccc\ndddd\n";
+      DocDeltaTracker tracker = new DocDeltaTracker();
+      tracker.reset(saved.length());
+      TestDocument doc = new TestDocument(saved, tracker);
+
+      doc.insert(7, "XX");        // within "bbbb"
+      doc.insert(0, "\n\n");      // before the region, moving it down
+      doc.remove(16, 6);          // across the end of the region
+      doc.insert(doc.text_.length(), "eeee");
+      assertEquals(doc.text_, doc.apply(saved));
+      assertEquals(doc.text_.length(), tracker.getLength());
+   }
+
+   public void testRandomEdits()
+   {
+      Random random = new Random(42);
+      String alphabet = "ab\n";
+      for (int trial = 0; trial < 200; trial++)
+      {
+         StringBuilder initial = new StringBuilder();
+         for (int i = 0; i < 40; i++)
+            initial.append(alphabet.charAt(random.nextInt(alphabet.length())));
+         String saved = initial.toString();
+
+         DocDeltaTracker tracker = new DocDeltaTracker();
+         tracker.reset(saved.length());
+         TestDocument doc = new TestDocument(saved, tracker);
+
+         for (int edit = 0; edit < 10; edit++)
+         {
+            int length = doc.text_.length();
+            if (length > 0 && random.nextBoolean())
+            {
+               int index = random.nextInt(length);
+               doc.remove(index, random.nextInt(Math.min(length - index, 8) + 1));
+            }
+            else
+            {
+               StringBuilder text = new StringBuilder();
+               int count = 1 + random.nextInt(6);
+               for (int i = 0; i < count; i++)
+                  text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+               doc.insert(random.nextInt(length + 1), text.toString());
+            }
+
+            assertEquals(doc.text_, doc.apply(saved));
+            assertEquals(doc.text_.length(), tracker.getLength());
+         }
+      }
+   }
+}